@@ -0,0 +1,99 @@
+package com.notification.platform.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Publish cost of one in-app notification to a per-user destination, with {@code users} users subscribed
+ * (one session each): the simple broker's subscription registry vs. UserDestinationBroker's exact-destination index.
+ * Both send on the publishing thread (no outbound workers) into a counting outbound channel, so only the broker's
+ * lookup and message building are measured; run with {@code -t 8} to see the effect of concurrent publishers.
+ *
+ * Run with: ./gradlew jmh -Pjmh.includes=BrokerFanoutBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BrokerFanoutBenchmark {
+
+    @Param({"10000", "100000"})
+    public int users;
+
+    private final LongAdder delivered = new LongAdder();
+    private SimpleBrokerMessageHandler simpleBroker;
+    private UserDestinationBroker userDestinationBroker;
+    private Message<?>[] notifications;
+
+    @Setup
+    public void setUp() {
+        MessageChannel outbound = (message, timeout) -> {
+            delivered.increment();
+            return true;
+        };
+        simpleBroker = new SimpleBrokerMessageHandler(new ExecutorSubscribableChannel(), outbound,
+                new ExecutorSubscribableChannel(), List.of("/topic"));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        WebSocketSessionRegistry sessionRegistry = new WebSocketSessionRegistry(meterRegistry, GatewayNode.fixed(0),
+                1000, 512 * 1024, 10_000, BoundedWebSocketSessionDecorator.OverflowPolicy.DISCONNECT);
+        userDestinationBroker = new UserDestinationBroker(new ExecutorSubscribableChannel(), outbound,
+                new ExecutorSubscribableChannel(), sessionRegistry, meterRegistry, 0, 1);
+        simpleBroker.start();
+        userDestinationBroker.start();
+
+        byte[] payload = "{\"message\":\"Your order #A-1029384 has shipped\"}".getBytes(StandardCharsets.UTF_8);
+        notifications = new Message<?>[users];
+        for (int i = 0; i < users; i++) {
+            String destination = "/topic/notifications/user-" + i;
+            subscribe(simpleBroker, "session-" + i, destination);
+            subscribe(userDestinationBroker, "session-" + i, destination);
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setDestination(destination);
+            notifications[i] = MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        simpleBroker.stop();
+        userDestinationBroker.stop();
+    }
+
+    @Benchmark
+    public void simpleBroker() {
+        simpleBroker.handleMessage(nextNotification());
+    }
+
+    @Benchmark
+    public void userDestinationBroker() {
+        userDestinationBroker.handleMessage(nextNotification());
+    }
+
+    private Message<?> nextNotification() {
+        return notifications[ThreadLocalRandom.current().nextInt(notifications.length)];
+    }
+
+    private static void subscribe(AbstractBrokerMessageHandler broker, String sessionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId("sub-0");
+        accessor.setDestination(destination);
+        broker.handleMessage(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+    }
+}
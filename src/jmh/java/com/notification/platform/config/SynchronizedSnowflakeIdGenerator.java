@@ -0,0 +1,56 @@
+package com.notification.platform.config;
+
+/**
+ * Benchmark baseline: the monitor-based generator that {@link SnowflakeIdGenerator} replaced.
+ */
+public class SynchronizedSnowflakeIdGenerator {
+
+    private static final long CUSTOM_EPOCH = 1767225600000L;
+
+    private static final long MACHINE_ID_BITS = 10L;
+    private static final long SEQUENCE_BITS = 12L;
+
+    private static final long SEQUENCE_MASK = ~(-1L << SEQUENCE_BITS);
+
+    private static final long MACHINE_ID_SHIFT = SEQUENCE_BITS;
+    private static final long TIMESTAMP_LEFT_SHIFT = SEQUENCE_BITS + MACHINE_ID_BITS;
+
+    private final long machineId;
+    private long sequence = 0L;
+    private long lastTimestamp = -1L;
+
+    public SynchronizedSnowflakeIdGenerator(long machineId) {
+        this.machineId = machineId;
+    }
+
+    public synchronized long nextId() {
+        long currentTimestamp = System.currentTimeMillis();
+
+        if (currentTimestamp < lastTimestamp) {
+            throw new IllegalStateException("Clock moved backwards");
+        }
+
+        if (currentTimestamp == lastTimestamp) {
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0) {
+                currentTimestamp = tilNextMillis(lastTimestamp);
+            }
+        } else {
+            sequence = 0L;
+        }
+
+        lastTimestamp = currentTimestamp;
+
+        return ((currentTimestamp - CUSTOM_EPOCH) << TIMESTAMP_LEFT_SHIFT)
+                | (machineId << MACHINE_ID_SHIFT)
+                | sequence;
+    }
+
+    private long tilNextMillis(long lastTimestamp) {
+        long timestamp = System.currentTimeMillis();
+        while (timestamp <= lastTimestamp) {
+            timestamp = System.currentTimeMillis();
+        }
+        return timestamp;
+    }
+}
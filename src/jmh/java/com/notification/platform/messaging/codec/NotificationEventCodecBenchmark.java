@@ -0,0 +1,107 @@
+package com.notification.platform.messaging.codec;
+
+import com.notification.platform.domain.enums.NotificationChannel;
+import com.notification.platform.domain.enums.NotificationPriority;
+import com.notification.platform.messaging.event.EventPayload;
+import com.notification.platform.messaging.event.NotificationRequestEvent;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binary codec vs. the previous JsonSerializer/JsonDeserializer path for a typical templated event.
+ * Record size (value + type headers) for both formats is printed once per fork, since JMH only measures time.
+ *
+ * Run with: ./gradlew jmh -Pjmh.includes=NotificationEventCodecBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotificationEventCodecBenchmark {
+
+    private static final String TOPIC = "notification.email";
+
+    private NotificationRequestEvent event;
+    private JsonSerializer<Object> jsonSerializer;
+    private JsonDeserializer<Object> jsonDeserializer;
+    private RecordHeaders jsonHeaders;
+    private byte[] jsonBytes;
+    private byte[] binaryBytes;
+
+    @Setup
+    public void setUp() {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("message", "Your order #A-1029384 has shipped and will arrive on Thursday.");
+        payload.put("templateId", "order-shipped-v3");
+        payload.put("orderId", 1029384L);
+        payload.put("amount", 129.95);
+        payload.put("marketing", false);
+        payload.put("items", List.of(
+                Map.of("sku", "SKU-1001", "quantity", 2),
+                Map.of("sku", "SKU-2002", "quantity", 1)));
+
+        event = NotificationRequestEvent.builder()
+                .requestId(7216493580123456L)
+                .recipientId("user-4815162342")
+                .channel(NotificationChannel.EMAIL)
+                .targetAddress("someone@example.com")
+                .priority(NotificationPriority.NORMAL)
+                .payload(EventPayload.of(payload))
+                .build();
+
+        jsonSerializer = new JsonSerializer<>();
+        jsonDeserializer = new JsonDeserializer<>();
+        jsonDeserializer.configure(Map.of(JsonDeserializer.TRUSTED_PACKAGES, "com.notification.platform.messaging.event"), false);
+
+        jsonHeaders = new RecordHeaders();
+        jsonBytes = jsonSerializer.serialize(TOPIC, jsonHeaders, event);
+        binaryBytes = NotificationEventCodec.encode(event);
+
+        int headerBytes = 0;
+        for (Header header : jsonHeaders) {
+            headerBytes += header.key().length() + header.value().length;
+        }
+        System.out.printf("%nbytes/record  json=%d (+%d type header)  binary=%d%n", jsonBytes.length, headerBytes, binaryBytes.length);
+    }
+
+    @Benchmark
+    public byte[] jsonSerialize() {
+        return jsonSerializer.serialize(TOPIC, new RecordHeaders(), event);
+    }
+
+    @Benchmark
+    public Object jsonDeserialize() {
+        return jsonDeserializer.deserialize(TOPIC, jsonHeaders, jsonBytes);
+    }
+
+    @Benchmark
+    public byte[] binarySerialize() {
+        return NotificationEventCodec.encode(event);
+    }
+
+    @Benchmark
+    public Object binaryDeserialize() {
+        return NotificationEventCodec.decode(binaryBytes);
+    }
+
+    /** One routing hop (dispatcher / retry topic): read the record and write it again without touching the payload */
+    @Benchmark
+    public byte[] jsonRoutingHop() {
+        return jsonSerializer.serialize(TOPIC, new RecordHeaders(), jsonDeserializer.deserialize(TOPIC, jsonHeaders, jsonBytes));
+    }
+
+    @Benchmark
+    public byte[] binaryRoutingHop() {
+        return NotificationEventCodec.encode(NotificationEventCodec.decode(binaryBytes));
+    }
+}
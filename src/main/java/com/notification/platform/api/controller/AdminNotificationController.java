@@ -1,11 +1,16 @@
 package com.notification.platform.api.controller;
 
 import com.notification.platform.api.dto.request.AdminRetryRequest;
+import com.notification.platform.api.dto.response.DeliveryStatusResponse;
 import com.notification.platform.service.AdminNotificationService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/v1/admin/notifications")
 @RequiredArgsConstructor
@@ -13,12 +18,21 @@ public class AdminNotificationController {
 
     private final AdminNotificationService adminNotificationService;
 
+    /**
+     * Answers once the re-published event has been acked by the broker: 202 when it was, 503 when the send failed
+     * and the retry can be triggered again. The request thread is released while waiting.
+     */
     @PostMapping("/{requestId}/retry")
-    public ResponseEntity<Void> retry(
+    public CompletableFuture<ResponseEntity<Void>> retry(
             @PathVariable Long requestId,
             @RequestBody(required = false) AdminRetryRequest request) {
-        
-        adminNotificationService.triggerRetry(requestId, request);
-        return ResponseEntity.accepted().build();
+
+        return adminNotificationService.triggerRetry(requestId, request)
+                .thenApply(published -> ResponseEntity.status(published ? HttpStatus.ACCEPTED : HttpStatus.SERVICE_UNAVAILABLE).<Void>build());
+    }
+
+    @GetMapping("/{requestId}/deliveries")
+    public ResponseEntity<List<DeliveryStatusResponse>> deliveries(@PathVariable Long requestId) {
+        return ResponseEntity.ok(adminNotificationService.getDeliveries(requestId));
     }
 }
@@ -1,6 +1,8 @@
 package com.notification.platform.api.controller;
 
+import com.notification.platform.api.dto.request.NotificationBatchSendRequest;
 import com.notification.platform.api.dto.request.NotificationSendRequest;
+import com.notification.platform.api.dto.response.NotificationBatchSendResponse;
 import com.notification.platform.api.dto.response.NotificationSendResponse;
 import com.notification.platform.service.NotificationService;
 import jakarta.validation.Valid;
@@ -23,4 +25,10 @@ public class NotificationController {
         NotificationSendResponse response = notificationService.triggerNotification(request);
         return ResponseEntity.ok(response);
     }
+
+    @PostMapping("/batch")
+    public ResponseEntity<NotificationBatchSendResponse> sendBatch(@Valid @RequestBody NotificationBatchSendRequest request) {
+        NotificationBatchSendResponse response = notificationService.triggerNotifications(request.getRequests());
+        return ResponseEntity.ok(response);
+    }
 }
@@ -0,0 +1,21 @@
+package com.notification.platform.api.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Builder
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+public class NotificationBatchSendRequest {
+
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    // Items are validated one by one in the service so that a single bad item doesn't fail the whole batch
+    @NotEmpty(message = "Batch cannot be empty")
+    @Size(max = MAX_BATCH_SIZE, message = "Batch cannot contain more than " + MAX_BATCH_SIZE + " requests")
+    private List<NotificationSendRequest> requests;
+}
@@ -1,6 +1,7 @@
 package com.notification.platform.api.dto.request;
 
 import com.notification.platform.domain.enums.NotificationChannel;
+import com.notification.platform.domain.enums.NotificationPriority;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
@@ -28,8 +29,9 @@ public class NotificationSendRequest {
 
     private String targetAddress; // Optional: email address or device token
 
+    @NotNull(message = "Priority is required")
     @Builder.Default
-    private String priority = "NORMAL"; // HIGH, NORMAL
+    private NotificationPriority priority = NotificationPriority.NORMAL;
 
     @NotEmpty(message = "Payload cannot be empty")
     private Map<String, Object> payload;
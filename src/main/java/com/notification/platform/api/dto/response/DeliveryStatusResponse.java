@@ -0,0 +1,39 @@
+package com.notification.platform.api.dto.response;
+
+import com.notification.platform.domain.enums.DeliveryStatus;
+import com.notification.platform.domain.enums.NotificationChannel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeliveryStatusResponse {
+
+    private Long deliveryLogId;
+    private NotificationChannel channel;
+    private String targetAddress;
+    private DeliveryStatus status; // Current status: the delivery_log_status projection, else the initial one
+    private String errorMessage;
+    private OffsetDateTime updatedAt;
+    private List<Transition> history; // Oldest first
+
+    @Getter
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Transition {
+
+        private DeliveryStatus status;
+        private String errorMessage;
+        private OffsetDateTime occurredAt;
+
+    }
+}
@@ -0,0 +1,22 @@
+package com.notification.platform.api.dto.response;
+
+import com.notification.platform.domain.enums.NotificationIngressStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationBatchItemResponse {
+
+    private int index; // Position of the item in the original batch
+    private String idempotencyKey;
+    private Long requestId;
+    private NotificationIngressStatus status; // ACCEPTED, DUPLICATE or INVALID
+    private String errorMessage;
+
+}
@@ -0,0 +1,22 @@
+package com.notification.platform.api.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationBatchSendResponse {
+
+    private int acceptedCount;
+    private int duplicateCount;
+    private int invalidCount;
+    private List<NotificationBatchItemResponse> results;
+
+}
@@ -0,0 +1,348 @@
+package com.notification.platform.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Thread-safe session with a bounded outbound queue, so one slow client can neither pin gateway memory nor hold up
+ * the threads sending to other sessions.
+ *
+ * Sending only queues the message and returns: the queue is drained to the transport by one flush at a time on the
+ * flush executor, so no caller, in particular an outbound worker of UserDestinationBroker shared by many sessions, ever
+ * waits on a stalled client. The queue is bounded by message count and bytes; when either limit is exceeded the
+ * {@link OverflowPolicy} applies. A write that has been blocked for longer than the send time limit always disconnects
+ * the session, since dropping queued messages cannot unblock the transport. That limit is checked on every new
+ * message and by the watchdog of WebSocketSessionRegistry, so a stalled session is closed even if nothing else is
+ * sent to it.
+ *
+ * Disconnecting closes the transport with SESSION_NOT_RELIABLE; the STOMP handler then publishes the session's
+ * DISCONNECT, which marks it offline (WebSocketPresenceInterceptor), so the dispatcher falls back to email for the user's
+ * next notifications. A message sent with a {@link Receipt} reports whether the transport wrote it or it was dropped,
+ * discarded or failed, so its sender can settle the delivery (InAppAdapter falls back to email for the ones no
+ * session received).
+ *
+ * This is the innermost decorator, right above the transport. Messages from Spring's outbound channel first pass the
+ * ConcurrentWebSocketSessionDecorator that SubProtocolWebSocketHandler wraps every session in; since sending to this
+ * one never blocks, that outer buffer stays empty. UserDestinationBroker's direct sends only go through this one.
+ */
+@Slf4j
+public class BoundedWebSocketSessionDecorator extends WebSocketSessionDecorator {
+
+    public enum OverflowPolicy {
+        /**
+         * Evict the oldest queued messages until the queue is within its limits; their receipts report them lost.
+         */
+        DROP_OLDEST,
+        /**
+         * Merge consecutive queued messages of the same type (text or binary) into one WebSocket message. STOMP
+         * frames are NUL-terminated, so clients still decode them one by one; this bounds the message count, and a
+         * queue still over the byte limit after merging is disconnected.
+         */
+        COALESCE,
+        /**
+         * Close the session so the user's next notifications fall back to the other channels. The queued messages
+         * are discarded and their receipts report them lost.
+         */
+        DISCONNECT
+    }
+
+    /**
+     * Outcome of one sent message: exactly one of the methods is called, on the thread that settled it.
+     */
+    public interface Receipt {
+
+        /** The transport has written the message */
+        void written();
+
+        /** The message was evicted, discarded with the queue or failed to be written */
+        void lost();
+    }
+
+    public record Limits(int maxQueuedMessages, int bufferSizeLimit, int sendTimeLimitMs, OverflowPolicy policy) {
+    }
+
+    /** A queued message and the receipts of every message merged into it */
+    private record Queued(WebSocketMessage<?> message, List<Receipt> receipts) {
+
+        int length() {
+            return message.getPayloadLength();
+        }
+    }
+
+    public interface OverflowListener {
+
+        /**
+         * @param outcome  {@link #DROPPED}, {@link #COALESCED} or {@link #DISCARDED}
+         * @param messages the number of queued messages removed
+         */
+        void evicted(String outcome, int messages);
+
+        /**
+         * @param reason {@link #BUFFER_LIMIT}, {@link #SEND_TIME_LIMIT} or {@link #SEND_FAILED}
+         */
+        void disconnected(String reason);
+    }
+
+    static final String DROPPED = "dropped";
+    static final String COALESCED = "coalesced";
+    static final String DISCARDED = "discarded";
+    static final String BUFFER_LIMIT = "buffer-limit";
+    static final String SEND_TIME_LIMIT = "send-time-limit";
+    static final String SEND_FAILED = "send-failed";
+
+    private final Limits limits;
+    private final OverflowListener listener;
+    private final Executor flushExecutor;
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private final AtomicBoolean closing = new AtomicBoolean();
+
+    // Guarded by itself
+    private final Deque<Queued> queue = new ArrayDeque<>();
+    private int queuedBytes;
+
+    private volatile long sendStartTime;
+
+    public BoundedWebSocketSessionDecorator(WebSocketSession delegate, Limits limits, OverflowListener listener,
+                                            Executor flushExecutor) {
+        super(delegate);
+        this.limits = limits;
+        this.listener = listener;
+        this.flushExecutor = flushExecutor;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        sendMessage(message, null);
+    }
+
+    /**
+     * Queues the message like {@link #sendMessage(WebSocketMessage)} and reports its outcome to {@code receipt}.
+     */
+    public void sendMessage(WebSocketMessage<?> message, Receipt receipt) {
+        List<Receipt> lost = new ArrayList<>();
+        String overflow;
+        synchronized (queue) {
+            // Checked under the lock: disconnect drains the queue under it after setting the flag
+            if (closing.get()) {
+                overflow = null;
+                if (receipt != null) {
+                    lost.add(receipt);
+                }
+            } else {
+                queue.addLast(new Queued(message, receipt == null ? List.of() : List.of(receipt)));
+                queuedBytes += message.getPayloadLength();
+                overflow = applyPolicy(lost);
+            }
+        }
+        // Receipts are settled outside the lock: their senders may do real work on them
+        lost.forEach(Receipt::lost);
+        if (closing.get()) {
+            return;
+        }
+        if (overflow != null) {
+            disconnect(overflow);
+            return;
+        }
+        scheduleFlush();
+    }
+
+    /**
+     * Disconnects the session if its current transport write has been blocked for longer than the send time limit.
+     */
+    public void checkSendTimeLimit() {
+        long started = sendStartTime;
+        if (started > 0 && System.currentTimeMillis() - started > limits.sendTimeLimitMs()) {
+            disconnect(SEND_TIME_LIMIT);
+        }
+    }
+
+    /**
+     * Discards whatever is still queued once the connection has closed, whoever closed it, so no receipt is left
+     * pending. Messages sent afterwards are reported lost right away.
+     */
+    public void connectionClosed() {
+        if (closing.compareAndSet(false, true)) {
+            discardQueued();
+        }
+    }
+
+    public int getQueuedMessages() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    public int getQueuedBytes() {
+        synchronized (queue) {
+            return queuedBytes;
+        }
+    }
+
+    private void scheduleFlush() {
+        if (!flushing.compareAndSet(false, true)) {
+            // The running flush picks the message up; only check that its write isn't stuck
+            checkSendTimeLimit();
+            return;
+        }
+        try {
+            flushExecutor.execute(this::flush);
+        } catch (RejectedExecutionException e) {
+            flushing.set(false);
+            log.debug("Not flushing WebSocket session {}: the gateway is shutting down", getId());
+        }
+    }
+
+    private void flush() {
+        Queued next = null;
+        try {
+            while (!closing.get()) {
+                synchronized (queue) {
+                    next = queue.pollFirst();
+                    if (next == null) {
+                        break;
+                    }
+                    queuedBytes -= next.length();
+                }
+                sendStartTime = System.currentTimeMillis();
+                getDelegate().sendMessage(next.message());
+                sendStartTime = 0;
+                next.receipts().forEach(Receipt::written);
+                next = null;
+            }
+        } catch (Exception e) {
+            if (next != null) {
+                next.receipts().forEach(Receipt::lost);
+            }
+            // A write cut short by closing the session for a limit needs no second disconnect
+            if (!closing.get()) {
+                log.warn("Failed to send to WebSocket session {}", getId(), e);
+                disconnect(SEND_FAILED);
+            }
+        } finally {
+            sendStartTime = 0;
+            flushing.set(false);
+        }
+        // A message queued after the last poll, while the flag was still set, has nobody else to flush it
+        if (!closing.get() && getQueuedMessages() > 0) {
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * Called with the queue lock held.
+     *
+     * @param lost collects the receipts of evicted messages
+     * @return the disconnect reason if the session has to be closed
+     */
+    private String applyPolicy(List<Receipt> lost) {
+        if (!overLimit()) {
+            return null;
+        }
+        switch (limits.policy()) {
+            case DROP_OLDEST -> {
+                int dropped = 0;
+                while (overLimit() && !queue.isEmpty()) {
+                    Queued evicted = queue.pollFirst();
+                    queuedBytes -= evicted.length();
+                    lost.addAll(evicted.receipts());
+                    dropped++;
+                }
+                listener.evicted(DROPPED, dropped);
+                return null;
+            }
+            case COALESCE -> {
+                coalesce();
+                return overLimit() ? BUFFER_LIMIT : null;
+            }
+            default -> {
+                return BUFFER_LIMIT;
+            }
+        }
+    }
+
+    private void coalesce() {
+        Deque<Queued> coalesced = new ArrayDeque<>(queue.size());
+        int merged = 0;
+        for (Queued queued : queue) {
+            Queued previous = coalesced.peekLast();
+            WebSocketMessage<?> mergedMessage = previous == null ? null : merge(previous.message(), queued.message());
+            if (mergedMessage != null) {
+                List<Receipt> receipts = new ArrayList<>(previous.receipts());
+                receipts.addAll(queued.receipts());
+                coalesced.pollLast();
+                coalesced.addLast(new Queued(mergedMessage, receipts));
+                merged++;
+            } else {
+                coalesced.addLast(queued);
+            }
+        }
+        queue.clear();
+        queue.addAll(coalesced);
+        if (merged > 0) {
+            listener.evicted(COALESCED, merged);
+        }
+    }
+
+    /**
+     * @return both messages as one, or null if they are of different types
+     */
+    private static WebSocketMessage<?> merge(WebSocketMessage<?> previous, WebSocketMessage<?> next) {
+        if (previous instanceof TextMessage first && next instanceof TextMessage second) {
+            return new TextMessage(first.getPayload() + second.getPayload());
+        }
+        if (previous instanceof BinaryMessage first && next instanceof BinaryMessage second) {
+            // Duplicates: the payloads may be read-only views shared with other sessions
+            ByteBuffer bytes = ByteBuffer.allocate(first.getPayloadLength() + second.getPayloadLength());
+            bytes.put(first.getPayload().duplicate()).put(second.getPayload().duplicate()).flip();
+            return new BinaryMessage(bytes);
+        }
+        return null;
+    }
+
+    private boolean overLimit() {
+        return queue.size() > limits.maxQueuedMessages() || queuedBytes > limits.bufferSizeLimit();
+    }
+
+    private void disconnect(String reason) {
+        if (!closing.compareAndSet(false, true)) {
+            return;
+        }
+        int discarded = discardQueued();
+        listener.disconnected(reason);
+        log.warn("Disconnecting slow WebSocket session {} ({}, {} queued messages discarded)", getId(), reason, discarded);
+        try {
+            getDelegate().close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (Exception e) {
+            log.warn("Failed to close slow WebSocket session {}", getId(), e);
+        }
+    }
+
+    private int discardQueued() {
+        int discarded;
+        List<Receipt> lost = new ArrayList<>();
+        synchronized (queue) {
+            discarded = queue.size();
+            queue.forEach(queued -> lost.addAll(queued.receipts()));
+            queue.clear();
+            queuedBytes = 0;
+        }
+        lost.forEach(Receipt::lost);
+        listener.evicted(DISCARDED, discarded);
+        return discarded;
+    }
+}
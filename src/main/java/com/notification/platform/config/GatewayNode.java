@@ -0,0 +1,18 @@
+package com.notification.platform.config;
+
+/**
+ * Identity of this in-app gateway instance: a node slot in {@code [0, node-slots)}.
+ * The slot doubles as the partition of the in-app topics this instance consumes, and presence records it for
+ * every session held here, so the dispatcher can send a user's in-app events straight to the right instance.
+ */
+public interface GatewayNode {
+
+    int slot();
+
+    /**
+     * A statically assigned slot (local runs, tests).
+     */
+    static GatewayNode fixed(int slot) {
+        return () -> slot;
+    }
+}
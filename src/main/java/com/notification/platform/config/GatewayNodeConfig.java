@@ -0,0 +1,49 @@
+package com.notification.platform.config;
+
+import com.notification.platform.messaging.priority.NotificationTopics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.KafkaAdmin;
+
+import java.time.Duration;
+
+/**
+ * Node affinity for in-app delivery: every gateway instance owns one node slot, and the in-app topics have one
+ * partition per slot. The bean is named {@code gatewayNode} so listeners can resolve {@code #{@gatewayNode.slot()}}.
+ */
+@Configuration
+public class GatewayNodeConfig {
+
+    @Bean(name = "gatewayNode", initMethod = "start", destroyMethod = "release")
+    @ConditionalOnProperty(name = "notification.gateway.lease.enabled", havingValue = "true", matchIfMissing = true)
+    public RedisGatewayNodeLease redisGatewayNodeLease(
+            StringRedisTemplate redisTemplate,
+            @Value("${notification.gateway.node-slots:16}") int nodeSlots,
+            @Value("${notification.gateway.lease.ttl-ms:30000}") long ttlMs,
+            @Value("${notification.gateway.lease.renew-interval-ms:10000}") long renewIntervalMs) {
+        return new RedisGatewayNodeLease(redisTemplate, nodeSlots, Duration.ofMillis(ttlMs), Duration.ofMillis(renewIntervalMs));
+    }
+
+    @Bean(name = "gatewayNode")
+    @ConditionalOnProperty(name = "notification.gateway.lease.enabled", havingValue = "false")
+    public GatewayNode fixedGatewayNode(@Value("${notification.gateway.node-slot:0}") int slot) {
+        return GatewayNode.fixed(slot);
+    }
+
+    /**
+     * One partition per node slot on both lanes; KafkaAdmin adds partitions to topics that already exist.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "notification.gateway.create-topics", havingValue = "true", matchIfMissing = true)
+    public KafkaAdmin.NewTopics inAppTopics(@Value("${notification.gateway.node-slots:16}") int nodeSlots) {
+        String normal = NotificationTopics.INAPP;
+        String high = NotificationTopics.INAPP + NotificationTopics.HIGH_SUFFIX;
+        return new KafkaAdmin.NewTopics(
+                TopicBuilder.name(normal).partitions(nodeSlots).build(),
+                TopicBuilder.name(high).partitions(nodeSlots).build());
+    }
+}
@@ -0,0 +1,48 @@
+package com.notification.platform.config;
+
+import com.notification.platform.messaging.priority.PriorityKafkaTemplates;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+
+import java.util.Map;
+
+/**
+ * Both templates share Boot's producer settings (spring.kafka.producer) and only override batching:
+ * HIGH sends immediately, NORMAL lingers to build large compressed batches.
+ */
+@Configuration
+public class KafkaProducerConfig {
+
+    @Bean
+    @Primary
+    public KafkaTemplate<String, Object> kafkaTemplate(
+            ProducerFactory<String, Object> producerFactory,
+            @Value("${notification.lanes.normal.linger-ms:20}") int lingerMs,
+            @Value("${notification.lanes.normal.batch-size:262144}") int batchSize) {
+        return new KafkaTemplate<>(producerFactory, Map.of(
+                ProducerConfig.LINGER_MS_CONFIG, lingerMs,
+                ProducerConfig.BATCH_SIZE_CONFIG, batchSize));
+    }
+
+    @Bean
+    public KafkaTemplate<String, Object> highPriorityKafkaTemplate(
+            ProducerFactory<String, Object> producerFactory,
+            @Value("${notification.lanes.high.batch-size:16384}") int batchSize) {
+        return new KafkaTemplate<>(producerFactory, Map.of(
+                ProducerConfig.LINGER_MS_CONFIG, 0,
+                ProducerConfig.BATCH_SIZE_CONFIG, batchSize));
+    }
+
+    @Bean
+    public PriorityKafkaTemplates priorityKafkaTemplates(
+            @Qualifier("kafkaTemplate") KafkaTemplate<String, Object> kafkaTemplate,
+            @Qualifier("highPriorityKafkaTemplate") KafkaTemplate<String, Object> highPriorityKafkaTemplate) {
+        return new PriorityKafkaTemplates(kafkaTemplate, highPriorityKafkaTemplate);
+    }
+}
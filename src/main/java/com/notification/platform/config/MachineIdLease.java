@@ -0,0 +1,29 @@
+package com.notification.platform.config;
+
+/**
+ * Ownership of a Snowflake machine id (ADR-03).
+ * {@link SnowflakeIdGenerator} refuses to issue IDs while the lease is not valid.
+ */
+public interface MachineIdLease {
+
+    long machineId();
+
+    boolean isValid();
+
+    /**
+     * A lease that never expires, for statically assigned machine ids (local runs, tests).
+     */
+    static MachineIdLease fixed(long machineId) {
+        return new MachineIdLease() {
+            @Override
+            public long machineId() {
+                return machineId;
+            }
+
+            @Override
+            public boolean isValid() {
+                return true;
+            }
+        };
+    }
+}
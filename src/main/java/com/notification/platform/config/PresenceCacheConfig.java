@@ -0,0 +1,26 @@
+package com.notification.platform.config;
+
+import com.notification.platform.dispatcher.CachingPresenceManager;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Subscribes the presence near cache to the invalidations broadcast by every instance on connect/disconnect.
+ */
+@Configuration
+@ConditionalOnProperty(name = "notification.presence.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class PresenceCacheConfig {
+
+    @Bean
+    public RedisMessageListenerContainer presenceInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                               CachingPresenceManager presenceManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(presenceManager, new ChannelTopic(CachingPresenceManager.INVALIDATION_CHANNEL));
+        return container;
+    }
+}
@@ -0,0 +1,121 @@
+package com.notification.platform.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leases a free gateway node slot from Redis, like {@link RedisMachineIdLease} does for Snowflake machine ids.
+ * The slot is fixed for the lifetime of the instance: its in-app listeners are assigned to that partition at startup,
+ * so a lost lease is re-claimed for the same slot instead of switching to another one.
+ * Like the machine id lease, it is renewed on its own thread so blocking @Scheduled jobs cannot let it expire.
+ */
+@Slf4j
+public class RedisGatewayNodeLease implements GatewayNode {
+
+    private static final String KEY_PREFIX = "gateway:node-slot:";
+
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then " +
+            "  return redis.call('PEXPIRE', KEYS[1], ARGV[2]); " +
+            "end; " +
+            "return 0;", Long.class);
+
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then " +
+            "  return redis.call('DEL', KEYS[1]); " +
+            "end; " +
+            "return 0;", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final int slotCount;
+    private final Duration ttl;
+    private final Duration renewInterval;
+    private final String owner = UUID.randomUUID().toString();
+    private final ScheduledExecutorService renewals = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("gateway-lease-renewal").daemon().factory());
+
+    private volatile int slot = -1;
+
+    public RedisGatewayNodeLease(StringRedisTemplate redisTemplate, int slotCount, Duration ttl, Duration renewInterval) {
+        this.redisTemplate = redisTemplate;
+        this.slotCount = slotCount;
+        this.ttl = ttl;
+        this.renewInterval = renewInterval;
+    }
+
+    @Override
+    public int slot() {
+        return slot;
+    }
+
+    /**
+     * Claims the first free slot, probing from a random offset so that pods starting together don't race for the same keys.
+     */
+    public void acquire() {
+        int offset = ThreadLocalRandom.current().nextInt(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            int candidate = (offset + i) % slotCount;
+            if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(KEY_PREFIX + candidate, owner, ttl))) {
+                slot = candidate;
+                log.info("Leased gateway node slot {}", candidate);
+                return;
+            }
+        }
+        throw new IllegalStateException("No free gateway node slot left among " + slotCount
+                + "; raise notification.gateway.node-slots (and the in-app topic partitions) to add instances");
+    }
+
+    /**
+     * Acquires a slot and starts renewing it every renew interval.
+     */
+    public void start() {
+        acquire();
+        renewals.scheduleWithFixedDelay(this::renew, renewInterval.toMillis(), renewInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void renew() {
+        int current = slot;
+        if (current < 0) {
+            return;
+        }
+
+        try {
+            String key = KEY_PREFIX + current;
+            Long renewed = redisTemplate.execute(RENEW_SCRIPT, List.of(key), owner, String.valueOf(ttl.toMillis()));
+            if (renewed != null && renewed == 1L) {
+                return;
+            }
+            if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, owner, ttl))) {
+                log.warn("Lease on gateway node slot {} had expired, re-claimed it", current);
+                return;
+            }
+            // Two instances now consume the same partition and record the same slot; one of them must be restarted
+            log.error("Gateway node slot {} was taken over by another instance", current);
+        } catch (Exception e) {
+            log.warn("Failed to renew the lease on gateway node slot {}", current, e);
+        }
+    }
+
+    public void release() {
+        renewals.shutdownNow();
+        int current = slot;
+        if (current < 0) {
+            return;
+        }
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(KEY_PREFIX + current), owner);
+            log.info("Released gateway node slot {}", current);
+        } catch (Exception e) {
+            log.warn("Failed to release gateway node slot {}; it will expire after {}", current, ttl, e);
+        }
+    }
+}
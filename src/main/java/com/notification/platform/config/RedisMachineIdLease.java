@@ -0,0 +1,146 @@
+package com.notification.platform.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leases a free Snowflake machine id (0-1023) from Redis so autoscaled pods need no manual assignment.
+ * The lease is considered valid only until a local deadline that is a safety margin shorter than the Redis TTL,
+ * so this instance stops issuing IDs before another pod could possibly take over the same machine id.
+ *
+ * Renewals run on a thread of their own rather than on the shared @Scheduled pool: a renewal delayed behind a
+ * blocking job for longer than the safety margin would halt ID generation.
+ */
+@Slf4j
+public class RedisMachineIdLease implements MachineIdLease {
+
+    private static final String KEY_PREFIX = "snowflake:machine-id:";
+    private static final int MACHINE_ID_COUNT = 1024;
+
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then " +
+            "  return redis.call('PEXPIRE', KEYS[1], ARGV[2]); " +
+            "end; " +
+            "return 0;", Long.class);
+
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then " +
+            "  return redis.call('DEL', KEYS[1]); " +
+            "end; " +
+            "return 0;", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration ttl;
+    private final Duration safetyMargin;
+    private final Duration renewInterval;
+    private final String owner = UUID.randomUUID().toString();
+    private final ScheduledExecutorService renewals = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("snowflake-lease-renewal").daemon().factory());
+
+    private volatile long machineId = -1L;
+    private volatile long validUntil = 0L;
+
+    public RedisMachineIdLease(StringRedisTemplate redisTemplate, Duration ttl, Duration safetyMargin, Duration renewInterval) {
+        if (safetyMargin.compareTo(ttl) >= 0) {
+            throw new IllegalArgumentException("Lease safety margin must be shorter than the lease TTL");
+        }
+        this.redisTemplate = redisTemplate;
+        this.ttl = ttl;
+        this.safetyMargin = safetyMargin;
+        this.renewInterval = renewInterval;
+    }
+
+    @Override
+    public long machineId() {
+        return machineId;
+    }
+
+    @Override
+    public boolean isValid() {
+        return machineId >= 0 && System.currentTimeMillis() < validUntil;
+    }
+
+    /**
+     * Claims the first free machine id, probing from a random offset so that pods starting together don't race for the same keys.
+     */
+    public void acquire() {
+        int offset = ThreadLocalRandom.current().nextInt(MACHINE_ID_COUNT);
+        for (int i = 0; i < MACHINE_ID_COUNT; i++) {
+            int candidate = (offset + i) % MACHINE_ID_COUNT;
+            long requestedAt = System.currentTimeMillis();
+            if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(KEY_PREFIX + candidate, owner, ttl))) {
+                machineId = candidate;
+                validUntil = requestedAt + ttl.toMillis() - safetyMargin.toMillis();
+                log.info("Leased Snowflake machine id {}", candidate);
+                return;
+            }
+        }
+        throw new IllegalStateException("No free Snowflake machine id left among " + MACHINE_ID_COUNT);
+    }
+
+    /**
+     * Acquires a machine id and starts renewing it every renew interval.
+     */
+    public void start() {
+        acquire();
+        renewals.scheduleWithFixedDelay(() -> {
+            try {
+                renew();
+            } catch (Exception e) {
+                // An exception would cancel the schedule; the next run re-acquires
+                log.error("Snowflake machine id lease renewal failed", e);
+            }
+        }, renewInterval.toMillis(), renewInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void renew() {
+        long current = machineId;
+        if (current < 0) {
+            acquire();
+            return;
+        }
+
+        try {
+            long requestedAt = System.currentTimeMillis();
+            Long renewed = redisTemplate.execute(RENEW_SCRIPT, List.of(KEY_PREFIX + current), owner, String.valueOf(ttl.toMillis()));
+            if (renewed != null && renewed == 1L) {
+                validUntil = requestedAt + ttl.toMillis() - safetyMargin.toMillis();
+                return;
+            }
+
+            // The key expired or was taken over; never keep issuing IDs under a machine id we no longer own
+            log.error("Lost the lease on Snowflake machine id {}, acquiring a new one", current);
+            validUntil = 0L;
+            machineId = -1L;
+            acquire();
+        } catch (Exception e) {
+            // Keep the current deadline; the generator halts on its own if Redis stays unreachable past it
+            log.warn("Failed to renew the lease on Snowflake machine id {}", current, e);
+        }
+    }
+
+    public void release() {
+        renewals.shutdownNow();
+        long current = machineId;
+        validUntil = 0L;
+        machineId = -1L;
+        if (current < 0) {
+            return;
+        }
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(KEY_PREFIX + current), owner);
+            log.info("Released Snowflake machine id {}", current);
+        } catch (Exception e) {
+            log.warn("Failed to release Snowflake machine id {}; it will expire after {}", current, ttl, e);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.notification.platform.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Postgres-backed lease that lets exactly one instance run a scheduled job at a time.
+ * Expiry is judged by the database clock only, so pods with skewed clocks still agree on who holds a lease.
+ * Every acquisition hands out a higher fencing token: work done under a lease should check {@link #isCurrent}
+ * before side effects, so a holder that stalled past its expiry can't act after another pod has taken over.
+ * A crashed holder simply stops renewing and its lease is taken over once it expires.
+ */
+@Slf4j
+@Component
+public class SchedulerLock {
+
+    private static final String ACQUIRE =
+            "INSERT INTO scheduler_locks (name, owner, fencing_token, locked_at, expires_at) " +
+            "VALUES (?, ?, 1, clock_timestamp(), clock_timestamp() + CAST(? AS DOUBLE PRECISION) * INTERVAL '1 millisecond') " +
+            "ON CONFLICT (name) DO UPDATE SET owner = EXCLUDED.owner, " +
+            "fencing_token = scheduler_locks.fencing_token + 1, " +
+            "locked_at = EXCLUDED.locked_at, expires_at = EXCLUDED.expires_at " +
+            "WHERE scheduler_locks.expires_at < clock_timestamp() " +
+            "RETURNING fencing_token";
+
+    private static final String RENEW =
+            "UPDATE scheduler_locks SET expires_at = clock_timestamp() + CAST(? AS DOUBLE PRECISION) * INTERVAL '1 millisecond' " +
+            "WHERE name = ? AND fencing_token = ? AND expires_at > clock_timestamp()";
+
+    private static final String IS_CURRENT =
+            "SELECT COUNT(*) FROM scheduler_locks WHERE name = ? AND fencing_token = ? AND expires_at > clock_timestamp()";
+
+    private static final String RELEASE =
+            "UPDATE scheduler_locks SET expires_at = clock_timestamp() WHERE name = ? AND fencing_token = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String owner;
+
+    public SchedulerLock(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.owner = hostName() + "/" + UUID.randomUUID();
+    }
+
+    public record Lease(String name, long fencingToken) {
+    }
+
+    /**
+     * @return the lease if it was free (or expired), empty while another instance holds it
+     */
+    public Optional<Lease> tryAcquire(String name, Duration ttl) {
+        List<Long> tokens = jdbcTemplate.queryForList(ACQUIRE, Long.class, name, owner, ttl.toMillis());
+        if (tokens.isEmpty()) {
+            return Optional.empty();
+        }
+        log.info("Acquired scheduler lock {} with fencing token {}", name, tokens.get(0));
+        return Optional.of(new Lease(name, tokens.get(0)));
+    }
+
+    /**
+     * Extends a lease that is still held. Returns {@code false} once it expired or was taken over; it is never revived.
+     */
+    public boolean renew(Lease lease, Duration ttl) {
+        return jdbcTemplate.update(RENEW, ttl.toMillis(), lease.name(), lease.fencingToken()) == 1;
+    }
+
+    public boolean isCurrent(String name, long fencingToken) {
+        Long held = jdbcTemplate.queryForObject(IS_CURRENT, Long.class, name, fencingToken);
+        return held != null && held > 0;
+    }
+
+    public void release(Lease lease) {
+        try {
+            jdbcTemplate.update(RELEASE, lease.name(), lease.fencingToken());
+        } catch (Exception e) {
+            log.warn("Failed to release scheduler lock {}; it will expire on its own", lease.name(), e);
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown-host";
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.notification.platform.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+
+@Configuration
+public class SnowflakeConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "release")
+    @ConditionalOnProperty(name = "notification.snowflake.lease.enabled", havingValue = "true", matchIfMissing = true)
+    public RedisMachineIdLease redisMachineIdLease(
+            StringRedisTemplate redisTemplate,
+            @Value("${notification.snowflake.lease.ttl-ms:30000}") long ttlMs,
+            @Value("${notification.snowflake.lease.safety-margin-ms:5000}") long safetyMarginMs,
+            @Value("${notification.snowflake.lease.renew-interval-ms:10000}") long renewIntervalMs) {
+        return new RedisMachineIdLease(redisTemplate, Duration.ofMillis(ttlMs), Duration.ofMillis(safetyMarginMs),
+                Duration.ofMillis(renewIntervalMs));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "notification.snowflake.lease.enabled", havingValue = "false")
+    public MachineIdLease fixedMachineIdLease(@Value("${notification.snowflake.machine-id:1}") long machineId) {
+        return MachineIdLease.fixed(machineId);
+    }
+
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator(MachineIdLease machineIdLease) {
+        return new SnowflakeIdGenerator(machineIdLease);
+    }
+}
@@ -1,11 +1,7 @@
 package com.notification.platform.config;
 
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.stereotype.Component;
+import java.util.concurrent.atomic.AtomicLong;
 
-import java.time.Instant;
-
-@Component
 public class SnowflakeIdGenerator {
 
     // Custom Epoch (2026-01-01T00:00:00Z)
@@ -20,48 +16,132 @@ public class SnowflakeIdGenerator {
     private static final long MACHINE_ID_SHIFT = SEQUENCE_BITS;
     private static final long TIMESTAMP_LEFT_SHIFT = SEQUENCE_BITS + MACHINE_ID_BITS;
 
-    private final long machineId;
-    private long sequence = 0L;
-    private long lastTimestamp = -1L;
+    private final MachineIdLease machineIdLease;
 
-    public SnowflakeIdGenerator(@Value("${notification.snowflake.machine-id:1}") long machineId) {
-        if (machineId > MAX_MACHINE_ID || machineId < 0) {
-            throw new IllegalArgumentException(String.format("Machine Id can't be greater than %d or less than 0", MAX_MACHINE_ID));
-        }
-        this.machineId = machineId;
+    // Last issued (timestamp - CUSTOM_EPOCH) << SEQUENCE_BITS | sequence, advanced with CAS instead of a monitor.
+    // Because the state only ever moves forward, IDs stay strictly increasing per machine (ADR-03).
+    private final AtomicLong state = new AtomicLong(0L);
+
+    public SnowflakeIdGenerator(long machineId) {
+        this(MachineIdLease.fixed(validateMachineId(machineId)));
+    }
+
+    public SnowflakeIdGenerator(MachineIdLease machineIdLease) {
+        this.machineIdLease = machineIdLease;
     }
 
-    public synchronized long nextId() {
-        long currentTimestamp = timestampGen();
+    public long nextId() {
+        long machineId = currentMachineId();
+        while (true) {
+            long current = state.get();
+            long timestamp = currentTimestamp(current);
+
+            long next;
+            if (timestamp == (current >>> SEQUENCE_BITS)) {
+                if ((current & SEQUENCE_MASK) == SEQUENCE_MASK) {
+                    // Sequence exhausted for this millisecond; wait for the clock to tick
+                    Thread.onSpinWait();
+                    continue;
+                }
+                next = current + 1;
+            } else {
+                next = timestamp << SEQUENCE_BITS;
+            }
 
-        if (currentTimestamp < lastTimestamp) {
-            throw new IllegalStateException(String.format("Clock moved backwards. Refusing to generate id for %d milliseconds", lastTimestamp - currentTimestamp));
+            if (state.compareAndSet(current, next)) {
+                return toId(next, machineId);
+            }
+        }
+    }
+
+    /**
+     * Reserves {@code count} consecutive IDs with as few CAS operations as possible.
+     * A block never spans more than the remaining sequence space of one millisecond per CAS,
+     * so large requests are filled across consecutive milliseconds.
+     *
+     * @param count number of IDs to reserve
+     * @return strictly increasing IDs
+     */
+    public long[] nextIds(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Count must be positive: " + count);
         }
 
-        if (currentTimestamp == lastTimestamp) {
-            sequence = (sequence + 1) & SEQUENCE_MASK;
-            if (sequence == 0) {
-                currentTimestamp = tilNextMillis(lastTimestamp);
+        long machineId = currentMachineId();
+        long[] ids = new long[count];
+        int filled = 0;
+        while (filled < count) {
+            long current = state.get();
+            long timestamp = currentTimestamp(current);
+
+            long first;
+            if (timestamp == (current >>> SEQUENCE_BITS)) {
+                if ((current & SEQUENCE_MASK) == SEQUENCE_MASK) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                first = current + 1;
+            } else {
+                first = timestamp << SEQUENCE_BITS;
+            }
+
+            long available = SEQUENCE_MASK - (first & SEQUENCE_MASK) + 1;
+            int reserved = (int) Math.min(available, count - filled);
+
+            if (state.compareAndSet(current, first + reserved - 1)) {
+                for (int i = 0; i < reserved; i++) {
+                    ids[filled++] = toId(first + i, machineId);
+                }
             }
-        } else {
-            sequence = 0L;
         }
+        return ids;
+    }
 
-        lastTimestamp = currentTimestamp;
+    /**
+     * Smallest ID any generator can issue at {@code epochMillis}. IDs order by creation time first,
+     * so this turns a time range into an ID range (e.g. for partition pruning on the id-partitioned tables).
+     */
+    public static long minIdForTimestamp(long epochMillis) {
+        return (epochMillis - CUSTOM_EPOCH) << TIMESTAMP_LEFT_SHIFT;
+    }
 
-        return ((currentTimestamp - CUSTOM_EPOCH) << TIMESTAMP_LEFT_SHIFT)
-                | (machineId << MACHINE_ID_SHIFT)
-                | sequence;
+    /**
+     * Creation time (epoch millis) encoded in {@code id}.
+     */
+    public static long timestampOf(long id) {
+        return (id >> TIMESTAMP_LEFT_SHIFT) + CUSTOM_EPOCH;
+    }
+
+    private long currentMachineId() {
+        // Leases are renewed in the background; once one lapses no ID may be issued under that machine id
+        if (!machineIdLease.isValid()) {
+            throw new IllegalStateException("Snowflake machine id lease is not held. Refusing to generate id");
+        }
+        return validateMachineId(machineIdLease.machineId());
+    }
+
+    private static long validateMachineId(long machineId) {
+        if (machineId > MAX_MACHINE_ID || machineId < 0) {
+            throw new IllegalArgumentException(String.format("Machine Id can't be greater than %d or less than 0", MAX_MACHINE_ID));
+        }
+        return machineId;
     }
 
-    protected long tilNextMillis(long lastTimestamp) {
-        long timestamp = timestampGen();
-        while (timestamp <= lastTimestamp) {
-            timestamp = timestampGen();
+    private long currentTimestamp(long current) {
+        long timestamp = timestampGen() - CUSTOM_EPOCH;
+        long lastTimestamp = current >>> SEQUENCE_BITS;
+        if (timestamp < lastTimestamp) {
+            throw new IllegalStateException(String.format("Clock moved backwards. Refusing to generate id for %d milliseconds", lastTimestamp - timestamp));
         }
         return timestamp;
     }
 
+    private static long toId(long packed, long machineId) {
+        return ((packed >>> SEQUENCE_BITS) << TIMESTAMP_LEFT_SHIFT)
+                | (machineId << MACHINE_ID_SHIFT)
+                | (packed & SEQUENCE_MASK);
+    }
+
     protected long timestampGen() {
         return System.currentTimeMillis();
     }
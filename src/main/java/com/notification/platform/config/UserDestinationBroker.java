@@ -0,0 +1,417 @@
+package com.notification.platform.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.MimeType;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process broker for the per-user {@code /topic} destinations (e.g. {@code /topic/notifications/{userId}}),
+ * replacing the simple broker there. Subscriptions are indexed by their exact destination in a ConcurrentHashMap,
+ * so publishing is one lock-free lookup instead of a scan of the whole subscription registry, and subscribe/unsubscribe
+ * only contend on the destination's own bin.
+ *
+ * Sends to the client outbound channel are handed to a fixed set of single-threaded workers, picked by session id:
+ * the publisher (the in-app Kafka listener) never does the per-session work, and each session keeps its order.
+ * The worker queues are bounded, so a slow outbound path pushes back on the publisher instead of growing the heap.
+ * With {@code outbound-workers: 0} messages are sent on the publishing thread.
+ *
+ * For sessions found in the WebSocketSessionRegistry the STOMP MESSAGE frame is encoded here, once per subscription
+ * id, and its bytes are shared by every session of that group: a user with several devices or tabs (which typically
+ * all subscribe as {@code sub-0}) costs one encode instead of one per session. Native WebSocket sessions get the bytes
+ * as a BinaryMessage, each through its own read-only view, so the transport writes them without re-encoding; clients
+ * must accept STOMP frames in binary WebSocket messages, as current STOMP clients do. SockJS only carries text, so
+ * its sessions share one TextMessage, which the transport still encodes per session. Other sessions go through the
+ * client outbound channel as usual.
+ *
+ * A message may carry a {@code CompletableFuture<Boolean>} in its {@value #RECEIPT_HEADER} header. It completes with
+ * {@code true} once the transport of at least one subscribed session has written the message, and with {@code false}
+ * once none can: no subscription here, or every session's copy was evicted, discarded on disconnect or failed.
+ * Sessions outside the WebSocketSessionRegistry count as written once the client outbound channel took the message.
+ *
+ * Pattern subscriptions are not supported on {@code /topic}; CONNECT, heartbeats and {@code /queue} stay with the
+ * simple broker (see WebSocketConfig). Messages are published through the brokerChannel as before, so
+ * {@code SimpMessagingTemplate.send/convertAndSend} work unchanged.
+ */
+@Slf4j
+@Component
+public class UserDestinationBroker extends AbstractBrokerMessageHandler {
+
+    public static final String DESTINATION_PREFIX = "/topic/";
+    public static final String RECEIPT_HEADER = "deliveryReceipt";
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+    private static final StompEncoder STOMP_ENCODER = new StompEncoder();
+
+    private record Subscription(String sessionId, String subscriptionId) {
+    }
+
+    /** One subscription's send, queued on its worker with the receipt to settle if the worker drops it */
+    private record Delivery(Runnable send, GroupReceipt group) implements Runnable {
+
+        @Override
+        public void run() {
+            send.run();
+        }
+
+        void dropped() {
+            if (group != null) {
+                group.lost();
+            }
+        }
+    }
+
+    /**
+     * Settles a published message's receipt across all of its subscriptions.
+     */
+    private static final class GroupReceipt implements BoundedWebSocketSessionDecorator.Receipt {
+
+        private final CompletableFuture<Boolean> receipt;
+        private final AtomicInteger pending;
+
+        GroupReceipt(CompletableFuture<Boolean> receipt, int subscriptions) {
+            this.receipt = receipt;
+            this.pending = new AtomicInteger(subscriptions);
+        }
+
+        @Override
+        public void written() {
+            receipt.complete(true);
+        }
+
+        @Override
+        public void lost() {
+            if (pending.decrementAndGet() == 0) {
+                // No-op if another session has written it
+                receipt.complete(false);
+            }
+        }
+    }
+
+    /**
+     * A MESSAGE frame encoded for one subscription group, handed to each of its sessions in the form its transport
+     * writes as is. Only used on the publishing thread.
+     */
+    private static final class SharedFrame {
+
+        private final byte[] bytes;
+        private TextMessage text;
+
+        SharedFrame(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        WebSocketMessage<?> messageFor(WebSocketSession session) {
+            if (WebSocketSessionDecorator.unwrap(session) instanceof SockJsSession) {
+                if (text == null) {
+                    text = new TextMessage(bytes);
+                }
+                return text;
+            }
+            // The transport consumes the buffer it writes, so every session needs its own position
+            return new BinaryMessage(ByteBuffer.wrap(bytes).asReadOnlyBuffer());
+        }
+    }
+
+    // Copy-on-write per destination: publishers iterate an immutable list without locking
+    private final Map<String, List<Subscription>> subscriptionsByDestination = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, String>> destinationsBySession = new ConcurrentHashMap<>();
+
+    private final WebSocketSessionRegistry sessionRegistry;
+    private final int outboundWorkers;
+    private final int queueCapacity;
+    private final AtomicLong messageIds = new AtomicLong();
+    private final Counter sent;
+    private final Counter encoded;
+
+    private volatile ThreadPoolExecutor[] workers = new ThreadPoolExecutor[0];
+
+    public UserDestinationBroker(@Qualifier("clientInboundChannel") SubscribableChannel clientInboundChannel,
+                                 @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+                                 @Qualifier("brokerChannel") SubscribableChannel brokerChannel,
+                                 WebSocketSessionRegistry sessionRegistry,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${notification.gateway.broker.outbound-workers:8}") int outboundWorkers,
+                                 @Value("${notification.gateway.broker.queue-capacity:10000}") int queueCapacity) {
+        super(clientInboundChannel, clientOutboundChannel, brokerChannel, List.of(DESTINATION_PREFIX));
+        this.sessionRegistry = sessionRegistry;
+        this.outboundWorkers = outboundWorkers;
+        this.queueCapacity = queueCapacity;
+        this.sent = Counter.builder("notification.gateway.broker.sent")
+                .description("Messages sent to WebSocket sessions by the per-user destination broker")
+                .register(meterRegistry);
+        this.encoded = Counter.builder("notification.gateway.broker.encoded")
+                .description("STOMP frames encoded once and shared by the sessions of a subscription group")
+                .register(meterRegistry);
+        Gauge.builder("notification.gateway.broker.destinations", subscriptionsByDestination, Map::size)
+                .description("Per-user destinations with at least one subscription")
+                .register(meterRegistry);
+        Gauge.builder("notification.gateway.broker.queued", this, UserDestinationBroker::queued)
+                .description("Messages waiting for an outbound worker")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void startInternal() {
+        ThreadPoolExecutor[] started = new ThreadPoolExecutor[outboundWorkers];
+        for (int i = 0; i < outboundWorkers; i++) {
+            started[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                    Thread.ofPlatform().name("stomp-outbound-" + i).daemon().factory(), UserDestinationBroker::waitForCapacity);
+        }
+        workers = started;
+        publishBrokerAvailableEvent();
+    }
+
+    @Override
+    protected void stopInternal() {
+        publishBrokerUnavailableEvent();
+        ThreadPoolExecutor[] stopped = workers;
+        workers = new ThreadPoolExecutor[0];
+        for (ThreadPoolExecutor worker : stopped) {
+            worker.shutdown();
+        }
+        try {
+            for (ThreadPoolExecutor worker : stopped) {
+                if (!worker.awaitTermination(5, TimeUnit.SECONDS)) {
+                    log.warn("Outbound worker did not drain {} queued messages before shutdown", worker.getQueue().size());
+                    worker.shutdownNow();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    protected void handleMessageInternal(Message<?> message) {
+        MessageHeaders headers = message.getHeaders();
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+        if (!checkDestinationPrefix(destination)) {
+            return;
+        }
+
+        SimpMessageType messageType = SimpMessageHeaderAccessor.getMessageType(headers);
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(headers);
+        if (SimpMessageType.MESSAGE.equals(messageType)) {
+            publish(destination, message);
+        } else if (SimpMessageType.SUBSCRIBE.equals(messageType)) {
+            subscribe(sessionId, subscriptionId, destination);
+        } else if (SimpMessageType.UNSUBSCRIBE.equals(messageType)) {
+            unsubscribe(sessionId, subscriptionId);
+        } else if (SimpMessageType.DISCONNECT.equals(messageType)) {
+            // The simple broker acknowledges the DISCONNECT; only the subscriptions are ours to drop
+            unsubscribeAll(sessionId);
+        }
+    }
+
+    /**
+     * @return the number of sessions subscribed to the destination
+     */
+    public int subscriberCount(String destination) {
+        return subscriptionsByDestination.getOrDefault(destination, List.of()).size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void publish(String destination, Message<?> message) {
+        CompletableFuture<Boolean> receipt = message.getHeaders().get(RECEIPT_HEADER, CompletableFuture.class);
+        List<Subscription> subscriptions = subscriptionsByDestination.get(destination);
+        if (subscriptions == null) {
+            // Same as the simple broker: nobody is listening on this node
+            if (receipt != null) {
+                receipt.complete(false);
+            }
+            return;
+        }
+        GroupReceipt group = receipt == null ? null : new GroupReceipt(receipt, subscriptions.size());
+        // Frames shared by the sessions of one subscription id, encoded on first use
+        Map<String, SharedFrame> frames = new HashMap<>(2);
+        String messageId = Long.toString(messageIds.incrementAndGet());
+        for (Subscription subscription : subscriptions) {
+            BoundedWebSocketSessionDecorator session = message.getPayload() instanceof byte[]
+                    ? sessionRegistry.find(subscription.sessionId()) : null;
+            if (session == null) {
+                execute(subscription, new Delivery(() -> send(subscription, message, group), group));
+            } else {
+                WebSocketMessage<?> frame = frames.computeIfAbsent(subscription.subscriptionId(),
+                        subscriptionId -> encode(destination, subscriptionId, messageId, message)).messageFor(session);
+                execute(subscription, new Delivery(() -> write(session, frame, group), group));
+            }
+        }
+    }
+
+    private void execute(Subscription subscription, Delivery delivery) {
+        ThreadPoolExecutor[] current = workers;
+        if (current.length == 0) {
+            delivery.run();
+            return;
+        }
+        try {
+            current[Math.floorMod(subscription.sessionId().hashCode(), current.length)].execute(delivery);
+        } catch (RejectedExecutionException e) {
+            delivery.dropped();
+            throw e;
+        }
+    }
+
+    /**
+     * Encodes the MESSAGE frame the STOMP handler would have produced for a subscriber with this subscription id.
+     */
+    @SuppressWarnings("unchecked")
+    private SharedFrame encode(String destination, String subscriptionId, String messageId, Message<?> message) {
+        Map<String, List<String>> nativeHeaders = message.getHeaders().get(NativeMessageHeaderAccessor.NATIVE_HEADERS, Map.class);
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE, nativeHeaders == null ? Map.of() : nativeHeaders);
+        accessor.setDestination(destination);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setMessageId(messageId);
+        Object contentType = message.getHeaders().get(MessageHeaders.CONTENT_TYPE);
+        if (contentType != null) {
+            accessor.setContentType(MimeType.valueOf(contentType.toString()));
+        }
+        encoded.increment();
+        return new SharedFrame(STOMP_ENCODER.encode(accessor.getMessageHeaders(), (byte[]) message.getPayload()));
+    }
+
+    private void write(BoundedWebSocketSessionDecorator session, WebSocketMessage<?> frame, GroupReceipt group) {
+        try {
+            // Only queues: the session settles the receipt once its transport has written the frame or lost it
+            session.sendMessage(frame, group);
+            sent.increment();
+        } catch (Exception e) {
+            log.error("Failed to send message to session {}", session.getId(), e);
+            if (group != null) {
+                group.lost();
+            }
+        }
+    }
+
+    private void send(Subscription subscription, Message<?> message, GroupReceipt group) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(subscription.sessionId());
+        accessor.setSubscriptionId(subscription.subscriptionId());
+        accessor.copyHeadersIfAbsent(message.getHeaders());
+        accessor.removeHeader(RECEIPT_HEADER);
+        accessor.setLeaveMutable(true);
+        boolean handedOver = false;
+        try {
+            handedOver = getClientOutboundChannel().send(MessageBuilder.createMessage(message.getPayload(), accessor.getMessageHeaders()));
+            sent.increment();
+        } catch (Exception e) {
+            log.error("Failed to send message to session {}", subscription.sessionId(), e);
+        }
+        if (group != null) {
+            if (handedOver) {
+                group.written();
+            } else {
+                group.lost();
+            }
+        }
+    }
+
+    private void subscribe(String sessionId, String subscriptionId, String destination) {
+        if (sessionId == null || subscriptionId == null) {
+            log.warn("Ignoring SUBSCRIBE to {} without session or subscription id", destination);
+            return;
+        }
+        if (PATH_MATCHER.isPattern(destination)) {
+            log.warn("Ignoring pattern subscription {} of session {}: only exact destinations are supported under {}",
+                    destination, sessionId, DESTINATION_PREFIX);
+            return;
+        }
+
+        Subscription subscription = new Subscription(sessionId, subscriptionId);
+        String previous = destinationsBySession.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>()).put(subscriptionId, destination);
+        if (previous != null) {
+            // Subscription id reused by the client: the new destination replaces the old one
+            remove(previous, subscription);
+        }
+        subscriptionsByDestination.compute(destination, (key, subscriptions) -> {
+            List<Subscription> updated = subscriptions == null ? new ArrayList<>(1) : new ArrayList<>(subscriptions);
+            updated.add(subscription);
+            return List.copyOf(updated);
+        });
+    }
+
+    private void unsubscribe(String sessionId, String subscriptionId) {
+        if (sessionId == null || subscriptionId == null) {
+            return;
+        }
+        Map<String, String> destinations = destinationsBySession.get(sessionId);
+        String destination = destinations == null ? null : destinations.remove(subscriptionId);
+        if (destination != null) {
+            remove(destination, new Subscription(sessionId, subscriptionId));
+        }
+    }
+
+    private void unsubscribeAll(String sessionId) {
+        if (sessionId == null) {
+            return;
+        }
+        Map<String, String> destinations = destinationsBySession.remove(sessionId);
+        if (destinations != null) {
+            destinations.forEach((subscriptionId, destination) -> remove(destination, new Subscription(sessionId, subscriptionId)));
+        }
+    }
+
+    private void remove(String destination, Subscription subscription) {
+        subscriptionsByDestination.computeIfPresent(destination, (key, subscriptions) -> {
+            List<Subscription> updated = new ArrayList<>(subscriptions);
+            updated.remove(subscription);
+            // Drop the entry with the last subscriber, so the index only holds users connected here
+            return updated.isEmpty() ? null : List.copyOf(updated);
+        });
+    }
+
+    private int queued() {
+        int queued = 0;
+        for (ThreadPoolExecutor worker : workers) {
+            queued += worker.getQueue().size();
+        }
+        return queued;
+    }
+
+    private static void waitForCapacity(Runnable task, ThreadPoolExecutor worker) {
+        if (worker.isShutdown()) {
+            log.warn("Dropping outbound message: broker is stopping");
+            if (task instanceof Delivery delivery) {
+                delivery.dropped();
+            }
+            return;
+        }
+        try {
+            worker.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted waiting for outbound capacity", e);
+        }
+    }
+}
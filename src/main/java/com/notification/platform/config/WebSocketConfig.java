@@ -7,6 +7,7 @@ import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
@@ -14,12 +15,13 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final WebSocketPresenceInterceptor presenceInterceptor;
+    private final WebSocketSessionRegistry sessionRegistry;
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // Enable a simple memory-based message broker to carry the messages back to the client
-        // on destinations prefixed with /topic
-        config.enableSimpleBroker("/topic");
+        // on destinations prefixed with /queue; the per-user /topic destinations are served by UserDestinationBroker
+        config.enableSimpleBroker("/queue");
         
         // Designate the /app prefix for messages that are bound for methods 
         // annotated with @MessageMapping
@@ -31,6 +33,16 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registration.interceptors(presenceInterceptor);
     }
 
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Exposes the transport sessions to UserDestinationBroker for shared pre-encoded frames, behind bounded queues.
+        // SubProtocolWebSocketHandler still wraps each bounded session in its own ConcurrentWebSocketSessionDecorator;
+        // sending to the bounded session never blocks, so it stays empty, and it gets the same limits regardless.
+        registration.addDecoratorFactory(sessionRegistry)
+                .setSendTimeLimit(sessionRegistry.limits().sendTimeLimitMs())
+                .setSendBufferSizeLimit(sessionRegistry.limits().bufferSizeLimit());
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         // Register the /ws-notifications endpoint, enabling the SockJS fallback options 
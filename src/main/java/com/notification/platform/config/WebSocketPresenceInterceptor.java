@@ -1,5 +1,7 @@
 package com.notification.platform.config;
 
+import com.notification.platform.dispatcher.LocalSessionRegistry;
+import com.notification.platform.dispatcher.PresenceConnectCoalescer;
 import com.notification.platform.dispatcher.PresenceManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -17,6 +19,8 @@ import org.springframework.stereotype.Component;
 public class WebSocketPresenceInterceptor implements ChannelInterceptor {
 
     private final PresenceManager presenceManager;
+    private final PresenceConnectCoalescer connectCoalescer;
+    private final LocalSessionRegistry sessionRegistry;
 
     @Override
     public Message<?> preSend(Message<?> message, MessageChannel channel) {
@@ -26,7 +30,9 @@ public class WebSocketPresenceInterceptor implements ChannelInterceptor {
             if (StompCommand.CONNECT.equals(accessor.getCommand())) {
                 String userId = accessor.getFirstNativeHeader("userId");
                 if (userId != null) {
-                    presenceManager.setOnline(userId, accessor.getSessionId());
+                    // Batched with concurrent CONNECTs, so a reconnect storm doesn't cost a round trip per session
+                    connectCoalescer.setOnline(userId, accessor.getSessionId());
+                    sessionRegistry.register(accessor.getSessionId(), userId);
                     accessor.getSessionAttributes().put("userId", userId);
                     log.info("User {} connected with session {}", userId, accessor.getSessionId());
                 } else {
@@ -35,6 +41,7 @@ public class WebSocketPresenceInterceptor implements ChannelInterceptor {
             } else if (StompCommand.DISCONNECT.equals(accessor.getCommand())) {
                 String userId = (String) accessor.getSessionAttributes().get("userId");
                 if (userId != null) {
+                    sessionRegistry.unregister(accessor.getSessionId());
                     presenceManager.setOffline(userId, accessor.getSessionId());
                     log.info("User {} disconnected from session {}", userId, accessor.getSessionId());
                 }
@@ -0,0 +1,154 @@
+package com.notification.platform.config;
+
+import com.notification.platform.config.BoundedWebSocketSessionDecorator.Limits;
+import com.notification.platform.config.BoundedWebSocketSessionDecorator.OverflowListener;
+import com.notification.platform.config.BoundedWebSocketSessionDecorator.OverflowPolicy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transport sessions (WebSocket or SockJS) of this instance by id, which is also the STOMP session id, so
+ * UserDestinationBroker can write pre-encoded frames to them directly.
+ *
+ * Each session is wrapped in a BoundedWebSocketSessionDecorator before it reaches the STOMP handler, so every send to
+ * the transport is queued and bounded by it. The queues are flushed on virtual threads, one flush per session at a
+ * time, and a watchdog checks every quarter of the send time limit that no flush is stuck in a write beyond it.
+ * SubProtocolWebSocketHandler still wraps the bounded session in its own ConcurrentWebSocketSessionDecorator, which
+ * stays empty because the bounded session never blocks. The limits and the overflow policy come from
+ * {@code notification.gateway.outbound}; queue depths and evictions of the bounded queues are published as
+ * {@code notification.gateway.outbound.*{node}}.
+ */
+@Component
+public class WebSocketSessionRegistry implements WebSocketHandlerDecoratorFactory {
+
+    private final Map<String, BoundedWebSocketSessionDecorator> sessions = new ConcurrentHashMap<>();
+    private final Limits limits;
+    private final OverflowListener overflowListener;
+    private final ExecutorService flushes = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("ws-send-watchdog").daemon().factory());
+
+    public WebSocketSessionRegistry(MeterRegistry meterRegistry, GatewayNode gatewayNode,
+                                    @Value("${notification.gateway.outbound.max-queued-messages:1000}") int maxQueuedMessages,
+                                    @Value("${notification.gateway.outbound.buffer-size-limit:524288}") int bufferSizeLimit,
+                                    @Value("${notification.gateway.outbound.send-time-limit-ms:10000}") int sendTimeLimitMs,
+                                    @Value("${notification.gateway.outbound.overflow-policy:DISCONNECT}") OverflowPolicy overflowPolicy) {
+        this.limits = new Limits(maxQueuedMessages, bufferSizeLimit, sendTimeLimitMs, overflowPolicy);
+        Tags tags = Tags.of("node", String.valueOf(gatewayNode.slot()));
+        Gauge.builder("notification.gateway.outbound.queued", this, WebSocketSessionRegistry::queuedMessages)
+                .description("Messages queued for slow WebSocket sessions")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("notification.gateway.outbound.queued.max", this, WebSocketSessionRegistry::maxQueuedMessages)
+                .description("Deepest outbound queue of a single WebSocket session")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("notification.gateway.outbound.queued.bytes", this, WebSocketSessionRegistry::queuedBytes)
+                .description("Bytes queued for slow WebSocket sessions")
+                .baseUnit("bytes")
+                .tags(tags)
+                .register(meterRegistry);
+        this.overflowListener = new OverflowListener() {
+            @Override
+            public void evicted(String outcome, int messages) {
+                Counter.builder("notification.gateway.outbound.evicted")
+                        .description("Queued messages dropped, coalesced or discarded on disconnect")
+                        .tags(tags.and("policy", overflowPolicy.name(), "outcome", outcome))
+                        .register(meterRegistry)
+                        .increment(messages);
+            }
+
+            @Override
+            public void disconnected(String reason) {
+                Counter.builder("notification.gateway.outbound.disconnects")
+                        .description("WebSocket sessions disconnected by the outbound limits or a failed send")
+                        .tags(tags.and("reason", reason))
+                        .register(meterRegistry)
+                        .increment();
+            }
+        };
+    }
+
+    @PostConstruct
+    void start() {
+        long interval = Math.max(1, limits.sendTimeLimitMs() / 4);
+        watchdog.scheduleWithFixedDelay(this::checkSendTimeLimits, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+        flushes.shutdown();
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                BoundedWebSocketSessionDecorator bounded = new BoundedWebSocketSessionDecorator(session, limits, overflowListener, flushes);
+                sessions.put(session.getId(), bounded);
+                super.afterConnectionEstablished(bounded);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                BoundedWebSocketSessionDecorator bounded = sessions.remove(session.getId());
+                if (bounded != null) {
+                    bounded.connectionClosed();
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    /**
+     * @return the open session, or null if it is not (or no longer) connected to this instance
+     */
+    public BoundedWebSocketSessionDecorator find(String sessionId) {
+        BoundedWebSocketSessionDecorator session = sessions.get(sessionId);
+        return session != null && session.isOpen() ? session : null;
+    }
+
+    public Limits limits() {
+        return limits;
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    void checkSendTimeLimits() {
+        sessions.values().forEach(BoundedWebSocketSessionDecorator::checkSendTimeLimit);
+    }
+
+    private int queuedMessages() {
+        return sessions.values().stream().mapToInt(BoundedWebSocketSessionDecorator::getQueuedMessages).sum();
+    }
+
+    private int maxQueuedMessages() {
+        return sessions.values().stream().mapToInt(BoundedWebSocketSessionDecorator::getQueuedMessages).max().orElse(0);
+    }
+
+    private long queuedBytes() {
+        return sessions.values().stream().mapToLong(BoundedWebSocketSessionDecorator::getQueuedBytes).sum();
+    }
+}
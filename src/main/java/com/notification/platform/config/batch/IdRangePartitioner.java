@@ -0,0 +1,44 @@
+package com.notification.platform.config.batch;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Splits the Snowflake id range {@code [fromId, toId)} into contiguous slices, one per worker step.
+ * Ids carry their creation time, so every slice is also a time window and only touches its own daily partitions.
+ */
+public class IdRangePartitioner implements Partitioner {
+
+    public static final String FROM_ID = "fromId";
+    public static final String TO_ID = "toId";
+
+    private final long fromId;
+    private final long toId;
+
+    public IdRangePartitioner(long fromId, long toId) {
+        this.fromId = fromId;
+        this.toId = toId;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        Map<String, ExecutionContext> partitions = new LinkedHashMap<>();
+        long span = toId - fromId;
+        if (span <= 0) {
+            return partitions;
+        }
+
+        long sliceSize = Math.max(1, (span + gridSize - 1) / gridSize);
+        int index = 0;
+        for (long start = fromId; start < toId; start += sliceSize) {
+            ExecutionContext context = new ExecutionContext();
+            context.putLong(FROM_ID, start);
+            context.putLong(TO_ID, Math.min(toId, start + sliceSize));
+            partitions.put("partition" + index++, context);
+        }
+        return partitions;
+    }
+}
@@ -1,43 +1,52 @@
 package com.notification.platform.config.batch;
 
+import com.notification.platform.config.SchedulerLock;
+import com.notification.platform.config.SnowflakeIdGenerator;
 import com.notification.platform.domain.entity.NotificationRequest;
-import com.notification.platform.domain.enums.NotificationIngressStatus;
+import com.notification.platform.dispatcher.NotificationReaperScheduler;
 import com.notification.platform.domain.repository.NotificationRequestRepository;
-import com.notification.platform.messaging.event.NotificationRequestEvent;
+import com.notification.platform.messaging.send.KafkaSendPipeline;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
 import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.step.builder.StepBuilder;
 import org.springframework.batch.item.ItemProcessor;
-import org.springframework.batch.item.ItemWriter;
-import org.springframework.batch.item.data.RepositoryItemReader;
-import org.springframework.batch.item.data.builder.RepositoryItemReaderBuilder;
+import org.springframework.batch.support.transaction.ResourcelessTransactionManager;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.data.domain.Sort;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.time.Duration;
 import java.time.OffsetDateTime;
-import java.util.Collections;
-import java.util.List;
 
 @Slf4j
 @Configuration
 @RequiredArgsConstructor
 public class NotificationReaperJobConfig {
 
+    // Margin between a request's id timestamp and its requestedAt (ids are reserved just before requestedAt is taken)
+    private static final long ID_CLOCK_MARGIN_MS = 60_000;
+
     private final JobRepository jobRepository;
-    private final PlatformTransactionManager transactionManager;
     private final NotificationRequestRepository repository;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final KafkaSendPipeline sendPipeline;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final SchedulerLock schedulerLock;
+
+    @Value("${notification.reaper.chunk-size:500}")
+    private int chunkSize;
 
-    private static final String TOPIC = "notification.requests";
+    @Value("${notification.reaper.grid-size:4}")
+    private int gridSize;
 
     @Bean
     public Job reaperJob() {
@@ -46,65 +55,84 @@ public class NotificationReaperJobConfig {
                 .build();
     }
 
+    /**
+     * Manager step: splits the scanned id window into {@code grid-size} slices that are reaped concurrently,
+     * so a post-outage backlog drains in parallel instead of through one reader.
+     */
     @Bean
     public Step reaperStep() {
+        SimpleAsyncTaskExecutor workers = new SimpleAsyncTaskExecutor("reaper-");
+        workers.setVirtualThreads(true);
+        workers.setConcurrencyLimit(gridSize);
+
         return new StepBuilder("reaperStep", jobRepository)
-                .<NotificationRequest, NotificationRequest>chunk(10, transactionManager)
-                .reader(reaperReader(null))
+                .partitioner("reaperWorkerStep", reaperPartitioner(null, 0))
+                .step(reaperWorkerStep())
+                .gridSize(gridSize)
+                .taskExecutor(workers)
+                .build();
+    }
+
+    /**
+     * Worker step. Its chunks run without a database transaction: the writer waits up to send-timeout-ms for broker
+     * acks, and a chunk transaction would hold a pooled connection (and the reader's snapshot) for all of that time.
+     * Nothing needs rolling back: the writer's status UPDATE is one statement, and step metadata is still written
+     * in the JobRepository's own transactions.
+     */
+    @Bean
+    public Step reaperWorkerStep() {
+        return new StepBuilder("reaperWorkerStep", jobRepository)
+                .<NotificationRequest, NotificationRequest>chunk(chunkSize, new ResourcelessTransactionManager())
+                .reader(reaperReader(null, null, null))
                 .processor(reaperProcessor())
-                .writer(reaperWriter())
+                .writer(reaperWriter(null, null, 0))
                 .build();
     }
 
     @Bean
     @StepScope
-    public RepositoryItemReader<NotificationRequest> reaperReader(
-            @Value("#{jobParameters['thresholdDateTime']}") String thresholdStr) {
-        
-        OffsetDateTime threshold = (thresholdStr != null) 
-                ? OffsetDateTime.parse(thresholdStr) 
-                : OffsetDateTime.now().minusMinutes(5);
+    public IdRangePartitioner reaperPartitioner(
+            @Value("#{jobParameters['thresholdDateTime']}") String thresholdStr,
+            @Value("${notification.reaper.lookback-days:7}") long lookbackDays) {
 
-        return new RepositoryItemReaderBuilder<NotificationRequest>()
-                .name("reaperReader")
-                .repository(repository)
-                .methodName("findAllByStatusAndRequestedAtBefore")
-                .arguments(NotificationIngressStatus.ACCEPTED, threshold)
-                .pageSize(10)
-                .sorts(Collections.singletonMap("requestedAt", Sort.Direction.ASC))
-                .build();
+        // Requests still ACCEPTED after the lookback window are not re-sent; bounding the id range
+        // keeps the scan on the last few daily partitions instead of the whole retention period
+        long thresholdMillis = threshold(thresholdStr).toInstant().toEpochMilli();
+        long fromId = SnowflakeIdGenerator.minIdForTimestamp(thresholdMillis - Duration.ofDays(lookbackDays).toMillis());
+        long toId = SnowflakeIdGenerator.minIdForTimestamp(thresholdMillis + ID_CLOCK_MARGIN_MS);
+        return new IdRangePartitioner(fromId, toId);
+    }
+
+    @Bean
+    @StepScope
+    public NotificationRequestKeysetReader reaperReader(
+            @Value("#{jobParameters['thresholdDateTime']}") String thresholdStr,
+            @Value("#{stepExecutionContext['fromId']}") Long fromId,
+            @Value("#{stepExecutionContext['toId']}") Long toId) {
+        return new NotificationRequestKeysetReader(repository, threshold(thresholdStr), fromId, toId, chunkSize);
     }
 
     @Bean
     public ItemProcessor<NotificationRequest, NotificationRequest> reaperProcessor() {
         return request -> {
-            log.info("Processing stale request for reaper: {}", request.getId());
+            log.debug("Processing stale request for reaper: {}", request.getId());
             return request;
         };
     }
 
     @Bean
-    public ItemWriter<NotificationRequest> reaperWriter() {
-        return items -> {
-            for (NotificationRequest request : items) {
-                try {
-                    NotificationRequestEvent event = NotificationRequestEvent.builder()
-                            .requestId(request.getId())
-                            .recipientId(request.getRecipientId())
-                            .channel(request.getChannel())
-                            .targetAddress(request.getTargetAddress())
-                            .priority(request.getPriority())
-                            .payload(request.getPayload())
-                            .build();
-
-                    kafkaTemplate.send(TOPIC, request.getRecipientId(), event);
-                    request.updateStatus(NotificationIngressStatus.DISPATCHED);
-                    log.info("Reaper successfully re-dispatched request: {}", request.getId());
-                } catch (Exception e) {
-                    log.error("Reaper failed to re-dispatch request: {}", request.getId(), e);
-                    // Leave status as ACCEPTED for next reaper run
-                }
-            }
-        };
+    @StepScope
+    public ReaperRedispatchWriter reaperWriter(
+            @Value("#{stepExecution}") StepExecution stepExecution,
+            @Value("#{jobParameters['fencingToken']}") Long fencingToken,
+            @Value("${notification.reaper.send-timeout-ms:10000}") long sendTimeoutMs) {
+        return new ReaperRedispatchWriter(sendPipeline, jdbcTemplate, meterRegistry, stepExecution, sendTimeoutMs,
+                schedulerLock, NotificationReaperScheduler.REAPER_LOCK, fencingToken);
+    }
+
+    private static OffsetDateTime threshold(String thresholdStr) {
+        return (thresholdStr != null)
+                ? OffsetDateTime.parse(thresholdStr)
+                : OffsetDateTime.now().minusMinutes(5);
     }
 }
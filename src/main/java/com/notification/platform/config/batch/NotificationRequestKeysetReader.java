@@ -0,0 +1,74 @@
+package com.notification.platform.config.batch;
+
+import com.notification.platform.domain.entity.NotificationRequest;
+import com.notification.platform.domain.repository.NotificationRequestRepository;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Keyset (seek) reader over stale ACCEPTED requests of one id range, in {@code (requested_at, id)} order.
+ * Each page continues strictly after the last row read instead of using an OFFSET, so rows the writer moves
+ * to DISPATCHED mid-scan can't shift later pages, and every page is one index range scan regardless of depth.
+ * The cursor is saved in the step's ExecutionContext, so a restarted step resumes where it stopped.
+ */
+public class NotificationRequestKeysetReader implements ItemStreamReader<NotificationRequest> {
+
+    static final String LAST_REQUESTED_AT = "reaper.lastRequestedAt";
+    static final String LAST_ID = "reaper.lastId";
+
+    private static final OffsetDateTime START = OffsetDateTime.parse("1970-01-01T00:00:00Z");
+
+    private final NotificationRequestRepository repository;
+    private final OffsetDateTime threshold;
+    private final long fromId;
+    private final long toId;
+    private final int pageSize;
+
+    private final Deque<NotificationRequest> page = new ArrayDeque<>();
+    private OffsetDateTime lastRequestedAt = START;
+    private long lastId = Long.MIN_VALUE;
+    private boolean exhausted;
+
+    public NotificationRequestKeysetReader(NotificationRequestRepository repository, OffsetDateTime threshold,
+                                           long fromId, long toId, int pageSize) {
+        this.repository = repository;
+        this.threshold = threshold;
+        this.fromId = fromId;
+        this.toId = toId;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public NotificationRequest read() {
+        if (page.isEmpty() && !exhausted) {
+            page.addAll(repository.findAcceptedAfter(fromId, toId, threshold, lastRequestedAt, lastId, pageSize));
+            // A short page means the range is drained; skip the extra empty query at the end
+            exhausted = page.size() < pageSize;
+        }
+
+        NotificationRequest request = page.poll();
+        if (request != null) {
+            lastRequestedAt = request.getRequestedAt();
+            lastId = request.getId();
+        }
+        return request;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        if (executionContext.containsKey(LAST_ID)) {
+            lastRequestedAt = OffsetDateTime.parse(executionContext.getString(LAST_REQUESTED_AT));
+            lastId = executionContext.getLong(LAST_ID);
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) {
+        executionContext.putString(LAST_REQUESTED_AT, lastRequestedAt.toString());
+        executionContext.putLong(LAST_ID, lastId);
+    }
+}
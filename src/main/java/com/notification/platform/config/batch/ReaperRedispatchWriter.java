@@ -0,0 +1,158 @@
+package com.notification.platform.config.batch;
+
+import com.notification.platform.config.SchedulerLock;
+import com.notification.platform.domain.entity.NotificationRequest;
+import com.notification.platform.messaging.event.NotificationRequestEvent;
+import com.notification.platform.messaging.priority.NotificationTopics;
+import com.notification.platform.messaging.send.KafkaSendPipeline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+
+/**
+ * Re-dispatches one reaper chunk in bulk: every send is issued asynchronously through the {@link KafkaSendPipeline},
+ * the acks are awaited together, and only the acknowledged requests are moved to DISPATCHED with a single UPDATE.
+ * Requests whose send failed or timed out stay ACCEPTED and are picked up by the next run (at-least-once).
+ * The worker step runs without a database transaction (see NotificationReaperJobConfig), so no connection is held
+ * while the acks are awaited; the UPDATE is a single auto-committed statement.
+ *
+ * When the run holds a {@link SchedulerLock} lease, its fencing token is checked before every chunk is sent, so a run
+ * that lost its lease to another instance fails instead of re-dispatching the same requests a second time. The token
+ * is checked again by the status UPDATE itself, so a lease lost while the acks were awaited cannot slip in a write.
+ *
+ * Acked/failed totals are kept in the step's ExecutionContext and published as Micrometer meters tagged by step.
+ */
+@Slf4j
+public class ReaperRedispatchWriter implements ItemWriter<NotificationRequest> {
+
+    public static final String ACKED_COUNT = "reaper.acked";
+    public static final String FAILED_COUNT = "reaper.failed";
+
+    // The status guard keeps a concurrent dispatch (e.g. the outbox relay) from being overwritten twice
+    private static final String MARK_DISPATCHED =
+            "UPDATE notification_requests SET status = 'DISPATCHED' WHERE id = ANY(?) AND status = 'ACCEPTED'";
+
+    // Same, applied only while the lease is held with this fencing token, evaluated atomically with the write
+    private static final String MARK_DISPATCHED_FENCED = MARK_DISPATCHED +
+            " AND EXISTS (SELECT 1 FROM scheduler_locks WHERE name = ? AND fencing_token = ? AND expires_at > clock_timestamp())";
+
+    private final KafkaSendPipeline sendPipeline;
+    private final JdbcTemplate jdbcTemplate;
+    private final StepExecution stepExecution;
+    private final long sendTimeoutMs;
+    private final SchedulerLock schedulerLock;
+    private final String lockName;
+    private final Long fencingToken;
+
+    private final Counter ackedCounter;
+    private final Counter failedCounter;
+    private final Timer chunkTimer;
+
+    public ReaperRedispatchWriter(KafkaSendPipeline sendPipeline, JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                                  StepExecution stepExecution, long sendTimeoutMs,
+                                  SchedulerLock schedulerLock, String lockName, Long fencingToken) {
+        this.sendPipeline = sendPipeline;
+        this.jdbcTemplate = jdbcTemplate;
+        this.stepExecution = stepExecution;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.schedulerLock = schedulerLock;
+        this.lockName = lockName;
+        this.fencingToken = fencingToken;
+
+        String step = stepExecution.getStepName();
+        this.ackedCounter = Counter.builder("notification.reaper.redispatched")
+                .tag("step", step).tag("outcome", "acked").register(meterRegistry);
+        this.failedCounter = Counter.builder("notification.reaper.redispatched")
+                .tag("step", step).tag("outcome", "failed").register(meterRegistry);
+        this.chunkTimer = Timer.builder("notification.reaper.chunk")
+                .tag("step", step).register(meterRegistry);
+    }
+
+    @Override
+    public void write(Chunk<? extends NotificationRequest> chunk) {
+        // Manual launches (no fencing token) are not fenced
+        if (fencingToken != null && !schedulerLock.isCurrent(lockName, fencingToken)) {
+            throw new IllegalStateException("Lease " + lockName + " with fencing token " + fencingToken
+                    + " is no longer held; refusing to re-dispatch");
+        }
+        long started = System.nanoTime();
+
+        Queue<Long> acked = new ConcurrentLinkedQueue<>();
+        List<CompletableFuture<?>> sends = new ArrayList<>(chunk.size());
+        for (NotificationRequest request : chunk) {
+            // Failures are logged by the pipeline
+            sends.add(sendPipeline.publishRequest(NotificationTopics.requests(request.getPriority()), request.getPriority(),
+                            request.getRecipientId(), NotificationRequestEvent.from(request), request.getId())
+                    .thenAccept(ack -> {
+                        if (ack) {
+                            acked.add(request.getId());
+                        }
+                    }));
+        }
+
+        awaitAcks(sends);
+
+        // Snapshot the acks gathered so far; a late ack only means the request is sent once more next run
+        Long[] ackedIds = acked.toArray(new Long[0]);
+        if (ackedIds.length > 0) {
+            markDispatched(ackedIds);
+        }
+
+        record(chunk.size(), ackedIds.length, System.nanoTime() - started);
+    }
+
+    private void markDispatched(Long[] ids) {
+        if (fencingToken == null) {
+            jdbcTemplate.update(MARK_DISPATCHED, ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)));
+            return;
+        }
+        int updated = jdbcTemplate.update(MARK_DISPATCHED_FENCED, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids));
+            ps.setString(2, lockName);
+            ps.setLong(3, fencingToken);
+        });
+        if (updated == 0 && !schedulerLock.isCurrent(lockName, fencingToken)) {
+            // The acked requests stay ACCEPTED; the lease holder re-dispatches them (at-least-once)
+            throw new IllegalStateException("Lease " + lockName + " with fencing token " + fencingToken
+                    + " was lost while awaiting acks; status not updated");
+        }
+    }
+
+    private void awaitAcks(List<CompletableFuture<?>> sends) {
+        try {
+            CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // publishRequest never completes exceptionally
+        } catch (TimeoutException e) {
+            log.warn("Reaper timed out after {} ms waiting for broker acks", sendTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void record(int size, int ackedCount, long elapsedNanos) {
+        int failedCount = size - ackedCount;
+        ackedCounter.increment(ackedCount);
+        failedCounter.increment(failedCount);
+        chunkTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        ExecutionContext context = stepExecution.getExecutionContext();
+        context.putLong(ACKED_COUNT, context.getLong(ACKED_COUNT, 0L) + ackedCount);
+        context.putLong(FAILED_COUNT, context.getLong(FAILED_COUNT, 0L) + failedCount);
+
+        long elapsedMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        log.info("Reaper chunk of {} re-dispatched in {} ms: {} acked, {} failed ({} req/s)",
+                size, elapsedMs, ackedCount, failedCount, size * 1000L / elapsedMs);
+    }
+}
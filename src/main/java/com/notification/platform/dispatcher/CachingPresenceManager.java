@@ -0,0 +1,135 @@
+package com.notification.platform.dispatcher;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Process-local near cache in front of {@link RedisPresenceManager}, so repeated lookups for the same recipient
+ * don't cost a Redis round trip each. The cached value is the user's set of gateway node routes; offline users are
+ * cached as an empty set, so both answers are served locally.
+ *
+ * Every connect/disconnect is published on {@link #INVALIDATION_CHANNEL} and evicts the user from every instance's
+ * cache (see PresenceCacheConfig). Entries also expire {@code max-staleness-ms} after they were loaded, which bounds
+ * how stale an answer can get when an invalidation is missed or a Redis presence key simply expires.
+ * Hit/miss/eviction metrics are published as {@code cache.*{cache=presence}}.
+ */
+@Slf4j
+@Primary
+@Service
+@ConditionalOnProperty(name = "notification.presence.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class CachingPresenceManager implements PresenceManager, MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "presence:invalidate";
+
+    private final RedisPresenceManager delegate;
+    private final StringRedisTemplate redisTemplate;
+    private final Cache<String, Set<Integer>> cache;
+    private final Counter invalidations;
+
+    public CachingPresenceManager(RedisPresenceManager delegate, StringRedisTemplate redisTemplate, MeterRegistry meterRegistry,
+                                  @Value("${notification.presence.cache.maximum-size:100000}") long maximumSize,
+                                  @Value("${notification.presence.cache.max-staleness-ms:5000}") long maxStalenessMs) {
+        this.delegate = delegate;
+        this.redisTemplate = redisTemplate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(maxStalenessMs))
+                .recordStats()
+                .build();
+        this.invalidations = Counter.builder("notification.presence.cache.invalidations")
+                .description("Presence cache entries evicted by connect/disconnect broadcasts")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "presence");
+    }
+
+    @Override
+    public boolean isOnline(String userId) {
+        return !cache.get(userId, id -> delegate.findRoutes(List.of(id)).getOrDefault(id, Set.of())).isEmpty();
+    }
+
+    @Override
+    public Set<String> findOnline(Collection<String> userIds) {
+        return findRoutes(userIds).keySet();
+    }
+
+    @Override
+    public Map<String, Set<Integer>> findRoutes(Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
+
+        // Only the misses go to Redis, still as one pipelined lookup
+        Map<String, Set<Integer>> cached = cache.getAll(userIds, missing -> {
+            Map<String, Set<Integer>> found = delegate.findRoutes(List.copyOf(missing));
+            Map<String, Set<Integer>> loaded = new HashMap<>();
+            missing.forEach(userId -> loaded.put(userId, Set.copyOf(found.getOrDefault(userId, Set.of()))));
+            return loaded;
+        });
+
+        Map<String, Set<Integer>> routes = new HashMap<>();
+        cached.forEach((userId, nodes) -> {
+            if (!nodes.isEmpty()) {
+                routes.put(userId, nodes);
+            }
+        });
+        return routes;
+    }
+
+    @Override
+    public void setOnline(String userId, String sessionId) {
+        delegate.setOnline(userId, sessionId);
+        invalidate(Set.of(userId));
+    }
+
+    @Override
+    public void setOnlineAll(Map<String, String> userIdsBySessionId) {
+        delegate.setOnlineAll(userIdsBySessionId);
+        invalidate(new LinkedHashSet<>(userIdsBySessionId.values()));
+    }
+
+    @Override
+    public void setOffline(String userId, String sessionId) {
+        delegate.setOffline(userId, sessionId);
+        invalidate(Set.of(userId));
+    }
+
+    /**
+     * Invalidation broadcast from any instance (including this one); the body is a newline-separated list of user ids.
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        List<String> userIds = List.of(new String(message.getBody(), StandardCharsets.UTF_8).split("\n"));
+        cache.invalidateAll(userIds);
+        invalidations.increment(userIds.size());
+    }
+
+    private void invalidate(Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        // Local eviction first, so this instance never serves its own stale answer while the broadcast is in flight
+        cache.invalidateAll(userIds);
+        try {
+            // One message per batch, so a connect storm costs one PUBLISH instead of one per user
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, String.join("\n", userIds));
+        } catch (Exception e) {
+            // Other instances fall back to max-staleness-ms for these users
+            log.warn("Failed to broadcast presence invalidation for {} users", userIds.size(), e);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.notification.platform.dispatcher;
+
+import lombok.Getter;
+
+import java.util.Set;
+
+/**
+ * Completes {@link DispatcherService#dispatchAll} when the broker did not take every routed send, so the listener can
+ * fail the batch from the first affected record instead of committing past it.
+ */
+@Getter
+public class DispatchFailedException extends IllegalStateException {
+
+    private final Set<Long> requestIds;
+
+    public DispatchFailedException(Set<Long> requestIds) {
+        super("Channel sends failed for requests " + requestIds);
+        this.requestIds = Set.copyOf(requestIds);
+    }
+}
@@ -5,14 +5,24 @@ import com.notification.platform.domain.entity.NotificationRequest;
 import com.notification.platform.domain.enums.DeliveryStatus;
 import com.notification.platform.domain.enums.NotificationChannel;
 import com.notification.platform.domain.repository.DeliveryLogRepository;
+import com.notification.platform.domain.repository.DeliveryStatusEventRepository;
 import com.notification.platform.domain.repository.NotificationRequestRepository;
 import com.notification.platform.messaging.event.NotificationRequestEvent;
+import com.notification.platform.messaging.priority.NotificationTopics;
+import com.notification.platform.messaging.send.KafkaSendPipeline;
+import com.notification.platform.messaging.status.DeliveryStatusAggregator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 
 @Slf4j
 @Service
@@ -21,78 +31,211 @@ public class DispatcherService {
 
     private final DeliveryLogRepository deliveryLogRepository;
     private final NotificationRequestRepository notificationRequestRepository;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final KafkaSendPipeline sendPipeline;
     private final com.notification.platform.config.SnowflakeIdGenerator snowflakeIdGenerator;
     private final PresenceManager presenceManager;
+    private final DeliveryStatusEventRepository statusEventRepository;
+    private final DeliveryStatusAggregator statusAggregator;
+
+    private static final String OFFLINE_FALLBACK = "User offline, falling back to EMAIL";
+
+    @Transactional
+    public CompletableFuture<Void> dispatch(NotificationRequestEvent event) {
+        return dispatchAll(List.of(event));
+    }
 
+    /**
+     * Dispatches one polled batch: one query for the requests, one pipelined presence lookup
+     * and one JDBC batch of delivery logs. The channel sends are issued after commit without blocking.
+     * IN_APP events go to the in-app topic partition of every gateway node holding one of the recipient's sessions,
+     * so each gateway only receives events for users it can actually deliver to.
+     *
+     * Idempotent per request: when a request already has delivery logs (a redelivered batch, a re-published request,
+     * or the log of an admin retry carried as the event's deliveryLogId), those logs are reused and only the ones the
+     * broker never acked are sent again.
+     *
+     * @return completes once every routed event has been acked, or with a {@link DispatchFailedException} naming the
+     * requests whose sends failed, so the listener can commit offsets only past what reached the channel topics
+     */
     @Transactional
-    public void dispatch(NotificationRequestEvent event) {
-        log.info("Dispatching notification request: {} for channel: {}", event.getRequestId(), event.getChannel());
-
-        // 1. Fetch the original request
-        NotificationRequest request = notificationRequestRepository.findById(event.getRequestId())
-                .orElseThrow(() -> new IllegalArgumentException("Request not found: " + event.getRequestId()));
-
-        // 2. Presence Check & Fallback Logic (Only for IN_APP)
-        if (event.getChannel() == NotificationChannel.IN_APP && !presenceManager.isOnline(event.getRecipientId())) {
-            log.info("User {} is offline. Rerouting IN_APP request {} to EMAIL.", event.getRecipientId(), event.getRequestId());
-            
-            // Create a REROUTED log for the original IN_APP attempt
-            DeliveryLog reroutedLog = DeliveryLog.builder()
-                    .id(snowflakeIdGenerator.nextId())
-                    .request(request)
-                    .recipientId(event.getRecipientId())
-                    .channel(NotificationChannel.IN_APP)
-                    .targetAddress(event.getTargetAddress())
-                    .status(DeliveryStatus.REROUTED)
-                    .errorMessage("User offline, falling back to EMAIL")
-                    .build();
-            deliveryLogRepository.save(reroutedLog);
-
-            // Reroute by calling dispatch again with EMAIL channel
-            NotificationRequestEvent fallbackEvent = event.toBuilder()
-                    .channel(NotificationChannel.EMAIL)
-                    .build();
-            
-            dispatch(fallbackEvent);
-            return;
+    public CompletableFuture<Void> dispatchAll(List<NotificationRequestEvent> events) {
+        if (events.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        log.info("Dispatching {} notification requests", events.size());
+
+        // 1. Fetch the original requests in one query
+        Map<Long, NotificationRequest> requests = notificationRequestRepository.findAllById(
+                        events.stream().map(NotificationRequestEvent::getRequestId).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(NotificationRequest::getId, Function.identity()));
+
+        // 2. Logs of earlier attempts at the same requests, and which of them need no further send
+        Map<Long, List<DeliveryLog>> earlierLogs = deliveryLogRepository.findByRequestIdIn(requests.keySet()).stream()
+                .collect(Collectors.groupingBy(deliveryLog -> deliveryLog.getRequest().getId()));
+        Set<Long> settled = settledLogIds(earlierLogs.values().stream().flatMap(List::stream).toList());
+
+        // 3. Gateway routes of every IN_APP recipient in one round trip; offline users have none
+        Map<String, Set<Integer>> inAppRoutes = presenceManager.findRoutes(events.stream()
+                .filter(event -> event.getChannel() == NotificationChannel.IN_APP)
+                .map(NotificationRequestEvent::getRecipientId)
+                .collect(Collectors.toSet()));
+
+        // 4. Build the delivery logs (with fallback logic) and persist them in one batch
+        List<DeliveryLog> deliveryLogs = new ArrayList<>();
+        Map<DeliveryLog, NotificationRequestEvent> routes = new LinkedHashMap<>();
+        List<Long> reroutedLogIds = new ArrayList<>();
+        for (NotificationRequestEvent event : events) {
+            NotificationRequest request = requests.get(event.getRequestId());
+            if (request == null) {
+                log.error("Request not found: {}", event.getRequestId());
+                continue;
+            }
+
+            List<DeliveryLog> earlier = earlierAttempt(event, earlierLogs.getOrDefault(request.getId(), List.of()));
+            if (!earlier.isEmpty()) {
+                // The earlier routing stands: re-send its logs the broker never acked, without inserting new ones
+                for (DeliveryLog deliveryLog : earlier) {
+                    if (settled.contains(deliveryLog.getId())) {
+                        continue;
+                    }
+                    NotificationRequestEvent resend = event.toBuilder()
+                            .channel(deliveryLog.getChannel())
+                            .targetAddress(deliveryLog.getTargetAddress())
+                            .build();
+                    if (resend.getChannel() == NotificationChannel.IN_APP && !inAppRoutes.containsKey(resend.getRecipientId())) {
+                        log.info("User {} went offline since the first attempt at request {}. Rerouting to EMAIL.",
+                                resend.getRecipientId(), resend.getRequestId());
+                        reroutedLogIds.add(deliveryLog.getId());
+                        resend = resend.toBuilder().channel(NotificationChannel.EMAIL).build();
+                        DeliveryLog fallback = pendingLog(request, resend);
+                        deliveryLogs.add(fallback);
+                        routes.put(fallback, resend);
+                    } else {
+                        routes.put(deliveryLog, resend);
+                    }
+                }
+                continue;
+            }
+
+            NotificationRequestEvent routed = event;
+            if (event.getChannel() == NotificationChannel.IN_APP && !inAppRoutes.containsKey(event.getRecipientId())) {
+                log.info("User {} is offline. Rerouting IN_APP request {} to EMAIL.", event.getRecipientId(), event.getRequestId());
+
+                // Create a REROUTED log for the original IN_APP attempt
+                deliveryLogs.add(DeliveryLog.builder()
+                        .id(snowflakeIdGenerator.nextId())
+                        .request(request)
+                        .recipientId(event.getRecipientId())
+                        .channel(NotificationChannel.IN_APP)
+                        .targetAddress(event.getTargetAddress())
+                        .status(DeliveryStatus.REROUTED)
+                        .errorMessage(OFFLINE_FALLBACK)
+                        .build());
+
+                routed = event.toBuilder()
+                        .channel(NotificationChannel.EMAIL)
+                        .build();
+            }
+
+            // Track the attempt on the (possibly rerouted) channel
+            DeliveryLog deliveryLog = pendingLog(request, routed);
+            deliveryLogs.add(deliveryLog);
+            routes.put(deliveryLog, routed);
         }
 
-        // 3. Create DeliveryLog (Track attempt)
-        DeliveryLog deliveryLog = DeliveryLog.builder()
+        deliveryLogRepository.saveAll(deliveryLogs);
+
+        // 5. Route to the channel topics of the event's priority lane once the delivery logs are committed.
+        // Statuses follow the broker acks through the send pipeline (QUEUED on ack, FAILED on failure).
+        return sendPipeline.afterCommit(() -> {
+            Set<Long> failedRequestIds = ConcurrentHashMap.newKeySet();
+            List<CompletableFuture<?>> pending = new ArrayList<>();
+            reroutedLogIds.forEach(id -> pending.add(statusAggregator.record(id, DeliveryStatus.REROUTED, OFFLINE_FALLBACK)));
+            routes.forEach((deliveryLog, routed) -> {
+                Long deliveryLogId = deliveryLog.getId();
+                // Adapters report the outcome against this id instead of looking the log up by request
+                NotificationRequestEvent event = routed.toBuilder().deliveryLogId(deliveryLogId).build();
+                String topic = NotificationTopics.channel(event.getChannel(), event.getPriority());
+                Stream<CompletableFuture<Boolean>> sends = event.getChannel() != NotificationChannel.IN_APP
+                        ? Stream.of(sendPipeline.sendDelivery(topic, event.getPriority(), event.getRecipientId(), event, deliveryLogId))
+                        // One copy per gateway node holding a session of the recipient (partition = node slot)
+                        : inAppRoutes.get(event.getRecipientId()).stream()
+                                .map(node -> sendPipeline.sendDelivery(topic, node, event.getPriority(), event.getRecipientId(), event, deliveryLogId));
+                sends.forEach(send -> pending.add(send.thenAccept(acked -> {
+                    if (!acked) {
+                        failedRequestIds.add(event.getRequestId());
+                    }
+                })));
+            });
+            return CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).thenRun(() -> {
+                if (!failedRequestIds.isEmpty()) {
+                    throw new DispatchFailedException(failedRequestIds);
+                }
+            });
+        });
+    }
+
+    /**
+     * Falls back to EMAIL for an IN_APP event that could not be delivered to any session, tracked by a new delivery
+     * log like the offline fallback in {@link #dispatchAll}. The caller records the outcome of the IN_APP attempt.
+     *
+     * @return completes once the EMAIL send has been acked or has failed
+     */
+    @Transactional
+    public CompletableFuture<Void> rerouteToEmail(NotificationRequestEvent event) {
+        log.info("Rerouting undeliverable IN_APP request {} of user {} to EMAIL.", event.getRequestId(), event.getRecipientId());
+        DeliveryLog deliveryLog = deliveryLogRepository.save(DeliveryLog.builder()
                 .id(snowflakeIdGenerator.nextId())
-                .request(request)
+                .request(notificationRequestRepository.getReferenceById(event.getRequestId()))
                 .recipientId(event.getRecipientId())
-                .channel(event.getChannel())
+                .channel(NotificationChannel.EMAIL)
                 .targetAddress(event.getTargetAddress())
                 .status(DeliveryStatus.PENDING)
+                .build());
+
+        NotificationRequestEvent rerouted = event.toBuilder()
+                .channel(NotificationChannel.EMAIL)
+                .deliveryLogId(deliveryLog.getId())
                 .build();
+        String topic = NotificationTopics.channel(NotificationChannel.EMAIL, rerouted.getPriority());
+        return sendPipeline.afterCommit(() -> sendPipeline.sendDelivery(topic, rerouted.getPriority(),
+                rerouted.getRecipientId(), rerouted, deliveryLog.getId()));
+    }
 
-        deliveryLogRepository.save(deliveryLog);
-
-        // 3. Route to channel-specific Kafka topics
-        String targetTopic = determineTopic(event.getChannel());
-        if (targetTopic != null) {
-            try {
-                kafkaTemplate.send(targetTopic, event.getRecipientId(), event);
-                log.info("Routed to channel topic: {} for request: {}", targetTopic, event.getRequestId());
-                
-                // Update status to QUEUED after successful Kafka send (relies on JPA dirty checking)
-                deliveryLog.updateStatus(DeliveryStatus.QUEUED);
-            } catch (Exception e) {
-                log.error("Failed to route to Kafka: {}", e.getMessage());
-                deliveryLog.updateStatus(DeliveryStatus.FAILED, e.getMessage());
-            }
-        } else {
-            log.warn("Unknown channel: {} for request: {}", event.getChannel(), event.getRequestId());
-            deliveryLog.updateStatus(DeliveryStatus.FAILED, "Unsupported channel: " + event.getChannel());
+    /**
+     * @return the logs of the earlier attempt this event repeats: the admin retry log it carries, or every log of the request
+     */
+    private List<DeliveryLog> earlierAttempt(NotificationRequestEvent event, List<DeliveryLog> requestLogs) {
+        if (event.getDeliveryLogId() == null) {
+            return requestLogs;
         }
+        return requestLogs.stream().filter(deliveryLog -> deliveryLog.getId().equals(event.getDeliveryLogId())).toList();
+    }
+
+    /**
+     * @return the logs that need no further send: acked by the broker (a QUEUED transition is only recorded on ack,
+     * and committed before the listener moves on) or rerouted to another channel
+     */
+    private Set<Long> settledLogIds(List<DeliveryLog> deliveryLogs) {
+        Set<Long> settled = new HashSet<>();
+        deliveryLogs.stream()
+                .filter(deliveryLog -> deliveryLog.getStatus() == DeliveryStatus.REROUTED)
+                .forEach(deliveryLog -> settled.add(deliveryLog.getId()));
+        statusEventRepository.findHistory(deliveryLogs.stream().map(DeliveryLog::getId).toList()).stream()
+                .filter(event -> event.getStatus() == DeliveryStatus.QUEUED || event.getStatus() == DeliveryStatus.REROUTED)
+                .forEach(event -> settled.add(event.getDeliveryLogId()));
+        return settled;
     }
 
-    private String determineTopic(NotificationChannel channel) {
-        return switch (channel) {
-            case IN_APP -> "notification.inapp";
-            case EMAIL -> "notification.email";
-        };
+    private DeliveryLog pendingLog(NotificationRequest request, NotificationRequestEvent routed) {
+        return DeliveryLog.builder()
+                .id(snowflakeIdGenerator.nextId())
+                .request(request)
+                .recipientId(routed.getRecipientId())
+                .channel(routed.getChannel())
+                .targetAddress(routed.getTargetAddress())
+                .status(DeliveryStatus.PENDING)
+                .build();
     }
 }
@@ -0,0 +1,76 @@
+package com.notification.platform.dispatcher;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * WebSocket sessions held by this instance, bucketed into a fixed number of shards by session id,
+ * so the presence heartbeat can refresh one bounded slice per tick without scanning every session.
+ */
+@Component
+public class LocalSessionRegistry {
+
+    private final Map<String, String>[] shards;
+    private final Map<String, Integer> sessionCountsByUser = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public LocalSessionRegistry(@Value("${notification.presence.heartbeat.shards:12}") int shardCount,
+                                MeterRegistry meterRegistry) {
+        this.shards = new Map[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+        }
+        Gauge.builder("notification.presence.local.sessions", this, LocalSessionRegistry::size)
+                .description("WebSocket sessions held by this instance")
+                .register(meterRegistry);
+    }
+
+    public void register(String sessionId, String userId) {
+        if (shardOf(sessionId).putIfAbsent(sessionId, userId) == null) {
+            sessionCountsByUser.merge(userId, 1, Integer::sum);
+        }
+    }
+
+    public void unregister(String sessionId) {
+        String userId = shardOf(sessionId).remove(sessionId);
+        if (userId != null) {
+            sessionCountsByUser.computeIfPresent(userId, (user, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    /**
+     * @return whether the user has at least one session on this instance
+     */
+    public boolean isConnected(String userId) {
+        return sessionCountsByUser.containsKey(userId);
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    /**
+     * @return a snapshot of the sessions of one shard, as user id by session id
+     */
+    public Map<String, String> shard(int index) {
+        return new HashMap<>(shards[index]);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Map<String, String> shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    private Map<String, String> shardOf(String sessionId) {
+        return shards[Math.floorMod(sessionId.hashCode(), shards.length)];
+    }
+}
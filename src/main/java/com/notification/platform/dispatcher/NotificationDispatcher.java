@@ -3,9 +3,16 @@ package com.notification.platform.dispatcher;
 import com.notification.platform.messaging.event.NotificationRequestEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 @Slf4j
 @Component
 @RequiredArgsConstructor
@@ -13,14 +20,61 @@ public class NotificationDispatcher {
 
     private final DispatcherService dispatcherService;
 
-    @KafkaListener(topics = "${spring.kafka.topic.inbound}", groupId = "${spring.kafka.consumer.group-id}")
-    public void consume(NotificationRequestEvent event) {
-        log.info("Consumed notification request event: {}", event.getRequestId());
+    @Value("${notification.dispatcher.send-timeout-ms:30000}")
+    private long sendTimeoutMs = 30000;
+
+    @KafkaListener(id = "dispatcher-normal", topics = "${spring.kafka.topic.inbound}", groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "batchKafkaListenerContainerFactory", concurrency = "${notification.lanes.normal.concurrency:1}")
+    public void consume(List<NotificationRequestEvent> events) {
+        log.info("Consumed {} notification request events", events.size());
+        dispatch(events);
+    }
+
+    /**
+     * HIGH lane: same handling, but its own topic and a larger share of consumer threads (see PriorityLaneGovernor).
+     */
+    @KafkaListener(id = "dispatcher-high", topics = "${spring.kafka.topic.inbound}.high", groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "batchKafkaListenerContainerFactory", concurrency = "${notification.lanes.high.concurrency:3}")
+    public void consumeHigh(List<NotificationRequestEvent> events) {
+        log.info("Consumed {} HIGH priority notification request events", events.size());
+        dispatch(events);
+    }
+
+    /**
+     * Waits for the batch's channel sends before returning: the container commits the offsets once the listener
+     * returns, and an async batch listener's failure would only be logged before the batch is acked anyway.
+     * Failed sends fail the batch from the first affected record, so the error handler commits the offsets below it
+     * and redelivers the rest; dispatchAll reuses the delivery logs of the earlier attempt and only re-sends what the
+     * broker never acked.
+     */
+    void dispatch(List<NotificationRequestEvent> events) {
         try {
-            dispatcherService.dispatch(event);
-        } catch (Exception e) {
-            log.error("Error processing notification request: {}", e.getMessage(), e);
-            // In a real system, we might send this to a DLQ (Dead Letter Queue)
+            dispatcherService.dispatchAll(events).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while dispatching " + events.size() + " requests", e);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Timed out waiting for the channel sends of " + events.size() + " requests", e);
+        } catch (ExecutionException e) {
+            DispatchFailedException failed = dispatchFailure(e);
+            if (failed == null) {
+                throw new IllegalStateException("Failed to dispatch " + events.size() + " requests", e.getCause());
+            }
+            for (int i = 0; i < events.size(); i++) {
+                if (failed.getRequestIds().contains(events.get(i).getRequestId())) {
+                    throw new BatchListenerFailedException(failed.getMessage(), failed, i);
+                }
+            }
+            throw failed;
+        }
+    }
+
+    private static DispatchFailedException dispatchFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DispatchFailedException failed) {
+                return failed;
+            }
         }
+        return null;
     }
 }
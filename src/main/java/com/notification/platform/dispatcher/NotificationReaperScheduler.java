@@ -1,39 +1,99 @@
 package com.notification.platform.dispatcher;
 
+import com.notification.platform.config.SchedulerLock;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.JobParameters;
 import org.springframework.batch.core.JobParametersBuilder;
 import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 
+import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Fires the reaper on every pod, but only the pod that wins the cluster-wide {@link SchedulerLock} runs the job.
+ * The lease is renewed while the job runs and its fencing token is passed as a job parameter,
+ * so the writer stops re-dispatching as soon as the lease is lost to another pod.
+ */
 @Slf4j
 @Configuration
-@EnableScheduling
 @RequiredArgsConstructor
 public class NotificationReaperScheduler {
 
+    public static final String REAPER_LOCK = "notification-reaper";
+    public static final String FENCING_TOKEN = "fencingToken";
+
     private final JobLauncher jobLauncher;
     private final Job reaperJob;
+    private final SchedulerLock schedulerLock;
+
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("reaper-lock-heartbeat").daemon().factory());
 
-    @Scheduled(cron = "0 0/10 * * * ?") // Every 10 minutes
+    @Value("${notification.reaper.lease-ttl-ms:60000}")
+    private long leaseTtlMs = 60000;
+
+    // Full-window backstop; stale requests are normally re-dispatched within seconds by the StaleRequestSweeper
+    @Scheduled(cron = "${notification.reaper.cron:0 0 * * * ?}")
     public void runReaperJob() {
+        Duration leaseTtl = Duration.ofMillis(leaseTtlMs);
+        Optional<SchedulerLock.Lease> acquired;
+        try {
+            acquired = schedulerLock.tryAcquire(REAPER_LOCK, leaseTtl);
+        } catch (Exception e) {
+            log.error("Failed to acquire the reaper lock, skipping this run", e);
+            return;
+        }
+        if (acquired.isEmpty()) {
+            log.info("Reaper is running on another instance, skipping this run");
+            return;
+        }
+
+        SchedulerLock.Lease lease = acquired.get();
+        long renewEveryMs = leaseTtl.toMillis() / 3;
+        ScheduledFuture<?> heartbeat = heartbeats.scheduleAtFixedRate(() -> renew(lease, leaseTtl),
+                renewEveryMs, renewEveryMs, TimeUnit.MILLISECONDS);
         log.info("Starting Notification Reaper Batch Job...");
         
         try {
             JobParameters jobParameters = new JobParametersBuilder()
                     .addString("thresholdDateTime", OffsetDateTime.now().minusMinutes(5).toString())
+                    .addLong(FENCING_TOKEN, lease.fencingToken())
                     .addLong("time", System.currentTimeMillis()) // Ensure unique run
                     .toJobParameters();
             
             jobLauncher.run(reaperJob, jobParameters);
         } catch (Exception e) {
             log.error("Failed to run Notification Reaper Job", e);
+        } finally {
+            heartbeat.cancel(false);
+            schedulerLock.release(lease);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+    }
+
+    private void renew(SchedulerLock.Lease lease, Duration leaseTtl) {
+        try {
+            if (!schedulerLock.renew(lease, leaseTtl)) {
+                // The writer sees the stale fencing token and stops at its next chunk
+                log.error("Lost the reaper lock (fencing token {})", lease.fencingToken());
+            }
+        } catch (Exception e) {
+            log.warn("Failed to renew the reaper lock", e);
         }
     }
 }
@@ -0,0 +1,104 @@
+package com.notification.platform.dispatcher;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Coalesces concurrent STOMP CONNECTs into {@link PresenceManager#setOnlineAll} batches.
+ * A single flusher writes whatever has queued up while the previous batch was in flight, so a quiet gateway still
+ * writes each connect immediately while a reconnect storm (e.g. after a redeploy) costs one Redis round trip per
+ * batch instead of one per session. Callers wait for their batch, so a session is online once CONNECT returns.
+ */
+@Slf4j
+@Component
+public class PresenceConnectCoalescer {
+
+    private final PresenceManager presenceManager;
+    private final DistributionSummary batchSizes;
+    private final BlockingQueue<PendingConnect> pending = new LinkedBlockingQueue<>();
+    private final Thread flusher;
+
+    private volatile boolean running = true;
+
+    @Value("${notification.presence.connect.max-batch-size:1000}")
+    private int maxBatchSize = 1000;
+
+    @Value("${notification.presence.connect.timeout-ms:5000}")
+    private long timeoutMs = 5000;
+
+    public PresenceConnectCoalescer(PresenceManager presenceManager, MeterRegistry meterRegistry) {
+        this.presenceManager = presenceManager;
+        this.batchSizes = DistributionSummary.builder("notification.presence.connect.batch")
+                .description("Sessions marked online per Redis round trip")
+                .register(meterRegistry);
+        this.flusher = Thread.ofPlatform().name("presence-connect-flusher").daemon().start(this::flushLoop);
+    }
+
+    private record PendingConnect(String userId, String sessionId, CompletableFuture<Void> done) {
+    }
+
+    /**
+     * Marks the session online, sharing the Redis round trip with every other CONNECT queued at the same time.
+     */
+    public void setOnline(String userId, String sessionId) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        pending.add(new PendingConnect(userId, sessionId, done));
+        try {
+            done.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to mark session " + sessionId + " online", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Timed out marking session " + sessionId + " online", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted marking session " + sessionId + " online", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        flusher.interrupt();
+    }
+
+    private void flushLoop() {
+        List<PendingConnect> batch = new ArrayList<>();
+        while (running) {
+            try {
+                PendingConnect first = pending.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                pending.drainTo(batch, maxBatchSize - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingConnect> batch) {
+        // A session reconnecting twice within one batch keeps its latest user id
+        Map<String, String> userIdsBySessionId = new LinkedHashMap<>();
+        batch.forEach(connect -> userIdsBySessionId.put(connect.sessionId(), connect.userId()));
+        try {
+            presenceManager.setOnlineAll(userIdsBySessionId);
+            batch.forEach(connect -> connect.done().complete(null));
+        } catch (Exception e) {
+            log.error("Failed to mark {} sessions online", batch.size(), e);
+            batch.forEach(connect -> connect.done().completeExceptionally(e));
+        }
+        batchSizes.record(batch.size());
+    }
+}
@@ -0,0 +1,109 @@
+package com.notification.platform.dispatcher;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the presence of long-lived sessions from expiring: the keys written at CONNECT only live for
+ * {@link RedisPresenceManager#TTL}, after which the dispatcher would reroute the user's IN_APP traffic to email.
+ * Each tick refreshes one shard of the {@link LocalSessionRegistry} in batched scripts, so every session is
+ * refreshed once per {@code shards * interval} and Redis sees an even trickle instead of one burst per TTL.
+ *
+ * Refreshes go straight to Redis: they don't change anyone's presence, so there is nothing to invalidate. They only
+ * renew sessions Redis still holds ({@link RedisPresenceManager#refreshAll}), so a session disconnected after its shard
+ * was read stays offline. The heartbeat runs on its own thread: on the shared scheduler pool a long job could hold it
+ * back until the TTL expires.
+ */
+@Slf4j
+@Component
+public class PresenceHeartbeat {
+
+    private final LocalSessionRegistry sessionRegistry;
+    private final RedisPresenceManager presenceManager;
+    private final Counter refreshed;
+    private final Counter skipped;
+    private final ScheduledExecutorService ticks = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("presence-heartbeat").daemon().factory());
+
+    private int nextShard;
+
+    @Value("${notification.presence.heartbeat.interval-ms:5000}")
+    private long intervalMs = 5000;
+
+    @Value("${notification.presence.heartbeat.max-batch-size:1000}")
+    private int maxBatchSize = 1000;
+
+    public PresenceHeartbeat(LocalSessionRegistry sessionRegistry, RedisPresenceManager presenceManager,
+                             MeterRegistry meterRegistry) {
+        this.sessionRegistry = sessionRegistry;
+        this.presenceManager = presenceManager;
+        this.refreshed = Counter.builder("notification.presence.heartbeat.refreshed")
+                .description("Session presence keys refreshed by the heartbeat")
+                .register(meterRegistry);
+        this.skipped = Counter.builder("notification.presence.heartbeat.skipped")
+                .description("Local sessions the heartbeat found already offline in Redis")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        ticks.scheduleWithFixedDelay(this::refreshNextShard, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+
+        Duration cycle = Duration.ofMillis(intervalMs * sessionRegistry.shardCount());
+        if (cycle.compareTo(RedisPresenceManager.TTL.dividedBy(2)) > 0) {
+            log.warn("Presence heartbeat cycle {} leaves little margin before the presence TTL {} expires",
+                    cycle, RedisPresenceManager.TTL);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticks.shutdownNow();
+    }
+
+    public void refreshNextShard() {
+        int shard = nextShard;
+        nextShard = (shard + 1) % sessionRegistry.shardCount();
+
+        Map<String, String> sessions = sessionRegistry.shard(shard);
+        if (sessions.isEmpty()) {
+            return;
+        }
+
+        Map<String, String> batch = new LinkedHashMap<>();
+        for (Map.Entry<String, String> session : sessions.entrySet()) {
+            batch.put(session.getKey(), session.getValue());
+            if (batch.size() == maxBatchSize) {
+                refresh(batch);
+                batch = new LinkedHashMap<>();
+            }
+        }
+        refresh(batch);
+    }
+
+    private void refresh(Map<String, String> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            long renewed = presenceManager.refreshAll(batch);
+            refreshed.increment(renewed);
+            skipped.increment(batch.size() - renewed);
+        } catch (Exception e) {
+            // The TTL outlives several cycles; the next pass over this shard tries again
+            log.warn("Failed to refresh presence of {} sessions", batch.size(), e);
+        }
+    }
+}
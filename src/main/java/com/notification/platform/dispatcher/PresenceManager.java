@@ -1,5 +1,9 @@
 package com.notification.platform.dispatcher;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
 public interface PresenceManager {
     /**
      * Checks if a user is currently online.
@@ -8,6 +12,20 @@ public interface PresenceManager {
      */
     boolean isOnline(String userId);
 
+    /**
+     * Checks presence for many users in a single round trip.
+     * @param userIds The user IDs to check.
+     * @return the subset of user IDs that are currently online.
+     */
+    Set<String> findOnline(Collection<String> userIds);
+
+    /**
+     * Looks up which gateway nodes hold the sessions of many users, in a single round trip.
+     * @param userIds The user IDs to look up.
+     * @return the gateway node slots of every user with at least one routable session; offline users are absent.
+     */
+    Map<String, Set<Integer>> findRoutes(Collection<String> userIds);
+
     /**
      * Marks a user session as online.
      * @param userId The user ID.
@@ -15,6 +33,12 @@ public interface PresenceManager {
      */
     void setOnline(String userId, String sessionId);
 
+    /**
+     * Marks many sessions as online in a single round trip (e.g. a reconnect storm after a gateway redeploy).
+     * @param userIdsBySessionId The user ID of every WebSocket session ID.
+     */
+    void setOnlineAll(Map<String, String> userIdsBySessionId);
+
     /**
      * Marks a user session as offline.
      * @param userId The user ID.
@@ -1,22 +1,43 @@
 package com.notification.platform.dispatcher;
 
+import com.notification.platform.config.GatewayNode;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
-import java.util.List;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
 public class RedisPresenceManager implements PresenceManager {
 
     private final StringRedisTemplate redisTemplate;
+    private final GatewayNode gatewayNode;
 
     private static final String PRESENCE_PREFIX = "presence:";
     private static final String SESSION_PREFIX = "session:";
-    private static final Duration TTL = Duration.ofMinutes(5);
+    // Sorted set of "<slot>:<sessionId>" scored by expiry time, read by the dispatcher to route IN_APP events.
+    // Own prefix: "presence:route:<userId>" could be the presence set of a user whose id starts with "route:".
+    // Each session's entry expires on its own, so the entries of a crashed pod stop routing after one TTL even
+    // while other sessions keep the key alive.
+    private static final String ROUTE_PREFIX = "presence-route:";
+    // Refreshed by PresenceHeartbeat for as long as the session stays connected
+    static final Duration TTL = Duration.ofMinutes(5);
+
+    // SADD + PEXPIRE + SET + ZADD + prune expired routes + PEXPIRE in one round trip
+    private static final String SET_ONLINE_LUA =
+        "redis.call('SADD', KEYS[1], ARGV[1]); " +
+        "redis.call('PEXPIRE', KEYS[1], ARGV[3]); " +
+        "redis.call('SET', KEYS[2], ARGV[2], 'PX', ARGV[3]); " +
+        "redis.call('ZADD', KEYS[3], ARGV[6], ARGV[4]); " +
+        "redis.call('ZREMRANGEBYSCORE', KEYS[3], '-inf', ARGV[5]); " +
+        "redis.call('PEXPIRE', KEYS[3], ARGV[3]); " +
+        "return 1;";
 
     private static final String SET_OFFLINE_LUA = 
         "redis.call('SREM', KEYS[1], ARGV[1]); " +
@@ -24,22 +45,145 @@ public class RedisPresenceManager implements PresenceManager {
         "  redis.call('DEL', KEYS[1]); " +
         "end; " +
         "redis.call('DEL', KEYS[2]); " +
+        "redis.call('ZREM', KEYS[3], ARGV[2]); " +
         "return 1;";
 
+    // For each (presence, session, route) key triple: renew the TTLs only while the session is still a member of the
+    // user's presence set, so a refresh racing a disconnect cannot bring the closed session back
+    private static final String REFRESH_LUA =
+        "local refreshed = 0; " +
+        "for i = 1, #KEYS / 3 do " +
+        "  local sessionId = ARGV[3 * i + 1]; " +
+        "  if redis.call('SISMEMBER', KEYS[3 * i - 2], sessionId) == 1 then " +
+        "    redis.call('PEXPIRE', KEYS[3 * i - 2], ARGV[1]); " +
+        "    redis.call('SET', KEYS[3 * i - 1], ARGV[3 * i + 2], 'PX', ARGV[1]); " +
+        "    redis.call('ZADD', KEYS[3 * i], ARGV[3], ARGV[3 * i + 3]); " +
+        "    redis.call('ZREMRANGEBYSCORE', KEYS[3 * i], '-inf', ARGV[2]); " +
+        "    redis.call('PEXPIRE', KEYS[3 * i], ARGV[1]); " +
+        "    refreshed = refreshed + 1; " +
+        "  end; " +
+        "end; " +
+        "return refreshed;";
+
+    private static final RedisScript<Long> SET_ONLINE_SCRIPT = new DefaultRedisScript<>(SET_ONLINE_LUA, Long.class);
+    private static final RedisScript<Long> SET_OFFLINE_SCRIPT = new DefaultRedisScript<>(SET_OFFLINE_LUA, Long.class);
+    private static final RedisScript<Long> REFRESH_SCRIPT = new DefaultRedisScript<>(REFRESH_LUA, Long.class);
+
     @Override
     public boolean isOnline(String userId) {
         Boolean hasKey = redisTemplate.hasKey(PRESENCE_PREFIX + userId);
         return Boolean.TRUE.equals(hasKey);
     }
 
+    @Override
+    public Set<String> findOnline(Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return Set.of();
+        }
+
+        List<String> users = new ArrayList<>(userIds);
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            users.forEach(userId -> stringConnection.exists(PRESENCE_PREFIX + userId));
+            return null;
+        });
+
+        Set<String> online = new HashSet<>();
+        for (int i = 0; i < users.size(); i++) {
+            if (Boolean.TRUE.equals(results.get(i))) {
+                online.add(users.get(i));
+            }
+        }
+        return online;
+    }
+
+    @Override
+    public Map<String, Set<Integer>> findRoutes(Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
+
+        List<String> users = new ArrayList<>(userIds);
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            // Only entries that have not expired yet
+            double now = System.currentTimeMillis();
+            users.forEach(userId -> stringConnection.zRangeByScore(ROUTE_PREFIX + userId, now, Double.MAX_VALUE));
+            return null;
+        });
+
+        Map<String, Set<Integer>> routes = new HashMap<>();
+        for (int i = 0; i < users.size(); i++) {
+            if (results.get(i) instanceof Collection<?> members && !members.isEmpty()) {
+                Set<Integer> nodes = new HashSet<>();
+                members.forEach(member -> nodes.add(slotOf(String.valueOf(member))));
+                routes.put(users.get(i), nodes);
+            }
+        }
+        return routes;
+    }
+
     @Override
     public void setOnline(String userId, String sessionId) {
-        String userKey = PRESENCE_PREFIX + userId;
-        String sessionKey = SESSION_PREFIX + sessionId;
-        
-        redisTemplate.opsForSet().add(userKey, sessionId);
-        redisTemplate.expire(userKey, TTL);
-        redisTemplate.opsForValue().set(sessionKey, userId, TTL);
+        long now = System.currentTimeMillis();
+        redisTemplate.execute(SET_ONLINE_SCRIPT,
+                List.of(PRESENCE_PREFIX + userId, SESSION_PREFIX + sessionId, ROUTE_PREFIX + userId),
+                sessionId, userId, String.valueOf(TTL.toMillis()), routeMember(sessionId),
+                String.valueOf(now), String.valueOf(now + TTL.toMillis()));
+    }
+
+    @Override
+    public void setOnlineAll(Map<String, String> userIdsBySessionId) {
+        if (userIdsBySessionId.isEmpty()) {
+            return;
+        }
+
+        // Same writes as setOnline, pipelined: one round trip for the whole batch
+        long now = System.currentTimeMillis();
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            userIdsBySessionId.forEach((sessionId, userId) -> {
+                String userKey = PRESENCE_PREFIX + userId;
+                String routeKey = ROUTE_PREFIX + userId;
+                stringConnection.sAdd(userKey, sessionId);
+                stringConnection.pExpire(userKey, TTL.toMillis());
+                stringConnection.pSetEx(SESSION_PREFIX + sessionId, TTL.toMillis(), userId);
+                stringConnection.zAdd(routeKey, now + TTL.toMillis(), routeMember(sessionId));
+                stringConnection.zRemRangeByScore(routeKey, 0, now);
+                stringConnection.pExpire(routeKey, TTL.toMillis());
+            });
+            return null;
+        });
+    }
+
+    /**
+     * Renews the TTLs of sessions that are still online, in one round trip. Unlike {@link #setOnlineAll} it never
+     * re-adds a session, so a heartbeat that read a session just before its DISCONNECT cannot resurrect it.
+     *
+     * @param userIdsBySessionId The user ID of every WebSocket session ID.
+     * @return the number of sessions refreshed; the others are no longer online
+     */
+    public long refreshAll(Map<String, String> userIdsBySessionId) {
+        if (userIdsBySessionId.isEmpty()) {
+            return 0;
+        }
+
+        List<String> keys = new ArrayList<>(userIdsBySessionId.size() * 3);
+        List<Object> args = new ArrayList<>(userIdsBySessionId.size() * 3 + 3);
+        long now = System.currentTimeMillis();
+        args.add(String.valueOf(TTL.toMillis()));
+        args.add(String.valueOf(now));
+        args.add(String.valueOf(now + TTL.toMillis()));
+        userIdsBySessionId.forEach((sessionId, userId) -> {
+            keys.add(PRESENCE_PREFIX + userId);
+            keys.add(SESSION_PREFIX + sessionId);
+            keys.add(ROUTE_PREFIX + userId);
+            args.add(sessionId);
+            args.add(userId);
+            args.add(routeMember(sessionId));
+        });
+        Long refreshed = redisTemplate.execute(REFRESH_SCRIPT, keys, args.toArray());
+        return refreshed != null ? refreshed : 0;
     }
 
     @Override
@@ -47,7 +191,16 @@ public class RedisPresenceManager implements PresenceManager {
         String userKey = PRESENCE_PREFIX + userId;
         String sessionKey = SESSION_PREFIX + sessionId;
 
-        redisTemplate.execute(new DefaultRedisScript<>(SET_OFFLINE_LUA, Long.class),
-                List.of(userKey, sessionKey), sessionId);
+        // Sessions go offline on the node holding them, so the route entry carries this node's slot
+        redisTemplate.execute(SET_OFFLINE_SCRIPT, List.of(userKey, sessionKey, ROUTE_PREFIX + userId),
+                sessionId, routeMember(sessionId));
+    }
+
+    private String routeMember(String sessionId) {
+        return gatewayNode.slot() + ":" + sessionId;
+    }
+
+    private static int slotOf(String routeMember) {
+        return Integer.parseInt(routeMember.substring(0, routeMember.indexOf(':')));
     }
 }
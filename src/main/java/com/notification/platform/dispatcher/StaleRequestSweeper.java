@@ -0,0 +1,252 @@
+package com.notification.platform.dispatcher;
+
+import com.notification.platform.config.SchedulerLock;
+import com.notification.platform.config.SnowflakeIdGenerator;
+import com.notification.platform.domain.entity.NotificationRequest;
+import com.notification.platform.domain.repository.NotificationRequestRepository;
+import com.notification.platform.messaging.event.NotificationRequestEvent;
+import com.notification.platform.messaging.priority.NotificationTopics;
+import com.notification.platform.messaging.send.KafkaSendPipeline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Re-dispatches requests stuck in ACCEPTED within seconds instead of waiting for the reaper cron.
+ * A persisted watermark records how far the sweep has got in {@code (requested_at, id)} order; every tick scans
+ * from {@code lookback} before the watermark up to {@code now - stale-after}, so the cost of a tick stays constant
+ * no matter how old the table is. The lookback re-covers late commits and re-dispatches that failed;
+ * anything that falls behind it is left to the reaper job, which is now only a slow backstop.
+ * Requests the outbox relay still has to publish are not stale, however old: they are skipped until their outbox row
+ * is published (then they are no longer ACCEPTED) or parked.
+ *
+ * Only the instance holding the sweeper {@link SchedulerLock} lease sweeps, and the watermark is only written
+ * while that lease is still held.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "notification.sweeper.enabled", havingValue = "true", matchIfMissing = true)
+public class StaleRequestSweeper {
+
+    public static final String SWEEPER_LOCK = "stale-request-sweeper";
+
+    // requested_at and the id are both taken at ingress; the margin only absorbs Snowflake clock adjustments
+    private static final long ID_MARGIN_MS = 60_000;
+
+    private static final String LOAD_WATERMARK =
+            "SELECT requested_at, last_id FROM sweeper_watermarks WHERE name = ?";
+
+    // Fenced by the lease and never moved backwards, so a stalled former holder can't rewind the sweep
+    private static final String SAVE_WATERMARK =
+            "INSERT INTO sweeper_watermarks (name, requested_at, last_id, updated_at) " +
+            "SELECT ?, ?, ?, clock_timestamp() WHERE EXISTS (SELECT 1 FROM scheduler_locks " +
+            "WHERE name = ? AND fencing_token = ? AND expires_at > clock_timestamp()) " +
+            "ON CONFLICT (name) DO UPDATE SET requested_at = EXCLUDED.requested_at, last_id = EXCLUDED.last_id, " +
+            "updated_at = EXCLUDED.updated_at " +
+            "WHERE (sweeper_watermarks.requested_at, sweeper_watermarks.last_id) < (EXCLUDED.requested_at, EXCLUDED.last_id)";
+
+    private static final String COUNT_STALE =
+            "SELECT COUNT(*) FROM notification_requests r WHERE r.status = 'ACCEPTED' " +
+            "AND r.id >= ? AND r.id < ? AND r.requested_at >= ? AND r.requested_at < ? " +
+            "AND NOT EXISTS (SELECT 1 FROM notification_outbox o WHERE o.request_id = r.id " +
+            "AND o.published_at IS NULL AND o.parked_at IS NULL)";
+
+    private final NotificationRequestRepository repository;
+    private final KafkaSendPipeline sendPipeline;
+    private final SchedulerLock schedulerLock;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Counter ackedCounter;
+    private final Counter failedCounter;
+    private final AtomicLong watermarkMillis = new AtomicLong();
+    private final AtomicLong backlog = new AtomicLong();
+
+    private volatile SchedulerLock.Lease lease;
+
+    @Value("${notification.sweeper.stale-after-ms:30000}")
+    private long staleAfterMs = 30000;
+
+    @Value("${notification.sweeper.lookback-ms:300000}")
+    private long lookbackMs = 300000;
+
+    @Value("${notification.sweeper.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${notification.sweeper.max-batches-per-run:10}")
+    private int maxBatchesPerRun = 10;
+
+    @Value("${notification.sweeper.send-timeout-ms:10000}")
+    private long sendTimeoutMs = 10000;
+
+    @Value("${notification.sweeper.lease-ttl-ms:30000}")
+    private long leaseTtlMs = 30000;
+
+    public StaleRequestSweeper(NotificationRequestRepository repository, KafkaSendPipeline sendPipeline,
+                               SchedulerLock schedulerLock, JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.sendPipeline = sendPipeline;
+        this.schedulerLock = schedulerLock;
+        this.jdbcTemplate = jdbcTemplate;
+
+        this.ackedCounter = Counter.builder("notification.sweeper.redispatched")
+                .tag("outcome", "acked").register(meterRegistry);
+        this.failedCounter = Counter.builder("notification.sweeper.redispatched")
+                .tag("outcome", "failed").register(meterRegistry);
+        Gauge.builder("notification.sweeper.lag", this, StaleRequestSweeper::lagSeconds)
+                .description("Age of the sweeper watermark; NaN unless this instance is sweeping")
+                .baseUnit("seconds").register(meterRegistry);
+        Gauge.builder("notification.sweeper.backlog", backlog, AtomicLong::get)
+                .description("Stale ACCEPTED requests in the sweep window at the start of the last tick")
+                .register(meterRegistry);
+    }
+
+    record Watermark(OffsetDateTime requestedAt, long id) {
+    }
+
+    @Scheduled(fixedDelayString = "${notification.sweeper.interval-ms:5000}")
+    public void sweep() {
+        Duration leaseTtl = Duration.ofMillis(leaseTtlMs);
+        SchedulerLock.Lease held = holdLease(leaseTtl);
+        if (held == null) {
+            return;
+        }
+
+        OffsetDateTime upper = OffsetDateTime.now(ZoneOffset.UTC).minus(Duration.ofMillis(staleAfterMs));
+        Watermark watermark = loadWatermark(upper);
+        OffsetDateTime from = watermark.requestedAt().minus(Duration.ofMillis(lookbackMs));
+        long fromId = SnowflakeIdGenerator.minIdForTimestamp(from.toInstant().toEpochMilli() - ID_MARGIN_MS);
+        long toId = SnowflakeIdGenerator.minIdForTimestamp(upper.toInstant().toEpochMilli() + ID_MARGIN_MS);
+
+        Long stale = jdbcTemplate.queryForObject(COUNT_STALE, Long.class, fromId, toId, from, upper);
+        backlog.set(stale == null ? 0 : stale);
+
+        Watermark cursor = new Watermark(from, 0L);
+        boolean exhausted = false;
+        int scanned = 0;
+        int acked = 0;
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            List<NotificationRequest> page = repository.findAcceptedAfter(fromId, toId, upper,
+                    cursor.requestedAt(), cursor.id(), batchSize);
+            if (!page.isEmpty()) {
+                // Renewing doubles as the fencing check: a lost lease stops the sweep before anything is sent
+                if (!schedulerLock.renew(held, leaseTtl)) {
+                    log.warn("Lost the sweeper lock (fencing token {}), stopping this tick", held.fencingToken());
+                    lease = null;
+                    watermarkMillis.set(0);
+                    return;
+                }
+                acked += redispatch(page);
+                scanned += page.size();
+                NotificationRequest last = page.get(page.size() - 1);
+                cursor = new Watermark(last.getRequestedAt(), last.getId());
+            }
+            if (page.size() < batchSize) {
+                exhausted = true;
+                break;
+            }
+        }
+
+        // A fully scanned window moves the watermark up to its end; otherwise the next tick continues after the cursor
+        Watermark next = exhausted ? new Watermark(upper, 0L) : cursor;
+        if (compare(next, watermark) > 0) {
+            saveWatermark(next, held);
+            watermark = next;
+        }
+        watermarkMillis.set(watermark.requestedAt().toInstant().toEpochMilli());
+
+        if (scanned > 0) {
+            log.info("Sweeper re-dispatched {} stale requests: {} acked, {} failed", scanned, acked, scanned - acked);
+        }
+    }
+
+    @PreDestroy
+    public void releaseLease() {
+        SchedulerLock.Lease held = lease;
+        if (held != null) {
+            schedulerLock.release(held);
+        }
+    }
+
+    double lagSeconds() {
+        long millis = watermarkMillis.get();
+        return millis == 0 ? Double.NaN : (System.currentTimeMillis() - millis) / 1000.0;
+    }
+
+    private SchedulerLock.Lease holdLease(Duration leaseTtl) {
+        try {
+            SchedulerLock.Lease held = lease;
+            if (held != null && schedulerLock.renew(held, leaseTtl)) {
+                return held;
+            }
+            lease = schedulerLock.tryAcquire(SWEEPER_LOCK, leaseTtl).orElse(null);
+        } catch (Exception e) {
+            log.warn("Failed to acquire the sweeper lock, skipping this tick", e);
+            lease = null;
+        }
+        if (lease == null) {
+            // Another instance is sweeping; don't report a watermark that is no longer ours
+            watermarkMillis.set(0);
+        }
+        return lease;
+    }
+
+    private Watermark loadWatermark(OffsetDateTime upper) {
+        List<Watermark> stored = jdbcTemplate.query(LOAD_WATERMARK,
+                (rs, rowNum) -> new Watermark(rs.getObject("requested_at", OffsetDateTime.class), rs.getLong("last_id")),
+                SWEEPER_LOCK);
+        // First run: start one lookback before the stale threshold, older requests are the reaper's
+        return stored.isEmpty() ? new Watermark(upper, 0L) : stored.get(0);
+    }
+
+    private void saveWatermark(Watermark watermark, SchedulerLock.Lease held) {
+        int updated = jdbcTemplate.update(SAVE_WATERMARK, SWEEPER_LOCK, watermark.requestedAt(), watermark.id(),
+                held.name(), held.fencingToken());
+        if (updated == 0) {
+            log.debug("Sweeper watermark not advanced to {} (lease lost or already further)", watermark);
+        }
+    }
+
+    private int redispatch(List<NotificationRequest> page) {
+        // Acked requests are moved to DISPATCHED by the send pipeline's bulk flush
+        List<CompletableFuture<Boolean>> sends = new ArrayList<>(page.size());
+        for (NotificationRequest request : page) {
+            sends.add(sendPipeline.sendRequest(NotificationTopics.requests(request.getPriority()), request.getPriority(),
+                    request.getRecipientId(), NotificationRequestEvent.from(request), request.getId()));
+        }
+
+        try {
+            CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Sweeper timed out after {} ms waiting for broker acks", sendTimeoutMs);
+        } catch (ExecutionException e) {
+            // sendRequest never completes exceptionally
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        int acked = (int) sends.stream().filter(send -> send.isDone() && send.join()).count();
+        ackedCounter.increment(acked);
+        failedCounter.increment(page.size() - acked);
+        return acked;
+    }
+
+    private static int compare(Watermark a, Watermark b) {
+        int byTime = a.requestedAt().toInstant().compareTo(b.requestedAt().toInstant());
+        return byTime != 0 ? byTime : Long.compare(a.id(), b.id());
+    }
+}
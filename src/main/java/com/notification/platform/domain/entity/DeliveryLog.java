@@ -4,20 +4,27 @@ import com.notification.platform.domain.enums.DeliveryStatus;
 import com.notification.platform.domain.enums.NotificationChannel;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Immutable;
 import org.springframework.data.annotation.CreatedDate;
-import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.domain.Persistable;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.OffsetDateTime;
 
+/**
+ * A delivery attempt on one channel, as created by the dispatcher or an admin retry. Insert-only:
+ * {@link #getStatus()} is the initial status, later transitions are appended as {@link DeliveryStatusEvent}s
+ * and folded into {@link DeliveryLogStatus}.
+ */
 @Entity
+@Immutable
 @Table(name = "delivery_logs")
 @EntityListeners(AuditingEntityListener.class)
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @AllArgsConstructor
 @Builder
-public class DeliveryLog {
+public class DeliveryLog implements Persistable<Long> {
 
     @Id
     private Long id;
@@ -45,15 +52,19 @@ public class DeliveryLog {
     @Column(updatable = false)
     private OffsetDateTime createdAt;
 
-    @LastModifiedDate
-    private OffsetDateTime updatedAt;
+    // Snowflake-assigned id: track persistence ourselves so saveAll() batches INSERTs without a SELECT per row
+    @Transient
+    @Getter(AccessLevel.NONE)
+    private boolean persisted;
 
-    public void updateStatus(DeliveryStatus status) {
-        this.status = status;
+    @Override
+    public boolean isNew() {
+        return !persisted;
     }
 
-    public void updateStatus(DeliveryStatus status, String errorMessage) {
-        this.status = status;
-        this.errorMessage = errorMessage;
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        this.persisted = true;
     }
 }
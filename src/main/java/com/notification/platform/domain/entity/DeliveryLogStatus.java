@@ -0,0 +1,40 @@
+package com.notification.platform.domain.entity;
+
+import com.notification.platform.domain.enums.DeliveryStatus;
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Latest-status projection of a delivery, folded from {@link DeliveryStatusEvent}s as they are appended.
+ * Read-only for JPA. A delivery without a row is still in its initial status ({@link DeliveryLog#getStatus()}).
+ */
+@Entity
+@Immutable
+@Table(name = "delivery_log_status")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class DeliveryLogStatus {
+
+    @Id
+    private Long deliveryLogId;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private DeliveryStatus status;
+
+    @Column(nullable = false)
+    private short statusRank;
+
+    private String errorMessage;
+
+    @Column(nullable = false)
+    private Long lastEventId;
+
+    @Column(nullable = false)
+    private OffsetDateTime updatedAt;
+}
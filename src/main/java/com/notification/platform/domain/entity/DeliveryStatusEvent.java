@@ -0,0 +1,37 @@
+package com.notification.platform.domain.entity;
+
+import com.notification.platform.domain.enums.DeliveryStatus;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.OffsetDateTime;
+
+/**
+ * One observed status transition of a delivery (FR-24). Append-only: rows are inserted in bulk by
+ * {@code DeliveryStatusEventRepository#appendAll} and never updated.
+ */
+@Entity
+@Immutable
+@Table(name = "delivery_status_events")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+@Builder
+public class DeliveryStatusEvent {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private Long deliveryLogId;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private DeliveryStatus status;
+
+    private String errorMessage;
+
+    @Column(nullable = false)
+    private OffsetDateTime occurredAt;
+}
@@ -0,0 +1,53 @@
+package com.notification.platform.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.domain.Persistable;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.OffsetDateTime;
+
+/**
+ * FR-11: idempotency key -> request id. Kept outside the partitioned notification_requests table,
+ * whose unique constraints could only be enforced per partition.
+ */
+@Entity
+@Table(name = "notification_idempotency_keys")
+@EntityListeners(AuditingEntityListener.class)
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+@Builder
+public class NotificationIdempotencyKey implements Persistable<String> {
+
+    @Id
+    private String idempotencyKey;
+
+    @Column(nullable = false)
+    private Long requestId;
+
+    @CreatedDate
+    @Column(updatable = false)
+    private OffsetDateTime createdAt;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    private boolean persisted;
+
+    @Override
+    public String getId() {
+        return idempotencyKey;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        this.persisted = true;
+    }
+}
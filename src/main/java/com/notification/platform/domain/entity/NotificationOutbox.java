@@ -0,0 +1,60 @@
+package com.notification.platform.domain.entity;
+
+import com.notification.platform.domain.enums.NotificationPriority;
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.domain.Persistable;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.OffsetDateTime;
+
+@Entity
+@Table(name = "notification_outbox")
+@EntityListeners(AuditingEntityListener.class)
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+@Builder
+public class NotificationOutbox implements Persistable<Long> {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private Long requestId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private NotificationPriority priority;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @CreatedDate
+    @Column(updatable = false)
+    private OffsetDateTime createdAt;
+
+    private OffsetDateTime publishedAt;
+
+    // Set while a relay instance is sending the row; others skip it until then
+    private OffsetDateTime claimedUntil;
+
+    // Set once the row has failed max-attempts times; parked rows are no longer relayed
+    private OffsetDateTime parkedAt;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    private boolean persisted;
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        this.persisted = true;
+    }
+}
@@ -2,11 +2,13 @@ package com.notification.platform.domain.entity;
 
 import com.notification.platform.domain.enums.NotificationChannel;
 import com.notification.platform.domain.enums.NotificationIngressStatus;
+import com.notification.platform.domain.enums.NotificationPriority;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.domain.Persistable;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.OffsetDateTime;
@@ -19,12 +21,12 @@ import java.util.Map;
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @AllArgsConstructor
 @Builder
-public class NotificationRequest {
+public class NotificationRequest implements Persistable<Long> {
 
     @Id
     private Long id;
 
-    @Column(unique = true)
+    // Uniqueness is enforced by notification_idempotency_keys (see NotificationIdempotencyKey)
     private String idempotencyKey;
 
     @Column(nullable = false)
@@ -39,8 +41,9 @@ public class NotificationRequest {
     @Column(nullable = false)
     private String producerName;
 
+    @Enumerated(EnumType.STRING)
     @Column(nullable = false)
-    private String priority;
+    private NotificationPriority priority;
 
     @JdbcTypeCode(SqlTypes.JSON)
     @Column(columnDefinition = "jsonb")
@@ -57,6 +60,23 @@ public class NotificationRequest {
     @Column(updatable = false)
     private OffsetDateTime createdAt;
 
+    // IDs are assigned by Snowflake, so Spring Data can't tell new rows apart by a null id.
+    // Without this flag every save()/saveAll() would issue a SELECT before the INSERT and defeat JDBC batching.
+    @Transient
+    @Getter(AccessLevel.NONE)
+    private boolean persisted;
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        this.persisted = true;
+    }
+
     public void updateStatus(NotificationIngressStatus newStatus) {
         this.status = newStatus;
     }
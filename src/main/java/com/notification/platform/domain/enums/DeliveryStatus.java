@@ -1,21 +1,29 @@
 package com.notification.platform.domain.enums;
 
 import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 
+/**
+ * Each status carries a rank: the latest-status projection only ever moves to a higher rank
+ * (or a newer event of the same rank), so late or replayed events cannot move a delivery backwards.
+ */
 @Getter
+@RequiredArgsConstructor
 public enum DeliveryStatus {
     /** Waiting for processing */
-    PENDING,
+    PENDING(0),
     /** Published to Kafka topic */
-    QUEUED,
+    QUEUED(1),
     /** Dispatched to actual channel provider */
-    DISPATCHED,
+    DISPATCHED(2),
     /** Successfully delivered to the end user */
-    DELIVERED,
+    DELIVERED(4),
     /** Failed to deliver */
-    FAILED,
+    FAILED(3),
     /** Rerouted to a fallback channel */
-    REROUTED,
+    REROUTED(0),
     /** Manual retry triggered by Admin */
-    RETRY_PENDING;
+    RETRY_PENDING(0);
+
+    private final int rank;
 }
@@ -11,5 +11,7 @@ public enum NotificationIngressStatus {
     /** Failed to dispatch to Kafka */
     FAILED,
     /** Duplicate request detected */
-    DUPLICATE;
+    DUPLICATE,
+    /** Rejected by request validation (batch ingress) */
+    INVALID;
 }
@@ -0,0 +1,8 @@
+package com.notification.platform.domain.enums;
+
+public enum NotificationPriority {
+    /** Latency-sensitive traffic (OTP, security alerts); routed through the dedicated HIGH lane */
+    HIGH,
+    /** Everything else, including bulk/marketing bursts */
+    NORMAL;
+}
@@ -1,11 +1,52 @@
 package com.notification.platform.domain.repository;
 
+import com.notification.platform.config.SnowflakeIdGenerator;
 import com.notification.platform.domain.entity.DeliveryLog;
 import com.notification.platform.domain.enums.NotificationChannel;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface DeliveryLogRepository extends JpaRepository<DeliveryLog, Long> {
-    Optional<DeliveryLog> findByRequestIdAndChannel(Long requestId, NotificationChannel channel);
+
+    // How far a delivery log's id may trail its request's id (clock skew between instances)
+    long MAX_CLOCK_SKEW_MS = 60_000;
+
+    /**
+     * Latest log of a request on one channel. Logs are always created after their request, so the id lower bound
+     * lets Postgres skip every delivery_logs partition older than the request's day.
+     */
+    default Optional<DeliveryLog> findByRequestIdAndChannel(Long requestId, NotificationChannel channel) {
+        long fromId = SnowflakeIdGenerator.minIdForTimestamp(SnowflakeIdGenerator.timestampOf(requestId) - MAX_CLOCK_SKEW_MS);
+        return findFirstByRequestIdAndChannelAndIdGreaterThanEqualOrderByIdDesc(requestId, channel, fromId);
+    }
+
+    Optional<DeliveryLog> findFirstByRequestIdAndChannelAndIdGreaterThanEqualOrderByIdDesc(
+            Long requestId, NotificationChannel channel, Long fromId);
+
+    /**
+     * Every log of a request (all channels and retries), oldest first, pruned to partitions like the lookup above.
+     */
+    default List<DeliveryLog> findByRequestId(Long requestId) {
+        long fromId = SnowflakeIdGenerator.minIdForTimestamp(SnowflakeIdGenerator.timestampOf(requestId) - MAX_CLOCK_SKEW_MS);
+        return findByRequestIdAndIdGreaterThanEqualOrderByIdAsc(requestId, fromId);
+    }
+
+    List<DeliveryLog> findByRequestIdAndIdGreaterThanEqualOrderByIdAsc(Long requestId, Long fromId);
+
+    /**
+     * Every log of many requests in one query, oldest first, pruned from the oldest request's day.
+     */
+    default List<DeliveryLog> findByRequestIdIn(Collection<Long> requestIds) {
+        if (requestIds.isEmpty()) {
+            return List.of();
+        }
+        long oldest = requestIds.stream().mapToLong(Long::longValue).min().getAsLong();
+        long fromId = SnowflakeIdGenerator.minIdForTimestamp(SnowflakeIdGenerator.timestampOf(oldest) - MAX_CLOCK_SKEW_MS);
+        return findByRequestIdInAndIdGreaterThanEqualOrderByIdAsc(requestIds, fromId);
+    }
+
+    List<DeliveryLog> findByRequestIdInAndIdGreaterThanEqualOrderByIdAsc(Collection<Long> requestIds, Long fromId);
 }
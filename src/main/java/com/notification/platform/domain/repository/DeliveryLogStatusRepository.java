@@ -0,0 +1,7 @@
+package com.notification.platform.domain.repository;
+
+import com.notification.platform.domain.entity.DeliveryLogStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface DeliveryLogStatusRepository extends JpaRepository<DeliveryLogStatus, Long> {
+}
@@ -0,0 +1,27 @@
+package com.notification.platform.domain.repository;
+
+import com.notification.platform.config.SnowflakeIdGenerator;
+import com.notification.platform.domain.entity.DeliveryStatusEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface DeliveryStatusEventRepository extends JpaRepository<DeliveryStatusEvent, Long>, DeliveryStatusEventRepositoryCustom {
+
+    /**
+     * Full transition history of the given deliveries (FR-24), oldest first. Events are always recorded after their
+     * delivery log was created, so the id lower bound lets Postgres skip every older delivery_status_events partition.
+     */
+    default List<DeliveryStatusEvent> findHistory(Collection<Long> deliveryLogIds) {
+        if (deliveryLogIds.isEmpty()) {
+            return List.of();
+        }
+        long oldest = deliveryLogIds.stream().mapToLong(Long::longValue).min().getAsLong();
+        long fromId = SnowflakeIdGenerator.minIdForTimestamp(
+                SnowflakeIdGenerator.timestampOf(oldest) - DeliveryLogRepository.MAX_CLOCK_SKEW_MS);
+        return findByDeliveryLogIdInAndIdGreaterThanEqualOrderByIdAsc(deliveryLogIds, fromId);
+    }
+
+    List<DeliveryStatusEvent> findByDeliveryLogIdInAndIdGreaterThanEqualOrderByIdAsc(Collection<Long> deliveryLogIds, Long fromId);
+}
@@ -0,0 +1,15 @@
+package com.notification.platform.domain.repository;
+
+import com.notification.platform.domain.entity.DeliveryStatusEvent;
+
+import java.util.List;
+
+public interface DeliveryStatusEventRepositoryCustom {
+
+    /**
+     * Appends {@code events} with one multi-row INSERT and folds them into {@code delivery_log_status} with one upsert.
+     * The projection only advances to a higher {@code (status rank, event id)}, so a late QUEUED ack cannot undo
+     * DELIVERED and replaying the same events is a no-op.
+     */
+    void appendAll(List<DeliveryStatusEvent> events);
+}
@@ -0,0 +1,77 @@
+package com.notification.platform.domain.repository;
+
+import com.notification.platform.domain.entity.DeliveryStatusEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class DeliveryStatusEventRepositoryCustomImpl implements DeliveryStatusEventRepositoryCustom {
+
+    private static final Comparator<DeliveryStatusEvent> PROGRESS = Comparator
+            .comparingInt((DeliveryStatusEvent event) -> event.getStatus().getRank())
+            .thenComparing(DeliveryStatusEvent::getId);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void appendAll(List<DeliveryStatusEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        insertEvents(events);
+        upsertProjection(latestPerLog(events));
+    }
+
+    private void insertEvents(List<DeliveryStatusEvent> events) {
+        StringBuilder sql = new StringBuilder("INSERT INTO delivery_status_events (id, delivery_log_id, status, error_message, occurred_at) VALUES ");
+        List<Object> args = new ArrayList<>(events.size() * 5);
+        for (int i = 0; i < events.size(); i++) {
+            DeliveryStatusEvent event = events.get(i);
+            sql.append(i == 0 ? "" : ", ").append("(?, ?, ?, ?, ?)");
+            args.add(event.getId());
+            args.add(event.getDeliveryLogId());
+            args.add(event.getStatus().name());
+            args.add(event.getErrorMessage());
+            args.add(event.getOccurredAt());
+        }
+        // A retried flush may re-send events that already made it
+        sql.append(" ON CONFLICT (id) DO NOTHING");
+        jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+
+    private void upsertProjection(List<DeliveryStatusEvent> latest) {
+        StringBuilder sql = new StringBuilder("INSERT INTO delivery_log_status (delivery_log_id, status, status_rank, error_message, last_event_id, updated_at) VALUES ");
+        List<Object> args = new ArrayList<>(latest.size() * 6);
+        for (int i = 0; i < latest.size(); i++) {
+            DeliveryStatusEvent event = latest.get(i);
+            sql.append(i == 0 ? "" : ", ").append("(?, ?, ?, ?, ?, ?)");
+            args.add(event.getDeliveryLogId());
+            args.add(event.getStatus().name());
+            args.add(event.getStatus().getRank());
+            args.add(event.getErrorMessage());
+            args.add(event.getId());
+            args.add(event.getOccurredAt());
+        }
+        sql.append(" ON CONFLICT (delivery_log_id) DO UPDATE SET status = EXCLUDED.status, status_rank = EXCLUDED.status_rank, ")
+                .append("error_message = EXCLUDED.error_message, last_event_id = EXCLUDED.last_event_id, updated_at = EXCLUDED.updated_at ")
+                .append("WHERE (delivery_log_status.status_rank, delivery_log_status.last_event_id) < (EXCLUDED.status_rank, EXCLUDED.last_event_id)");
+        jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+
+    /**
+     * ON CONFLICT cannot touch the same row twice in one statement, so each log contributes only its most advanced event.
+     */
+    private List<DeliveryStatusEvent> latestPerLog(List<DeliveryStatusEvent> events) {
+        Map<Long, DeliveryStatusEvent> latest = new LinkedHashMap<>();
+        for (DeliveryStatusEvent event : events) {
+            latest.merge(event.getDeliveryLogId(), event, (current, next) -> PROGRESS.compare(next, current) > 0 ? next : current);
+        }
+        return new ArrayList<>(latest.values());
+    }
+}
@@ -0,0 +1,20 @@
+package com.notification.platform.domain.repository;
+
+import com.notification.platform.domain.entity.NotificationIdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface NotificationIdempotencyKeyRepository extends JpaRepository<NotificationIdempotencyKey, String> {
+
+    /**
+     * Deletes up to {@code limit} keys of requests older than {@code requestId}, so retention can purge
+     * a whole day of keys in short transactions.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM notification_idempotency_keys WHERE idempotency_key IN (" +
+            "SELECT idempotency_key FROM notification_idempotency_keys WHERE request_id < :requestId LIMIT :limit)",
+            nativeQuery = true)
+    int deleteBatchByRequestIdLessThan(@Param("requestId") long requestId, @Param("limit") int limit);
+}
@@ -0,0 +1,53 @@
+package com.notification.platform.domain.repository;
+
+import com.notification.platform.domain.entity.NotificationOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+
+    /**
+     * Locks the oldest relayable rows of one priority lane: unpublished, not parked and not claimed by another relay.
+     * SKIP LOCKED lets several relay instances drain the outbox concurrently without handing the same row to two of them;
+     * the lock only lasts until the rows are {@link #claim claimed}.
+     */
+    @Query(value = "SELECT * FROM notification_outbox WHERE published_at IS NULL AND parked_at IS NULL " +
+            "AND priority = :priority AND (claimed_until IS NULL OR claimed_until < :now) " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<NotificationOutbox> lockNextPending(@Param("priority") String priority,
+                                             @Param("now") OffsetDateTime now,
+                                             @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE NotificationOutbox o SET o.claimedUntil = :claimedUntil WHERE o.id IN :ids")
+    int claim(@Param("ids") Collection<Long> ids, @Param("claimedUntil") OffsetDateTime claimedUntil);
+
+    @Modifying
+    @Query("UPDATE NotificationOutbox o SET o.publishedAt = :publishedAt, o.claimedUntil = null WHERE o.id IN :ids")
+    int markPublished(@Param("ids") Collection<Long> ids, @Param("publishedAt") OffsetDateTime publishedAt);
+
+    /**
+     * Counts a failed send and releases the claim, so the row is retried on the next poll.
+     */
+    @Modifying
+    @Query("UPDATE NotificationOutbox o SET o.attempts = o.attempts + 1, o.claimedUntil = null WHERE o.id IN :ids")
+    int incrementAttempts(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE NotificationOutbox o SET o.parkedAt = :parkedAt " +
+            "WHERE o.id IN :ids AND o.attempts >= :maxAttempts AND o.parkedAt IS NULL")
+    int parkExhausted(@Param("ids") Collection<Long> ids,
+                      @Param("maxAttempts") int maxAttempts,
+                      @Param("parkedAt") OffsetDateTime parkedAt);
+
+    @Modifying
+    @Query("DELETE FROM NotificationOutbox o WHERE o.publishedAt < :before")
+    int deletePublishedBefore(@Param("before") OffsetDateTime before);
+}
@@ -2,19 +2,40 @@ package com.notification.platform.domain.repository;
 
 import com.notification.platform.domain.entity.NotificationRequest;
 import com.notification.platform.domain.enums.NotificationIngressStatus;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.OffsetDateTime;
-import java.util.Optional;
+import java.util.Collection;
+import java.util.List;
 
 public interface NotificationRequestRepository extends JpaRepository<NotificationRequest, Long> {
-    Optional<NotificationRequest> findByIdempotencyKey(String idempotencyKey);
+    /**
+     * One keyset page of stale ACCEPTED requests in {@code [fromId, toId)}, strictly after {@code (afterRequestedAt, afterId)}.
+     * The status is a literal so the planner can match idx_notification_requests_accepted (partial index),
+     * and the id range lets Postgres prune to the daily partitions of that window.
+     * Requests whose outbox row the relay has yet to publish are skipped, so a stalled relay and a re-dispatch
+     * never send the same request twice; parked outbox rows are left to the re-dispatch.
+     */
+    @Query(value = "SELECT r.* FROM notification_requests r WHERE r.status = 'ACCEPTED' " +
+            "AND r.id >= :fromId AND r.id < :toId AND r.requested_at < :before " +
+            "AND (r.requested_at, r.id) > (:afterRequestedAt, :afterId) " +
+            "AND NOT EXISTS (SELECT 1 FROM notification_outbox o WHERE o.request_id = r.id " +
+            "AND o.published_at IS NULL AND o.parked_at IS NULL) " +
+            "ORDER BY r.requested_at, r.id LIMIT :limit",
+            nativeQuery = true)
+    List<NotificationRequest> findAcceptedAfter(@Param("fromId") long fromId,
+                                                @Param("toId") long toId,
+                                                @Param("before") OffsetDateTime before,
+                                                @Param("afterRequestedAt") OffsetDateTime afterRequestedAt,
+                                                @Param("afterId") long afterId,
+                                                @Param("limit") int limit);
 
-    Page<NotificationRequest> findAllByStatusAndRequestedAtBefore(
-            NotificationIngressStatus status, 
-            OffsetDateTime requestedAt, 
-            Pageable pageable
-    );
+    @Modifying
+    @Query("UPDATE NotificationRequest r SET r.status = :status WHERE r.id IN :ids AND r.status = :expected")
+    int updateStatusByIdInAndStatus(@Param("status") NotificationIngressStatus status,
+                                    @Param("ids") Collection<Long> ids,
+                                    @Param("expected") NotificationIngressStatus expected);
 }
@@ -5,8 +5,10 @@ import com.notification.platform.domain.enums.DeliveryStatus;
 import com.notification.platform.domain.enums.NotificationChannel;
 import com.notification.platform.domain.repository.DeliveryLogRepository;
 import com.notification.platform.messaging.event.NotificationRequestEvent;
+import com.notification.platform.messaging.status.DeliveryStatusAggregator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.DltHandler;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.annotation.RetryableTopic;
@@ -16,7 +18,10 @@ import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Component
@@ -25,35 +30,58 @@ public class EmailAdapter {
 
     private final JavaMailSender mailSender;
     private final DeliveryLogRepository deliveryLogRepository;
+    private final KeyOrderedDeliveryProcessor deliveryProcessor;
+    private final DeliveryStatusAggregator statusAggregator;
+
+    @KafkaListener(id = "email-normal", topics = "${spring.kafka.topic.email}", groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "batchKafkaListenerContainerFactory", concurrency = "${notification.lanes.normal.concurrency:1}")
+    public void consume(List<ConsumerRecord<String, NotificationRequestEvent>> records) {
+        log.info("EmailAdapter consumed {} events", records.size());
+        // Ordered per recipient, parallel across recipients; first-attempt failures go to <topic>.retry
+        deliveryProcessor.process(records, this::deliver);
+    }
+
+    @KafkaListener(id = "email-high", topics = "${spring.kafka.topic.email}.high", groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "batchKafkaListenerContainerFactory", concurrency = "${notification.lanes.high.concurrency:3}")
+    public void consumeHigh(List<ConsumerRecord<String, NotificationRequestEvent>> records) {
+        // HIGH lane: separate topic and consumer threads, identical delivery semantics
+        consume(records);
+    }
 
-    @Transactional
     @RetryableTopic(
-            attempts = "4", // Initial try + 3 retries
+            attempts = "3", // First attempt happened on the main topic: 1 + 3 retries in total
             backoff = @Backoff(delay = 1000, multiplier = 2.0),
             autoCreateTopics = "false", // We will create topics explicitly or let Kafka auto-create based on broker config
             dltTopicSuffix = ".dlq"
     )
-    @KafkaListener(topics = "${spring.kafka.topic.email}", groupId = "${spring.kafka.consumer.group-id}")
-    public void consume(NotificationRequestEvent event) {
-        log.info("EmailAdapter consumed event for request: {}", event.getRequestId());
+    @KafkaListener(id = "email-retry",
+            topics = {"${spring.kafka.topic.email}" + KeyOrderedDeliveryProcessor.RETRY_SUFFIX,
+                    "${spring.kafka.topic.email}.high" + KeyOrderedDeliveryProcessor.RETRY_SUFFIX},
+            groupId = "${spring.kafka.consumer.group-id}")
+    public void consumeRetry(NotificationRequestEvent event) {
+        log.info("EmailAdapter retrying event for request: {}", event.getRequestId());
+        // Single-record listener: hold the offset until the outcome is committed
+        deliver(event).join();
+    }
 
+    CompletableFuture<Void> deliver(NotificationRequestEvent event) {
         try {
             // 1. Send Email
             SimpleMailMessage message = new SimpleMailMessage();
             message.setTo(event.getTargetAddress());
             message.setSubject("Notification from Platform");
-            message.setText(event.getPayload().getOrDefault("message", "No content").toString());
+            // The adapter is the only hop that parses the payload
+            message.setText(event.getPayload().asMap().getOrDefault("message", "No content").toString());
             
             mailSender.send(message);
             log.info("Email sent to: {}", event.getTargetAddress());
-
-            // 2. Tracking: Update DeliveryLog status
-            updateDeliveryStatus(event.getRequestId(), DeliveryStatus.DELIVERED);
-
         } catch (Exception e) {
             log.error("Failed to send email. Will be retried by Spring Kafka. Error: {}", e.getMessage());
             throw new RuntimeException("Email delivery failed", e);
         }
+
+        // 2. Tracking: queue the DeliveryLog transition; the aggregator writes it behind in bulk
+        return updateDeliveryStatus(event, DeliveryStatus.DELIVERED, null);
     }
 
     @DltHandler
@@ -61,17 +89,23 @@ public class EmailAdapter {
         log.error("Message for request {} routed to DLQ. Final error: {}", event.getRequestId(), errorMessage);
         
         // Update DB status to FAILED so users/clients can see it.
-        updateDeliveryStatus(event.getRequestId(), DeliveryStatus.FAILED);
+        updateDeliveryStatus(event, DeliveryStatus.FAILED, errorMessage).join();
         
-        // TODO (v4.0): The message is now safely resting in the DLQ topic (notification.email.dlq).
+        // TODO (v4.0): The message is now safely resting in the DLQ topic (notification.email.retry.dlq).
         // Implement an Admin API in v4.0 to manually consume and replay these dead letters.
     }
 
-    private void updateDeliveryStatus(Long requestId, DeliveryStatus status) {
-        deliveryLogRepository.findByRequestIdAndChannel(requestId, NotificationChannel.EMAIL)
-                .ifPresent(deliveryLog -> {
-                    deliveryLog.updateStatus(status);
-                    log.info("Email DeliveryLog updated to {} for request: {}", status, requestId);
-                });
+    private CompletableFuture<Void> updateDeliveryStatus(NotificationRequestEvent event, DeliveryStatus status, String errorMessage) {
+        Long deliveryLogId = event.getDeliveryLogId();
+        if (deliveryLogId == null) {
+            // Events published before the dispatcher stamped deliveryLogId: resolve it once by request (idx_delivery_logs_request_channel)
+            Optional<DeliveryLog> deliveryLog = deliveryLogRepository.findByRequestIdAndChannel(event.getRequestId(), NotificationChannel.EMAIL);
+            if (deliveryLog.isEmpty()) {
+                log.warn("No EMAIL DeliveryLog found for request: {}", event.getRequestId());
+                return CompletableFuture.completedFuture(null);
+            }
+            deliveryLogId = deliveryLog.get().getId();
+        }
+        return statusAggregator.record(deliveryLogId, status, errorMessage);
     }
 }
@@ -1,54 +1,161 @@
 package com.notification.platform.messaging.adapter;
 
+import com.notification.platform.config.GatewayNode;
+import com.notification.platform.config.UserDestinationBroker;
+import com.notification.platform.dispatcher.DispatcherService;
+import com.notification.platform.dispatcher.LocalSessionRegistry;
+import com.notification.platform.dispatcher.PresenceManager;
 import com.notification.platform.domain.entity.DeliveryLog;
 import com.notification.platform.domain.enums.DeliveryStatus;
 import com.notification.platform.domain.enums.NotificationChannel;
 import com.notification.platform.domain.repository.DeliveryLogRepository;
 import com.notification.platform.messaging.event.NotificationRequestEvent;
+import com.notification.platform.messaging.status.DeliveryStatusAggregator;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.DltHandler;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.annotation.TopicPartition;
 import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.MimeTypeUtils;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Pushes in-app events to the WebSocket sessions held by this gateway instance.
+ * The lane listeners are assigned only the partition of this instance's node slot ({@code gatewayNode}): the dispatcher
+ * sends every IN_APP event to the partitions of the nodes holding the recipient's sessions, so no instance consumes
+ * events for users connected elsewhere.
+ * The retry topics are group-subscribed instead, so a retry may land on a node without the recipient's session.
+ * Whenever the recipient has no session here, on the first attempt or on a retry, the event falls back to email like
+ * an offline recipient at dispatch, unless presence still routes the recipient to another node, which then owns the
+ * in-app delivery.
+ * A pushed event is recorded DISPATCHED once the broker took it, and DELIVERED only once a session's transport has
+ * written it. If every copy was evicted from a slow session's queue, discarded on disconnect or failed to write, the
+ * event falls back to email instead.
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class InAppAdapter {
 
+    static final String NOT_CONNECTED = "Recipient has no session on this gateway node";
+    static final String NOT_CONNECTED_REROUTED = NOT_CONNECTED + ", falling back to EMAIL";
+    static final String CONNECTED_ELSEWHERE = NOT_CONNECTED + " but is connected to another one";
+    static final String NOT_WRITTEN_REROUTED = "No session wrote the message, falling back to EMAIL";
+
     private final SimpMessagingTemplate messagingTemplate;
     private final DeliveryLogRepository deliveryLogRepository;
+    private final KeyOrderedDeliveryProcessor deliveryProcessor;
+    private final DeliveryStatusAggregator statusAggregator;
+    private final LocalSessionRegistry sessionRegistry;
+    private final DispatcherService dispatcherService;
+    private final PresenceManager presenceManager;
+    private final GatewayNode gatewayNode;
+    // Settles push outcomes off the session flush threads: a fallback does blocking database work
+    private final ExecutorService outcomes = Executors.newVirtualThreadPerTaskExecutor();
+
+    @KafkaListener(id = "inapp-normal", groupId = "${spring.kafka.consumer.group-id}",
+            topicPartitions = @TopicPartition(topic = "${spring.kafka.topic.inapp}", partitions = "#{@gatewayNode.slot()}"),
+            containerFactory = "batchKafkaListenerContainerFactory")
+    public void consume(List<ConsumerRecord<String, NotificationRequestEvent>> records) {
+        log.info("InAppAdapter consumed {} events", records.size());
+        // Ordered per recipient, parallel across recipients; first-attempt failures go to <topic>.retry
+        deliveryProcessor.process(records, this::deliver);
+    }
+
+    @KafkaListener(id = "inapp-high", groupId = "${spring.kafka.consumer.group-id}",
+            topicPartitions = @TopicPartition(topic = "${spring.kafka.topic.inapp}.high", partitions = "#{@gatewayNode.slot()}"),
+            containerFactory = "batchKafkaListenerContainerFactory")
+    public void consumeHigh(List<ConsumerRecord<String, NotificationRequestEvent>> records) {
+        // HIGH lane: separate topic and consumer threads, identical delivery semantics
+        consume(records);
+    }
 
-    @Transactional
     @RetryableTopic(
-            attempts = "4", // Initial try + 3 retries
+            attempts = "3", // First attempt happened on the main topic: 1 + 3 retries in total
             backoff = @Backoff(delay = 1000, multiplier = 2.0),
             autoCreateTopics = "false",
             dltTopicSuffix = ".dlq"
     )
-    @KafkaListener(topics = "${spring.kafka.topic.inapp}", groupId = "${spring.kafka.consumer.group-id}")
-    public void consume(NotificationRequestEvent event) {
-        log.info("InAppAdapter consumed event for request: {}", event.getRequestId());
+    @KafkaListener(id = "inapp-retry",
+            topics = {"${spring.kafka.topic.inapp}" + KeyOrderedDeliveryProcessor.RETRY_SUFFIX,
+                    "${spring.kafka.topic.inapp}.high" + KeyOrderedDeliveryProcessor.RETRY_SUFFIX},
+            groupId = "${spring.kafka.consumer.group-id}")
+    public void consumeRetry(NotificationRequestEvent event) {
+        log.info("InAppAdapter retrying event for request: {}", event.getRequestId());
+        // Single-record listener: hold the offset until the outcome is committed
+        deliver(event).join();
+    }
+
+    CompletableFuture<Void> deliver(NotificationRequestEvent event) {
+        if (!sessionRegistry.isConnected(event.getRecipientId())) {
+            // Disconnected (or moved to another node) since dispatch; the simple broker would drop the message silently
+            log.info("Recipient {} of request {} is not connected to this gateway node", event.getRecipientId(), event.getRequestId());
+            if (connectedElsewhere(event.getRecipientId())) {
+                // The node holding the session pushes this log; an email on top would deliver it twice
+                return updateDeliveryStatus(event, DeliveryStatus.FAILED, CONNECTED_ELSEWHERE);
+            }
+            return dispatcherService.rerouteToEmail(event)
+                    .thenCompose(rerouted -> updateDeliveryStatus(event, DeliveryStatus.FAILED, NOT_CONNECTED_REROUTED));
+        }
 
+        CompletableFuture<Boolean> written = new CompletableFuture<>();
         try {
             // 1. Deliver the message via WebSocket STOMP
             String destination = "/topic/notifications/" + event.getRecipientId();
-            messagingTemplate.convertAndSend(destination, event.getPayload());
+            // Forward the payload's JSON bytes as the STOMP body as-is: no parse, no re-encode
+            messagingTemplate.send(destination, MessageBuilder.withPayload(event.getPayload().json())
+                    .setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON)
+                    .setHeader(UserDestinationBroker.RECEIPT_HEADER, written)
+                    .build());
             log.info("Message pushed to WebSocket destination: {}", destination);
-
-            // 2. Tracking: Update DeliveryLog status
-            updateDeliveryStatus(event.getRequestId(), DeliveryStatus.DELIVERED);
-
         } catch (Exception e) {
             log.error("Failed to push In-App notification. Will be retried. Error: {}", e.getMessage());
             throw new RuntimeException("In-App delivery failed", e);
         }
+
+        // 2. Tracking: queue the DeliveryLog transitions; the aggregator writes them behind in bulk
+        written.thenAcceptAsync(ok -> recordOutcome(event, ok), outcomes);
+        return updateDeliveryStatus(event, DeliveryStatus.DISPATCHED, null);
+    }
+
+    /**
+     * A lost push never reaches the retry topic: the batch was acknowledged once the broker took it, so the fallback
+     * happens here.
+     */
+    private void recordOutcome(NotificationRequestEvent event, boolean written) {
+        try {
+            if (written) {
+                updateDeliveryStatus(event, DeliveryStatus.DELIVERED, null).join();
+            } else {
+                log.warn("No session wrote request {} to recipient {}", event.getRequestId(), event.getRecipientId());
+                dispatcherService.rerouteToEmail(event)
+                        .thenCompose(rerouted -> updateDeliveryStatus(event, DeliveryStatus.FAILED, NOT_WRITTEN_REROUTED))
+                        .join();
+            }
+        } catch (Exception e) {
+            log.error("Failed to record the In-App outcome of request {}", event.getRequestId(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        outcomes.shutdown();
     }
 
     @DltHandler
@@ -56,17 +163,32 @@ public class InAppAdapter {
         log.error("Message for request {} routed to DLQ. Final error: {}", event.getRequestId(), errorMessage);
         
         // Update DB status to FAILED so users/clients can see it.
-        updateDeliveryStatus(event.getRequestId(), DeliveryStatus.FAILED);
+        updateDeliveryStatus(event, DeliveryStatus.FAILED, errorMessage).join();
         
-        // TODO (v4.0): The message is now safely resting in the DLQ topic (notification.inapp.dlq).
+        // TODO (v4.0): The message is now safely resting in the DLQ topic (notification.inapp.retry.dlq).
         // Implement an Admin API in v4.0 to manually consume and replay these dead letters.
     }
 
-    private void updateDeliveryStatus(Long requestId, DeliveryStatus status) {
-        deliveryLogRepository.findByRequestIdAndChannel(requestId, NotificationChannel.IN_APP)
-                .ifPresent(deliveryLog -> {
-                    deliveryLog.updateStatus(status);
-                    log.info("DeliveryLog updated to {} for request: {}", status, requestId);
-                });
+    /**
+     * Routes to this node's own slot don't count: the local registry already says the session is gone, the route has
+     * just not been removed or expired yet.
+     */
+    private boolean connectedElsewhere(String recipientId) {
+        return presenceManager.findRoutes(List.of(recipientId)).getOrDefault(recipientId, Set.of()).stream()
+                .anyMatch(slot -> slot != gatewayNode.slot());
+    }
+
+    private CompletableFuture<Void> updateDeliveryStatus(NotificationRequestEvent event, DeliveryStatus status, String errorMessage) {
+        Long deliveryLogId = event.getDeliveryLogId();
+        if (deliveryLogId == null) {
+            // Events published before the dispatcher stamped deliveryLogId: resolve it once by request (idx_delivery_logs_request_channel)
+            Optional<DeliveryLog> deliveryLog = deliveryLogRepository.findByRequestIdAndChannel(event.getRequestId(), NotificationChannel.IN_APP);
+            if (deliveryLog.isEmpty()) {
+                log.warn("No IN_APP DeliveryLog found for request: {}", event.getRequestId());
+                return CompletableFuture.completedFuture(null);
+            }
+            deliveryLogId = deliveryLog.get().getId();
+        }
+        return statusAggregator.record(deliveryLogId, status, errorMessage);
     }
 }
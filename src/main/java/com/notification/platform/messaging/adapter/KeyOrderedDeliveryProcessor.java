@@ -0,0 +1,181 @@
+package com.notification.platform.messaging.adapter;
+
+import com.notification.platform.messaging.event.NotificationRequestEvent;
+import com.notification.platform.messaging.priority.PriorityKafkaTemplates;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * Runs one polled batch of a channel topic with per-key ordering (NFR-12).
+ * Records sharing a key (recipientId) are delivered sequentially in offset order, while different keys
+ * from the same partition run concurrently on virtual threads, so one slow SMTP call no longer stalls
+ * every other recipient behind it.
+ *
+ * Once a record is handed to the {@code <topic>.retry} topic, the remaining records of its key in the batch follow
+ * it there instead of being delivered ahead of it. Ordering inside the retry topics is best effort: their backoff
+ * can still let a later record of a key through before an earlier one.
+ *
+ * The call returns only when every record of the batch has completed (delivered with its status written, or
+ * handed to the retry topic), so the container never commits past an unfinished record. If a record's status
+ * write or retry forward does not complete in time, a {@link BatchListenerFailedException} makes the container
+ * commit only the offsets below it and redeliver the rest; records after it that had already completed are
+ * remembered and skipped when they come back.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class KeyOrderedDeliveryProcessor {
+
+    public static final String RETRY_SUFFIX = ".retry";
+
+    private final PriorityKafkaTemplates kafkaTemplates;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /** Offsets that completed behind a failed record and will be redelivered with it */
+    private final Map<TopicPartition, NavigableSet<Long>> completedAhead = new ConcurrentHashMap<>();
+
+    @Value("${notification.adapter.max-concurrent-keys:256}")
+    private int maxConcurrentKeys = 256;
+
+    @Value("${notification.adapter.completion-timeout-ms:10000}")
+    private long completionTimeoutMs = 10000;
+
+    /**
+     * @param delivery delivers one event and returns a future that completes once its outcome is durable
+     *                 (e.g. the status write); throwing hands the record to the retry topic
+     */
+    public void process(List<ConsumerRecord<String, NotificationRequestEvent>> records,
+                        Function<NotificationRequestEvent, ? extends CompletableFuture<?>> delivery) {
+        if (records.isEmpty()) {
+            return;
+        }
+
+        forgetCommitted(records);
+
+        // Keep offset order inside each key; LinkedHashMap preserves first-seen order across keys
+        Map<String, List<Integer>> indexesByKey = new LinkedHashMap<>();
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, NotificationRequestEvent> record = records.get(i);
+            if (completedBefore(record)) {
+                log.debug("Skipping request {}, already completed before its batch was redelivered", record.value().getRequestId());
+                continue;
+            }
+            indexesByKey.computeIfAbsent(String.valueOf(record.key()), key -> new ArrayList<>()).add(i);
+        }
+
+        Semaphore permits = new Semaphore(maxConcurrentKeys);
+        Map<Integer, CompletableFuture<?>> completions = new ConcurrentSkipListMap<>();
+        List<CompletableFuture<Void>> keyTasks = new ArrayList<>(indexesByKey.size());
+
+        for (List<Integer> indexes : indexesByKey.values()) {
+            permits.acquireUninterruptibly();
+            keyTasks.add(CompletableFuture.runAsync(() -> {
+                try {
+                    boolean diverted = false;
+                    for (int index : indexes) {
+                        ConsumerRecord<String, NotificationRequestEvent> record = records.get(index);
+                        if (diverted) {
+                            // An earlier record of this key is in the retry topic: don't overtake it
+                            completions.put(index, forwardToRetry(record));
+                            continue;
+                        }
+                        try {
+                            completions.put(index, delivery.apply(record.value()));
+                        } catch (Exception e) {
+                            log.warn("Delivery failed for request {}, forwarding it and the rest of its key to {}{}",
+                                    record.value().getRequestId(), record.topic(), RETRY_SUFFIX, e);
+                            diverted = true;
+                            completions.put(index, forwardToRetry(record));
+                        }
+                    }
+                } finally {
+                    permits.release();
+                }
+            }, executor));
+        }
+
+        // Barrier: the listener (and therefore the offset commit) waits for every key of the batch
+        CompletableFuture.allOf(keyTasks.toArray(new CompletableFuture[0])).join();
+        awaitCompletions(records, completions);
+    }
+
+    private CompletableFuture<?> forwardToRetry(ConsumerRecord<String, NotificationRequestEvent> record) {
+        try {
+            return kafkaTemplates.forPriority(record.value().getPriority())
+                    .send(record.topic() + RETRY_SUFFIX, record.key(), record.value());
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void awaitCompletions(List<ConsumerRecord<String, NotificationRequestEvent>> records,
+                                  Map<Integer, CompletableFuture<?>> completions) {
+        if (completions.isEmpty()) {
+            return;
+        }
+        try {
+            CompletableFuture.allOf(completions.values().toArray(new CompletableFuture[0]))
+                    .get(completionTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // Inspected per record below
+        }
+
+        // Completions are keyed by batch index in ascending order: the first unfinished one bounds the commit
+        Integer failedIndex = null;
+        for (Map.Entry<Integer, CompletableFuture<?>> completion : completions.entrySet()) {
+            CompletableFuture<?> future = completion.getValue();
+            boolean completed = future.isDone() && !future.isCompletedExceptionally();
+            if (failedIndex == null && !completed) {
+                failedIndex = completion.getKey();
+            } else if (failedIndex != null && completed) {
+                ConsumerRecord<String, NotificationRequestEvent> record = records.get(completion.getKey());
+                completedAhead.computeIfAbsent(new TopicPartition(record.topic(), record.partition()),
+                        partition -> new ConcurrentSkipListSet<>()).add(record.offset());
+            }
+        }
+        if (failedIndex != null) {
+            throw new BatchListenerFailedException("Delivery outcome was not persisted or forwarded to the retry topic",
+                    records.get(failedIndex));
+        }
+    }
+
+    private boolean completedBefore(ConsumerRecord<String, NotificationRequestEvent> record) {
+        NavigableSet<Long> offsets = completedAhead.get(new TopicPartition(record.topic(), record.partition()));
+        return offsets != null && offsets.remove(record.offset());
+    }
+
+    /** Drops remembered offsets below each partition's first record: the container has committed past them */
+    private void forgetCommitted(List<ConsumerRecord<String, NotificationRequestEvent>> records) {
+        if (completedAhead.isEmpty()) {
+            return;
+        }
+        Map<TopicPartition, Long> firstOffsets = new HashMap<>();
+        for (ConsumerRecord<String, NotificationRequestEvent> record : records) {
+            firstOffsets.merge(new TopicPartition(record.topic(), record.partition()), record.offset(), Math::min);
+        }
+        firstOffsets.forEach((partition, firstOffset) -> {
+            NavigableSet<Long> offsets = completedAhead.get(partition);
+            if (offsets != null) {
+                offsets.headSet(firstOffset).clear();
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,223 @@
+package com.notification.platform.messaging.codec;
+
+import com.notification.platform.domain.enums.NotificationChannel;
+import com.notification.platform.domain.enums.NotificationPriority;
+import com.notification.platform.messaging.event.EventPayload;
+import com.notification.platform.messaging.event.NotificationRequestEvent;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Compact binary wire format for {@link NotificationRequestEvent}.
+ *
+ * <pre>
+ * byte     format version ({@value #VERSION})
+ * varlong  requestId (zigzag, presence-prefixed)
+ * string   recipientId, channel, targetAddress, priority (varint length + 1, 0 = null; enums by name)
+ * bytes    payload, as the raw JSON of {@link EventPayload} (varint length + 1, 0 = null), copied without parsing
+ * varlong  deliveryLogId (zigzag, presence-prefixed)
+ * </pre>
+ *
+ * Fields added later go to the end and are optional: older readers stop before them, newer readers check
+ * whether bytes remain.
+ *
+ * A JSON document always starts with '{' or whitespace, which can never be the version byte, so readers can
+ * tell the binary format from the JSON one without headers and both can run side by side during a rolling deploy.
+ */
+public final class NotificationEventCodec {
+
+    public static final byte VERSION = 1;
+
+    private NotificationEventCodec() {
+    }
+
+    /**
+     * @return {@code true} if {@code data} starts with the binary version byte rather than a JSON document
+     */
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length > 0 && data[0] == VERSION;
+    }
+
+    public static byte[] encode(NotificationRequestEvent event) {
+        byte[] payload = event.getPayload() == null ? null : event.getPayload().json();
+        Writer out = new Writer(96 + (payload == null ? 0 : payload.length));
+        out.writeByte(VERSION);
+        out.writeNullableLong(event.getRequestId());
+        out.writeString(event.getRecipientId());
+        out.writeString(event.getChannel() == null ? null : event.getChannel().name());
+        out.writeString(event.getTargetAddress());
+        out.writeString(event.getPriority() == null ? null : event.getPriority().name());
+        out.writeBlob(payload);
+        out.writeNullableLong(event.getDeliveryLogId());
+        return out.toByteArray();
+    }
+
+    public static NotificationRequestEvent decode(byte[] data) {
+        Reader in = new Reader(data);
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new SerializationException("Unsupported NotificationRequestEvent format version: " + version);
+        }
+
+        NotificationRequestEvent.NotificationRequestEventBuilder builder = NotificationRequestEvent.builder()
+                .requestId(in.readNullableLong())
+                .recipientId(in.readString())
+                .channel(toEnum(NotificationChannel.class, in.readString()))
+                .targetAddress(in.readString())
+                .priority(toEnum(NotificationPriority.class, in.readString()));
+        byte[] json = in.readBlob();
+        return builder.payload(json == null ? null : EventPayload.ofJson(json))
+                .deliveryLogId(in.readNullableLong())
+                .build();
+    }
+
+    private static <E extends Enum<E>> E toEnum(Class<E> type, String name) {
+        return name == null ? null : Enum.valueOf(type, name);
+    }
+
+    private static final class Writer {
+
+        private byte[] buffer;
+        private int position;
+
+        Writer(int initialCapacity) {
+            this.buffer = new byte[initialCapacity];
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeBytes(byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        void writeZigZag(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeNullableLong(Long value) {
+            if (value == null) {
+                writeByte(0);
+            } else {
+                writeByte(1);
+                writeZigZag(value);
+            }
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length + 1L);
+            writeBytes(bytes);
+        }
+
+        void writeBlob(byte[] bytes) {
+            if (bytes == null) {
+                writeVarLong(0);
+                return;
+            }
+            writeVarLong(bytes.length + 1L);
+            writeBytes(bytes);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        byte readByte() {
+            if (position >= data.length) {
+                throw new SerializationException("Truncated NotificationRequestEvent record");
+            }
+            return data[position++];
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new SerializationException("Malformed varint in NotificationRequestEvent record");
+        }
+
+        long readZigZag() {
+            long raw = readVarLong();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        Long readNullableLong() {
+            return readByte() == 0 ? null : readZigZag();
+        }
+
+        String readString() {
+            int length = readLength() - 1;
+            if (length < 0) {
+                return null;
+            }
+            if (position + length > data.length) {
+                throw new SerializationException("Truncated NotificationRequestEvent record");
+            }
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        byte[] readBlob() {
+            int length = readLength() - 1;
+            if (length < 0) {
+                return null;
+            }
+            if (position + length > data.length) {
+                throw new SerializationException("Truncated NotificationRequestEvent record");
+            }
+            byte[] bytes = Arrays.copyOfRange(data, position, position + length);
+            position += length;
+            return bytes;
+        }
+
+        private int readLength() {
+            long length = readVarLong();
+            // Every element takes at least one byte, so a length beyond the remaining bytes is corrupt input
+            if (length < 0 || length > data.length - position + 1L) {
+                throw new SerializationException("Invalid length in NotificationRequestEvent record: " + length);
+            }
+            return (int) length;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.notification.platform.messaging.codec;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.Map;
+
+/**
+ * Consumer value deserializer that accepts both wire formats: records starting with a codec version byte are
+ * decoded by {@link NotificationEventCodec}, everything else (JSON written by older producers) falls back to
+ * Spring's {@link JsonDeserializer} with the usual type headers and trusted packages.
+ */
+public class NotificationEventDeserializer implements Deserializer<Object> {
+
+    private final JsonDeserializer<Object> jsonDeserializer = new JsonDeserializer<>();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonDeserializer.configure(configs, isKey);
+    }
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        if (NotificationEventCodec.isBinary(data)) {
+            return NotificationEventCodec.decode(data);
+        }
+        return headers == null ? jsonDeserializer.deserialize(topic, data) : jsonDeserializer.deserialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
@@ -0,0 +1,51 @@
+package com.notification.platform.messaging.codec;
+
+import com.notification.platform.messaging.event.NotificationRequestEvent;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Map;
+
+/**
+ * Producer value serializer: with {@value #WRITE_FORMAT_CONFIG} set to {@code binary}, {@link NotificationRequestEvent}
+ * is written with {@link NotificationEventCodec}; anything else, and everything by default, goes through Spring's
+ * {@link JsonSerializer} as before.
+ *
+ * Binary is an explicit opt-in for a second rollout step: {@link NotificationEventDeserializer} reads both JSON and
+ * binary, so once every consumer runs with it, the switch is a config flip.
+ */
+public class NotificationEventSerializer implements Serializer<Object> {
+
+    public static final String WRITE_FORMAT_CONFIG = "notification.codec.write-format";
+
+    private final JsonSerializer<Object> jsonSerializer = new JsonSerializer<>();
+
+    private boolean writeBinary;
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonSerializer.configure(configs, isKey);
+        Object format = configs.get(WRITE_FORMAT_CONFIG);
+        writeBinary = format != null && "binary".equalsIgnoreCase(format.toString());
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        return serialize(topic, null, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (writeBinary && data instanceof NotificationRequestEvent event) {
+            // No type headers: the version byte is all a reader needs
+            return NotificationEventCodec.encode(event);
+        }
+        return headers == null ? jsonSerializer.serialize(topic, data) : jsonSerializer.serialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        jsonSerializer.close();
+    }
+}
@@ -0,0 +1,126 @@
+package com.notification.platform.messaging.event;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Notification payload carried as the raw JSON document it was submitted as.
+ * Routing hops (dispatcher, reaper, retry topics) only pass the bytes along; the map view is parsed lazily
+ * and at most once, by the adapter that actually renders the notification.
+ */
+@JsonSerialize(using = EventPayload.RawJsonSerializer.class)
+@JsonDeserialize(using = EventPayload.RawJsonDeserializer.class)
+public final class EventPayload {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() { };
+
+    private final byte[] json;
+
+    private volatile Map<String, Object> map;
+
+    private EventPayload(byte[] json) {
+        this.json = json;
+    }
+
+    /**
+     * Wraps an already encoded JSON object without parsing it. The array must not be modified afterwards.
+     */
+    public static EventPayload ofJson(byte[] json) {
+        return new EventPayload(json);
+    }
+
+    /**
+     * Encodes {@code values} once, at the edge where the payload enters the event stream.
+     * The map itself is not kept: {@link #asMap()} always reflects the JSON, whichever hop reads it.
+     */
+    public static EventPayload of(Map<String, Object> values) {
+        if (values == null) {
+            return null;
+        }
+        try {
+            return new EventPayload(MAPPER.writeValueAsBytes(values));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode notification payload", e);
+        }
+    }
+
+    /**
+     * @return the raw UTF-8 JSON object; shared, do not modify
+     */
+    public byte[] json() {
+        return json;
+    }
+
+    /**
+     * @return the parsed payload; parsed on first call and cached
+     */
+    public Map<String, Object> asMap() {
+        Map<String, Object> parsed = map;
+        if (parsed == null) {
+            try {
+                parsed = Collections.unmodifiableMap(MAPPER.readValue(json, MAP_TYPE));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to parse notification payload", e);
+            }
+            map = parsed;
+        }
+        return parsed;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof EventPayload other && Arrays.equals(json, other.json));
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(json);
+    }
+
+    @Override
+    public String toString() {
+        return new String(json, StandardCharsets.UTF_8);
+    }
+
+    /** Embeds the bytes verbatim, so events written through Jackson (JSON write-format) do not re-encode the payload */
+    public static final class RawJsonSerializer extends JsonSerializer<EventPayload> {
+        @Override
+        public void serialize(EventPayload value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeRawValue(new String(value.json, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * JSON records still have to be tokenized to find the payload's end; the tokens are streamed straight back out
+     * as bytes, without building a tree or a map
+     */
+    public static final class RawJsonDeserializer extends JsonDeserializer<EventPayload> {
+        @Override
+        public EventPayload deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            try (ByteArrayBuilder bytes = new ByteArrayBuilder();
+                 JsonGenerator generator = MAPPER.getFactory().createGenerator(bytes, JsonEncoding.UTF8)) {
+                generator.copyCurrentStructure(p);
+                generator.flush();
+                return ofJson(bytes.toByteArray());
+            }
+        }
+    }
+}
@@ -1,10 +1,10 @@
 package com.notification.platform.messaging.event;
 
+import com.notification.platform.domain.entity.NotificationRequest;
 import com.notification.platform.domain.enums.NotificationChannel;
+import com.notification.platform.domain.enums.NotificationPriority;
 import lombok.*;
 
-import java.util.Map;
-
 @Getter
 @Builder(toBuilder = true)
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
@@ -15,7 +15,28 @@ public class NotificationRequestEvent {
     private String recipientId;
     private NotificationChannel channel;
     private String targetAddress;
-    private String priority;
-    private Map<String, Object> payload;
+    private NotificationPriority priority;
+    private EventPayload payload;
+
+    /**
+     * Set by the dispatcher on channel events, so adapters can report outcomes by primary key. On a request event it
+     * names the admin retry log the dispatcher sends the retry under.
+     */
+    private Long deliveryLogId;
+
+    /**
+     * The inbound event of a stored request, as published by the outbox relay and re-published by the sweeper,
+     * the reaper and admin retries.
+     */
+    public static NotificationRequestEvent from(NotificationRequest request) {
+        return NotificationRequestEvent.builder()
+                .requestId(request.getId())
+                .recipientId(request.getRecipientId())
+                .channel(request.getChannel())
+                .targetAddress(request.getTargetAddress())
+                .priority(request.getPriority())
+                .payload(EventPayload.of(request.getPayload()))
+                .build();
+    }
 
 }
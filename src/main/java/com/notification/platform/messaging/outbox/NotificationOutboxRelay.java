@@ -0,0 +1,184 @@
+package com.notification.platform.messaging.outbox;
+
+import com.notification.platform.domain.entity.NotificationOutbox;
+import com.notification.platform.domain.entity.NotificationRequest;
+import com.notification.platform.domain.enums.NotificationIngressStatus;
+import com.notification.platform.domain.repository.NotificationOutboxRepository;
+import com.notification.platform.domain.repository.NotificationRequestRepository;
+import com.notification.platform.domain.enums.NotificationPriority;
+import com.notification.platform.messaging.event.NotificationRequestEvent;
+import com.notification.platform.messaging.priority.NotificationTopics;
+import com.notification.platform.messaging.priority.PriorityKafkaTemplates;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * ADR-04: Drains the transactional outbox in large batches.
+ *
+ * Each batch is claimed in a short transaction (row locks are held only until claimed_until is set), sent with async
+ * callbacks outside of any transaction, and then only the acknowledged rows are marked published in a second short
+ * transaction. Rows whose send failed are released for the next poll; after max-attempts failures they are parked,
+ * which hands the request over to the StaleRequestSweeper and the reaper. Rows whose request is no longer ACCEPTED (already re-dispatched by the
+ * sweeper or the reaper) are marked published without being sent again.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "notification.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class NotificationOutboxRelay {
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final NotificationRequestRepository requestRepository;
+    private final PriorityKafkaTemplates kafkaTemplates;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${notification.outbox.relay.batch-size:500}")
+    private int batchSize;
+
+    @Value("${notification.outbox.relay.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    @Value("${notification.outbox.relay.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    // Must exceed send-timeout-ms, or another relay may pick up rows that are still being sent
+    @Value("${notification.outbox.relay.claim-ttl-ms:60000}")
+    private long claimTtlMs;
+
+    @Value("${notification.outbox.relay.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${notification.outbox.retention-minutes:60}")
+    private long retentionMinutes;
+
+    @Scheduled(fixedDelayString = "${notification.outbox.relay.poll-interval-ms:100}")
+    public void relay() {
+        // Keep draining while batches come back full, so a backlog clears without waiting for the next tick
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            List<NotificationOutbox> claimed = transactionTemplate.execute(status -> claimBatch());
+            if (claimed == null || claimed.isEmpty()) {
+                return;
+            }
+            publish(claimed);
+            if (claimed.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notification.outbox.cleanup-interval-ms:60000}")
+    public void purgePublished() {
+        Integer deleted = transactionTemplate.execute(status ->
+                outboxRepository.deletePublishedBefore(OffsetDateTime.now().minusMinutes(retentionMinutes)));
+        if (deleted != null && deleted > 0) {
+            log.info("Purged {} published outbox rows", deleted);
+        }
+    }
+
+    private List<NotificationOutbox> claimBatch() {
+        OffsetDateTime now = OffsetDateTime.now();
+        // HIGH rows first, so a NORMAL backlog in the outbox never delays them
+        List<NotificationOutbox> pending = new ArrayList<>(
+                outboxRepository.lockNextPending(NotificationPriority.HIGH.name(), now, batchSize));
+        if (pending.size() < batchSize) {
+            pending.addAll(outboxRepository.lockNextPending(NotificationPriority.NORMAL.name(), now, batchSize - pending.size()));
+        }
+        if (!pending.isEmpty()) {
+            outboxRepository.claim(pending.stream().map(NotificationOutbox::getId).toList(), now.plus(Duration.ofMillis(claimTtlMs)));
+        }
+        return pending;
+    }
+
+    private void publish(List<NotificationOutbox> claimed) {
+        Map<Long, NotificationRequest> requests = requestRepository.findAllById(
+                        claimed.stream().map(NotificationOutbox::getRequestId).toList())
+                .stream()
+                .collect(Collectors.toMap(NotificationRequest::getId, Function.identity()));
+
+        Queue<NotificationOutbox> acked = new ConcurrentLinkedQueue<>();
+        List<Long> skippedIds = new ArrayList<>();
+        List<CompletableFuture<?>> sends = new ArrayList<>(claimed.size());
+
+        for (NotificationOutbox entry : claimed) {
+            NotificationRequest request = requests.get(entry.getRequestId());
+            if (request == null || request.getStatus() != NotificationIngressStatus.ACCEPTED) {
+                // Purged, or already re-dispatched by the sweeper/reaper; don't send it twice or let it block the outbox
+                skippedIds.add(entry.getId());
+                continue;
+            }
+            try {
+                sends.add(kafkaTemplates.forPriority(request.getPriority())
+                        .send(NotificationTopics.requests(request.getPriority()), request.getRecipientId(), NotificationRequestEvent.from(request))
+                        .whenComplete((result, ex) -> {
+                            if (ex == null) {
+                                acked.add(entry);
+                            } else {
+                                log.error("Outbox relay send failed for request: {}", entry.getRequestId(), ex);
+                            }
+                        }));
+            } catch (Exception e) {
+                log.error("Outbox relay could not hand request {} to the producer", entry.getRequestId(), e);
+            }
+        }
+
+        awaitAcks(sends);
+
+        // Snapshot the acks gathered so far; anything still in flight is retried on the next poll (at-least-once)
+        List<NotificationOutbox> published = new ArrayList<>(acked);
+        Set<Long> publishedIds = published.stream().map(NotificationOutbox::getId).collect(Collectors.toSet());
+        publishedIds.addAll(skippedIds);
+        List<Long> failedIds = claimed.stream()
+                .map(NotificationOutbox::getId)
+                .filter(id -> !publishedIds.contains(id))
+                .toList();
+
+        Integer parked = transactionTemplate.execute(status -> {
+            OffsetDateTime now = OffsetDateTime.now();
+            if (!publishedIds.isEmpty()) {
+                outboxRepository.markPublished(publishedIds, now);
+            }
+            if (!published.isEmpty()) {
+                requestRepository.updateStatusByIdInAndStatus(NotificationIngressStatus.DISPATCHED,
+                        published.stream().map(NotificationOutbox::getRequestId).toList(),
+                        NotificationIngressStatus.ACCEPTED);
+            }
+            if (failedIds.isEmpty()) {
+                return 0;
+            }
+            outboxRepository.incrementAttempts(failedIds);
+            return outboxRepository.parkExhausted(failedIds, maxAttempts, now);
+        });
+
+        if (!failedIds.isEmpty()) {
+            log.warn("Outbox relay left {} rows pending after failed sends", failedIds.size());
+        }
+        if (parked != null && parked > 0) {
+            log.error("Outbox relay parked {} rows after {} failed attempts; they are no longer relayed", parked, maxAttempts);
+        }
+        log.info("Outbox relay published {} of {} claimed rows", published.size(), claimed.size());
+    }
+
+    private void awaitAcks(List<CompletableFuture<?>> sends) {
+        try {
+            CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // Individual failures were already recorded by the callbacks
+        } catch (TimeoutException e) {
+            log.warn("Outbox relay timed out after {} ms waiting for broker acks", sendTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
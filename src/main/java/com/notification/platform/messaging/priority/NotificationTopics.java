@@ -0,0 +1,35 @@
+package com.notification.platform.messaging.priority;
+
+import com.notification.platform.domain.enums.NotificationChannel;
+import com.notification.platform.domain.enums.NotificationPriority;
+
+/**
+ * Topic names per priority lane. HIGH traffic uses the same topics with a {@code .high} suffix,
+ * so a NORMAL burst can never queue in front of it.
+ */
+public final class NotificationTopics {
+
+    public static final String REQUESTS = "notification.requests";
+    public static final String INAPP = "notification.inapp";
+    public static final String EMAIL = "notification.email";
+
+    public static final String HIGH_SUFFIX = ".high";
+
+    private NotificationTopics() {
+    }
+
+    public static String requests(NotificationPriority priority) {
+        return lane(REQUESTS, priority);
+    }
+
+    public static String channel(NotificationChannel channel, NotificationPriority priority) {
+        return switch (channel) {
+            case IN_APP -> lane(INAPP, priority);
+            case EMAIL -> lane(EMAIL, priority);
+        };
+    }
+
+    private static String lane(String topic, NotificationPriority priority) {
+        return priority == NotificationPriority.HIGH ? topic + HIGH_SUFFIX : topic;
+    }
+}
@@ -0,0 +1,14 @@
+package com.notification.platform.messaging.priority;
+
+import com.notification.platform.domain.enums.NotificationPriority;
+import org.springframework.kafka.core.KafkaTemplate;
+
+/**
+ * Picks the producer tuned for a lane: no linger for HIGH, large batches for NORMAL.
+ */
+public record PriorityKafkaTemplates(KafkaTemplate<String, Object> normal, KafkaTemplate<String, Object> high) {
+
+    public KafkaTemplate<String, Object> forPriority(NotificationPriority priority) {
+        return priority == NotificationPriority.HIGH ? high : normal;
+    }
+}
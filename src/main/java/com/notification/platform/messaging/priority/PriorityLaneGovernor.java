@@ -0,0 +1,73 @@
+package com.notification.platform.messaging.priority;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Backpressure between priority lanes: while any HIGH listener falls behind, its NORMAL counterpart is paused
+ * so the shared consumer threads, DB connections and producer capacity go to HIGH traffic first.
+ * Pausing uses hysteresis (pause above one lag, resume below a lower one) to avoid flapping.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PriorityLaneGovernor {
+
+    /** HIGH listener id -> NORMAL listener id */
+    public static final Map<String, String> LANES = Map.of(
+            "dispatcher-high", "dispatcher-normal",
+            "email-high", "email-normal",
+            "inapp-high", "inapp-normal");
+
+    private static final String RECORDS_LAG_MAX = "records-lag-max";
+
+    private final KafkaListenerEndpointRegistry registry;
+
+    @Value("${notification.lanes.pause-normal-lag:1000}")
+    private long pauseNormalLag;
+
+    @Value("${notification.lanes.resume-normal-lag:100}")
+    private long resumeNormalLag;
+
+    @Scheduled(fixedDelayString = "${notification.lanes.check-interval-ms:1000}")
+    public void balance() {
+        LANES.forEach((highId, normalId) -> {
+            MessageListenerContainer high = registry.getListenerContainer(highId);
+            MessageListenerContainer normal = registry.getListenerContainer(normalId);
+            if (high == null || normal == null || !high.isRunning() || !normal.isRunning()) {
+                return;
+            }
+
+            double highLag = maxRecordsLag(high);
+            if (!normal.isPauseRequested() && highLag > pauseNormalLag) {
+                log.warn("HIGH lane {} lag {} exceeds {}, pausing {}", highId, (long) highLag, pauseNormalLag, normalId);
+                normal.pause();
+            } else if (normal.isPauseRequested() && highLag <= resumeNormalLag) {
+                log.info("HIGH lane {} caught up (lag {}), resuming {}", highId, (long) highLag, normalId);
+                normal.resume();
+            }
+        });
+    }
+
+    private double maxRecordsLag(MessageListenerContainer container) {
+        double max = 0;
+        for (Map<MetricName, ? extends Metric> clientMetrics : container.metrics().values()) {
+            for (Map.Entry<MetricName, ? extends Metric> metric : clientMetrics.entrySet()) {
+                if (RECORDS_LAG_MAX.equals(metric.getKey().name()) && metric.getValue().metricValue() instanceof Double lag
+                        && !lag.isNaN()) {
+                    max = Math.max(max, lag);
+                }
+            }
+        }
+        return max;
+    }
+}
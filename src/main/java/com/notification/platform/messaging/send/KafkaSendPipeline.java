@@ -0,0 +1,209 @@
+package com.notification.platform.messaging.send;
+
+import com.notification.platform.domain.enums.DeliveryStatus;
+import com.notification.platform.domain.enums.NotificationIngressStatus;
+import com.notification.platform.domain.enums.NotificationPriority;
+import com.notification.platform.domain.repository.NotificationRequestRepository;
+import com.notification.platform.messaging.priority.PriorityKafkaTemplates;
+import com.notification.platform.messaging.status.DeliveryStatusAggregator;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Shared producer path whose status bookkeeping follows broker acks instead of the send() call.
+ * Completion callbacks only enqueue the outcome: request acks are flushed here as bulk UPDATEs,
+ * delivery outcomes go to the {@link DeliveryStatusAggregator} event log. No caller ever blocks on a send future.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class KafkaSendPipeline {
+
+    private final PriorityKafkaTemplates kafkaTemplates;
+    private final NotificationRequestRepository requestRepository;
+    private final DeliveryStatusAggregator statusAggregator;
+    private final TransactionTemplate transactionTemplate;
+
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+    private final Queue<Long> dispatchedRequestIds = new ConcurrentLinkedQueue<>();
+
+    @Value("${notification.kafka.send-pipeline.max-ids-per-update:1000}")
+    private int maxIdsPerUpdate = 1000;
+
+    /**
+     * Publishes a request event; once acknowledged, the request moves from ACCEPTED to DISPATCHED.
+     * A failed send leaves it ACCEPTED so the reaper picks it up again.
+     *
+     * @return completes with {@code true} on ack and {@code false} on failure, never exceptionally
+     */
+    public CompletableFuture<Boolean> sendRequest(String topic, NotificationPriority priority, String key, Object event, Long requestId) {
+        return send(topic, null, priority, key, event, requestId, () -> {
+            dispatchedRequestIds.add(requestId);
+            return DONE;
+        }, reason -> DONE);
+    }
+
+    /**
+     * Publishes a request event without status bookkeeping, for callers that record the ack themselves
+     * (the reaper moves acked requests to DISPATCHED with an UPDATE fenced by its lease).
+     *
+     * @return completes with {@code true} on ack and {@code false} on failure, never exceptionally
+     */
+    public CompletableFuture<Boolean> publishRequest(String topic, NotificationPriority priority, String key, Object event, Long requestId) {
+        return send(topic, null, priority, key, event, requestId, () -> DONE, reason -> DONE);
+    }
+
+    /**
+     * Publishes a channel event for a delivery log; a QUEUED transition is recorded on ack, FAILED on failure.
+     *
+     * @return completes with {@code true} on ack and {@code false} on failure once that transition is committed
+     * (so a QUEUED event in the history means the broker has the event), never exceptionally
+     */
+    public CompletableFuture<Boolean> sendDelivery(String topic, NotificationPriority priority, String key, Object event, Long deliveryLogId) {
+        return sendDelivery(topic, null, priority, key, event, deliveryLogId);
+    }
+
+    /**
+     * Same as {@link #sendDelivery(String, NotificationPriority, String, Object, Long)}, but to an explicit partition
+     * (e.g. the gateway node holding an in-app recipient's session); {@code null} partitions by key.
+     */
+    public CompletableFuture<Boolean> sendDelivery(String topic, Integer partition, NotificationPriority priority, String key,
+                                                   Object event, Long deliveryLogId) {
+        return send(topic, partition, priority, key, event, deliveryLogId,
+                () -> statusAggregator.record(deliveryLogId, DeliveryStatus.QUEUED, null),
+                reason -> statusAggregator.record(deliveryLogId, DeliveryStatus.FAILED, reason));
+    }
+
+    /**
+     * Defers {@code sends} until the surrounding transaction has committed, so consumers and the status flush
+     * never race ahead of the rows they refer to. Runs immediately when no transaction is active.
+     *
+     * @return completes once every send issued by {@code sends} has been acked or failed
+     */
+    public CompletableFuture<Void> afterCommit(Supplier<? extends CompletableFuture<?>> sends) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return sends.get().thenApply(result -> null);
+        }
+
+        CompletableFuture<Void> completion = new CompletableFuture<>();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                sends.get().whenComplete((result, ex) -> {
+                    if (ex == null) {
+                        completion.complete(null);
+                    } else {
+                        completion.completeExceptionally(ex);
+                    }
+                });
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    completion.completeExceptionally(new IllegalStateException("Transaction rolled back; nothing was sent"));
+                }
+            }
+        });
+        return completion;
+    }
+
+    @Scheduled(fixedDelayString = "${notification.kafka.send-pipeline.flush-interval-ms:50}")
+    public void flush() {
+        List<Long> dispatched = drain(dispatchedRequestIds);
+        if (dispatched.isEmpty()) {
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            for (List<Long> ids : partition(dispatched)) {
+                requestRepository.updateStatusByIdInAndStatus(NotificationIngressStatus.DISPATCHED, ids, NotificationIngressStatus.ACCEPTED);
+            }
+        });
+
+        log.debug("Send pipeline flushed {} dispatched requests", dispatched.size());
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("Failed to flush pending send outcomes on shutdown", e);
+        }
+    }
+
+    private CompletableFuture<Boolean> send(String topic, Integer partition, NotificationPriority priority, String key, Object event,
+                                            Long id, Supplier<CompletableFuture<?>> onAck,
+                                            Function<String, CompletableFuture<?>> onFailure) {
+        CompletableFuture<Boolean> outcome = new CompletableFuture<>();
+        try {
+            KafkaTemplate<String, Object> template = kafkaTemplates.forPriority(priority);
+            (partition == null ? template.send(topic, key, event) : template.send(topic, partition, key, event)).whenComplete((result, ex) -> {
+                if (ex != null) {
+                    log.error("Kafka send to {} failed for id: {}", topic, id, ex);
+                }
+                completeAfter(outcome, ex == null, id, () -> ex == null ? onAck.get() : onFailure.apply(failureReason(ex)));
+            });
+        } catch (Exception e) {
+            // e.g. serialization errors or metadata timeouts thrown before the record is even queued
+            log.error("Kafka producer rejected record for {} (id: {})", topic, id, e);
+            completeAfter(outcome, false, id, () -> onFailure.apply(failureReason(e)));
+        }
+        return outcome;
+    }
+
+    private void completeAfter(CompletableFuture<Boolean> outcome, boolean acked, Long id,
+                               Supplier<CompletableFuture<?>> bookkeeping) {
+        CompletableFuture<?> recorded;
+        try {
+            recorded = bookkeeping.get();
+        } catch (Exception e) {
+            recorded = CompletableFuture.failedFuture(e);
+        }
+        recorded.whenComplete((result, ex) -> {
+            if (ex != null) {
+                // Never leave the caller's future hanging because the outcome could not be recorded
+                log.error("Failed to record the send outcome for id: {}", id, ex);
+            }
+            outcome.complete(acked);
+        });
+    }
+
+    private String failureReason(Throwable ex) {
+        Throwable cause = (ex.getCause() != null) ? ex.getCause() : ex;
+        return "Kafka send failed: " + cause.getClass().getSimpleName();
+    }
+
+    private <T> List<T> drain(Queue<T> queue) {
+        List<T> drained = new ArrayList<>();
+        T item;
+        while ((item = queue.poll()) != null) {
+            drained.add(item);
+        }
+        return drained;
+    }
+
+    private List<List<Long>> partition(List<Long> ids) {
+        List<List<Long>> partitions = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += maxIdsPerUpdate) {
+            partitions.add(ids.subList(i, Math.min(i + maxIdsPerUpdate, ids.size())));
+        }
+        return partitions;
+    }
+}
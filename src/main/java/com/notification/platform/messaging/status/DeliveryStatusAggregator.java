@@ -0,0 +1,129 @@
+package com.notification.platform.messaging.status;
+
+import com.notification.platform.config.SnowflakeIdGenerator;
+import com.notification.platform.domain.entity.DeliveryStatusEvent;
+import com.notification.platform.domain.enums.DeliveryStatus;
+import com.notification.platform.domain.repository.DeliveryStatusEventRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Write-behind buffer for delivery status transitions (QUEUED/FAILED from broker acks, DELIVERED/FAILED from adapters).
+ * Callers only enqueue a transition, stamped with its event id; a scheduled flush appends everything collected since
+ * the last run to {@code delivery_status_events} and folds it into the latest-status projection, one statement each per chunk.
+ * The returned futures complete once the events are committed, which lets listeners hold back their offset commit
+ * until then: a crash loses at most uncommitted offsets, never a status.
+ *
+ * The buffer is bounded. When Postgres falls behind far enough to fill it, {@link #record} blocks, which
+ * pushes back on the consumers instead of growing the heap.
+ */
+@Slf4j
+@Component
+public class DeliveryStatusAggregator {
+
+    private static final int MAX_ERROR_MESSAGE_LENGTH = 1000;
+
+    private final DeliveryStatusEventRepository statusEventRepository;
+    private final SnowflakeIdGenerator snowflakeIdGenerator;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<PendingUpdate> buffer;
+
+    // Updates of a failed flush, retried first on the next run; only touched under the flush lock
+    private final List<PendingUpdate> carryOver = new ArrayList<>();
+
+    @Value("${notification.delivery-status.max-rows-per-statement:1000}")
+    private int maxRowsPerStatement = 1000;
+
+    public DeliveryStatusAggregator(DeliveryStatusEventRepository statusEventRepository,
+                                    SnowflakeIdGenerator snowflakeIdGenerator,
+                                    TransactionTemplate transactionTemplate,
+                                    @Value("${notification.delivery-status.capacity:100000}") int capacity) {
+        this.statusEventRepository = statusEventRepository;
+        this.snowflakeIdGenerator = snowflakeIdGenerator;
+        this.transactionTemplate = transactionTemplate;
+        this.buffer = new LinkedBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Queues a status transition for a delivery log.
+     *
+     * @return completes once the transition is committed to the event log
+     */
+    public CompletableFuture<Void> record(Long deliveryLogId, DeliveryStatus status, String errorMessage) {
+        // The id is taken now, so it orders transitions by when they were observed, not when they were flushed
+        DeliveryStatusEvent event = DeliveryStatusEvent.builder()
+                .id(snowflakeIdGenerator.nextId())
+                .deliveryLogId(deliveryLogId)
+                .status(status)
+                .errorMessage(truncate(errorMessage))
+                .occurredAt(OffsetDateTime.now())
+                .build();
+        PendingUpdate update = new PendingUpdate(event, new CompletableFuture<>());
+        try {
+            buffer.put(update);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        return update.committed();
+    }
+
+    @Scheduled(fixedDelayString = "${notification.delivery-status.flush-interval-ms:5}")
+    public synchronized void flush() {
+        List<PendingUpdate> pending = new ArrayList<>(carryOver);
+        carryOver.clear();
+        buffer.drainTo(pending);
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<DeliveryStatusEvent> events = pending.stream().map(PendingUpdate::event).toList();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = 0; i < events.size(); i += maxRowsPerStatement) {
+                    statusEventRepository.appendAll(events.subList(i, Math.min(i + maxRowsPerStatement, events.size())));
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Failed to flush {} delivery status updates, retrying on the next run", pending.size(), e);
+            carryOver.addAll(pending);
+            return;
+        }
+
+        pending.forEach(update -> update.committed().complete(null));
+        log.debug("Flushed {} delivery status events", events.size());
+    }
+
+    @PreDestroy
+    public synchronized void flushOnShutdown() {
+        flush();
+        List<PendingUpdate> unwritten = new ArrayList<>(carryOver);
+        buffer.drainTo(unwritten);
+        if (!unwritten.isEmpty()) {
+            // Their offsets are not committed either, so the records are redelivered after restart
+            log.warn("{} delivery status updates not written before shutdown", unwritten.size());
+            unwritten.forEach(update -> update.committed().completeExceptionally(
+                    new IllegalStateException("Delivery status aggregator shut down before the update was written")));
+        }
+    }
+
+    private String truncate(String errorMessage) {
+        return (errorMessage == null || errorMessage.length() <= MAX_ERROR_MESSAGE_LENGTH)
+                ? errorMessage
+                : errorMessage.substring(0, MAX_ERROR_MESSAGE_LENGTH);
+    }
+
+    private record PendingUpdate(DeliveryStatusEvent event, CompletableFuture<Void> committed) {
+    }
+}
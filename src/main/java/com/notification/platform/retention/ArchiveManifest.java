@@ -0,0 +1,21 @@
+package com.notification.platform.retention;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Written next to every archive once its data is complete; {@link PartitionArchiver#verify} checks the data against it.
+ *
+ * @param rowCount        rows exported by COPY, one NDJSON line each
+ * @param compressedBytes size of the stored (gzip) object
+ * @param sha256          hex SHA-256 of the stored (gzip) object
+ */
+public record ArchiveManifest(
+        String table,
+        String partition,
+        String format,
+        long rowCount,
+        long compressedBytes,
+        String sha256,
+        OffsetDateTime archivedAt
+) {
+}
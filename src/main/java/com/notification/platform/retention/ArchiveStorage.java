@@ -0,0 +1,37 @@
+package com.notification.platform.retention;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Target for cold archives of expired partitions, addressed by slash-separated keys
+ * (e.g. {@code delivery_logs/delivery_logs_p20260719.ndjson.gz}).
+ * An object only counts as archived once its manifest has been written; see {@link PartitionArchiver}.
+ */
+public interface ArchiveStorage {
+
+    /**
+     * Opens a stream that replaces the object at {@code key}. The object only becomes visible under {@code key} if
+     * {@link WriteStream#commit()} was called before the stream is closed; closing it uncommitted (e.g. after a
+     * failed write) discards what was written and leaves any previous object in place.
+     */
+    WriteStream openWrite(String key) throws IOException;
+
+    InputStream openRead(String key) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    abstract class WriteStream extends FilterOutputStream {
+
+        protected WriteStream(OutputStream out) {
+            super(out);
+        }
+
+        /**
+         * Marks everything written so far as complete, so that {@link #close()} publishes the object.
+         */
+        public abstract void commit();
+    }
+}
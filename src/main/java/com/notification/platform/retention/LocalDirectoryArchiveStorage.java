@@ -0,0 +1,93 @@
+package com.notification.platform.retention;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+
+/**
+ * Default {@link ArchiveStorage}: one file per key below a local directory. With more than one instance this must be
+ * a volume shared by all of them: whichever instance holds the maintenance lock archives, and a partition is dropped
+ * right after, so an archive on a pod-local disk would be lost with the pod.
+ * Writes go to a uniquely named {@code .tmp} sibling that is atomically moved into place when a committed stream is
+ * closed, so concurrent writers of the same key never interleave; an uncommitted stream deletes it instead.
+ */
+@Component
+@ConditionalOnProperty(name = "notification.archive.storage", havingValue = "local", matchIfMissing = true)
+public class LocalDirectoryArchiveStorage implements ArchiveStorage {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path root;
+
+    public LocalDirectoryArchiveStorage(@Value("${notification.archive.local.directory:./archive}") String directory) {
+        this.root = Path.of(directory).toAbsolutePath().normalize();
+    }
+
+    @Override
+    public WriteStream openWrite(String key) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling(target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp), BUFFER_SIZE);
+
+        return new WriteStream(out) {
+            private boolean committed;
+            private boolean closed;
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                // FilterOutputStream would otherwise write byte by byte
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void commit() {
+                committed = true;
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                try {
+                    super.close();
+                } catch (IOException e) {
+                    Files.deleteIfExists(temp);
+                    throw e;
+                }
+                if (committed) {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } else {
+                    // A failed or abandoned write must not replace a complete object with a partial one
+                    Files.deleteIfExists(temp);
+                }
+            }
+        };
+    }
+
+    @Override
+    public InputStream openRead(String key) throws IOException {
+        return new BufferedInputStream(Files.newInputStream(resolve(key)), BUFFER_SIZE);
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(resolve(key));
+    }
+
+    private Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root)) {
+            throw new IllegalArgumentException("Archive key escapes the archive directory: " + key);
+        }
+        return path;
+    }
+}
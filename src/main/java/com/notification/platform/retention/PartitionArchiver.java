@@ -0,0 +1,256 @@
+package com.notification.platform.retention;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Cold archive of one daily partition as gzip-compressed NDJSON (one {@code row_to_json} object per line).
+ * Rows are streamed with {@code COPY ... TO STDOUT} straight into the compressor and the storage target,
+ * so memory use does not depend on the partition size. A manifest with the row count and SHA-256 is written
+ * last and marks the archive as complete.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PartitionArchiver {
+
+    public static final String FORMAT = "ndjson+gzip";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("([a-z_]+)_p(\\d{8})");
+    private static final DateTimeFormatter PARTITION_DAY = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    // CSV with quote/delimiter bytes that never occur in row_to_json output (JSON escapes control characters),
+    // so every line is passed through verbatim instead of being backslash-escaped as in text format
+    private static final String COPY_OPTIONS = "WITH (FORMAT csv, QUOTE E'\\x01', DELIMITER E'\\x02')";
+
+    private final DataSource dataSource;
+    private final ArchiveStorage storage;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Exports {@code partition} of {@code table}. The partition should already be detached, so nothing writes to it
+     * while it is being exported.
+     */
+    public ArchiveManifest archive(String table, String partition) throws IOException, SQLException {
+        checkPartition(table, partition);
+        MessageDigest sha256 = sha256();
+
+        long rows;
+        long compressedBytes;
+        try (Connection connection = dataSource.getConnection();
+             ArchiveStorage.WriteStream target = storage.openWrite(dataKey(table, partition));
+             CountingOutputStream counted = new CountingOutputStream(target);
+             DigestOutputStream digested = new DigestOutputStream(counted, sha256);
+             GZIPOutputStream gzip = new GZIPOutputStream(digested, BUFFER_SIZE)) {
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            rows = copyManager.copyOut("COPY (SELECT row_to_json(t) FROM " + partition + " t) TO STDOUT " + COPY_OPTIONS, gzip);
+            gzip.finish();
+            compressedBytes = counted.count;
+            target.commit();
+        }
+
+        ArchiveManifest manifest = new ArchiveManifest(table, partition, FORMAT, rows, compressedBytes,
+                HexFormat.of().formatHex(sha256.digest()), OffsetDateTime.now());
+        try (ArchiveStorage.WriteStream out = storage.openWrite(manifestKey(table, partition))) {
+            out.write(objectMapper.writeValueAsBytes(manifest));
+            out.commit();
+        }
+
+        log.info("Archived {} ({} rows, {} bytes compressed)", partition, rows, compressedBytes);
+        return manifest;
+    }
+
+    /**
+     * @return {@code true} if a manifest exists and the stored data matches its checksum, size and row count
+     */
+    public boolean verify(String table, String partition) throws IOException {
+        checkPartition(table, partition);
+        String manifestKey = manifestKey(table, partition);
+        if (!storage.exists(manifestKey) || !storage.exists(dataKey(table, partition))) {
+            return false;
+        }
+
+        ArchiveManifest manifest;
+        try (InputStream in = storage.openRead(manifestKey)) {
+            manifest = objectMapper.readValue(in, ArchiveManifest.class);
+        }
+
+        MessageDigest sha256 = sha256();
+        long rows = 0;
+        long compressedBytes;
+        try (InputStream raw = storage.openRead(dataKey(table, partition));
+             CountingInputStream counted = new CountingInputStream(raw);
+             DigestInputStream digested = new DigestInputStream(counted, sha256);
+             GZIPInputStream gzip = new GZIPInputStream(digested, BUFFER_SIZE)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = gzip.read(buffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '\n') {
+                        rows++;
+                    }
+                }
+            }
+            // Anything the decompressor left unread still belongs to the checksum
+            while (digested.read(buffer) != -1) {
+                // drain
+            }
+            compressedBytes = counted.count;
+        } catch (ZipException | EOFException e) {
+            log.warn("Archive of {} is not a readable gzip stream", partition, e);
+            return false;
+        }
+
+        boolean valid = manifest.rowCount() == rows
+                && manifest.compressedBytes() == compressedBytes
+                && HexFormat.of().formatHex(sha256.digest()).equals(manifest.sha256());
+        if (!valid) {
+            log.warn("Archive of {} does not match its manifest ({} rows, {} bytes read)", partition, rows, compressedBytes);
+        }
+        return valid;
+    }
+
+    /**
+     * Re-imports an archived partition into {@code table}, recreating its daily partition if needed.
+     * Rows that are already present are skipped, so an interrupted restore can simply be run again.
+     *
+     * @return number of rows inserted
+     */
+    public long restore(String table, String partition) throws IOException, SQLException {
+        if (!verify(table, partition)) {
+            throw new IllegalStateException("Archive of " + partition + " is missing or does not match its manifest");
+        }
+        LocalDate day = LocalDate.parse(partition.substring(table.length() + 2), PARTITION_DAY);
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                try (PreparedStatement ensure = connection.prepareStatement("SELECT ensure_daily_partitions(?, ?, 1, ?)")) {
+                    ensure.setString(1, table);
+                    ensure.setObject(2, day);
+                    ensure.setString(3, PartitionMaintenanceService.PARTITIONED_TABLES.getOrDefault(table, ""));
+                    ensure.execute();
+                }
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("CREATE TEMP TABLE archive_import (doc json) ON COMMIT DROP");
+                }
+
+                // Staged on the database side, so the import streams just like the export
+                CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+                try (InputStream in = new GZIPInputStream(storage.openRead(dataKey(table, partition)), BUFFER_SIZE)) {
+                    copyManager.copyIn("COPY archive_import FROM STDIN " + COPY_OPTIONS, in);
+                }
+
+                long inserted;
+                try (Statement statement = connection.createStatement()) {
+                    inserted = statement.executeUpdate("INSERT INTO " + table
+                            + " SELECT (json_populate_record(NULL::" + table + ", doc)).* FROM archive_import"
+                            + " ON CONFLICT DO NOTHING");
+                }
+                connection.commit();
+                log.info("Restored {} rows of {} into {}", inserted, partition, table);
+                return inserted;
+            } catch (SQLException | IOException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    static String dataKey(String table, String partition) {
+        return table + "/" + partition + ".ndjson.gz";
+    }
+
+    static String manifestKey(String table, String partition) {
+        return table + "/" + partition + ".manifest.json";
+    }
+
+    private static void checkPartition(String table, String partition) {
+        // Both names end up in SQL text: only accept <known table>_pYYYYMMDD
+        Matcher matcher = PARTITION_NAME.matcher(partition);
+        if (!PartitionMaintenanceService.PARTITIONED_TABLES.containsKey(table)
+                || !matcher.matches() || !matcher.group(1).equals(table)) {
+            throw new IllegalArgumentException("Not a daily partition of " + table + ": " + partition);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = in.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+}
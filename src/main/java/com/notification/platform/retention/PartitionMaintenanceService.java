@@ -0,0 +1,259 @@
+package com.notification.platform.retention;
+
+import com.notification.platform.config.SchedulerLock;
+import com.notification.platform.config.SnowflakeIdGenerator;
+import com.notification.platform.domain.repository.NotificationIdempotencyKeyRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NFR-22/FR-27: keeps the id-partitioned tables (one partition per UTC day, see V10) ready and bounded.
+ * Partitions are created {@code premake-days} ahead, and whole partitions past the retention period are detached
+ * and dropped instead of deleting rows, so retention costs no table or index bloat. Unless archiving is disabled,
+ * a partition is only dropped once its {@link PartitionArchiver} export has been verified.
+ *
+ * Runs on one instance at a time under the {@value #MAINTENANCE_LOCK} {@link SchedulerLock}, renewed while it works;
+ * each partition is only retired while that lease is still current, so two instances never race on the same
+ * archive, DETACH or DROP. Idempotency keys are purged only up to the oldest expired request partition still present.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "notification.retention.enabled", havingValue = "true", matchIfMissing = true)
+public class PartitionMaintenanceService {
+
+    /** Partitioned parent table -> storage clause of its partitions */
+    static final Map<String, String> PARTITIONED_TABLES = new LinkedHashMap<>();
+
+    static {
+        PARTITIONED_TABLES.put("notification_requests", "");
+        PARTITIONED_TABLES.put("delivery_logs", "");
+        PARTITIONED_TABLES.put("delivery_status_events", "");
+        // Hot projection rows are updated in place; leave room for HOT updates as in V9
+        PARTITIONED_TABLES.put("delivery_log_status", "WITH (fillfactor = 70)");
+    }
+
+    public static final String MAINTENANCE_LOCK = "partition-maintenance";
+
+    private static final String REQUESTS_TABLE = "notification_requests";
+
+    private static final DateTimeFormatter PARTITION_DAY = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    // Attached partitions plus ones detached earlier whose archive or drop did not complete. detach_pending marks a
+    // DETACH ... CONCURRENTLY that was interrupted: the partition is still attached and has to be finalized.
+    private static final String LIST_PARTITIONS = "SELECT c.relname, i.inhparent IS NOT NULL AS attached, " +
+            "COALESCE(i.inhdetachpending, false) AS detach_pending FROM pg_class c " +
+            "LEFT JOIN pg_inherits i ON i.inhrelid = c.oid " +
+            "WHERE c.relkind = 'r' AND c.relname LIKE ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NotificationIdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final PartitionArchiver archiver;
+    private final SchedulerLock schedulerLock;
+
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("partition-lock-heartbeat").daemon().factory());
+
+    @Value("${notification.retention.days:90}")
+    private int retentionDays = 90;
+
+    @Value("${notification.retention.premake-days:7}")
+    private int premakeDays = 7;
+
+    @Value("${notification.retention.purge-batch-size:10000}")
+    private int purgeBatchSize = 10000;
+
+    @Value("${notification.archive.enabled:true}")
+    private boolean archiveEnabled = true;
+
+    @Value("${notification.retention.lease-ttl-ms:300000}")
+    private long leaseTtlMs = 300000;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensurePartitionsOnStartup() {
+        createPartitions(LocalDate.now(ZoneOffset.UTC));
+    }
+
+    @Scheduled(cron = "${notification.retention.cron:0 15 0 * * *}", zone = "UTC")
+    public void maintain() {
+        Duration leaseTtl = Duration.ofMillis(leaseTtlMs);
+        Optional<SchedulerLock.Lease> acquired;
+        try {
+            acquired = schedulerLock.tryAcquire(MAINTENANCE_LOCK, leaseTtl);
+        } catch (Exception e) {
+            log.error("Failed to acquire the partition maintenance lock, skipping this run", e);
+            return;
+        }
+        if (acquired.isEmpty()) {
+            log.info("Partition maintenance is running on another instance, skipping this run");
+            return;
+        }
+
+        SchedulerLock.Lease lease = acquired.get();
+        long renewEveryMs = leaseTtl.toMillis() / 3;
+        ScheduledFuture<?> heartbeat = heartbeats.scheduleAtFixedRate(() -> renew(lease, leaseTtl),
+                renewEveryMs, renewEveryMs, TimeUnit.MILLISECONDS);
+        try {
+            LocalDate today = LocalDate.now(ZoneOffset.UTC);
+            createPartitions(today);
+            dropExpiredPartitions(today, lease);
+        } finally {
+            heartbeat.cancel(false);
+            schedulerLock.release(lease);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+    }
+
+    void createPartitions(LocalDate today) {
+        PARTITIONED_TABLES.forEach((table, storage) -> {
+            try {
+                Integer created = jdbcTemplate.queryForObject("SELECT ensure_daily_partitions(?, ?, ?, ?)",
+                        Integer.class, table, Date.valueOf(today), premakeDays, storage);
+                if (created != null && created > 0) {
+                    log.info("Created {} daily partitions of {} ahead of {}", created, table, today);
+                }
+            } catch (DataAccessException e) {
+                // The existing horizon still covers the next few days; the next run tries again
+                log.error("Failed to create partitions of {}", table, e);
+            }
+        });
+    }
+
+    void dropExpiredPartitions(LocalDate today, SchedulerLock.Lease lease) {
+        // A partition expires once its whole day is older than the retention period
+        LocalDate cutoff = today.minusDays(retentionDays);
+        // Keys of requests from this day on are kept: their partition is still there (or was not looked at)
+        LocalDate purgeBefore = cutoff;
+        boolean requestsDropped = false;
+
+        for (String table : PARTITIONED_TABLES.keySet()) {
+            for (Map<String, Object> row : jdbcTemplate.queryForList(LIST_PARTITIONS, table + "_p%")) {
+                String partition = (String) row.get("relname");
+                LocalDate day = partitionDay(table, partition);
+                if (day == null || !day.isBefore(cutoff)) {
+                    continue;
+                }
+                if (!schedulerLock.isCurrent(lease.name(), lease.fencingToken())) {
+                    // Another instance took over; leave the remaining partitions (and the purge) to it
+                    log.error("Lost the partition maintenance lock (fencing token {}), stopping", lease.fencingToken());
+                    return;
+                }
+                boolean dropped = retire(table, partition, row);
+                if (REQUESTS_TABLE.equals(table)) {
+                    requestsDropped |= dropped;
+                    if (!dropped && day.isBefore(purgeBefore)) {
+                        purgeBefore = day;
+                    }
+                }
+            }
+        }
+
+        if (requestsDropped) {
+            purgeIdempotencyKeys(purgeBefore);
+        }
+    }
+
+    /**
+     * @return whether the partition was dropped
+     */
+    private boolean retire(String table, String partition, Map<String, Object> row) {
+        try {
+            if (Boolean.TRUE.equals(row.get("detach_pending"))) {
+                // An earlier DETACH ... CONCURRENTLY was interrupted; a second one would fail until it is finalized
+                jdbcTemplate.execute("ALTER TABLE " + table + " DETACH PARTITION " + partition + " FINALIZE");
+            } else if (Boolean.TRUE.equals(row.get("attached"))) {
+                // CONCURRENTLY only takes a SHARE UPDATE EXCLUSIVE lock, so ingest and dispatch keep running.
+                // It cannot run inside a transaction, hence plain auto-commit statements here.
+                jdbcTemplate.execute("ALTER TABLE " + table + " DETACH PARTITION " + partition + " CONCURRENTLY");
+            }
+            if (archiveEnabled && !archive(table, partition)) {
+                // Stays detached (invisible to queries) and is picked up again by the next run
+                log.error("Archive of expired partition {} could not be verified, not dropping it", partition);
+                return false;
+            }
+            jdbcTemplate.execute("DROP TABLE " + partition);
+            log.info("Dropped expired partition {} ({} days retention)", partition, retentionDays);
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to retire expired partition {}", partition, e);
+            return false;
+        }
+    }
+
+    private void renew(SchedulerLock.Lease lease, Duration leaseTtl) {
+        try {
+            if (!schedulerLock.renew(lease, leaseTtl)) {
+                log.error("Lost the partition maintenance lock (fencing token {})", lease.fencingToken());
+            }
+        } catch (Exception e) {
+            log.warn("Failed to renew the partition maintenance lock", e);
+        }
+    }
+
+    private boolean archive(String table, String partition) throws IOException, SQLException {
+        // A verified archive from an earlier, interrupted run is kept as is
+        if (archiver.verify(table, partition)) {
+            return true;
+        }
+        archiver.archive(table, partition);
+        return archiver.verify(table, partition);
+    }
+
+    private void purgeIdempotencyKeys(LocalDate before) {
+        long boundary = SnowflakeIdGenerator.minIdForTimestamp(before.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli());
+        long purged = 0;
+        Integer deleted;
+        do {
+            deleted = transactionTemplate.execute(status ->
+                    idempotencyKeyRepository.deleteBatchByRequestIdLessThan(boundary, purgeBatchSize));
+            purged += (deleted != null) ? deleted : 0;
+        } while (deleted != null && deleted == purgeBatchSize);
+
+        if (purged > 0) {
+            log.info("Purged {} idempotency keys of expired requests", purged);
+        }
+    }
+
+    private LocalDate partitionDay(String table, String partition) {
+        String prefix = table + "_p";
+        if (!partition.startsWith(prefix) || partition.length() != prefix.length() + 8) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(partition.substring(prefix.length()), PARTITION_DAY);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -1,21 +1,33 @@
 package com.notification.platform.service;
 
 import com.notification.platform.api.dto.request.AdminRetryRequest;
+import com.notification.platform.api.dto.response.DeliveryStatusResponse;
 import com.notification.platform.config.SnowflakeIdGenerator;
 import com.notification.platform.domain.entity.DeliveryLog;
+import com.notification.platform.domain.entity.DeliveryLogStatus;
+import com.notification.platform.domain.entity.DeliveryStatusEvent;
 import com.notification.platform.domain.entity.NotificationRequest;
 import com.notification.platform.domain.enums.DeliveryStatus;
 import com.notification.platform.domain.repository.DeliveryLogRepository;
+import com.notification.platform.domain.repository.DeliveryLogStatusRepository;
+import com.notification.platform.domain.repository.DeliveryStatusEventRepository;
 import com.notification.platform.domain.repository.NotificationRequestRepository;
 import com.notification.platform.messaging.event.NotificationRequestEvent;
+import com.notification.platform.messaging.priority.NotificationTopics;
+import com.notification.platform.messaging.send.KafkaSendPipeline;
+import com.notification.platform.messaging.status.DeliveryStatusAggregator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -24,15 +36,25 @@ public class AdminNotificationService {
 
     private final NotificationRequestRepository requestRepository;
     private final DeliveryLogRepository logRepository;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final DeliveryLogStatusRepository logStatusRepository;
+    private final DeliveryStatusEventRepository statusEventRepository;
+    private final KafkaSendPipeline sendPipeline;
+    private final DeliveryStatusAggregator statusAggregator;
     private final StringRedisTemplate redisTemplate;
     private final SnowflakeIdGenerator snowflakeIdGenerator;
 
     private static final String RETRY_LOCK_PREFIX = "retry_lock:";
-    private static final String TOPIC = "notification.requests";
 
+    /**
+     * Creates a retry delivery log and re-publishes the request, carrying the log's id, once the transaction has
+     * committed. The dispatcher sends the retry under that log instead of creating new ones, so the log follows the
+     * retry through QUEUED to its final status.
+     *
+     * @return completes with {@code true} once the broker has acked the re-published event, {@code false} if the send
+     * failed (the retry log is then FAILED and the retry lock released)
+     */
     @Transactional
-    public void triggerRetry(Long requestId, AdminRetryRequest retryRequest) {
+    public CompletableFuture<Boolean> triggerRetry(Long requestId, AdminRetryRequest retryRequest) {
         log.info("Admin manual retry triggered for request: {}", requestId);
 
         // 1. Idempotency Check (Redis lock)
@@ -65,23 +87,70 @@ public class AdminNotificationService {
         logRepository.save(retryLog);
 
         // 4. Re-publish to Kafka
-        NotificationRequestEvent event = NotificationRequestEvent.builder()
-                .requestId(request.getId())
-                .recipientId(request.getRecipientId())
-                .channel(request.getChannel())
+        NotificationRequestEvent event = NotificationRequestEvent.from(request).toBuilder()
                 .targetAddress(targetAddress)
-                .priority(request.getPriority())
-                .payload(request.getPayload())
+                .deliveryLogId(retryLog.getId())
                 .build();
 
-        try {
-            kafkaTemplate.send(TOPIC, request.getRecipientId(), event);
-            log.info("Manual retry re-injected to Kafka for request: {}", requestId);
-        } catch (Exception e) {
-            log.error("Failed to re-inject manual retry for request {}: {}", requestId, e.getMessage());
-            // Optionally remove the lock if send fails immediately
-            redisTemplate.delete(lockKey);
-            throw new RuntimeException("Kafka dispatch failed during manual retry", e);
+        // The retry log stays RETRY_PENDING until the dispatcher has sent it on its channel (QUEUED on that ack)
+        CompletableFuture<Boolean> published = new CompletableFuture<>();
+        sendPipeline.afterCommit(() -> sendPipeline.publishRequest(
+                        NotificationTopics.requests(request.getPriority()), request.getPriority(), request.getRecipientId(), event, requestId)
+                .thenCompose(acked -> {
+                    if (acked) {
+                        log.info("Manual retry re-injected to Kafka for request: {}", requestId);
+                        return CompletableFuture.completedFuture(true);
+                    }
+                    log.error("Failed to re-inject manual retry for request: {}", requestId);
+                    // Release the lock right away so the admin can try again
+                    redisTemplate.delete(lockKey);
+                    return statusAggregator.record(retryLog.getId(), DeliveryStatus.FAILED, "Failed to re-publish the manual retry")
+                            .thenApply(recorded -> false);
+                })
+                .thenAccept(published::complete))
+                .exceptionally(ex -> {
+                    published.completeExceptionally(ex);
+                    return null;
+                });
+        return published;
+    }
+
+    /**
+     * Current status and transition history of every delivery of a request, e.g. to follow up on a manual retry.
+     */
+    @Transactional(readOnly = true)
+    public List<DeliveryStatusResponse> getDeliveries(Long requestId) {
+        if (!requestRepository.existsById(requestId)) {
+            throw new IllegalArgumentException("Request not found: " + requestId);
         }
+
+        List<DeliveryLog> logs = logRepository.findByRequestId(requestId);
+        List<Long> logIds = logs.stream().map(DeliveryLog::getId).toList();
+        Map<Long, DeliveryLogStatus> current = logStatusRepository.findAllById(logIds).stream()
+                .collect(Collectors.toMap(DeliveryLogStatus::getDeliveryLogId, Function.identity()));
+        Map<Long, List<DeliveryStatusResponse.Transition>> history = statusEventRepository.findHistory(logIds).stream()
+                .collect(Collectors.groupingBy(DeliveryStatusEvent::getDeliveryLogId, Collectors.mapping(
+                        event -> DeliveryStatusResponse.Transition.builder()
+                                .status(event.getStatus())
+                                .errorMessage(event.getErrorMessage())
+                                .occurredAt(event.getOccurredAt())
+                                .build(),
+                        Collectors.toList())));
+
+        return logs.stream()
+                .map(deliveryLog -> {
+                    // No projection row yet: the delivery is still in its initial status
+                    DeliveryLogStatus status = current.get(deliveryLog.getId());
+                    return DeliveryStatusResponse.builder()
+                            .deliveryLogId(deliveryLog.getId())
+                            .channel(deliveryLog.getChannel())
+                            .targetAddress(deliveryLog.getTargetAddress())
+                            .status(status != null ? status.getStatus() : deliveryLog.getStatus())
+                            .errorMessage(status != null ? status.getErrorMessage() : deliveryLog.getErrorMessage())
+                            .updatedAt(status != null ? status.getUpdatedAt() : deliveryLog.getCreatedAt())
+                            .history(history.getOrDefault(deliveryLog.getId(), List.of()))
+                            .build();
+                })
+                .toList();
     }
 }
@@ -1,20 +1,30 @@
 package com.notification.platform.service;
 
 import com.notification.platform.api.dto.request.NotificationSendRequest;
+import com.notification.platform.api.dto.response.NotificationBatchItemResponse;
+import com.notification.platform.api.dto.response.NotificationBatchSendResponse;
 import com.notification.platform.api.dto.response.NotificationSendResponse;
+import com.notification.platform.domain.entity.NotificationIdempotencyKey;
+import com.notification.platform.domain.entity.NotificationOutbox;
 import com.notification.platform.domain.entity.NotificationRequest;
 import com.notification.platform.domain.enums.NotificationIngressStatus;
+import com.notification.platform.domain.repository.NotificationIdempotencyKeyRepository;
+import com.notification.platform.domain.repository.NotificationOutboxRepository;
 import com.notification.platform.domain.repository.NotificationRequestRepository;
-import com.notification.platform.messaging.event.NotificationRequestCreatedEvent;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -23,8 +33,10 @@ public class NotificationService {
 
     private final NotificationRequestRepository repository;
     private final StringRedisTemplate redisTemplate;
-    private final ApplicationEventPublisher eventPublisher;
+    private final NotificationOutboxRepository outboxRepository;
+    private final NotificationIdempotencyKeyRepository idempotencyKeyRepository;
     private final com.notification.platform.config.SnowflakeIdGenerator snowflakeIdGenerator;
+    private final Validator validator;
 
     private static final String IDEMPOTENCY_PREFIX = "idempotency:";
     private static final Duration IDEMPOTENCY_TTL = Duration.ofHours(24);
@@ -44,51 +56,206 @@ public class NotificationService {
         }
 
         // 2. Check DB and update cache (Fallback)
-        return repository.findByIdempotencyKey(idempotencyKey)
+        return idempotencyKeyRepository.findById(idempotencyKey)
                 .map(existing -> {
                     log.info("Duplicate request detected in DB for key: {}", idempotencyKey);
-                    redisTemplate.opsForValue().set(IDEMPOTENCY_PREFIX + idempotencyKey, existing.getId().toString(), IDEMPOTENCY_TTL);
+                    redisTemplate.opsForValue().set(IDEMPOTENCY_PREFIX + idempotencyKey, existing.getRequestId().toString(), IDEMPOTENCY_TTL);
                     return NotificationSendResponse.builder()
-                            .requestId(existing.getId())
+                            .requestId(existing.getRequestId())
                             .status(NotificationIngressStatus.ACCEPTED)
                             .build();
                 })
-                .orElseGet(() -> createAndPublishEvent(request));
+                .orElseGet(() -> createAndEnqueue(request));
     }
 
-    private NotificationSendResponse createAndPublishEvent(NotificationSendRequest request) {
-        NotificationRequest notificationRequest = NotificationRequest.builder()
-                .id(snowflakeIdGenerator.nextId())
-                .idempotencyKey(request.getIdempotencyKey())
-                .recipientId(request.getRecipientId())
-                .channel(request.getChannel())
-                .targetAddress(request.getTargetAddress())
-                .producerName(request.getProducerName())
-                .priority(request.getPriority())
-                .payload(request.getPayload())
-                .status(NotificationIngressStatus.ACCEPTED) // FR-24: Initial status
-                .requestedAt(OffsetDateTime.now())
+    @Transactional
+    public NotificationBatchSendResponse triggerNotifications(List<NotificationSendRequest> requests) {
+        NotificationBatchItemResponse[] results = new NotificationBatchItemResponse[requests.size()];
+
+        // 1. Validate every item on its own, remembering the first position of each idempotency key
+        Map<String, Integer> firstIndexByKey = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            NotificationSendRequest item = requests.get(i);
+            String violation = validate(item);
+            if (violation != null) {
+                results[i] = NotificationBatchItemResponse.builder()
+                        .index(i)
+                        .idempotencyKey(item != null ? item.getIdempotencyKey() : null)
+                        .status(NotificationIngressStatus.INVALID)
+                        .errorMessage(violation)
+                        .build();
+                continue;
+            }
+            firstIndexByKey.putIfAbsent(item.getIdempotencyKey(), i);
+        }
+
+        // 2. Resolve all idempotency keys at once (one MGET, then one IN query for cache misses)
+        Map<String, Long> requestIdsByKey = resolveExistingRequestIds(firstIndexByKey.keySet());
+
+        // 3. Persist the first occurrence of every unseen key in one JDBC batch
+        List<Integer> unseenIndexes = firstIndexByKey.entrySet().stream()
+                .filter(entry -> !requestIdsByKey.containsKey(entry.getKey()))
+                .map(Map.Entry::getValue)
+                .toList();
+
+        List<NotificationRequest> newRequests = new ArrayList<>(unseenIndexes.size());
+        if (!unseenIndexes.isEmpty()) {
+            // Reserve the request IDs with one generator call instead of one call per row
+            long[] requestIds = snowflakeIdGenerator.nextIds(unseenIndexes.size());
+            OffsetDateTime requestedAt = OffsetDateTime.now();
+            for (int i = 0; i < unseenIndexes.size(); i++) {
+                NotificationRequest notificationRequest = toEntity(requests.get(unseenIndexes.get(i)), requestIds[i], requestedAt);
+                newRequests.add(notificationRequest);
+                requestIdsByKey.put(notificationRequest.getIdempotencyKey(), notificationRequest.getId());
+            }
+
+            repository.saveAll(newRequests);
+            idempotencyKeyRepository.saveAll(newRequests.stream().map(this::toIdempotencyKey).toList());
+            cacheRequestIds(newRequests.stream()
+                    .collect(Collectors.toMap(NotificationRequest::getIdempotencyKey, NotificationRequest::getId)));
+
+            // ADR-04: Outbox rows commit atomically with the requests and are relayed to Kafka in bulk
+            long[] outboxIds = snowflakeIdGenerator.nextIds(newRequests.size());
+            List<NotificationOutbox> outboxEntries = new ArrayList<>(newRequests.size());
+            for (int i = 0; i < newRequests.size(); i++) {
+                outboxEntries.add(toOutbox(newRequests.get(i), outboxIds[i]));
+            }
+            outboxRepository.saveAll(outboxEntries);
+        }
+
+        // 4. Build the per-item result array
+        Set<Long> newRequestIds = newRequests.stream().map(NotificationRequest::getId).collect(Collectors.toSet());
+        int accepted = 0;
+        int duplicate = 0;
+        for (int i = 0; i < requests.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            String key = requests.get(i).getIdempotencyKey();
+            Long requestId = requestIdsByKey.get(key);
+            boolean isNew = newRequestIds.contains(requestId) && firstIndexByKey.get(key) == i;
+            results[i] = NotificationBatchItemResponse.builder()
+                    .index(i)
+                    .idempotencyKey(key)
+                    .requestId(requestId)
+                    .status(isNew ? NotificationIngressStatus.ACCEPTED : NotificationIngressStatus.DUPLICATE)
+                    .build();
+            if (isNew) {
+                accepted++;
+            } else {
+                duplicate++;
+            }
+        }
+
+        int invalid = requests.size() - accepted - duplicate;
+        log.info("Batch ingress processed: {} accepted, {} duplicate, {} invalid", accepted, duplicate, invalid);
+
+        return NotificationBatchSendResponse.builder()
+                .acceptedCount(accepted)
+                .duplicateCount(duplicate)
+                .invalidCount(invalid)
+                .results(Arrays.asList(results))
                 .build();
+    }
+
+    private NotificationSendResponse createAndEnqueue(NotificationSendRequest request) {
+        NotificationRequest notificationRequest = toEntity(request, snowflakeIdGenerator.nextId(), OffsetDateTime.now());
 
         repository.save(notificationRequest);
+        idempotencyKeyRepository.save(toIdempotencyKey(notificationRequest));
         redisTemplate.opsForValue().set(IDEMPOTENCY_PREFIX + request.getIdempotencyKey(), notificationRequest.getId().toString(), IDEMPOTENCY_TTL);
 
-        // ADR-01: Publish local event for post-commit dispatch
-        NotificationRequestCreatedEvent localEvent = NotificationRequestCreatedEvent.builder()
+        // ADR-04: Enqueue in the transactional outbox; NotificationOutboxRelay publishes it to Kafka
+        outboxRepository.save(toOutbox(notificationRequest, snowflakeIdGenerator.nextId()));
+        log.info("Notification request persisted and enqueued to outbox: {}", notificationRequest.getId());
+
+        return NotificationSendResponse.builder()
                 .requestId(notificationRequest.getId())
+                .status(NotificationIngressStatus.ACCEPTED)
+                .build();
+    }
+
+    private NotificationRequest toEntity(NotificationSendRequest request, Long id, OffsetDateTime requestedAt) {
+        return NotificationRequest.builder()
+                .id(id)
+                .idempotencyKey(request.getIdempotencyKey())
                 .recipientId(request.getRecipientId())
                 .channel(request.getChannel())
                 .targetAddress(request.getTargetAddress())
+                .producerName(request.getProducerName())
                 .priority(request.getPriority())
                 .payload(request.getPayload())
+                .status(NotificationIngressStatus.ACCEPTED) // FR-24: Initial status
+                .requestedAt(requestedAt)
                 .build();
+    }
 
-        eventPublisher.publishEvent(localEvent);
-        log.info("Notification request persisted and event published: {}", notificationRequest.getId());
+    private NotificationIdempotencyKey toIdempotencyKey(NotificationRequest request) {
+        return NotificationIdempotencyKey.builder()
+                .idempotencyKey(request.getIdempotencyKey())
+                .requestId(request.getId())
+                .build();
+    }
 
-        return NotificationSendResponse.builder()
-                .requestId(notificationRequest.getId())
-                .status(NotificationIngressStatus.ACCEPTED)
+    private NotificationOutbox toOutbox(NotificationRequest request, long id) {
+        return NotificationOutbox.builder()
+                .id(id)
+                .requestId(request.getId())
+                .priority(request.getPriority())
                 .build();
     }
+
+    private String validate(NotificationSendRequest request) {
+        if (request == null) {
+            return "Request item cannot be null";
+        }
+        Set<ConstraintViolation<NotificationSendRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private Map<String, Long> resolveExistingRequestIds(Collection<String> idempotencyKeys) {
+        Map<String, Long> resolved = new HashMap<>();
+        if (idempotencyKeys.isEmpty()) {
+            return resolved;
+        }
+
+        List<String> keys = new ArrayList<>(idempotencyKeys);
+        List<String> cached = redisTemplate.opsForValue().multiGet(keys.stream().map(key -> IDEMPOTENCY_PREFIX + key).toList());
+
+        List<String> misses = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            String cachedRequestId = (cached != null) ? cached.get(i) : null;
+            if (cachedRequestId != null) {
+                resolved.put(keys.get(i), Long.parseLong(cachedRequestId));
+            } else {
+                misses.add(keys.get(i));
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            Map<String, Long> fromDb = idempotencyKeyRepository.findAllById(misses).stream()
+                    .collect(Collectors.toMap(NotificationIdempotencyKey::getIdempotencyKey, NotificationIdempotencyKey::getRequestId));
+            resolved.putAll(fromDb);
+            cacheRequestIds(fromDb);
+        }
+        return resolved;
+    }
+
+    private void cacheRequestIds(Map<String, Long> requestIdsByKey) {
+        if (requestIdsByKey.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            requestIdsByKey.forEach((key, requestId) ->
+                    stringConnection.setEx(IDEMPOTENCY_PREFIX + key, IDEMPOTENCY_TTL.toSeconds(), requestId.toString()));
+            return null;
+        });
+    }
 }
@@ -0,0 +1,167 @@
+-- V10__partition_by_snowflake_day.sql
+-- NFR-22/FR-27: 90-day retention by dropping whole partitions instead of DELETEs.
+-- Every table is range-partitioned on its Snowflake id, whose high bits are the creation time:
+-- one partition per UTC day, bounds = (epoch_ms(day) - 1767225600000) << 22 (SnowflakeIdGenerator layout).
+-- Future partitions are created ahead of time by PartitionMaintenanceService through ensure_daily_partitions().
+
+CREATE OR REPLACE FUNCTION snowflake_id_at(ts TIMESTAMPTZ) RETURNS BIGINT
+LANGUAGE sql IMMUTABLE AS $$
+    SELECT (FLOOR(EXTRACT(EPOCH FROM ts) * 1000)::BIGINT - 1767225600000) << 22
+$$;
+
+CREATE OR REPLACE FUNCTION snowflake_timestamp(id BIGINT) RETURNS TIMESTAMPTZ
+LANGUAGE sql IMMUTABLE AS $$
+    SELECT to_timestamp(((id >> 22) + 1767225600000) / 1000.0)
+$$;
+
+-- Creates the missing <parent>_pYYYYMMDD partitions for [from_day, from_day + days); returns how many were created
+CREATE OR REPLACE FUNCTION ensure_daily_partitions(parent TEXT, from_day DATE, days INT, storage TEXT DEFAULT '')
+RETURNS INT
+LANGUAGE plpgsql AS $$
+DECLARE
+    partition_day DATE;
+    partition_name TEXT;
+    created INT := 0;
+BEGIN
+    FOR i IN 0 .. days - 1 LOOP
+        partition_day := from_day + i;
+        partition_name := parent || '_p' || to_char(partition_day, 'YYYYMMDD');
+        IF to_regclass(partition_name) IS NULL THEN
+            EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF %I FOR VALUES FROM (%s) TO (%s) %s',
+                    partition_name, parent,
+                    snowflake_id_at(partition_day::TIMESTAMP AT TIME ZONE 'UTC'),
+                    snowflake_id_at((partition_day + 1)::TIMESTAMP AT TIME ZONE 'UTC'),
+                    storage);
+            created := created + 1;
+        END IF;
+    END LOOP;
+    RETURN created;
+END;
+$$;
+
+-- 1. Idempotency keys move to their own table: a unique constraint on a partitioned table must include
+--    the partition key, which would no longer guarantee one request per key (FR-11)
+CREATE TABLE notification_idempotency_keys (
+    idempotency_key VARCHAR(100) PRIMARY KEY,
+    request_id BIGINT NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT NOW()
+);
+
+-- Retention purges keys together with the request partitions they point to
+CREATE INDEX idx_notification_idempotency_keys_request ON notification_idempotency_keys(request_id);
+
+INSERT INTO notification_idempotency_keys (idempotency_key, request_id, created_at)
+SELECT idempotency_key, id, created_at
+FROM notification_requests
+WHERE idempotency_key IS NOT NULL;
+
+-- 2. Swap the heap tables for partitioned ones; constraints and indexes are created after the legacy tables are gone
+ALTER TABLE delivery_logs RENAME TO delivery_logs_legacy;
+ALTER TABLE notification_requests RENAME TO notification_requests_legacy;
+ALTER TABLE delivery_status_events RENAME TO delivery_status_events_legacy;
+ALTER TABLE delivery_log_status RENAME TO delivery_log_status_legacy;
+
+CREATE TABLE notification_requests (
+    id BIGINT NOT NULL,
+    idempotency_key VARCHAR(100),
+    producer_name VARCHAR(50) NOT NULL,
+    priority VARCHAR(20) NOT NULL,
+    payload JSONB,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT NOW(),
+    recipient_id VARCHAR(255) NOT NULL,
+    channel VARCHAR(50) NOT NULL,
+    target_address VARCHAR(255),
+    requested_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    status VARCHAR(50) NOT NULL DEFAULT 'ACCEPTED'
+) PARTITION BY RANGE (id);
+
+-- No FK to notification_requests: a delivery log can live in a later partition than its request
+CREATE TABLE delivery_logs (
+    id BIGINT NOT NULL,
+    request_id BIGINT,
+    recipient_id VARCHAR(100) NOT NULL,
+    channel VARCHAR(20) NOT NULL,
+    target_address VARCHAR(255),
+    status VARCHAR(20) NOT NULL,
+    error_message TEXT,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT NOW(),
+    updated_at TIMESTAMP WITH TIME ZONE DEFAULT NOW()
+) PARTITION BY RANGE (id);
+
+CREATE TABLE delivery_status_events (
+    id BIGINT NOT NULL,
+    delivery_log_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    error_message TEXT,
+    occurred_at TIMESTAMP WITH TIME ZONE NOT NULL
+) PARTITION BY RANGE (id);
+
+-- Partitioned on the delivery log id, so a log and its projection row expire on the same day
+CREATE TABLE delivery_log_status (
+    delivery_log_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    status_rank SMALLINT NOT NULL,
+    error_message TEXT,
+    last_event_id BIGINT NOT NULL,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL
+) PARTITION BY RANGE (delivery_log_id);
+
+-- 3. Partitions from the oldest existing row up to a week ahead, then copy the data over
+DO $$
+DECLARE
+    first_day DATE;
+    days INT;
+BEGIN
+    SELECT COALESCE((snowflake_timestamp(LEAST(
+                   (SELECT MIN(id) FROM notification_requests_legacy),
+                   (SELECT MIN(id) FROM delivery_logs_legacy),
+                   (SELECT MIN(id) FROM delivery_status_events_legacy))) AT TIME ZONE 'UTC')::DATE,
+               CURRENT_DATE)
+    INTO first_day;
+    first_day := LEAST(first_day, CURRENT_DATE);
+    days := (CURRENT_DATE - first_day) + 8;
+
+    PERFORM ensure_daily_partitions('notification_requests', first_day, days);
+    PERFORM ensure_daily_partitions('delivery_logs', first_day, days);
+    PERFORM ensure_daily_partitions('delivery_status_events', first_day, days);
+    PERFORM ensure_daily_partitions('delivery_log_status', first_day, days, 'WITH (fillfactor = 70)');
+END;
+$$;
+
+INSERT INTO notification_requests (id, idempotency_key, producer_name, priority, payload, created_at,
+                                   recipient_id, channel, target_address, requested_at, status)
+SELECT id, idempotency_key, producer_name, priority, payload, created_at,
+       recipient_id, channel, target_address, requested_at, status
+FROM notification_requests_legacy;
+
+INSERT INTO delivery_logs (id, request_id, recipient_id, channel, target_address, status, error_message, created_at, updated_at)
+SELECT id, request_id, recipient_id, channel, target_address, status, error_message, created_at, updated_at
+FROM delivery_logs_legacy;
+
+INSERT INTO delivery_status_events (id, delivery_log_id, status, error_message, occurred_at)
+SELECT id, delivery_log_id, status, error_message, occurred_at
+FROM delivery_status_events_legacy;
+
+INSERT INTO delivery_log_status (delivery_log_id, status, status_rank, error_message, last_event_id, updated_at)
+SELECT delivery_log_id, status, status_rank, error_message, last_event_id, updated_at
+FROM delivery_log_status_legacy;
+
+DROP TABLE delivery_logs_legacy;
+DROP TABLE notification_requests_legacy;
+DROP TABLE delivery_status_events_legacy;
+DROP TABLE delivery_log_status_legacy;
+
+-- 4. Constraints and indexes, declared on the parents and inherited by every partition
+ALTER TABLE notification_requests ADD PRIMARY KEY (id);
+ALTER TABLE notification_requests
+    ADD CONSTRAINT chk_notification_requests_priority CHECK (priority IN ('HIGH', 'NORMAL'));
+
+ALTER TABLE delivery_logs ADD PRIMARY KEY (id);
+CREATE INDEX idx_delivery_logs_recipient_channel ON delivery_logs(recipient_id, channel);
+CREATE INDEX idx_delivery_logs_status_created ON delivery_logs(status, created_at);
+CREATE INDEX idx_delivery_logs_request_channel ON delivery_logs(request_id, channel);
+
+ALTER TABLE delivery_status_events ADD PRIMARY KEY (id);
+CREATE INDEX idx_delivery_status_events_log ON delivery_status_events(delivery_log_id, id);
+
+ALTER TABLE delivery_log_status ADD PRIMARY KEY (delivery_log_id);
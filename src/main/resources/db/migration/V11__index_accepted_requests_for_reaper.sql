@@ -0,0 +1,6 @@
+-- V11__index_accepted_requests_for_reaper.sql
+-- The reaper seeks through stale ACCEPTED requests in (requested_at, id) order (keyset pagination).
+-- Only the ACCEPTED rows are indexed: they are a small, short-lived fraction of the table, so the index stays tiny
+-- and rows leave it as soon as they are DISPATCHED. Created on the parent, so every daily partition gets it.
+
+CREATE INDEX idx_notification_requests_accepted ON notification_requests(requested_at, id) WHERE status = 'ACCEPTED';
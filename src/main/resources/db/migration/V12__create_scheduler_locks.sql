@@ -0,0 +1,11 @@
+-- V12__create_scheduler_locks.sql
+-- Cluster-wide single-runner leases for scheduled jobs (e.g. the reaper).
+-- fencing_token grows with every acquisition, so work started under an older lease can be recognized and refused.
+
+CREATE TABLE scheduler_locks (
+    name VARCHAR(100) PRIMARY KEY,
+    owner VARCHAR(255) NOT NULL, -- instance that holds (or last held) the lease
+    fencing_token BIGINT NOT NULL,
+    locked_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
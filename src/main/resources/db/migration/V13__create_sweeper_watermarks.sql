@@ -0,0 +1,10 @@
+-- V13__create_sweeper_watermarks.sql
+-- Progress of the continuous stale-request sweeper: the last (requested_at, id) it has scanned up to.
+-- Each tick only looks at the rows after the watermark plus a bounded lookback, instead of rescanning the whole window.
+
+CREATE TABLE sweeper_watermarks (
+    name VARCHAR(100) PRIMARY KEY,
+    requested_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    last_id BIGINT NOT NULL,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
@@ -0,0 +1,11 @@
+-- V14__claim_and_park_outbox_rows.sql
+-- The relay no longer holds row locks while it waits for broker acks: a short transaction claims the rows
+-- (claimed_until), the records are sent outside of it, and a second short transaction marks them published.
+-- Rows that failed max-attempts times are parked (parked_at) instead of being retried forever.
+
+ALTER TABLE notification_outbox ADD COLUMN claimed_until TIMESTAMP WITH TIME ZONE;
+ALTER TABLE notification_outbox ADD COLUMN parked_at TIMESTAMP WITH TIME ZONE;
+
+DROP INDEX idx_notification_outbox_pending;
+CREATE INDEX idx_notification_outbox_pending ON notification_outbox(priority, id)
+    WHERE published_at IS NULL AND parked_at IS NULL;
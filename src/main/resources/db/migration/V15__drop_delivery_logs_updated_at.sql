@@ -0,0 +1,5 @@
+-- V15__drop_delivery_logs_updated_at.sql
+-- delivery_logs is insert-only since status transitions moved to delivery_status_events / delivery_log_status,
+-- so updated_at only ever held the insert time. The current status and its time are read from delivery_log_status.
+
+ALTER TABLE delivery_logs DROP COLUMN updated_at;
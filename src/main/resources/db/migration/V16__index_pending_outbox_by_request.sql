@@ -0,0 +1,6 @@
+-- V16__index_pending_outbox_by_request.sql
+-- The sweeper and the reaper skip ACCEPTED requests whose outbox row the relay has yet to publish
+-- (NOT EXISTS per candidate request), so pending rows are also looked up by request id.
+
+CREATE INDEX idx_notification_outbox_pending_request ON notification_outbox(request_id)
+    WHERE published_at IS NULL AND parked_at IS NULL;
@@ -0,0 +1,14 @@
+-- V6__create_notification_outbox.sql
+-- ADR-04: Transactional outbox. A row is written in the same transaction as its notification_request
+-- and drained by NotificationOutboxRelay, so a crash between commit and Kafka publish loses nothing.
+
+CREATE TABLE notification_outbox (
+    id BIGINT PRIMARY KEY, -- Snowflake ID (enqueue order)
+    request_id BIGINT NOT NULL, -- notification_requests.id to publish
+    attempts INT NOT NULL DEFAULT 0, -- failed publish attempts so far
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT NOW(),
+    published_at TIMESTAMP WITH TIME ZONE -- NULL until the broker acknowledged the record
+);
+
+-- The relay only ever scans unpublished rows in id order
+CREATE INDEX idx_notification_outbox_pending ON notification_outbox(id) WHERE published_at IS NULL;
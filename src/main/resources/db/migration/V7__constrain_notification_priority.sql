@@ -0,0 +1,15 @@
+-- V7__constrain_notification_priority.sql
+-- Priority lanes: priority is now a validated enum (HIGH, NORMAL) instead of a free-form string.
+-- Normalize legacy values first; anything unrecognized was never treated as HIGH, so it becomes NORMAL.
+
+UPDATE notification_requests SET priority = UPPER(TRIM(priority));
+UPDATE notification_requests SET priority = 'NORMAL' WHERE priority NOT IN ('HIGH', 'NORMAL');
+
+ALTER TABLE notification_requests
+    ADD CONSTRAINT chk_notification_requests_priority CHECK (priority IN ('HIGH', 'NORMAL'));
+
+-- The outbox relay drains HIGH rows ahead of NORMAL ones, so the lane is recorded on the outbox row too
+ALTER TABLE notification_outbox ADD COLUMN priority VARCHAR(20) NOT NULL DEFAULT 'NORMAL';
+
+DROP INDEX idx_notification_outbox_pending;
+CREATE INDEX idx_notification_outbox_pending ON notification_outbox(priority, id) WHERE published_at IS NULL;
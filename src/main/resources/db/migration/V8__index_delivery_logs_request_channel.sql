@@ -0,0 +1,6 @@
+-- V8__index_delivery_logs_request_channel.sql
+-- Adapters used to resolve their delivery log by (request_id, channel) on every delivery, which no index covered.
+-- New events carry the delivery log id itself; this index keeps the fallback lookup (older in-flight events,
+-- admin retries) and the request -> logs joins of FR-24 tracking off sequential scans.
+
+CREATE INDEX idx_delivery_logs_request_channel ON delivery_logs(request_id, channel);
@@ -0,0 +1,38 @@
+-- V9__create_delivery_status_events.sql
+-- FR-24: delivery status transitions are appended instead of updating delivery_logs in place.
+-- delivery_logs keeps the row as created (initial status); the current status is the projection below.
+
+CREATE TABLE delivery_status_events (
+    id BIGINT PRIMARY KEY, -- Snowflake ID, assigned when the transition was observed
+    delivery_log_id BIGINT NOT NULL, -- delivery_logs.id (no FK: events are written in bulk, never updated)
+    status VARCHAR(20) NOT NULL,
+    error_message TEXT,
+    occurred_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+-- Transition history of one delivery, in order
+CREATE INDEX idx_delivery_status_events_log ON delivery_status_events(delivery_log_id, id);
+
+-- Latest-status projection: one narrow row per delivery log that has moved past its initial status.
+-- Only the primary key is indexed, so the frequent updates stay HOT and leave no index churn behind.
+CREATE TABLE delivery_log_status (
+    delivery_log_id BIGINT PRIMARY KEY,
+    status VARCHAR(20) NOT NULL,
+    status_rank SMALLINT NOT NULL, -- DeliveryStatus.rank; the projection never moves to a lower rank
+    error_message TEXT,
+    last_event_id BIGINT NOT NULL, -- delivery_status_events.id reflected by this row
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL
+) WITH (fillfactor = 70);
+
+-- Backfill: logs that already left their initial status get a projection row and a synthetic event
+INSERT INTO delivery_status_events (id, delivery_log_id, status, error_message, occurred_at)
+SELECT d.id, d.id, d.status, d.error_message, COALESCE(d.updated_at, d.created_at, NOW())
+FROM delivery_logs d
+WHERE d.status IN ('QUEUED', 'DISPATCHED', 'DELIVERED', 'FAILED');
+
+INSERT INTO delivery_log_status (delivery_log_id, status, status_rank, error_message, last_event_id, updated_at)
+SELECT d.id, d.status,
+       CASE d.status WHEN 'QUEUED' THEN 1 WHEN 'DISPATCHED' THEN 2 WHEN 'FAILED' THEN 3 WHEN 'DELIVERED' THEN 4 END,
+       d.error_message, d.id, COALESCE(d.updated_at, d.created_at, NOW())
+FROM delivery_logs d
+WHERE d.status IN ('QUEUED', 'DISPATCHED', 'DELIVERED', 'FAILED');
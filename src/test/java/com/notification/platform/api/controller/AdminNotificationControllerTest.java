@@ -5,6 +5,7 @@ import com.notification.platform.domain.entity.NotificationRequest;
 import com.notification.platform.domain.enums.DeliveryStatus;
 import com.notification.platform.domain.enums.NotificationChannel;
 import com.notification.platform.domain.enums.NotificationIngressStatus;
+import com.notification.platform.domain.enums.NotificationPriority;
 import com.notification.platform.domain.repository.DeliveryLogRepository;
 import com.notification.platform.domain.repository.NotificationRequestRepository;
 import com.notification.platform.messaging.event.NotificationRequestEvent;
@@ -22,17 +23,20 @@ import org.springframework.kafka.test.context.EmbeddedKafka;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ActiveProfiles("test")
 @SpringBootTest
 @AutoConfigureMockMvc
-@EmbeddedKafka(partitions = 1, topics = {"notification.requests"})
+@EmbeddedKafka(partitions = 1, topics = {"notification.requests", "notification.requests.high"})
 @DirtiesContext
 class AdminNotificationControllerTest {
 
@@ -69,7 +73,7 @@ class AdminNotificationControllerTest {
                 .targetAddress("old@example.com")
                 .payload(null)
                 .producerName("test-producer")
-                .priority("HIGH")
+                .priority(NotificationPriority.HIGH)
                 .status(NotificationIngressStatus.ACCEPTED)
                 .requestedAt(java.time.OffsetDateTime.now())
                 .build();
@@ -79,16 +83,20 @@ class AdminNotificationControllerTest {
                 .targetAddress("new@example.com")
                 .build();
 
-        // when
-        mockMvc.perform(post("/v1/admin/notifications/{requestId}/retry", request.getId())
+        // when: the response waits for the broker ack of the re-published event
+        MvcResult result = mockMvc.perform(post("/v1/admin/notifications/{requestId}/retry", request.getId())
                         .header("X-API-KEY", "test-api-key")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(retryRequest)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isAccepted());
 
         // then
         boolean logExists = deliveryLogRepository.findAll().stream()
                 .anyMatch(log -> log.getRequest().getId().equals(request.getId()) 
+                        // delivery logs keep their initial status; later transitions go to delivery_status_events
                         && log.getStatus() == DeliveryStatus.RETRY_PENDING
                         && "new@example.com".equals(log.getTargetAddress()));
         
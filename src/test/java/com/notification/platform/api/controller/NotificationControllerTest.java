@@ -1,7 +1,10 @@
 package com.notification.platform.api.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notification.platform.api.dto.request.NotificationBatchSendRequest;
 import com.notification.platform.api.dto.request.NotificationSendRequest;
+import com.notification.platform.api.dto.response.NotificationBatchItemResponse;
+import com.notification.platform.api.dto.response.NotificationBatchSendResponse;
 import com.notification.platform.api.dto.response.NotificationSendResponse;
 import com.notification.platform.config.FilterConfig;
 import com.notification.platform.domain.enums.NotificationChannel;
@@ -17,9 +20,11 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
 import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -102,4 +107,56 @@ class NotificationControllerTest {
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isUnauthorized());
     }
+
+    @Test
+    @DisplayName("Batch send request returns per-item results")
+    void sendBatch_Success() throws Exception {
+        // given
+        NotificationSendRequest item = NotificationSendRequest.builder()
+                .idempotencyKey("batch-key-1")
+                .producerName("ORDER_SERVICE")
+                .recipientId("user-789")
+                .channel(NotificationChannel.IN_APP)
+                .payload(Map.of("message", "Hello World"))
+                .build();
+        NotificationBatchSendRequest request = NotificationBatchSendRequest.builder()
+                .requests(List.of(item))
+                .build();
+
+        given(notificationService.triggerNotifications(anyList()))
+                .willReturn(NotificationBatchSendResponse.builder()
+                        .acceptedCount(1)
+                        .results(List.of(NotificationBatchItemResponse.builder()
+                                .index(0)
+                                .idempotencyKey("batch-key-1")
+                                .requestId(1L)
+                                .status(NotificationIngressStatus.ACCEPTED)
+                                .build()))
+                        .build());
+
+        // when & then
+        mockMvc.perform(post("/v1/notifications/batch")
+                        .header("X-API-KEY", "test-api-key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.acceptedCount").value(1))
+                .andExpect(jsonPath("$.results[0].status").value("ACCEPTED"));
+    }
+
+    @Test
+    @DisplayName("Batch send request fails with 400 Bad Request when the batch is empty")
+    void sendBatch_Empty_BadRequest() throws Exception {
+        // given
+        NotificationBatchSendRequest request = NotificationBatchSendRequest.builder()
+                .requests(List.of())
+                .build();
+
+        // when & then
+        mockMvc.perform(post("/v1/notifications/batch")
+                        .header("X-API-KEY", "test-api-key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+    }
 }
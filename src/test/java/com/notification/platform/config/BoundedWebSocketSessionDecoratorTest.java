@@ -0,0 +1,309 @@
+package com.notification.platform.config;
+
+import com.notification.platform.config.BoundedWebSocketSessionDecorator.Limits;
+import com.notification.platform.config.BoundedWebSocketSessionDecorator.OverflowListener;
+import com.notification.platform.config.BoundedWebSocketSessionDecorator.OverflowPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class BoundedWebSocketSessionDecoratorTest {
+
+    private final WebSocketSession delegate = mock(WebSocketSession.class);
+    private final List<String> delivered = new CopyOnWriteArrayList<>();
+    private final List<String> evictions = new CopyOnWriteArrayList<>();
+    private final List<String> disconnects = new CopyOnWriteArrayList<>();
+    private final List<String> receipts = new CopyOnWriteArrayList<>();
+    private final CountDownLatch firstSendStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseFirstSend = new CountDownLatch(1);
+    private final ExecutorService sender = Executors.newSingleThreadExecutor();
+
+    private final OverflowListener listener = new OverflowListener() {
+        @Override
+        public void evicted(String outcome, int messages) {
+            evictions.add(outcome + ":" + messages);
+        }
+
+        @Override
+        public void disconnected(String reason) {
+            disconnects.add(reason);
+        }
+    };
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // given: a client whose first send blocks, as on a stalled mobile network
+        doAnswer(invocation -> {
+            WebSocketMessage<?> message = invocation.getArgument(0);
+            delivered.add(message instanceof BinaryMessage binary
+                    ? StandardCharsets.UTF_8.decode(binary.getPayload().duplicate()).toString()
+                    : ((TextMessage) message).getPayload());
+            if (delivered.size() == 1) {
+                firstSendStarted.countDown();
+                releaseFirstSend.await();
+            }
+            return null;
+        }).when(delegate).sendMessage(any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseFirstSend.countDown();
+        sender.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("DROP_OLDEST evicts the oldest queued messages and delivers the rest once the client catches up")
+    void dropOldest_EvictsOldest() throws Exception {
+        // given
+        BoundedWebSocketSessionDecorator session = stalled(new Limits(2, 1024, 10_000, OverflowPolicy.DROP_OLDEST));
+
+        // when
+        session.sendMessage(new TextMessage("m2"));
+        session.sendMessage(new TextMessage("m3"));
+        session.sendMessage(new TextMessage("m4"));
+        assertThat(session.getQueuedMessages()).isEqualTo(2);
+        catchUp();
+
+        // then
+        assertThat(delivered).containsExactly("m1", "m3", "m4");
+        assertThat(evictions).containsExactly("dropped:1");
+        verify(delegate, never()).close(any());
+    }
+
+    @Test
+    @DisplayName("COALESCE merges the queued frames into one WebSocket message instead of dropping them")
+    void coalesce_MergesQueuedFrames() throws Exception {
+        // given
+        BoundedWebSocketSessionDecorator session = stalled(new Limits(2, 1024, 10_000, OverflowPolicy.COALESCE));
+
+        // when
+        session.sendMessage(new TextMessage("m2\0"));
+        session.sendMessage(new TextMessage("m3\0"));
+        session.sendMessage(new TextMessage("m4\0"));
+        assertThat(session.getQueuedMessages()).isEqualTo(1);
+        catchUp();
+
+        // then
+        assertThat(delivered).containsExactly("m1", "m2\0m3\0m4\0");
+        assertThat(evictions).containsExactly("coalesced:2");
+    }
+
+    @Test
+    @DisplayName("COALESCE merges queued binary frames without touching the shared buffers they view")
+    void coalesce_MergesBinaryFrames() throws Exception {
+        // given
+        BoundedWebSocketSessionDecorator session = stalled(new Limits(1, 1024, 10_000, OverflowPolicy.COALESCE));
+        ByteBuffer shared = ByteBuffer.wrap("m2\0".getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer();
+
+        // when
+        session.sendMessage(new BinaryMessage(shared));
+        session.sendMessage(new BinaryMessage(ByteBuffer.wrap("m3\0".getBytes(StandardCharsets.UTF_8))));
+        catchUp();
+
+        // then
+        assertThat(delivered).containsExactly("m1", "m2\0m3\0");
+        assertThat(evictions).containsExactly("coalesced:1");
+        assertThat(shared.remaining()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("DISCONNECT closes the session on overflow, discards the queue and ignores further sends")
+    void disconnect_ClosesSession() throws Exception {
+        // given
+        BoundedWebSocketSessionDecorator session = stalled(new Limits(2, 1024, 10_000, OverflowPolicy.DISCONNECT));
+
+        // when
+        session.sendMessage(new TextMessage("m2"));
+        session.sendMessage(new TextMessage("m3"));
+        session.sendMessage(new TextMessage("m4"));
+        session.sendMessage(new TextMessage("m5"));
+        catchUp();
+
+        // then
+        verify(delegate, times(1)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(delivered).containsExactly("m1");
+        assertThat(evictions).containsExactly("discarded:3");
+        assertThat(disconnects).containsExactly(BoundedWebSocketSessionDecorator.BUFFER_LIMIT);
+        assertThat(session.getQueuedMessages()).isZero();
+    }
+
+    @Test
+    @DisplayName("The byte limit applies as well as the message count")
+    void disconnect_OnBufferSize() throws Exception {
+        // given
+        BoundedWebSocketSessionDecorator session = stalled(new Limits(100, 8, 10_000, OverflowPolicy.DISCONNECT));
+
+        // when
+        session.sendMessage(new TextMessage("12345"));
+        session.sendMessage(new TextMessage("6789"));
+
+        // then
+        verify(delegate).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(disconnects).containsExactly(BoundedWebSocketSessionDecorator.BUFFER_LIMIT);
+    }
+
+    @Test
+    @DisplayName("A send blocked for longer than the send time limit disconnects the session whatever the policy")
+    void sendTimeLimit_Disconnects() throws Exception {
+        // given
+        BoundedWebSocketSessionDecorator session = stalled(new Limits(100, 1024, 50, OverflowPolicy.DROP_OLDEST));
+        Thread.sleep(100);
+
+        // when
+        session.sendMessage(new TextMessage("m2"));
+
+        // then
+        verify(delegate).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(disconnects).containsExactly(BoundedWebSocketSessionDecorator.SEND_TIME_LIMIT);
+    }
+
+    @Test
+    @DisplayName("The watchdog check disconnects a session stuck in a write even when nothing else is sent to it")
+    void checkSendTimeLimit_DisconnectsIdleStalledSession() throws Exception {
+        // given
+        BoundedWebSocketSessionDecorator session = stalled(new Limits(100, 1024, 50, OverflowPolicy.DROP_OLDEST));
+        session.checkSendTimeLimit();
+        verify(delegate, never()).close(any());
+        Thread.sleep(100);
+
+        // when
+        session.checkSendTimeLimit();
+
+        // then
+        verify(delegate).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(disconnects).containsExactly(BoundedWebSocketSessionDecorator.SEND_TIME_LIMIT);
+    }
+
+    @Test
+    @DisplayName("A failed transport write disconnects the session instead of leaving its queue behind")
+    void sendFailure_Disconnects() throws Exception {
+        // given
+        WebSocketSession failing = mock(WebSocketSession.class);
+        doThrow(new IOException("Broken pipe")).when(failing).sendMessage(any());
+        BoundedWebSocketSessionDecorator session = new BoundedWebSocketSessionDecorator(failing,
+                new Limits(100, 1024, 10_000, OverflowPolicy.DROP_OLDEST), listener, Runnable::run);
+
+        // when
+        session.sendMessage(new TextMessage("m1"));
+
+        // then
+        verify(failing).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(disconnects).containsExactly(BoundedWebSocketSessionDecorator.SEND_FAILED);
+    }
+
+    @Test
+    @DisplayName("Receipts report the messages DROP_OLDEST evicts as lost and the ones written as written")
+    void receipts_DropOldestReportsEvictedLost() throws Exception {
+        // given
+        BoundedWebSocketSessionDecorator session = stalled(new Limits(2, 1024, 10_000, OverflowPolicy.DROP_OLDEST));
+
+        // when
+        session.sendMessage(new TextMessage("m2"), receipt("m2"));
+        session.sendMessage(new TextMessage("m3"), receipt("m3"));
+        session.sendMessage(new TextMessage("m4"), receipt("m4"));
+        assertThat(receipts).containsExactly("m2:lost");
+        catchUp();
+
+        // then
+        assertThat(delivered).containsExactly("m1", "m3", "m4");
+        assertThat(receipts).containsExactly("m2:lost", "m3:written", "m4:written");
+    }
+
+    @Test
+    @DisplayName("A coalesced frame settles the receipts of every message merged into it")
+    void receipts_CoalescedFrameSettlesAll() throws Exception {
+        // given
+        BoundedWebSocketSessionDecorator session = stalled(new Limits(1, 1024, 10_000, OverflowPolicy.COALESCE));
+
+        // when
+        session.sendMessage(new TextMessage("m2\0"), receipt("m2"));
+        session.sendMessage(new TextMessage("m3\0"), receipt("m3"));
+        catchUp();
+
+        // then
+        assertThat(receipts).containsExactly("m2:written", "m3:written");
+    }
+
+    @Test
+    @DisplayName("Receipts report the queue discarded on disconnect, and anything sent afterwards, as lost")
+    void receipts_DisconnectReportsQueuedLost() throws Exception {
+        // given
+        BoundedWebSocketSessionDecorator session = stalled(new Limits(2, 1024, 10_000, OverflowPolicy.DISCONNECT));
+
+        // when
+        session.sendMessage(new TextMessage("m2"), receipt("m2"));
+        session.sendMessage(new TextMessage("m3"), receipt("m3"));
+        session.sendMessage(new TextMessage("m4"), receipt("m4"));
+        session.sendMessage(new TextMessage("m5"), receipt("m5"));
+        catchUp();
+
+        // then
+        assertThat(delivered).containsExactly("m1");
+        assertThat(receipts).containsExactly("m2:lost", "m3:lost", "m4:lost", "m5:lost");
+    }
+
+    @Test
+    @DisplayName("Closing the connection reports the messages still queued as lost")
+    void connectionClosed_ReportsQueuedLost() throws Exception {
+        // given
+        BoundedWebSocketSessionDecorator session = stalled(new Limits(100, 1024, 10_000, OverflowPolicy.DROP_OLDEST));
+        session.sendMessage(new TextMessage("m2"), receipt("m2"));
+
+        // when
+        session.connectionClosed();
+        catchUp();
+
+        // then
+        assertThat(delivered).containsExactly("m1");
+        assertThat(receipts).containsExactly("m2:lost");
+        assertThat(evictions).containsExactly("discarded:1");
+    }
+
+    private BoundedWebSocketSessionDecorator.Receipt receipt(String name) {
+        return new BoundedWebSocketSessionDecorator.Receipt() {
+            @Override
+            public void written() {
+                receipts.add(name + ":written");
+            }
+
+            @Override
+            public void lost() {
+                receipts.add(name + ":lost");
+            }
+        };
+    }
+
+    /**
+     * @return a session whose first message ("m1") is stuck in the transport on the flush thread, so the next ones
+     * queue up; sending it returned right away
+     */
+    private BoundedWebSocketSessionDecorator stalled(Limits limits) throws Exception {
+        BoundedWebSocketSessionDecorator session = new BoundedWebSocketSessionDecorator(delegate, limits, listener, sender);
+        session.sendMessage(new TextMessage("m1"));
+        assertThat(firstSendStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        return session;
+    }
+
+    private void catchUp() throws Exception {
+        releaseFirstSend.countDown();
+        sender.shutdown();
+        assertThat(sender.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+    }
+}
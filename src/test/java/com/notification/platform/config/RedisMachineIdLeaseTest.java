@@ -0,0 +1,94 @@
+package com.notification.platform.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+class RedisMachineIdLeaseTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private RedisMachineIdLease lease;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        lease = new RedisMachineIdLease(redisTemplate, Duration.ofSeconds(30), Duration.ofSeconds(5), Duration.ofSeconds(10));
+    }
+
+    @Test
+    @DisplayName("Acquires the first free machine id and reports a valid lease")
+    void acquire_ClaimsFreeMachineId() {
+        // given: only machine id 7 is free
+        given(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).willReturn(false);
+        given(valueOperations.setIfAbsent(eq("snowflake:machine-id:7"), anyString(), any(Duration.class))).willReturn(true);
+
+        // when
+        lease.acquire();
+
+        // then
+        assertThat(lease.machineId()).isEqualTo(7L);
+        assertThat(lease.isValid()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Fails fast when every machine id is already leased")
+    void acquire_NoFreeMachineId_Throws() {
+        // given
+        given(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).willReturn(false);
+
+        // when & then
+        assertThrows(IllegalStateException.class, lease::acquire);
+        assertThat(lease.isValid()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Re-acquires a new machine id when renewal finds the lease taken over")
+    @SuppressWarnings("unchecked")
+    void renew_LeaseLost_ReacquiresNewMachineId() {
+        // given: 7 is leased first, then taken over by another pod; 8 frees up in the meantime
+        given(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).willReturn(false);
+        given(valueOperations.setIfAbsent(eq("snowflake:machine-id:7"), anyString(), any(Duration.class))).willReturn(true, false);
+        given(valueOperations.setIfAbsent(eq("snowflake:machine-id:8"), anyString(), any(Duration.class))).willReturn(false, true);
+        lease.acquire();
+        given(redisTemplate.execute(any(RedisScript.class), eq(List.of("snowflake:machine-id:7")), any(), any())).willReturn(0L);
+
+        // when
+        lease.renew();
+
+        // then
+        assertThat(lease.machineId()).isEqualTo(8L);
+        assertThat(lease.isValid()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Generator refuses to issue IDs while its machine id lease is not held")
+    void generator_InvalidLease_Throws() {
+        // given: lease was never acquired
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(lease);
+
+        // when & then
+        assertThrows(IllegalStateException.class, generator::nextId);
+        assertThrows(IllegalStateException.class, () -> generator.nextIds(10));
+    }
+}
@@ -8,6 +8,7 @@ import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -54,4 +55,57 @@ class SnowflakeIdGeneratorTest {
         assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(1024L));
         assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1L));
     }
+
+    @Test
+    @DisplayName("Should reserve a block of strictly increasing IDs across milliseconds")
+    void shouldGenerateIdBlocks() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1L);
+
+        // 10,000 IDs cannot fit into one millisecond (4,096 sequence values)
+        long[] ids = generator.nextIds(10_000);
+        long next = generator.nextId();
+
+        for (int i = 1; i < ids.length; i++) {
+            assertThat(ids[i]).isGreaterThan(ids[i - 1]);
+        }
+        assertThat(next).isGreaterThan(ids[ids.length - 1]);
+        assertThrows(IllegalArgumentException.class, () -> generator.nextIds(0));
+    }
+
+    @Test
+    @DisplayName("Should refuse to generate IDs when the clock moves backwards")
+    void shouldRejectClockMovingBackwards() {
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1L) {
+            @Override
+            protected long timestampGen() {
+                return clock.get();
+            }
+        };
+
+        generator.nextId();
+        clock.addAndGet(-5);
+
+        assertThrows(IllegalStateException.class, generator::nextId);
+        assertThrows(IllegalStateException.class, () -> generator.nextIds(3));
+    }
+
+    @Test
+    @DisplayName("Should map timestamps to the ID range of that millisecond and back")
+    void shouldConvertBetweenTimestampsAndIds() {
+        long now = System.currentTimeMillis();
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1023L) {
+            @Override
+            protected long timestampGen() {
+                return now;
+            }
+        };
+
+        long id = generator.nextId();
+
+        assertThat(SnowflakeIdGenerator.timestampOf(id)).isEqualTo(now);
+        assertThat(id).isGreaterThanOrEqualTo(SnowflakeIdGenerator.minIdForTimestamp(now));
+        assertThat(id).isLessThan(SnowflakeIdGenerator.minIdForTimestamp(now + 1));
+        assertThat(SnowflakeIdGenerator.timestampOf(SnowflakeIdGenerator.minIdForTimestamp(now))).isEqualTo(now);
+    }
 }
@@ -0,0 +1,340 @@
+package com.notification.platform.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class UserDestinationBrokerTest {
+
+    private static final String DESTINATION = "/topic/notifications/user-1";
+
+    private final List<Message<?>> sent = new CopyOnWriteArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WebSocketSessionRegistry sessionRegistry = new WebSocketSessionRegistry(meterRegistry, GatewayNode.fixed(0),
+            1000, 512 * 1024, 10_000, BoundedWebSocketSessionDecorator.OverflowPolicy.DISCONNECT);
+    private UserDestinationBroker broker;
+
+    @AfterEach
+    void tearDown() {
+        broker.stop();
+    }
+
+    @Test
+    @DisplayName("A published message reaches every session subscribed to that exact destination, and only those")
+    void publish_SendsToExactSubscribers() {
+        // given
+        start(0, (message, timeout) -> sent.add(message));
+        broker.handleMessage(frame(SimpMessageType.SUBSCRIBE, "session-1", "sub-0", DESTINATION));
+        broker.handleMessage(frame(SimpMessageType.SUBSCRIBE, "session-2", "sub-3", DESTINATION));
+        broker.handleMessage(frame(SimpMessageType.SUBSCRIBE, "session-3", "sub-0", "/topic/notifications/user-2"));
+
+        // when
+        broker.handleMessage(frame(SimpMessageType.MESSAGE, null, null, DESTINATION));
+
+        // then
+        assertThat(sent).hasSize(2);
+        assertThat(sent).extracting(message -> SimpMessageHeaderAccessor.getSessionId(message.getHeaders()))
+                .containsExactlyInAnyOrder("session-1", "session-2");
+        assertThat(sent).extracting(message -> SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders()))
+                .containsExactlyInAnyOrder("sub-0", "sub-3");
+        assertThat(sent).allSatisfy(message -> {
+            assertThat(SimpMessageHeaderAccessor.getMessageType(message.getHeaders())).isEqualTo(SimpMessageType.MESSAGE);
+            assertThat(SimpMessageHeaderAccessor.getDestination(message.getHeaders())).isEqualTo(DESTINATION);
+            assertThat(new String((byte[]) message.getPayload(), StandardCharsets.UTF_8)).isEqualTo("{\"message\":\"hi\"}");
+        });
+        assertThat(meterRegistry.get("notification.gateway.broker.sent").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("UNSUBSCRIBE and DISCONNECT remove the session's subscriptions and empty destinations leave the index")
+    void unsubscribeAndDisconnect_RemoveSubscriptions() {
+        // given
+        start(0, (message, timeout) -> sent.add(message));
+        broker.handleMessage(frame(SimpMessageType.SUBSCRIBE, "session-1", "sub-0", DESTINATION));
+        broker.handleMessage(frame(SimpMessageType.SUBSCRIBE, "session-2", "sub-0", DESTINATION));
+        broker.handleMessage(frame(SimpMessageType.SUBSCRIBE, "session-2", "sub-1", "/topic/notifications/user-2"));
+
+        // when
+        broker.handleMessage(frame(SimpMessageType.UNSUBSCRIBE, "session-1", "sub-0", null));
+        broker.handleMessage(frame(SimpMessageType.DISCONNECT, "session-2", null, null));
+        broker.handleMessage(frame(SimpMessageType.MESSAGE, null, null, DESTINATION));
+
+        // then
+        assertThat(sent).isEmpty();
+        assertThat(broker.subscriberCount(DESTINATION)).isZero();
+        assertThat(meterRegistry.get("notification.gateway.broker.destinations").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("Pattern subscriptions and destinations outside /topic are ignored")
+    void subscribe_IgnoresPatternsAndOtherPrefixes() {
+        // given
+        start(0, (message, timeout) -> sent.add(message));
+
+        // when
+        broker.handleMessage(frame(SimpMessageType.SUBSCRIBE, "session-1", "sub-0", "/topic/notifications/*"));
+        broker.handleMessage(frame(SimpMessageType.SUBSCRIBE, "session-1", "sub-1", "/queue/errors"));
+
+        // then
+        assertThat(broker.subscriberCount("/topic/notifications/*")).isZero();
+        assertThat(broker.subscriberCount("/queue/errors")).isZero();
+    }
+
+    @Test
+    @DisplayName("Sessions with the same subscription id share one encoded frame, written as binary to native WebSocket transports")
+    void publish_SharesEncodedFramePerSubscriptionGroup() throws Exception {
+        // given
+        start(0, (message, timeout) -> sent.add(message));
+        WebSocketSession phone = connect("session-1");
+        WebSocketSession laptop = connect("session-2");
+        WebSocketSession tablet = connect("session-3");
+        broker.handleMessage(frame(SimpMessageType.SUBSCRIBE, "session-1", "sub-0", DESTINATION));
+        broker.handleMessage(frame(SimpMessageType.SUBSCRIBE, "session-2", "sub-0", DESTINATION));
+        broker.handleMessage(frame(SimpMessageType.SUBSCRIBE, "session-3", "sub-1", DESTINATION));
+
+        // when
+        broker.handleMessage(frame(SimpMessageType.MESSAGE, null, null, DESTINATION));
+
+        // then
+        ArgumentCaptor<BinaryMessage> phoneFrame = ArgumentCaptor.forClass(BinaryMessage.class);
+        ArgumentCaptor<BinaryMessage> laptopFrame = ArgumentCaptor.forClass(BinaryMessage.class);
+        ArgumentCaptor<BinaryMessage> tabletFrame = ArgumentCaptor.forClass(BinaryMessage.class);
+        verify(phone, timeout(5000)).sendMessage(phoneFrame.capture());
+        verify(laptop, timeout(5000)).sendMessage(laptopFrame.capture());
+        verify(tablet, timeout(5000)).sendMessage(tabletFrame.capture());
+
+        assertThat(phoneFrame.getValue().getPayload().isReadOnly()).isTrue();
+        assertThat(phoneFrame.getValue().getPayload()).isNotSameAs(laptopFrame.getValue().getPayload());
+        assertThat(text(phoneFrame.getValue()))
+                .isEqualTo(text(laptopFrame.getValue()))
+                .startsWith("MESSAGE\n")
+                .contains("destination:" + DESTINATION + "\n", "subscription:sub-0\n", "content-type:application/json\n")
+                .endsWith("\n\n{\"message\":\"hi\"}\0");
+        assertThat(text(tabletFrame.getValue())).contains("subscription:sub-1\n");
+        assertThat(sent).isEmpty();
+        assertThat(meterRegistry.get("notification.gateway.broker.encoded").counter().count()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("notification.gateway.broker.sent").counter().count()).isEqualTo(3.0);
+    }
+
+    @Test
+    @DisplayName("SockJS sessions, which only carry text, share one TextMessage of the encoded frame")
+    void publish_SendsTextToSockJsSessions() throws Exception {
+        // given
+        start(0, (message, timeout) -> sent.add(message));
+        WebSocketSession first = connect(mock(SockJsSession.class), "session-1");
+        WebSocketSession second = connect(mock(SockJsSession.class), "session-2");
+        broker.handleMessage(frame(SimpMessageType.SUBSCRIBE, "session-1", "sub-0", DESTINATION));
+        broker.handleMessage(frame(SimpMessageType.SUBSCRIBE, "session-2", "sub-0", DESTINATION));
+
+        // when
+        broker.handleMessage(frame(SimpMessageType.MESSAGE, null, null, DESTINATION));
+
+        // then
+        ArgumentCaptor<TextMessage> firstFrame = ArgumentCaptor.forClass(TextMessage.class);
+        ArgumentCaptor<TextMessage> secondFrame = ArgumentCaptor.forClass(TextMessage.class);
+        verify(first, timeout(5000)).sendMessage(firstFrame.capture());
+        verify(second, timeout(5000)).sendMessage(secondFrame.capture());
+        assertThat(firstFrame.getValue()).isSameAs(secondFrame.getValue());
+        assertThat(firstFrame.getValue().getPayload()).endsWith("\n\n{\"message\":\"hi\"}\0");
+        assertThat(meterRegistry.get("notification.gateway.broker.encoded").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Outbound workers send off the publishing thread and keep each session's messages in order")
+    void publish_PreservesOrderPerSession() throws Exception {
+        // given
+        int messages = 200;
+        CountDownLatch delivered = new CountDownLatch(messages * 2);
+        List<String> threads = new CopyOnWriteArrayList<>();
+        start(4, (message, timeout) -> {
+            sent.add(message);
+            threads.add(Thread.currentThread().getName());
+            delivered.countDown();
+            return true;
+        });
+        broker.handleMessage(frame(SimpMessageType.SUBSCRIBE, "session-1", "sub-0", DESTINATION));
+        broker.handleMessage(frame(SimpMessageType.SUBSCRIBE, "session-2", "sub-0", DESTINATION));
+
+        // when
+        for (int i = 0; i < messages; i++) {
+            broker.handleMessage(MessageBuilder.createMessage(String.valueOf(i), headers(SimpMessageType.MESSAGE, null, null, DESTINATION)));
+        }
+
+        // then
+        assertThat(delivered.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(threads).allMatch(name -> name.startsWith("stomp-outbound-"));
+        for (String sessionId : List.of("session-1", "session-2")) {
+            List<Object> payloads = sent.stream()
+                    .filter(message -> sessionId.equals(SimpMessageHeaderAccessor.getSessionId(message.getHeaders())))
+                    .map(Message::getPayload)
+                    .toList();
+            assertThat(payloads).hasSize(messages);
+            for (int i = 0; i < messages; i++) {
+                assertThat(payloads.get(i)).isEqualTo(String.valueOf(i));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("A client whose transport blocks forever does not hold up another session on the same outbound worker")
+    void publish_StalledTransportDoesNotBlockSharedWorker() throws Exception {
+        // given: one worker, so both sessions share it
+        start(1, (message, timeout) -> sent.add(message));
+        CountDownLatch stalled = new CountDownLatch(1);
+        CountDownLatch never = new CountDownLatch(1);
+        WebSocketSession stuck = connect("session-1");
+        willAnswer(invocation -> {
+            stalled.countDown();
+            never.await();
+            return null;
+        }).given(stuck).sendMessage(any());
+        WebSocketSession healthy = connect("session-2");
+        broker.handleMessage(frame(SimpMessageType.SUBSCRIBE, "session-1", "sub-0", DESTINATION));
+        broker.handleMessage(frame(SimpMessageType.SUBSCRIBE, "session-2", "sub-0", DESTINATION));
+
+        try {
+            // when
+            broker.handleMessage(frame(SimpMessageType.MESSAGE, null, null, DESTINATION));
+            assertThat(stalled.await(5, TimeUnit.SECONDS)).isTrue();
+            broker.handleMessage(frame(SimpMessageType.MESSAGE, null, null, DESTINATION));
+
+            // then
+            verify(healthy, timeout(5000).times(2)).sendMessage(any());
+        } finally {
+            never.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName("A message's receipt completes once a subscribed session's transport has written it")
+    void publish_ReceiptCompletesOnceWritten() throws Exception {
+        // given
+        start(1, (message, timeout) -> sent.add(message));
+        WebSocketSession session = connect("session-1");
+        broker.handleMessage(frame(SimpMessageType.SUBSCRIBE, "session-1", "sub-0", DESTINATION));
+        CompletableFuture<Boolean> receipt = new CompletableFuture<>();
+
+        // when
+        broker.handleMessage(withReceipt(frame(SimpMessageType.MESSAGE, null, null, DESTINATION), receipt));
+
+        // then
+        assertThat(receipt.get(5, TimeUnit.SECONDS)).isTrue();
+        verify(session).sendMessage(any());
+    }
+
+    @Test
+    @DisplayName("A message's receipt fails when no session on this node subscribes to its destination")
+    void publish_ReceiptFailsWithoutSubscribers() {
+        // given
+        start(1, (message, timeout) -> sent.add(message));
+        CompletableFuture<Boolean> receipt = new CompletableFuture<>();
+
+        // when
+        broker.handleMessage(withReceipt(frame(SimpMessageType.MESSAGE, null, null, DESTINATION), receipt));
+
+        // then
+        assertThat(receipt).isCompletedWithValue(false);
+    }
+
+    @Test
+    @DisplayName("A message's receipt fails once the only subscribed session closes before writing it")
+    void publish_ReceiptFailsWhenDiscardedOnDisconnect() throws Exception {
+        // given: a transport stuck on the first message, so the second stays queued
+        start(1, (message, timeout) -> sent.add(message));
+        CountDownLatch stalled = new CountDownLatch(1);
+        CountDownLatch never = new CountDownLatch(1);
+        WebSocketSession stuck = connect("session-1");
+        willAnswer(invocation -> {
+            stalled.countDown();
+            never.await();
+            return null;
+        }).given(stuck).sendMessage(any());
+        broker.handleMessage(frame(SimpMessageType.SUBSCRIBE, "session-1", "sub-0", DESTINATION));
+        CompletableFuture<Boolean> receipt = new CompletableFuture<>();
+
+        try {
+            broker.handleMessage(frame(SimpMessageType.MESSAGE, null, null, DESTINATION));
+            assertThat(stalled.await(5, TimeUnit.SECONDS)).isTrue();
+            broker.handleMessage(withReceipt(frame(SimpMessageType.MESSAGE, null, null, DESTINATION), receipt));
+
+            // when
+            sessionRegistry.decorate(mock(WebSocketHandler.class)).afterConnectionClosed(stuck, CloseStatus.GOING_AWAY);
+
+            // then
+            assertThat(receipt.get(5, TimeUnit.SECONDS)).isFalse();
+        } finally {
+            never.countDown();
+        }
+    }
+
+    private void start(int outboundWorkers, MessageChannel outbound) {
+        broker = new UserDestinationBroker(new ExecutorSubscribableChannel(), outbound, new ExecutorSubscribableChannel(),
+                sessionRegistry, meterRegistry, outboundWorkers, 100);
+        broker.start();
+    }
+
+    private WebSocketSession connect(String sessionId) throws Exception {
+        return connect(mock(WebSocketSession.class), sessionId);
+    }
+
+    private WebSocketSession connect(WebSocketSession session, String sessionId) throws Exception {
+        given(session.getId()).willReturn(sessionId);
+        given(session.isOpen()).willReturn(true);
+        sessionRegistry.decorate(mock(WebSocketHandler.class)).afterConnectionEstablished(session);
+        return session;
+    }
+
+    private static String text(BinaryMessage message) {
+        return StandardCharsets.UTF_8.decode(message.getPayload().duplicate()).toString();
+    }
+
+    private static Message<byte[]> withReceipt(Message<byte[]> message, CompletableFuture<Boolean> receipt) {
+        return MessageBuilder.fromMessage(message).setHeader(UserDestinationBroker.RECEIPT_HEADER, receipt).build();
+    }
+
+    private static Message<byte[]> frame(SimpMessageType type, String sessionId, String subscriptionId, String destination) {
+        return MessageBuilder.createMessage("{\"message\":\"hi\"}".getBytes(StandardCharsets.UTF_8),
+                headers(type, sessionId, subscriptionId, destination));
+    }
+
+    private static MessageHeaders headers(SimpMessageType type, String sessionId,
+                                          String subscriptionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return accessor.getMessageHeaders();
+    }
+}
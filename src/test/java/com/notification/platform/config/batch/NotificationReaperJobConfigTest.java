@@ -1,8 +1,14 @@
 package com.notification.platform.config.batch;
 
+import com.notification.platform.config.SchedulerLock;
+import com.notification.platform.config.SnowflakeIdGenerator;
+import com.notification.platform.dispatcher.NotificationReaperScheduler;
+import com.notification.platform.domain.entity.NotificationOutbox;
 import com.notification.platform.domain.entity.NotificationRequest;
 import com.notification.platform.domain.enums.NotificationChannel;
 import com.notification.platform.domain.enums.NotificationIngressStatus;
+import com.notification.platform.domain.enums.NotificationPriority;
+import com.notification.platform.domain.repository.NotificationOutboxRepository;
 import com.notification.platform.domain.repository.NotificationRequestRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -11,6 +17,7 @@ import org.springframework.batch.core.ExitStatus;
 import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobParameters;
 import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
 import org.springframework.batch.test.JobLauncherTestUtils;
 import org.springframework.batch.test.context.SpringBatchTest;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,6 +27,9 @@ import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -37,41 +47,51 @@ class NotificationReaperJobConfigTest {
     @Autowired
     private NotificationRequestRepository repository;
 
-    @MockBean(name = "defaultRetryTopicKafkaTemplate")
+    @Autowired
+    private NotificationOutboxRepository outboxRepository;
+
+    @MockBean(name = "kafkaTemplate")
     private KafkaTemplate<String, Object> kafkaTemplate;
 
+    @MockBean
+    private SchedulerLock schedulerLock;
+
     @BeforeEach
     void setUp() {
+        outboxRepository.deleteAll();
         repository.deleteAll();
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
     }
 
     @Test
     @DisplayName("Reaper Job should process ACCEPTED requests older than 5 minutes based on requestedAt")
     void reaperJob_Success() throws Exception {
         // given: 1 old ACCEPTED request, 1 new ACCEPTED request
-        Long oldId = System.nanoTime();
+        OffsetDateTime oldRequestedAt = OffsetDateTime.now().minusMinutes(10);
+        Long oldId = idAt(oldRequestedAt);
         NotificationRequest oldRequest = NotificationRequest.builder()
                 .id(oldId)
                 .idempotencyKey("old-key")
                 .recipientId("user-1")
                 .channel(NotificationChannel.EMAIL)
                 .producerName("TEST")
-                .priority("NORMAL")
+                .priority(NotificationPriority.NORMAL)
                 .status(NotificationIngressStatus.ACCEPTED)
-                .requestedAt(OffsetDateTime.now().minusMinutes(10)) // Cleanly set business time
+                .requestedAt(oldRequestedAt) // Cleanly set business time
                 .build();
         repository.save(oldRequest);
 
-        Long newId = System.nanoTime();
+        OffsetDateTime newRequestedAt = OffsetDateTime.now();
+        Long newId = idAt(newRequestedAt);
         NotificationRequest newRequest = NotificationRequest.builder()
                 .id(newId)
                 .idempotencyKey("new-key")
                 .recipientId("user-2")
                 .channel(NotificationChannel.EMAIL)
                 .producerName("TEST")
-                .priority("NORMAL")
+                .priority(NotificationPriority.NORMAL)
                 .status(NotificationIngressStatus.ACCEPTED)
-                .requestedAt(OffsetDateTime.now()) // New request
+                .requestedAt(newRequestedAt) // New request
                 .build();
         repository.save(newRequest); 
 
@@ -83,9 +103,10 @@ class NotificationReaperJobConfigTest {
         // when
         JobExecution jobExecution = jobLauncherTestUtils.launchJob(jobParameters);
 
-        // then
+        // then: only acked requests are flipped to DISPATCHED
         assertThat(jobExecution.getExitStatus()).isEqualTo(ExitStatus.COMPLETED);
-        
+        assertThat(workerTotal(jobExecution, ReaperRedispatchWriter.ACKED_COUNT)).isEqualTo(1);
+
         NotificationRequest processedOld = repository.findById(oldId).orElseThrow();
         assertThat(processedOld.getStatus()).isEqualTo(NotificationIngressStatus.DISPATCHED);
         
@@ -99,16 +120,17 @@ class NotificationReaperJobConfigTest {
     @DisplayName("Reaper Job should keep status as ACCEPTED if Kafka dispatch fails")
     void reaperJob_KafkaFailure() throws Exception {
         // given
-        Long id = System.nanoTime();
+        OffsetDateTime requestedAt = OffsetDateTime.now().minusMinutes(10);
+        Long id = idAt(requestedAt);
         NotificationRequest request = NotificationRequest.builder()
                 .id(id)
                 .idempotencyKey("fail-key")
                 .recipientId("user-1")
                 .channel(NotificationChannel.EMAIL)
                 .producerName("TEST")
-                .priority("NORMAL")
+                .priority(NotificationPriority.NORMAL)
                 .status(NotificationIngressStatus.ACCEPTED)
-                .requestedAt(OffsetDateTime.now().minusMinutes(10))
+                .requestedAt(requestedAt)
                 .build();
         repository.save(request);
 
@@ -124,8 +146,160 @@ class NotificationReaperJobConfigTest {
 
         // then
         assertThat(jobExecution.getExitStatus()).isEqualTo(ExitStatus.COMPLETED); 
-        
+        assertThat(workerTotal(jobExecution, ReaperRedispatchWriter.FAILED_COUNT)).isEqualTo(1);
+
         NotificationRequest result = repository.findById(id).orElseThrow();
         assertThat(result.getStatus()).isEqualTo(NotificationIngressStatus.ACCEPTED); 
     }
+
+    @Test
+    @DisplayName("Reaper Job should skip ACCEPTED requests older than the lookback window")
+    void reaperJob_SkipsRequestsBeyondLookback() throws Exception {
+        // given: a request whose id places it in a partition outside the default 7-day window
+        OffsetDateTime requestedAt = OffsetDateTime.now().minusDays(8);
+        Long id = idAt(requestedAt);
+        repository.save(NotificationRequest.builder()
+                .id(id)
+                .idempotencyKey("expired-key")
+                .recipientId("user-1")
+                .channel(NotificationChannel.EMAIL)
+                .producerName("TEST")
+                .priority(NotificationPriority.NORMAL)
+                .status(NotificationIngressStatus.ACCEPTED)
+                .requestedAt(requestedAt)
+                .build());
+
+        JobParameters jobParameters = new JobParametersBuilder()
+                .addString("thresholdDateTime", OffsetDateTime.now().minusMinutes(5).toString())
+                .addLong("time", System.currentTimeMillis())
+                .toJobParameters();
+
+        // when
+        JobExecution jobExecution = jobLauncherTestUtils.launchJob(jobParameters);
+
+        // then
+        assertThat(jobExecution.getExitStatus()).isEqualTo(ExitStatus.COMPLETED);
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Reaper Job should drain a backlog spread over several days across all partitioned workers")
+    void reaperJob_DrainsBacklogAcrossPartitions() throws Exception {
+        // given: stale requests from the last 3 days, so they fall into different id slices
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            OffsetDateTime requestedAt = OffsetDateTime.now().minusMinutes(10).minusHours(6L * i);
+            Long id = idAt(requestedAt);
+            ids.add(id);
+            repository.save(NotificationRequest.builder()
+                    .id(id)
+                    .idempotencyKey("backlog-key-" + i)
+                    .recipientId("user-" + i)
+                    .channel(NotificationChannel.EMAIL)
+                    .producerName("TEST")
+                    .priority(NotificationPriority.NORMAL)
+                    .status(NotificationIngressStatus.ACCEPTED)
+                    .requestedAt(requestedAt)
+                    .build());
+        }
+
+        JobParameters jobParameters = new JobParametersBuilder()
+                .addString("thresholdDateTime", OffsetDateTime.now().minusMinutes(5).toString())
+                .addLong("time", System.currentTimeMillis())
+                .toJobParameters();
+
+        // when
+        JobExecution jobExecution = jobLauncherTestUtils.launchJob(jobParameters);
+
+        // then
+        assertThat(jobExecution.getExitStatus()).isEqualTo(ExitStatus.COMPLETED);
+        assertThat(jobExecution.getStepExecutions()).extracting(StepExecution::getStepName)
+                .filteredOn(name -> name.startsWith("reaperWorkerStep"))
+                .hasSizeGreaterThan(1);
+        assertThat(workerTotal(jobExecution, ReaperRedispatchWriter.ACKED_COUNT)).isEqualTo(ids.size());
+
+        verify(kafkaTemplate, times(ids.size())).send(anyString(), anyString(), any());
+        assertThat(repository.findAllById(ids)).extracting(NotificationRequest::getStatus)
+                .containsOnly(NotificationIngressStatus.DISPATCHED);
+    }
+
+    @Test
+    @DisplayName("Reaper Job should stop re-dispatching once its lease fencing token is superseded")
+    void reaperJob_StopsWhenLeaseIsSuperseded() throws Exception {
+        // given: another instance took the lease over after this run started
+        OffsetDateTime requestedAt = OffsetDateTime.now().minusMinutes(10);
+        Long id = idAt(requestedAt);
+        repository.save(NotificationRequest.builder()
+                .id(id)
+                .idempotencyKey("fenced-key")
+                .recipientId("user-1")
+                .channel(NotificationChannel.EMAIL)
+                .producerName("TEST")
+                .priority(NotificationPriority.NORMAL)
+                .status(NotificationIngressStatus.ACCEPTED)
+                .requestedAt(requestedAt)
+                .build());
+        when(schedulerLock.isCurrent(NotificationReaperScheduler.REAPER_LOCK, 7L)).thenReturn(false);
+
+        JobParameters jobParameters = new JobParametersBuilder()
+                .addString("thresholdDateTime", OffsetDateTime.now().minusMinutes(5).toString())
+                .addLong(NotificationReaperScheduler.FENCING_TOKEN, 7L)
+                .addLong("time", System.currentTimeMillis())
+                .toJobParameters();
+
+        // when
+        JobExecution jobExecution = jobLauncherTestUtils.launchJob(jobParameters);
+
+        // then
+        assertThat(jobExecution.getExitStatus().getExitCode()).isEqualTo(ExitStatus.FAILED.getExitCode());
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any());
+        assertThat(repository.findById(id).orElseThrow().getStatus()).isEqualTo(NotificationIngressStatus.ACCEPTED);
+    }
+
+    @Test
+    @DisplayName("Reaper Job should leave requests whose outbox row is still pending to the outbox relay")
+    void reaperJob_SkipsRequestsWithPendingOutboxRow() throws Exception {
+        // given: a stale request that the (stalled) relay has not published yet
+        OffsetDateTime requestedAt = OffsetDateTime.now().minusMinutes(10);
+        Long id = idAt(requestedAt);
+        repository.save(NotificationRequest.builder()
+                .id(id)
+                .idempotencyKey("pending-outbox-key")
+                .recipientId("user-1")
+                .channel(NotificationChannel.EMAIL)
+                .producerName("TEST")
+                .priority(NotificationPriority.NORMAL)
+                .status(NotificationIngressStatus.ACCEPTED)
+                .requestedAt(requestedAt)
+                .build());
+        outboxRepository.save(NotificationOutbox.builder()
+                .id(id + 1)
+                .requestId(id)
+                .priority(NotificationPriority.NORMAL)
+                .build());
+
+        JobParameters jobParameters = new JobParametersBuilder()
+                .addString("thresholdDateTime", OffsetDateTime.now().minusMinutes(5).toString())
+                .addLong("time", System.currentTimeMillis())
+                .toJobParameters();
+
+        // when
+        JobExecution jobExecution = jobLauncherTestUtils.launchJob(jobParameters);
+
+        // then
+        assertThat(jobExecution.getExitStatus()).isEqualTo(ExitStatus.COMPLETED);
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any());
+        assertThat(repository.findById(id).orElseThrow().getStatus()).isEqualTo(NotificationIngressStatus.ACCEPTED);
+    }
+
+    private long workerTotal(JobExecution jobExecution, String key) {
+        return jobExecution.getStepExecutions().stream()
+                .mapToLong(step -> step.getExecutionContext().getLong(key, 0L))
+                .sum();
+    }
+
+    // Snowflake-shaped id created at requestedAt, as the ingress path would assign it
+    private Long idAt(OffsetDateTime requestedAt) {
+        return SnowflakeIdGenerator.minIdForTimestamp(requestedAt.toInstant().toEpochMilli()) + (System.nanoTime() & 0xFFF);
+    }
 }
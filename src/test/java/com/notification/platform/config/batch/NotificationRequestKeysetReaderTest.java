@@ -0,0 +1,97 @@
+package com.notification.platform.config.batch;
+
+import com.notification.platform.domain.entity.NotificationRequest;
+import com.notification.platform.domain.repository.NotificationRequestRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationRequestKeysetReaderTest {
+
+    private static final OffsetDateTime THRESHOLD = OffsetDateTime.parse("2026-10-18T10:00:00Z");
+
+    @Mock
+    private NotificationRequestRepository repository;
+
+    @Test
+    @DisplayName("Each page seeks past the last (requestedAt, id) read instead of using an offset")
+    void read_SeeksPastLastRow() {
+        // given
+        NotificationRequest first = request(1L, "2026-10-18T09:00:00Z");
+        NotificationRequest second = request(2L, "2026-10-18T09:01:00Z");
+        NotificationRequest third = request(3L, "2026-10-18T09:02:00Z");
+        given(repository.findAcceptedAfter(eq(100L), eq(200L), eq(THRESHOLD), any(), anyLong(), eq(2)))
+                .willReturn(List.of(first, second), List.of(third));
+
+        NotificationRequestKeysetReader reader = new NotificationRequestKeysetReader(repository, THRESHOLD, 100L, 200L, 2);
+
+        // when
+        List<NotificationRequest> read = new ArrayList<>();
+        NotificationRequest item;
+        while ((item = reader.read()) != null) {
+            read.add(item);
+        }
+
+        // then: the short second page ends the scan without a third query
+        assertThat(read).containsExactly(first, second, third);
+        verify(repository).findAcceptedAfter(100L, 200L, THRESHOLD, second.getRequestedAt(), 2L, 2);
+        verify(repository, times(2)).findAcceptedAfter(anyLong(), anyLong(), any(), any(), anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("A restarted step resumes from the cursor saved in the ExecutionContext")
+    void open_ResumesFromSavedCursor() {
+        // given
+        NotificationRequest committed = request(7L, "2026-10-18T09:30:00Z");
+        given(repository.findAcceptedAfter(anyLong(), anyLong(), any(), any(), anyLong(), anyInt()))
+                .willReturn(List.of(committed), List.of());
+
+        NotificationRequestKeysetReader reader = new NotificationRequestKeysetReader(repository, THRESHOLD, 100L, 200L, 1);
+        reader.read();
+        ExecutionContext context = new ExecutionContext();
+        reader.update(context);
+
+        // when
+        NotificationRequestKeysetReader restarted = new NotificationRequestKeysetReader(repository, THRESHOLD, 100L, 200L, 1);
+        restarted.open(context);
+        restarted.read();
+
+        // then
+        verify(repository).findAcceptedAfter(100L, 200L, THRESHOLD, committed.getRequestedAt(), 7L, 1);
+    }
+
+    @Test
+    @DisplayName("The id window is split into contiguous, non-overlapping slices")
+    void partitioner_SplitsIdRange() {
+        // when
+        Map<String, ExecutionContext> partitions = new IdRangePartitioner(0L, 10L).partition(3);
+
+        // then
+        assertThat(partitions.values()).extracting(context -> context.getLong(IdRangePartitioner.FROM_ID))
+                .containsExactly(0L, 4L, 8L);
+        assertThat(partitions.values()).extracting(context -> context.getLong(IdRangePartitioner.TO_ID))
+                .containsExactly(4L, 8L, 10L);
+        assertThat(new IdRangePartitioner(5L, 5L).partition(3)).isEmpty();
+    }
+
+    private NotificationRequest request(Long id, String requestedAt) {
+        return NotificationRequest.builder()
+                .id(id)
+                .requestedAt(OffsetDateTime.parse(requestedAt))
+                .build();
+    }
+}
@@ -0,0 +1,120 @@
+package com.notification.platform.dispatcher;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingPresenceManagerTest {
+
+    @Mock
+    private RedisPresenceManager delegate;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CachingPresenceManager presenceManager;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        presenceManager = new CachingPresenceManager(delegate, redisTemplate, meterRegistry, 1000, 60_000);
+    }
+
+    @Test
+    @DisplayName("Repeated lookups for the same user are served from the local cache")
+    void isOnline_CachesAnswer() {
+        // given
+        given(delegate.findRoutes(List.of("user-1"))).willReturn(Map.of("user-1", Set.of(2)));
+
+        // when
+        boolean first = presenceManager.isOnline("user-1");
+        boolean second = presenceManager.isOnline("user-1");
+
+        // then
+        assertThat(first).isTrue();
+        assertThat(second).isTrue();
+        verify(delegate, times(1)).findRoutes(List.of("user-1"));
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "presence").tag("result", "hit").functionCounter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "presence").tag("result", "miss").functionCounter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Bulk lookups only send the cache misses to Redis, and offline answers are cached too")
+    void findRoutes_LoadsOnlyMisses() {
+        // given
+        given(delegate.findRoutes(List.of("user-1"))).willReturn(Map.of("user-1", Set.of(0)));
+        presenceManager.isOnline("user-1");
+        given(delegate.findRoutes(argThat(users -> users.size() == 2))).willReturn(Map.of("user-2", Set.of(1, 4)));
+
+        // when
+        Map<String, Set<Integer>> routes = presenceManager.findRoutes(List.of("user-1", "user-2", "user-3"));
+        Set<String> online = presenceManager.findOnline(List.of("user-2", "user-3"));
+
+        // then
+        assertThat(routes).containsOnly(Map.entry("user-1", Set.of(0)), Map.entry("user-2", Set.of(1, 4)));
+        assertThat(online).containsExactly("user-2");
+        verify(delegate, times(1)).findRoutes(argThat(users -> users.size() == 2 && !users.contains("user-1")));
+    }
+
+    @Test
+    @DisplayName("Connect evicts the local entry and broadcasts the invalidation to the other instances")
+    void setOnline_InvalidatesAndBroadcasts() {
+        // given
+        given(delegate.findRoutes(List.of("user-1"))).willReturn(Map.of(), Map.of("user-1", Set.of(0)));
+        presenceManager.isOnline("user-1");
+
+        // when
+        presenceManager.setOnline("user-1", "session-1");
+
+        // then
+        verify(delegate).setOnline("user-1", "session-1");
+        verify(redisTemplate).convertAndSend(CachingPresenceManager.INVALIDATION_CHANNEL, "user-1");
+        assertThat(presenceManager.isOnline("user-1")).isTrue();
+    }
+
+    @Test
+    @DisplayName("A batch of connects is invalidated with a single broadcast")
+    void setOnlineAll_BroadcastsOnce() {
+        // when
+        presenceManager.setOnlineAll(Map.of("session-1", "user-1"));
+
+        // then
+        verify(delegate).setOnlineAll(Map.of("session-1", "user-1"));
+        verify(redisTemplate, times(1)).convertAndSend(CachingPresenceManager.INVALIDATION_CHANNEL, "user-1");
+    }
+
+    @Test
+    @DisplayName("An invalidation broadcast from another instance evicts the cached answer")
+    void onMessage_EvictsUser() {
+        // given
+        given(delegate.findRoutes(List.of("user-1"))).willReturn(Map.of("user-1", Set.of(0)), Map.of());
+        presenceManager.isOnline("user-1");
+
+        // when
+        presenceManager.onMessage(new DefaultMessage(CachingPresenceManager.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "user-1".getBytes(StandardCharsets.UTF_8)), null);
+
+        // then
+        assertThat(presenceManager.isOnline("user-1")).isFalse();
+        assertThat(meterRegistry.get("notification.presence.cache.invalidations").counter().count()).isEqualTo(1.0);
+    }
+}
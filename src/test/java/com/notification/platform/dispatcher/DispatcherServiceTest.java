@@ -1,23 +1,37 @@
 package com.notification.platform.dispatcher;
 
 import com.notification.platform.domain.entity.DeliveryLog;
+import com.notification.platform.domain.entity.DeliveryStatusEvent;
 import com.notification.platform.domain.entity.NotificationRequest;
 import com.notification.platform.domain.enums.DeliveryStatus;
 import com.notification.platform.domain.enums.NotificationChannel;
+import com.notification.platform.domain.enums.NotificationPriority;
 import com.notification.platform.domain.repository.DeliveryLogRepository;
+import com.notification.platform.domain.repository.DeliveryStatusEventRepository;
 import com.notification.platform.domain.repository.NotificationRequestRepository;
+import com.notification.platform.messaging.event.EventPayload;
 import com.notification.platform.messaging.event.NotificationRequestEvent;
+import com.notification.platform.messaging.priority.PriorityKafkaTemplates;
+import com.notification.platform.messaging.send.KafkaSendPipeline;
+import com.notification.platform.messaging.status.DeliveryStatusAggregator;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -40,9 +54,31 @@ class DispatcherServiceTest {
     @Mock
     private PresenceManager presenceManager;
 
-    @InjectMocks
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private DeliveryStatusAggregator statusAggregator;
+
+    @Mock
+    private DeliveryStatusEventRepository statusEventRepository;
+
+    private KafkaSendPipeline sendPipeline;
+
     private DispatcherService dispatcherService;
 
+    @BeforeEach
+    void setUp() {
+        sendPipeline = new KafkaSendPipeline(new PriorityKafkaTemplates(kafkaTemplate, kafkaTemplate), notificationRequestRepository, statusAggregator,
+                new TransactionTemplate(transactionManager));
+        dispatcherService = new DispatcherService(deliveryLogRepository, notificationRequestRepository, sendPipeline,
+                snowflakeIdGenerator, presenceManager, statusEventRepository, statusAggregator);
+        lenient().when(snowflakeIdGenerator.nextId()).thenReturn(1000L, 1001L, 1002L, 1003L);
+        lenient().when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        lenient().when(kafkaTemplate.send(anyString(), anyInt(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        lenient().when(statusAggregator.record(any(), any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+    }
+
     @Test
     @DisplayName("Dispatcher routes IN_APP channel correctly and updates status to QUEUED when online")
     void dispatch_InApp_Success() {
@@ -52,19 +88,46 @@ class DispatcherServiceTest {
                 .requestId(requestId)
                 .recipientId("user-123")
                 .channel(NotificationChannel.IN_APP)
-                .payload(Map.of("msg", "hello"))
+                .payload(EventPayload.of(Map.of("msg", "hello")))
                 .build();
 
         NotificationRequest request = NotificationRequest.builder().id(requestId).build();
-        when(notificationRequestRepository.findById(requestId)).thenReturn(Optional.of(request));
-        when(presenceManager.isOnline("user-123")).thenReturn(true);
+        when(notificationRequestRepository.findAllById(Set.of(requestId))).thenReturn(List.of(request));
+        when(presenceManager.findRoutes(Set.of("user-123"))).thenReturn(Map.of("user-123", Set.of(2)));
+
+        // when
+        dispatcherService.dispatch(event);
+
+        // then: sent to the partition of the gateway node holding the session; QUEUED is recorded from the broker ack
+        List<DeliveryLog> saved = captureSavedLogs();
+        assertThat(saved).extracting("status").containsExactly(DeliveryStatus.PENDING);
+        verify(kafkaTemplate).send(eq("notification.inapp"), eq(2), eq("user-123"), argThat(sent -> carries(sent, requestId, 1000L)));
+        verifyQueued(List.of(1000L));
+    }
+
+    @Test
+    @DisplayName("Dispatcher sends one copy of an IN_APP event to every gateway node holding a session of the recipient")
+    void dispatch_InApp_MultipleNodes() {
+        // given
+        Long requestId = System.nanoTime();
+        NotificationRequestEvent event = NotificationRequestEvent.builder()
+                .requestId(requestId)
+                .recipientId("user-123")
+                .channel(NotificationChannel.IN_APP)
+                .payload(EventPayload.of(Map.of("msg", "hello")))
+                .build();
+
+        when(notificationRequestRepository.findAllById(Set.of(requestId))).thenReturn(List.of(NotificationRequest.builder().id(requestId).build()));
+        when(presenceManager.findRoutes(Set.of("user-123"))).thenReturn(Map.of("user-123", Set.of(0, 5)));
 
         // when
         dispatcherService.dispatch(event);
 
         // then
-        verify(deliveryLogRepository, times(1)).save(any(DeliveryLog.class));
-        verify(kafkaTemplate).send(eq("notification.inapp"), eq("user-123"), eq(event));
+        captureSavedLogs();
+        verify(kafkaTemplate).send(eq("notification.inapp"), eq(0), eq("user-123"), argThat(sent -> carries(sent, requestId, 1000L)));
+        verify(kafkaTemplate).send(eq("notification.inapp"), eq(5), eq("user-123"), argThat(sent -> carries(sent, requestId, 1000L)));
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any());
     }
 
     @Test
@@ -76,22 +139,25 @@ class DispatcherServiceTest {
                 .requestId(requestId)
                 .recipientId("user-123")
                 .channel(NotificationChannel.IN_APP)
-                .payload(Map.of("msg", "hello"))
+                .payload(EventPayload.of(Map.of("msg", "hello")))
                 .build();
 
         NotificationRequest request = NotificationRequest.builder().id(requestId).build();
-        when(notificationRequestRepository.findById(requestId)).thenReturn(Optional.of(request));
-        when(presenceManager.isOnline("user-123")).thenReturn(false);
+        when(notificationRequestRepository.findAllById(Set.of(requestId))).thenReturn(List.of(request));
+        when(presenceManager.findRoutes(Set.of("user-123"))).thenReturn(Map.of());
 
         // when
         dispatcherService.dispatch(event);
 
         // then
-        // 1. First call: IN_APP marked as REROUTED
-        // 2. Second call: EMAIL marked as PENDING/QUEUED
-        verify(deliveryLogRepository, times(2)).save(any(DeliveryLog.class));
+        // 1. IN_APP marked as REROUTED
+        // 2. EMAIL marked as QUEUED once the broker acknowledged the send
+        List<DeliveryLog> saved = captureSavedLogs();
+        assertThat(saved).extracting("channel").containsExactly(NotificationChannel.IN_APP, NotificationChannel.EMAIL);
+        assertThat(saved).extracting("status").containsExactly(DeliveryStatus.REROUTED, DeliveryStatus.PENDING);
+        verifyQueued(List.of(1001L));
         verify(kafkaTemplate).send(eq("notification.email"), eq("user-123"), any(NotificationRequestEvent.class));
-        verify(kafkaTemplate, never()).send(eq("notification.inapp"), anyString(), any());
+        verify(kafkaTemplate, never()).send(eq("notification.inapp"), anyInt(), anyString(), any());
     }
 
     @Test
@@ -104,17 +170,184 @@ class DispatcherServiceTest {
                 .recipientId("user-123")
                 .channel(NotificationChannel.EMAIL)
                 .targetAddress("test@example.com")
-                .payload(Map.of("msg", "hello"))
+                .payload(EventPayload.of(Map.of("msg", "hello")))
                 .build();
 
         NotificationRequest request = NotificationRequest.builder().id(requestId).build();
-        when(notificationRequestRepository.findById(requestId)).thenReturn(Optional.of(request));
+        when(notificationRequestRepository.findAllById(Set.of(requestId))).thenReturn(List.of(request));
+        when(presenceManager.findRoutes(Set.of())).thenReturn(Map.of());
+
+        // when
+        dispatcherService.dispatch(event);
+
+        // then
+        captureSavedLogs();
+        verify(kafkaTemplate).send(eq("notification.email"), eq("user-123"), argThat(sent -> carries(sent, requestId, 1000L)));
+        verifyQueued(List.of(1000L));
+    }
+
+    @Test
+    @DisplayName("Dispatcher keeps HIGH priority events in the HIGH lane of the channel topic")
+    void dispatch_HighPriority_RoutesToHighLane() {
+        // given
+        Long requestId = System.nanoTime();
+        NotificationRequestEvent event = NotificationRequestEvent.builder()
+                .requestId(requestId)
+                .recipientId("user-123")
+                .channel(NotificationChannel.EMAIL)
+                .priority(NotificationPriority.HIGH)
+                .targetAddress("test@example.com")
+                .payload(EventPayload.of(Map.of("msg", "otp")))
+                .build();
+
+        when(notificationRequestRepository.findAllById(Set.of(requestId))).thenReturn(List.of(NotificationRequest.builder().id(requestId).build()));
+        when(presenceManager.findRoutes(Set.of())).thenReturn(Map.of());
 
         // when
         dispatcherService.dispatch(event);
 
         // then
-        verify(deliveryLogRepository, times(1)).save(any(DeliveryLog.class)); // 1. PENDING (QUEUED relies on dirty checking)
-        verify(kafkaTemplate).send(eq("notification.email"), eq("user-123"), eq(event));
+        verify(kafkaTemplate).send(eq("notification.email.high"), eq("user-123"), argThat(sent -> carries(sent, requestId, 1000L)));
+        verify(kafkaTemplate, never()).send(eq("notification.email"), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Dispatcher resolves a whole batch with one query, one presence lookup and one saveAll")
+    void dispatchAll_Batch_UsesBulkLookups() {
+        // given
+        NotificationRequestEvent online = NotificationRequestEvent.builder()
+                .requestId(1L).recipientId("user-1").channel(NotificationChannel.IN_APP).build();
+        NotificationRequestEvent offline = NotificationRequestEvent.builder()
+                .requestId(2L).recipientId("user-2").channel(NotificationChannel.IN_APP).build();
+        NotificationRequestEvent missing = NotificationRequestEvent.builder()
+                .requestId(3L).recipientId("user-3").channel(NotificationChannel.EMAIL).build();
+
+        when(notificationRequestRepository.findAllById(Set.of(1L, 2L, 3L))).thenReturn(List.of(
+                NotificationRequest.builder().id(1L).build(),
+                NotificationRequest.builder().id(2L).build()));
+        when(presenceManager.findRoutes(Set.of("user-1", "user-2"))).thenReturn(Map.of("user-1", Set.of(1)));
+        when(kafkaTemplate.send(eq("notification.email"), eq("user-2"), any()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker down")));
+
+        // when
+        CompletableFuture<Void> completion = dispatcherService.dispatchAll(List.of(online, offline, missing));
+
+        // then: the batch fails on the nacked request, so the listener does not commit past it
+        assertThat(completion).isCompletedExceptionally();
+        assertThatThrownBy(completion::join).hasCauseInstanceOf(DispatchFailedException.class);
+        verify(notificationRequestRepository, times(1)).findAllById(any());
+        verify(presenceManager, times(1)).findRoutes(any());
+        List<DeliveryLog> saved = captureSavedLogs();
+        assertThat(saved).extracting("id").containsExactly(1000L, 1001L, 1002L);
+        assertThat(saved).extracting("status").containsExactly(
+                DeliveryStatus.PENDING, DeliveryStatus.REROUTED, DeliveryStatus.PENDING);
+        verify(kafkaTemplate, never()).send(anyString(), eq("user-3"), any());
+
+        // the acked IN_APP log is QUEUED, the nacked EMAIL fallback FAILED
+        verifyQueued(List.of(1000L));
+        verify(statusAggregator).record(eq(1002L), eq(DeliveryStatus.FAILED), anyString());
+    }
+
+    @Test
+    @DisplayName("An undeliverable IN_APP event is sent to EMAIL under a new delivery log")
+    void rerouteToEmail_SendsToEmailWithNewLog() {
+        // given
+        Long requestId = System.nanoTime();
+        NotificationRequestEvent event = NotificationRequestEvent.builder()
+                .requestId(requestId)
+                .deliveryLogId(10L)
+                .recipientId("user-123")
+                .channel(NotificationChannel.IN_APP)
+                .priority(NotificationPriority.HIGH)
+                .payload(EventPayload.of(Map.of("msg", "hello")))
+                .build();
+        when(notificationRequestRepository.getReferenceById(requestId)).thenReturn(NotificationRequest.builder().id(requestId).build());
+        when(deliveryLogRepository.save(any(DeliveryLog.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        CompletableFuture<Void> completion = dispatcherService.rerouteToEmail(event);
+
+        // then
+        assertThat(completion).isCompleted();
+        ArgumentCaptor<DeliveryLog> saved = ArgumentCaptor.forClass(DeliveryLog.class);
+        verify(deliveryLogRepository).save(saved.capture());
+        assertThat(saved.getValue().getChannel()).isEqualTo(NotificationChannel.EMAIL);
+        assertThat(saved.getValue().getStatus()).isEqualTo(DeliveryStatus.PENDING);
+        verify(kafkaTemplate).send(eq("notification.email.high"), eq("user-123"), argThat(sent -> carries(sent, requestId, 1000L)));
+        verifyQueued(List.of(1000L));
+    }
+
+    @Test
+    @DisplayName("A redelivered batch reuses the earlier delivery logs and re-sends only the ones the broker never acked")
+    void dispatchAll_Redelivered_ResendsOnlyUnackedLogs() {
+        // given: request 1 was acked on the first attempt, request 2's send failed
+        NotificationRequest acked = NotificationRequest.builder().id(1L).build();
+        NotificationRequest failed = NotificationRequest.builder().id(2L).build();
+        when(notificationRequestRepository.findAllById(Set.of(1L, 2L))).thenReturn(List.of(acked, failed));
+        when(deliveryLogRepository.findByRequestIdIn(Set.of(1L, 2L))).thenReturn(List.of(
+                emailLog(500L, acked), emailLog(501L, failed)));
+        when(statusEventRepository.findHistory(List.of(500L, 501L))).thenReturn(List.of(
+                DeliveryStatusEvent.builder().deliveryLogId(500L).status(DeliveryStatus.QUEUED).build(),
+                DeliveryStatusEvent.builder().deliveryLogId(501L).status(DeliveryStatus.FAILED).build()));
+        when(presenceManager.findRoutes(Set.of())).thenReturn(Map.of());
+
+        // when
+        CompletableFuture<Void> completion = dispatcherService.dispatchAll(List.of(
+                NotificationRequestEvent.builder().requestId(1L).recipientId("user-1").channel(NotificationChannel.EMAIL).build(),
+                NotificationRequestEvent.builder().requestId(2L).recipientId("user-2").channel(NotificationChannel.EMAIL).build()));
+
+        // then
+        assertThat(completion).isCompleted();
+        assertThat(captureSavedLogs()).isEmpty();
+        verify(kafkaTemplate).send(eq("notification.email"), eq("user-2"), argThat(sent -> carries(sent, 2L, 501L)));
+        verify(kafkaTemplate, never()).send(anyString(), eq("user-1"), any());
+    }
+
+    @Test
+    @DisplayName("An admin retry event is sent under the retry log it carries instead of a new one")
+    void dispatchAll_AdminRetry_ReusesRetryLog() {
+        // given
+        NotificationRequest request = NotificationRequest.builder().id(1L).build();
+        when(notificationRequestRepository.findAllById(Set.of(1L))).thenReturn(List.of(request));
+        when(deliveryLogRepository.findByRequestIdIn(Set.of(1L))).thenReturn(List.of(emailLog(500L, request), emailLog(600L, request)));
+        when(statusEventRepository.findHistory(List.of(500L, 600L))).thenReturn(List.of(
+                DeliveryStatusEvent.builder().deliveryLogId(500L).status(DeliveryStatus.QUEUED).build()));
+        when(presenceManager.findRoutes(Set.of())).thenReturn(Map.of());
+
+        // when
+        dispatcherService.dispatchAll(List.of(NotificationRequestEvent.builder()
+                .requestId(1L).deliveryLogId(600L).recipientId("user-1").channel(NotificationChannel.EMAIL).build()));
+
+        // then
+        assertThat(captureSavedLogs()).isEmpty();
+        verify(kafkaTemplate).send(eq("notification.email"), eq("user-1"), argThat(sent -> carries(sent, 1L, 600L)));
+        verifyQueued(List.of(600L));
+    }
+
+    private DeliveryLog emailLog(Long id, NotificationRequest request) {
+        return DeliveryLog.builder()
+                .id(id)
+                .request(request)
+                .recipientId("user-" + request.getId())
+                .channel(NotificationChannel.EMAIL)
+                .status(DeliveryStatus.PENDING)
+                .build();
+    }
+
+    private boolean carries(Object sent, Long requestId, Long deliveryLogId) {
+        return sent instanceof NotificationRequestEvent event
+                && requestId.equals(event.getRequestId())
+                && deliveryLogId.equals(event.getDeliveryLogId());
+    }
+
+    private void verifyQueued(List<Long> ids) {
+        ids.forEach(id -> verify(statusAggregator).record(id, DeliveryStatus.QUEUED, null));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<DeliveryLog> captureSavedLogs() {
+        ArgumentCaptor<List<DeliveryLog>> captor = ArgumentCaptor.forClass(List.class);
+        verify(deliveryLogRepository, times(1)).saveAll(captor.capture());
+        return captor.getValue();
     }
 }
@@ -0,0 +1,70 @@
+package com.notification.platform.dispatcher;
+
+import com.notification.platform.domain.enums.NotificationChannel;
+import com.notification.platform.messaging.event.NotificationRequestEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationDispatcherTest {
+
+    @Mock
+    private DispatcherService dispatcherService;
+
+    private NotificationDispatcher dispatcher;
+
+    private final List<NotificationRequestEvent> events = List.of(event(1L), event(2L), event(3L));
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new NotificationDispatcher(dispatcherService);
+    }
+
+    @Test
+    @DisplayName("The listener returns once every send of the batch has been acked")
+    void consume_AllAcked_Returns() {
+        // given
+        given(dispatcherService.dispatchAll(events)).willReturn(CompletableFuture.completedFuture(null));
+
+        // when
+        dispatcher.consume(events);
+
+        // then
+        verify(dispatcherService).dispatchAll(events);
+    }
+
+    @Test
+    @DisplayName("A failed send fails the batch from its first affected record instead of committing past it")
+    void consume_FailedSend_FailsFromFirstAffectedRecord() {
+        // given
+        given(dispatcherService.dispatchAll(events)).willReturn(CompletableFuture.failedFuture(
+                new CompletionException(new DispatchFailedException(Set.of(3L, 2L)))));
+
+        // when / then
+        assertThatThrownBy(() -> dispatcher.consume(events))
+                .isInstanceOfSatisfying(BatchListenerFailedException.class, e -> assertThat(e.getIndex()).isEqualTo(1));
+    }
+
+    private static NotificationRequestEvent event(Long requestId) {
+        return NotificationRequestEvent.builder()
+                .requestId(requestId)
+                .recipientId("user-" + requestId)
+                .channel(NotificationChannel.EMAIL)
+                .build();
+    }
+}
@@ -0,0 +1,80 @@
+package com.notification.platform.dispatcher;
+
+import com.notification.platform.config.SchedulerLock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.launch.JobLauncher;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationReaperSchedulerTest {
+
+    @Mock
+    private JobLauncher jobLauncher;
+
+    @Mock
+    private Job reaperJob;
+
+    @Mock
+    private SchedulerLock schedulerLock;
+
+    private NotificationReaperScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new NotificationReaperScheduler(jobLauncher, reaperJob, schedulerLock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    @DisplayName("Only the instance holding the reaper lease runs the job, with its fencing token, and releases the lease")
+    void runReaperJob_RunsUnderLease() throws Exception {
+        // given
+        SchedulerLock.Lease lease = new SchedulerLock.Lease(NotificationReaperScheduler.REAPER_LOCK, 42L);
+        given(schedulerLock.tryAcquire(eq(NotificationReaperScheduler.REAPER_LOCK), any())).willReturn(Optional.of(lease));
+
+        // when
+        scheduler.runReaperJob();
+
+        // then
+        ArgumentCaptor<JobParameters> parameters = ArgumentCaptor.forClass(JobParameters.class);
+        InOrder inOrder = inOrder(jobLauncher, schedulerLock);
+        inOrder.verify(jobLauncher).run(eq(reaperJob), parameters.capture());
+        inOrder.verify(schedulerLock).release(lease);
+        assertThat(parameters.getValue().getLong(NotificationReaperScheduler.FENCING_TOKEN)).isEqualTo(42L);
+    }
+
+    @Test
+    @DisplayName("Skips the run while another instance holds the reaper lease")
+    void runReaperJob_SkipsWithoutLease() throws Exception {
+        // given
+        given(schedulerLock.tryAcquire(eq(NotificationReaperScheduler.REAPER_LOCK), any())).willReturn(Optional.empty());
+
+        // when
+        scheduler.runReaperJob();
+
+        // then
+        verify(jobLauncher, never()).run(any(), any());
+        verify(schedulerLock, never()).release(any());
+    }
+}
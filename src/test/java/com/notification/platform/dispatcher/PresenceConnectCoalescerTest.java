@@ -0,0 +1,96 @@
+package com.notification.platform.dispatcher;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PresenceConnectCoalescerTest {
+
+    @Mock
+    private PresenceManager presenceManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PresenceConnectCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        coalescer = new PresenceConnectCoalescer(presenceManager, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        coalescer.shutdown();
+    }
+
+    @Test
+    @DisplayName("CONNECTs arriving while a batch is in flight are written together in the next batch")
+    void setOnline_CoalescesConcurrentConnects() throws Exception {
+        // given: the first write blocks until the others have queued up behind it
+        CountDownLatch firstWriteStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstWrite = new CountDownLatch(1);
+        List<Map<String, String>> batches = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            batches.add(Map.copyOf(invocation.getArgument(0)));
+            if (batches.size() == 1) {
+                firstWriteStarted.countDown();
+                releaseFirstWrite.await();
+            }
+            return null;
+        }).when(presenceManager).setOnlineAll(anyMap());
+
+        ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            List<Future<?>> connects = new ArrayList<>();
+            connects.add(callers.submit(() -> coalescer.setOnline("user-0", "session-0")));
+            assertThat(firstWriteStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // when
+            for (int i = 1; i <= 10; i++) {
+                String index = String.valueOf(i);
+                connects.add(callers.submit(() -> coalescer.setOnline("user-" + index, "session-" + index)));
+            }
+            Thread.sleep(100);
+            releaseFirstWrite.countDown();
+            for (Future<?> connect : connects) {
+                connect.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        // then
+        assertThat(batches).hasSize(2);
+        assertThat(batches.get(0)).containsOnlyKeys("session-0");
+        assertThat(batches.get(1)).hasSize(10).containsEntry("session-7", "user-7");
+        assertThat(meterRegistry.get("notification.presence.connect.batch").summary().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("A failed Redis write fails every CONNECT of the batch")
+    void setOnline_PropagatesFailure() {
+        // given
+        doThrow(new IllegalStateException("redis down")).when(presenceManager).setOnlineAll(anyMap());
+
+        // when & then
+        assertThatThrownBy(() -> coalescer.setOnline("user-1", "session-1"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasRootCauseMessage("redis down");
+    }
+}
@@ -0,0 +1,110 @@
+package com.notification.platform.dispatcher;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PresenceHeartbeatTest {
+
+    @Mock
+    private RedisPresenceManager presenceManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private LocalSessionRegistry sessionRegistry;
+    private PresenceHeartbeat heartbeat;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        sessionRegistry = new LocalSessionRegistry(3, meterRegistry);
+        heartbeat = new PresenceHeartbeat(sessionRegistry, presenceManager, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("One full cycle over the shards refreshes every local session exactly once, in bounded batches")
+    void refreshNextShard_RefreshesEverySessionOncePerCycle() {
+        // given
+        ReflectionTestUtils.setField(heartbeat, "maxBatchSize", 2);
+        Map<String, String> sessions = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            sessions.put("session-" + i, "user-" + (i % 7));
+        }
+        sessions.forEach(sessionRegistry::register);
+        sessionRegistry.register("session-gone", "user-x");
+        sessionRegistry.unregister("session-gone");
+
+        List<Map<String, String>> batches = new ArrayList<>();
+        doAnswer(invocation -> {
+            Map<String, String> batch = invocation.getArgument(0);
+            batches.add(new HashMap<>(batch));
+            return (long) batch.size();
+        }).when(presenceManager).refreshAll(anyMap());
+
+        // when
+        for (int i = 0; i < sessionRegistry.shardCount(); i++) {
+            heartbeat.refreshNextShard();
+        }
+
+        // then
+        Map<String, String> refreshed = new HashMap<>();
+        batches.forEach(batch -> {
+            assertThat(batch.size()).isLessThanOrEqualTo(2);
+            batch.forEach((sessionId, userId) -> assertThat(refreshed.put(sessionId, userId)).isNull());
+        });
+        assertThat(refreshed).isEqualTo(sessions);
+        assertThat(meterRegistry.get("notification.presence.heartbeat.refreshed").counter().count()).isEqualTo(20.0);
+        assertThat(meterRegistry.get("notification.presence.local.sessions").gauge().value()).isEqualTo(20.0);
+    }
+
+    @Test
+    @DisplayName("A failed refresh does not stop the next shards from being refreshed")
+    void refreshNextShard_ContinuesAfterFailure() {
+        // given
+        for (int i = 0; i < 30; i++) {
+            sessionRegistry.register("session-" + i, "user-" + i);
+        }
+        doThrow(new IllegalStateException("redis down")).doReturn(10L).when(presenceManager).refreshAll(anyMap());
+
+        // when
+        for (int i = 0; i < sessionRegistry.shardCount(); i++) {
+            heartbeat.refreshNextShard();
+        }
+
+        // then
+        verify(presenceManager, times(3)).refreshAll(anyMap());
+    }
+
+    @Test
+    @DisplayName("Sessions Redis no longer holds are counted as skipped, never marked online again")
+    void refreshNextShard_NeverMarksSessionsOnline() {
+        // given: session-1 disconnected between the shard snapshot and the refresh
+        sessionRegistry = new LocalSessionRegistry(1, meterRegistry);
+        heartbeat = new PresenceHeartbeat(sessionRegistry, presenceManager, meterRegistry);
+        sessionRegistry.register("session-1", "user-1");
+        sessionRegistry.register("session-2", "user-2");
+        when(presenceManager.refreshAll(anyMap())).thenReturn(1L);
+
+        // when
+        heartbeat.refreshNextShard();
+
+        // then
+        verify(presenceManager, never()).setOnlineAll(anyMap());
+        assertThat(meterRegistry.get("notification.presence.heartbeat.refreshed").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("notification.presence.heartbeat.skipped").counter().count()).isEqualTo(1.0);
+    }
+}
@@ -1,19 +1,23 @@
 package com.notification.platform.dispatcher;
 
+import com.notification.platform.config.GatewayNode;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.StringRedisConnection;
 import org.springframework.data.redis.core.RedisCallback;
-import org.springframework.data.redis.core.SetOperations;
 import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.data.redis.core.script.RedisScript;
 
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -26,31 +30,65 @@ class RedisPresenceManagerTest {
     @Mock
     private StringRedisTemplate redisTemplate;
 
-    @Mock
-    private SetOperations<String, String> setOperations;
-
-    @Mock
-    private ValueOperations<String, String> valueOperations;
-
     private RedisPresenceManager presenceManager;
 
     @BeforeEach
     void setUp() {
-        presenceManager = new RedisPresenceManager(redisTemplate);
+        presenceManager = new RedisPresenceManager(redisTemplate, GatewayNode.fixed(3));
     }
 
     @Test
-    void setOnline_shouldStoreInRedisWithTTL() {
+    void setOnline_shouldStoreInRedisWithTTLInOneScript() {
         String userId = "user123";
         String sessionId = "sessionABC";
-        when(redisTemplate.opsForSet()).thenReturn(setOperations);
-        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
 
         presenceManager.setOnline(userId, sessionId);
 
-        verify(setOperations).add(eq("presence:user123"), eq("sessionABC"));
-        verify(redisTemplate).expire(eq("presence:user123"), eq(Duration.ofMinutes(5)));
-        verify(valueOperations).set(eq("session:sessionABC"), eq("user123"), eq(Duration.ofMinutes(5)));
+        verify(redisTemplate).execute(any(RedisScript.class),
+                eq(List.of("presence:user123", "session:sessionABC", "presence-route:user123")),
+                eq(sessionId), eq(userId), eq(String.valueOf(Duration.ofMinutes(5).toMillis())), eq("3:sessionABC"),
+                anyString(), anyString());
+        verifyNoMoreInteractions(redisTemplate);
+    }
+
+    @Test
+    void setOnlineAll_shouldWriteEverySessionInOnePipeline() {
+        StringRedisConnection connection = mock(StringRedisConnection.class);
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            invocation.<RedisCallback<Object>>getArgument(0).doInRedis(connection);
+            return List.of();
+        });
+
+        presenceManager.setOnlineAll(Map.of("sessionA", "user1", "sessionB", "user2"));
+
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+        long ttl = Duration.ofMinutes(5).toMillis();
+        verify(connection).sAdd("presence:user1", "sessionA");
+        verify(connection).pExpire("presence:user1", ttl);
+        verify(connection).pSetEx("session:sessionA", ttl, "user1");
+        verify(connection).zAdd(eq("presence-route:user1"), anyDouble(), eq("3:sessionA"));
+        verify(connection).zRemRangeByScore(eq("presence-route:user1"), eq(0.0), anyDouble());
+        verify(connection).pExpire("presence-route:user1", ttl);
+        verify(connection).sAdd("presence:user2", "sessionB");
+        verify(connection).pSetEx("session:sessionB", ttl, "user2");
+    }
+
+    @Test
+    void refreshAll_shouldRenewOnlyMemberSessionsInOneScript() {
+        Map<String, String> sessions = new LinkedHashMap<>();
+        sessions.put("sessionA", "user1");
+        sessions.put("sessionB", "user2");
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(1L);
+
+        long refreshed = presenceManager.refreshAll(sessions);
+
+        assertThat(refreshed).isEqualTo(1);
+        verify(redisTemplate).execute(any(RedisScript.class),
+                eq(List.of("presence:user1", "session:sessionA", "presence-route:user1",
+                        "presence:user2", "session:sessionB", "presence-route:user2")),
+                eq(String.valueOf(Duration.ofMinutes(5).toMillis())), anyString(), anyString(),
+                eq("sessionA"), eq("user1"), eq("3:sessionA"), eq("sessionB"), eq("user2"), eq("3:sessionB"));
+        verify(redisTemplate, never()).executePipelined(any(RedisCallback.class));
     }
 
     @Test
@@ -63,6 +101,34 @@ class RedisPresenceManagerTest {
         assertThat(result).isTrue();
     }
 
+    @Test
+    void findOnline_shouldReturnOnlyExistingUsersFromOnePipeline() {
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenReturn(Arrays.asList(true, false, true));
+
+        Set<String> result = presenceManager.findOnline(List.of("user1", "user2", "user3"));
+
+        assertThat(result).containsExactlyInAnyOrder("user1", "user3");
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void findRoutes_shouldReturnGatewayNodesOfOnlineUsersFromOnePipeline() {
+        when(redisTemplate.executePipelined(any(RedisCallback.class)))
+                .thenReturn(Arrays.asList(Set.of("3:sessionA", "7:sessionB"), Set.of(), Set.of("3:sessionC")));
+
+        Map<String, Set<Integer>> routes = presenceManager.findRoutes(List.of("user1", "user2", "user3"));
+
+        assertThat(routes).containsOnly(Map.entry("user1", Set.of(3, 7)), Map.entry("user3", Set.of(3)));
+        // Expired entries (e.g. of a crashed gateway node) are filtered out by score
+        StringRedisConnection connection = mock(StringRedisConnection.class);
+        ArgumentCaptor<RedisCallback<Object>> pipeline = ArgumentCaptor.forClass(RedisCallback.class);
+        verify(redisTemplate).executePipelined(pipeline.capture());
+        pipeline.getValue().doInRedis(connection);
+        verify(connection).zRangeByScore(eq("presence-route:user1"), anyDouble(), eq(Double.MAX_VALUE));
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+    }
+
     @Test
     void setOffline_shouldExecuteLuaScript() {
         String userId = "user123";
@@ -70,6 +136,8 @@ class RedisPresenceManagerTest {
 
         presenceManager.setOffline(userId, sessionId);
 
-        verify(redisTemplate).execute(any(RedisScript.class), anyList(), eq(sessionId));
+        verify(redisTemplate).execute(any(RedisScript.class),
+                eq(List.of("presence:user123", "session:sessionABC", "presence-route:user123")),
+                eq(sessionId), eq("3:sessionABC"));
     }
 }
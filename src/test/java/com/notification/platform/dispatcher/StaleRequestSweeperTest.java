@@ -0,0 +1,167 @@
+package com.notification.platform.dispatcher;
+
+import com.notification.platform.config.SchedulerLock;
+import com.notification.platform.domain.entity.NotificationRequest;
+import com.notification.platform.domain.enums.NotificationChannel;
+import com.notification.platform.domain.enums.NotificationIngressStatus;
+import com.notification.platform.domain.enums.NotificationPriority;
+import com.notification.platform.domain.repository.NotificationRequestRepository;
+import com.notification.platform.messaging.send.KafkaSendPipeline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StaleRequestSweeperTest {
+
+    @Mock
+    private NotificationRequestRepository repository;
+
+    @Mock
+    private KafkaSendPipeline sendPipeline;
+
+    @Mock
+    private SchedulerLock schedulerLock;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private StaleRequestSweeper sweeper;
+
+    private final SchedulerLock.Lease lease = new SchedulerLock.Lease(StaleRequestSweeper.SWEEPER_LOCK, 7L);
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        sweeper = new StaleRequestSweeper(repository, sendPipeline, schedulerLock, jdbcTemplate, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Does nothing while another instance holds the sweeper lease")
+    void sweep_SkipsWithoutLease() {
+        // given
+        given(schedulerLock.tryAcquire(eq(StaleRequestSweeper.SWEEPER_LOCK), any())).willReturn(Optional.empty());
+
+        // when
+        sweeper.sweep();
+
+        // then
+        verifyNoInteractions(repository, sendPipeline, jdbcTemplate);
+        assertThat(meterRegistry.get("notification.sweeper.lag").gauge().value()).isNaN();
+    }
+
+    @Test
+    @DisplayName("Re-dispatches the stale window after the watermark and moves the watermark to the end of the window")
+    @SuppressWarnings("unchecked")
+    void sweep_RedispatchesWindowAndAdvancesWatermark() {
+        // given
+        OffsetDateTime watermark = OffsetDateTime.now(ZoneOffset.UTC).minusMinutes(2);
+        given(schedulerLock.tryAcquire(eq(StaleRequestSweeper.SWEEPER_LOCK), any())).willReturn(Optional.of(lease));
+        given(schedulerLock.renew(eq(lease), any())).willReturn(true);
+        given(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(StaleRequestSweeper.SWEEPER_LOCK)))
+                .willReturn(List.of(new StaleRequestSweeper.Watermark(watermark, 42L)));
+        given(jdbcTemplate.queryForObject(anyString(), eq(Long.class), any(), any(), any(), any())).willReturn(2L);
+        given(repository.findAcceptedAfter(anyLong(), anyLong(), any(), any(), anyLong(), anyInt()))
+                .willReturn(List.of(request(1L, watermark.minusMinutes(1)), request(2L, watermark.plusSeconds(30))));
+        given(sendPipeline.sendRequest(anyString(), any(), anyString(), any(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(true));
+
+        // when
+        sweeper.sweep();
+
+        // then: the page starts one lookback (5 minutes) before the watermark
+        ArgumentCaptor<OffsetDateTime> after = ArgumentCaptor.forClass(OffsetDateTime.class);
+        verify(repository).findAcceptedAfter(anyLong(), anyLong(), any(), after.capture(), eq(0L), eq(500));
+        assertThat(after.getValue()).isEqualTo(watermark.minusMinutes(5));
+        verify(sendPipeline, times(2)).sendRequest(anyString(), eq(NotificationPriority.NORMAL), eq("user-1"), any(), anyLong());
+
+        // The short page exhausted the window, so the watermark moves up to the stale threshold
+        ArgumentCaptor<Object> savedAt = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcTemplate).update(anyString(), eq(StaleRequestSweeper.SWEEPER_LOCK), savedAt.capture(), eq(0L),
+                eq(StaleRequestSweeper.SWEEPER_LOCK), eq(7L));
+        assertThat((OffsetDateTime) savedAt.getValue()).isAfter(watermark);
+
+        assertThat(meterRegistry.get("notification.sweeper.redispatched").tag("outcome", "acked").counter().count()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("notification.sweeper.backlog").gauge().value()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("notification.sweeper.lag").gauge().value()).isLessThan(60.0);
+    }
+
+    @Test
+    @DisplayName("Continues from the last re-dispatched request when the per-tick batch limit is reached")
+    @SuppressWarnings("unchecked")
+    void sweep_StopsAtBatchLimit() {
+        // given
+        ReflectionTestUtils.setField(sweeper, "batchSize", 2);
+        ReflectionTestUtils.setField(sweeper, "maxBatchesPerRun", 1);
+        OffsetDateTime watermark = OffsetDateTime.now(ZoneOffset.UTC).minusMinutes(10);
+        OffsetDateTime lastRequestedAt = watermark.plusMinutes(1);
+        given(schedulerLock.tryAcquire(eq(StaleRequestSweeper.SWEEPER_LOCK), any())).willReturn(Optional.of(lease));
+        given(schedulerLock.renew(eq(lease), any())).willReturn(true);
+        given(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(StaleRequestSweeper.SWEEPER_LOCK)))
+                .willReturn(List.of(new StaleRequestSweeper.Watermark(watermark, 0L)));
+        given(repository.findAcceptedAfter(anyLong(), anyLong(), any(), any(), anyLong(), eq(2)))
+                .willReturn(List.of(request(1L, watermark), request(2L, lastRequestedAt)));
+        given(sendPipeline.sendRequest(anyString(), any(), anyString(), any(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(false));
+
+        // when
+        sweeper.sweep();
+
+        // then: the unfinished window is resumed after the cursor, failed sends stay ACCEPTED for the lookback
+        verify(repository, times(1)).findAcceptedAfter(anyLong(), anyLong(), any(), any(), anyLong(), anyInt());
+        verify(jdbcTemplate).update(anyString(), eq(StaleRequestSweeper.SWEEPER_LOCK), eq(lastRequestedAt), eq(2L),
+                eq(StaleRequestSweeper.SWEEPER_LOCK), eq(7L));
+        assertThat(meterRegistry.get("notification.sweeper.redispatched").tag("outcome", "failed").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("Stops before sending once the lease was taken over by another instance")
+    @SuppressWarnings("unchecked")
+    void sweep_StopsWhenLeaseIsLost() {
+        // given
+        given(schedulerLock.tryAcquire(eq(StaleRequestSweeper.SWEEPER_LOCK), any())).willReturn(Optional.of(lease));
+        given(schedulerLock.renew(eq(lease), any())).willReturn(false);
+        given(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(StaleRequestSweeper.SWEEPER_LOCK))).willReturn(List.of());
+        given(repository.findAcceptedAfter(anyLong(), anyLong(), any(), any(), anyLong(), anyInt()))
+                .willReturn(List.of(request(1L, OffsetDateTime.now().minusMinutes(1))));
+
+        // when
+        sweeper.sweep();
+
+        // then
+        verifyNoInteractions(sendPipeline);
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+
+    private NotificationRequest request(Long id, OffsetDateTime requestedAt) {
+        return NotificationRequest.builder()
+                .id(id)
+                .recipientId("user-1")
+                .channel(NotificationChannel.EMAIL)
+                .producerName("TEST")
+                .priority(NotificationPriority.NORMAL)
+                .status(NotificationIngressStatus.ACCEPTED)
+                .requestedAt(requestedAt)
+                .build();
+    }
+}
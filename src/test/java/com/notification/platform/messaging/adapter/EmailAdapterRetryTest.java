@@ -1,11 +1,10 @@
 package com.notification.platform.messaging.adapter;
 
-import com.notification.platform.domain.entity.DeliveryLog;
-import com.notification.platform.domain.entity.NotificationRequest;
 import com.notification.platform.domain.enums.DeliveryStatus;
 import com.notification.platform.domain.enums.NotificationChannel;
-import com.notification.platform.domain.repository.DeliveryLogRepository;
+import com.notification.platform.messaging.event.EventPayload;
 import com.notification.platform.messaging.event.NotificationRequestEvent;
+import com.notification.platform.messaging.status.DeliveryStatusAggregator;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,13 +17,12 @@ import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.test.annotation.DirtiesContext;
 
 import java.util.Map;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 import static org.awaitility.Awaitility.await;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
-import static org.junit.jupiter.api.Assertions.assertEquals;
 
 @org.springframework.test.context.ActiveProfiles("test")
 @SpringBootTest(properties = {
@@ -34,7 +32,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
         "management.health.mail.enabled=false",
         "spring.kafka.listener.auto-startup=true"
 })
-@EmbeddedKafka(partitions = 1, brokerProperties = { "listeners=PLAINTEXT://localhost:9092", "port=9092" }, topics = { "notification.email" })
+@EmbeddedKafka(partitions = 1, brokerProperties = { "listeners=PLAINTEXT://localhost:9092", "port=9092" }, topics = { "notification.email", "notification.email.retry" })
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
 class EmailAdapterRetryTest {
 
@@ -45,33 +43,24 @@ class EmailAdapterRetryTest {
     private JavaMailSender mailSender;
 
     @MockBean
-    private DeliveryLogRepository deliveryLogRepository;
+    private DeliveryStatusAggregator statusAggregator;
 
     @Test
     @DisplayName("Should retry 3 times and then route to DLQ on failure")
     void shouldRetryThreeTimesAndThenRouteToDlqOnFailure() throws Exception {
         // given
         Long requestId = System.nanoTime();
+        Long deliveryLogId = requestId + 1;
         NotificationRequestEvent event = NotificationRequestEvent.builder()
                 .requestId(requestId)
                 .recipientId("user-123")
                 .channel(NotificationChannel.EMAIL)
                 .targetAddress("test@example.com")
-                .payload(Map.of("message", "Test content"))
+                .payload(EventPayload.of(Map.of("message", "Test content")))
+                .deliveryLogId(deliveryLogId)
                 .build();
 
-        NotificationRequest mockRequest = NotificationRequest.builder()
-                .id(requestId)
-                .build();
-
-        DeliveryLog mockLog = DeliveryLog.builder()
-                .id(System.nanoTime())
-                .request(mockRequest)
-                .channel(NotificationChannel.EMAIL)
-                .build();
-
-        when(deliveryLogRepository.findByRequestIdAndChannel(requestId, NotificationChannel.EMAIL))
-                .thenReturn(Optional.of(mockLog));
+        when(statusAggregator.record(any(), any(), any())).thenReturn(CompletableFuture.completedFuture(null));
 
         // Mock mailSender to always throw an exception
         doThrow(new RuntimeException("Simulated mail server down"))
@@ -81,7 +70,7 @@ class EmailAdapterRetryTest {
         kafkaTemplate.send("notification.email", event.getRecipientId(), event);
 
         // then
-        // 1. Verify that mailSender.send() was called exactly 4 times (1 initial + 3 retries)
+        // 1. Verify that mailSender.send() was called exactly 4 times (1 initial + 3 on the retry topics)
         // Awaitility handles the asynchronous nature of the delays (1s -> 2s -> 4s)
         await().atMost(15, TimeUnit.SECONDS).untilAsserted(() -> {
             verify(mailSender, times(4)).send(any(SimpleMailMessage.class));
@@ -89,7 +78,8 @@ class EmailAdapterRetryTest {
 
         // 2. Verify that after exhausting retries, DltHandler is invoked and status is set to FAILED
         await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> {
-            assertEquals(DeliveryStatus.FAILED, mockLog.getStatus());
+            verify(statusAggregator).record(eq(deliveryLogId), eq(DeliveryStatus.FAILED), anyString());
         });
+        verify(statusAggregator, never()).record(any(), eq(DeliveryStatus.DELIVERED), any());
     }
 }
@@ -0,0 +1,209 @@
+package com.notification.platform.messaging.adapter;
+
+import com.notification.platform.config.GatewayNode;
+import com.notification.platform.config.UserDestinationBroker;
+import com.notification.platform.dispatcher.DispatcherService;
+import com.notification.platform.dispatcher.LocalSessionRegistry;
+import com.notification.platform.dispatcher.PresenceManager;
+import com.notification.platform.domain.enums.DeliveryStatus;
+import com.notification.platform.domain.enums.NotificationChannel;
+import com.notification.platform.domain.repository.DeliveryLogRepository;
+import com.notification.platform.messaging.event.EventPayload;
+import com.notification.platform.messaging.event.NotificationRequestEvent;
+import com.notification.platform.messaging.status.DeliveryStatusAggregator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InAppAdapterTest {
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Mock
+    private DeliveryLogRepository deliveryLogRepository;
+
+    @Mock
+    private KeyOrderedDeliveryProcessor deliveryProcessor;
+
+    @Mock
+    private DeliveryStatusAggregator statusAggregator;
+
+    @Mock
+    private DispatcherService dispatcherService;
+
+    @Mock
+    private PresenceManager presenceManager;
+
+    private LocalSessionRegistry sessionRegistry;
+    private InAppAdapter inAppAdapter;
+
+    @BeforeEach
+    void setUp() {
+        sessionRegistry = new LocalSessionRegistry(4, new SimpleMeterRegistry());
+        inAppAdapter = new InAppAdapter(messagingTemplate, deliveryLogRepository, deliveryProcessor, statusAggregator, sessionRegistry,
+                dispatcherService, presenceManager, GatewayNode.fixed(0));
+    }
+
+    @Test
+    @DisplayName("Pushes the event to the recipient's destination and marks it delivered once a session wrote it")
+    void deliver_ConnectedRecipient_PushesAndMarksDelivered() {
+        // given
+        sessionRegistry.register("session-1", "user-1");
+        given(statusAggregator.record(10L, DeliveryStatus.DISPATCHED, null)).willReturn(CompletableFuture.completedFuture(null));
+        given(statusAggregator.record(10L, DeliveryStatus.DELIVERED, null)).willReturn(CompletableFuture.completedFuture(null));
+
+        // when
+        inAppAdapter.deliver(event("user-1")).join();
+
+        // then: dispatched until the session's transport reports the write
+        verify(statusAggregator).record(10L, DeliveryStatus.DISPATCHED, null);
+        verify(statusAggregator, never()).record(10L, DeliveryStatus.DELIVERED, null);
+        receipt("/topic/notifications/user-1").complete(true);
+        verify(statusAggregator, timeout(5000)).record(10L, DeliveryStatus.DELIVERED, null);
+        verifyNoInteractions(dispatcherService);
+    }
+
+    @Test
+    @DisplayName("Falls back to EMAIL when no session wrote the pushed event before it was evicted or discarded")
+    void deliver_NotWritten_ReroutesToEmail() {
+        // given
+        sessionRegistry.register("session-1", "user-1");
+        NotificationRequestEvent event = event("user-1");
+        given(statusAggregator.record(10L, DeliveryStatus.DISPATCHED, null)).willReturn(CompletableFuture.completedFuture(null));
+        given(dispatcherService.rerouteToEmail(event)).willReturn(CompletableFuture.completedFuture(null));
+        given(statusAggregator.record(10L, DeliveryStatus.FAILED, InAppAdapter.NOT_WRITTEN_REROUTED))
+                .willReturn(CompletableFuture.completedFuture(null));
+
+        // when
+        inAppAdapter.deliver(event).join();
+        receipt("/topic/notifications/user-1").complete(false);
+
+        // then
+        verify(dispatcherService, timeout(5000)).rerouteToEmail(event);
+        verify(statusAggregator, timeout(5000)).record(10L, DeliveryStatus.FAILED, InAppAdapter.NOT_WRITTEN_REROUTED);
+        verify(statusAggregator, never()).record(10L, DeliveryStatus.DELIVERED, null);
+    }
+
+    @Test
+    @DisplayName("Falls back to EMAIL instead of pushing into the void once the recipient has gone offline")
+    void deliver_DisconnectedRecipient_ReroutesToEmail() {
+        // given: only this node's own route is left, not yet removed
+        sessionRegistry.register("session-1", "user-1");
+        sessionRegistry.unregister("session-1");
+        NotificationRequestEvent event = event("user-1");
+        given(presenceManager.findRoutes(List.of("user-1"))).willReturn(Map.of("user-1", Set.of(0)));
+        given(dispatcherService.rerouteToEmail(event)).willReturn(CompletableFuture.completedFuture(null));
+        given(statusAggregator.record(10L, DeliveryStatus.FAILED, InAppAdapter.NOT_CONNECTED_REROUTED))
+                .willReturn(CompletableFuture.completedFuture(null));
+
+        // when
+        inAppAdapter.deliver(event).join();
+
+        // then
+        verifyNoInteractions(messagingTemplate);
+        verify(dispatcherService).rerouteToEmail(event);
+        verify(statusAggregator).record(10L, DeliveryStatus.FAILED, InAppAdapter.NOT_CONNECTED_REROUTED);
+    }
+
+    @Test
+    @DisplayName("Does not email a recipient who has moved to another node, which owns the in-app delivery")
+    void deliver_ConnectedElsewhere_DoesNotReroute() {
+        // given
+        given(presenceManager.findRoutes(List.of("user-1"))).willReturn(Map.of("user-1", Set.of(2)));
+        given(statusAggregator.record(10L, DeliveryStatus.FAILED, InAppAdapter.CONNECTED_ELSEWHERE))
+                .willReturn(CompletableFuture.completedFuture(null));
+
+        // when
+        inAppAdapter.deliver(event("user-1")).join();
+
+        // then
+        verifyNoInteractions(messagingTemplate, dispatcherService);
+        verify(statusAggregator).record(10L, DeliveryStatus.FAILED, InAppAdapter.CONNECTED_ELSEWHERE);
+    }
+
+    @Test
+    @DisplayName("A retry consumed by a node without the recipient's session falls back to EMAIL")
+    void consumeRetry_NotConnectedHere_ReroutesToEmail() {
+        // given
+        NotificationRequestEvent event = event("user-1");
+        given(presenceManager.findRoutes(List.of("user-1"))).willReturn(Map.of());
+        given(dispatcherService.rerouteToEmail(event)).willReturn(CompletableFuture.completedFuture(null));
+        given(statusAggregator.record(10L, DeliveryStatus.FAILED, InAppAdapter.NOT_CONNECTED_REROUTED))
+                .willReturn(CompletableFuture.completedFuture(null));
+
+        // when
+        inAppAdapter.consumeRetry(event);
+
+        // then
+        verifyNoInteractions(messagingTemplate);
+        verify(dispatcherService).rerouteToEmail(event);
+        verify(statusAggregator).record(10L, DeliveryStatus.FAILED, InAppAdapter.NOT_CONNECTED_REROUTED);
+    }
+
+    @Test
+    @DisplayName("A retry consumed by another node than the one holding the session sends no duplicate email")
+    void consumeRetry_ConnectedElsewhere_DoesNotReroute() {
+        // given
+        given(presenceManager.findRoutes(List.of("user-1"))).willReturn(Map.of("user-1", Set.of(0, 3)));
+        given(statusAggregator.record(10L, DeliveryStatus.FAILED, InAppAdapter.CONNECTED_ELSEWHERE))
+                .willReturn(CompletableFuture.completedFuture(null));
+
+        // when
+        inAppAdapter.consumeRetry(event("user-1"));
+
+        // then
+        verifyNoInteractions(messagingTemplate, dispatcherService);
+    }
+
+    @Test
+    @DisplayName("A retry consumed by the node holding the session is pushed as usual")
+    void consumeRetry_ConnectedHere_Pushes() {
+        // given
+        sessionRegistry.register("session-1", "user-1");
+        given(statusAggregator.record(10L, DeliveryStatus.DISPATCHED, null)).willReturn(CompletableFuture.completedFuture(null));
+
+        // when
+        inAppAdapter.consumeRetry(event("user-1"));
+
+        // then
+        verify(messagingTemplate).send(eq("/topic/notifications/user-1"), any(Message.class));
+        verify(statusAggregator).record(10L, DeliveryStatus.DISPATCHED, null);
+        verifyNoInteractions(dispatcherService);
+    }
+
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<Boolean> receipt(String destination) {
+        ArgumentCaptor<Message<?>> message = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate).send(eq(destination), message.capture());
+        return message.getValue().getHeaders().get(UserDestinationBroker.RECEIPT_HEADER, CompletableFuture.class);
+    }
+
+    private NotificationRequestEvent event(String recipientId) {
+        return NotificationRequestEvent.builder()
+                .requestId(1L)
+                .deliveryLogId(10L)
+                .recipientId(recipientId)
+                .channel(NotificationChannel.IN_APP)
+                .payload(EventPayload.of(Map.of("msg", "hello")))
+                .build();
+    }
+}
@@ -0,0 +1,167 @@
+package com.notification.platform.messaging.adapter;
+
+import com.notification.platform.domain.enums.NotificationChannel;
+import com.notification.platform.messaging.event.EventPayload;
+import com.notification.platform.messaging.event.NotificationRequestEvent;
+import com.notification.platform.messaging.priority.PriorityKafkaTemplates;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KeyOrderedDeliveryProcessorTest {
+
+    private static final String TOPIC = "notification.email";
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    private KeyOrderedDeliveryProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        processor = new KeyOrderedDeliveryProcessor(new PriorityKafkaTemplates(kafkaTemplate, kafkaTemplate));
+    }
+
+    @AfterEach
+    void tearDown() {
+        processor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Records of the same recipient are delivered in offset order and the whole batch completes before returning")
+    void process_KeepsPerKeyOrder() {
+        // given
+        List<ConsumerRecord<String, NotificationRequestEvent>> records = List.of(
+                record(0, "user-1", 1L), record(1, "user-2", 2L), record(2, "user-1", 3L),
+                record(3, "user-2", 4L), record(4, "user-1", 5L));
+        Map<String, List<Long>> delivered = new ConcurrentHashMap<>();
+
+        // when
+        processor.process(records, event -> {
+            delivered.computeIfAbsent(event.getRecipientId(), key -> new CopyOnWriteArrayList<>()).add(event.getRequestId());
+            return CompletableFuture.completedFuture(null);
+        });
+
+        // then
+        assertThat(delivered.get("user-1")).containsExactly(1L, 3L, 5L);
+        assertThat(delivered.get("user-2")).containsExactly(2L, 4L);
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    @DisplayName("A failed delivery is forwarded to the retry topic and the rest of its key follows it there")
+    void process_ForwardsFailureAndRestOfKeyToRetryTopic() {
+        // given
+        List<ConsumerRecord<String, NotificationRequestEvent>> records = List.of(
+                record(0, "user-1", 1L), record(1, "user-2", 2L), record(2, "user-1", 3L));
+        List<Long> delivered = new CopyOnWriteArrayList<>();
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        // when
+        processor.process(records, event -> {
+            if (event.getRequestId() == 1L) {
+                throw new RuntimeException("SMTP timeout");
+            }
+            delivered.add(event.getRequestId());
+            return CompletableFuture.completedFuture(null);
+        });
+
+        // then
+        assertThat(delivered).containsExactly(2L);
+        InOrder inOrder = inOrder(kafkaTemplate);
+        inOrder.verify(kafkaTemplate).send(eq(TOPIC + KeyOrderedDeliveryProcessor.RETRY_SUFFIX), eq("user-1"), eq(records.get(0).value()));
+        inOrder.verify(kafkaTemplate).send(eq(TOPIC + KeyOrderedDeliveryProcessor.RETRY_SUFFIX), eq("user-1"), eq(records.get(2).value()));
+        verifyNoMoreInteractions(kafkaTemplate);
+    }
+
+    @Test
+    @DisplayName("If a failed record cannot be forwarded the batch fails at that record so its offset is not committed")
+    void process_FailsBatchAtUnforwardedRecord() {
+        // given
+        List<ConsumerRecord<String, NotificationRequestEvent>> records = List.of(
+                record(0, "user-1", 1L), record(1, "user-2", 2L), record(2, "user-3", 3L));
+        when(kafkaTemplate.send(anyString(), anyString(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Broker unavailable")));
+
+        // when & then
+        assertThatThrownBy(() -> processor.process(records, event -> {
+            if (event.getRequestId() != 1L) {
+                throw new RuntimeException("SMTP timeout");
+            }
+            return CompletableFuture.completedFuture(null);
+        }))
+                .isInstanceOf(BatchListenerFailedException.class)
+                .satisfies(e -> assertThat(((BatchListenerFailedException) e).getRecord()).isSameAs(records.get(1)));
+    }
+
+    @Test
+    @DisplayName("A record whose status write has not completed bounds the batch, even if later records are done")
+    void process_FailsBatchAtUnpersistedRecord() {
+        // given
+        ReflectionTestUtils.setField(processor, "completionTimeoutMs", 50L);
+        List<ConsumerRecord<String, NotificationRequestEvent>> records = List.of(
+                record(0, "user-1", 1L), record(1, "user-2", 2L), record(2, "user-3", 3L));
+
+        // when & then
+        assertThatThrownBy(() -> processor.process(records, event -> event.getRequestId() == 2L
+                ? new CompletableFuture<Void>()
+                : CompletableFuture.completedFuture(null)))
+                .isInstanceOf(BatchListenerFailedException.class)
+                .satisfies(e -> assertThat(((BatchListenerFailedException) e).getRecord()).isSameAs(records.get(1)));
+    }
+
+    @Test
+    @DisplayName("Records that completed behind a failed one are not delivered again when the batch is redelivered")
+    void process_SkipsRecordsCompletedBeforeRedelivery() {
+        // given
+        ReflectionTestUtils.setField(processor, "completionTimeoutMs", 50L);
+        List<ConsumerRecord<String, NotificationRequestEvent>> records = List.of(
+                record(0, "user-1", 1L), record(1, "user-2", 2L), record(2, "user-3", 3L));
+        List<Long> delivered = new CopyOnWriteArrayList<>();
+        assertThatThrownBy(() -> processor.process(records, event -> {
+            delivered.add(event.getRequestId());
+            return event.getRequestId() == 2L ? new CompletableFuture<Void>() : CompletableFuture.completedFuture(null);
+        })).isInstanceOf(BatchListenerFailedException.class);
+        delivered.clear();
+
+        // when: the container redelivers from the failed record
+        processor.process(records.subList(1, 3), event -> {
+            delivered.add(event.getRequestId());
+            return CompletableFuture.completedFuture(null);
+        });
+
+        // then
+        assertThat(delivered).containsExactly(2L);
+    }
+
+    private ConsumerRecord<String, NotificationRequestEvent> record(long offset, String key, Long requestId) {
+        NotificationRequestEvent event = NotificationRequestEvent.builder()
+                .requestId(requestId)
+                .recipientId(key)
+                .channel(NotificationChannel.EMAIL)
+                .targetAddress(key + "@example.com")
+                .payload(EventPayload.of(Map.of("message", "hello")))
+                .build();
+        return new ConsumerRecord<>(TOPIC, 0, offset, key, event);
+    }
+}
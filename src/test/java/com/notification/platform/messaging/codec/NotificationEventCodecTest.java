@@ -0,0 +1,157 @@
+package com.notification.platform.messaging.codec;
+
+import com.notification.platform.domain.enums.NotificationChannel;
+import com.notification.platform.domain.enums.NotificationPriority;
+import com.notification.platform.messaging.event.EventPayload;
+import com.notification.platform.messaging.event.NotificationRequestEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NotificationEventCodecTest {
+
+    private static final String TOPIC = "notification.email";
+
+    @Test
+    @DisplayName("Binary encoding round-trips every field and carries the payload JSON verbatim")
+    void encode_RoundTripsEvent() {
+        // given
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("message", "안녕하세요 👋");
+        payload.put("count", 3);
+        payload.put("orderId", 1029384756123L);
+        payload.put("amount", 12.5);
+        payload.put("urgent", true);
+        payload.put("missing", null);
+        payload.put("items", List.of(Map.of("sku", "A-1"), "plain", -7));
+        NotificationRequestEvent event = NotificationRequestEvent.builder()
+                .requestId(-42L)
+                .recipientId("user-1")
+                .channel(NotificationChannel.IN_APP)
+                .targetAddress(null)
+                .priority(NotificationPriority.HIGH)
+                .payload(EventPayload.of(payload))
+                .build();
+
+        // when
+        byte[] bytes = NotificationEventCodec.encode(event);
+        NotificationRequestEvent decoded = NotificationEventCodec.decode(bytes);
+
+        // then
+        assertThat(bytes[0]).isEqualTo(NotificationEventCodec.VERSION);
+        assertThat(decoded).usingRecursiveComparison().ignoringFields("payload").isEqualTo(event);
+        assertThat(decoded.getPayload().json()).isEqualTo(event.getPayload().json());
+        assertThat(decoded.getPayload().asMap()).isEqualTo(payload);
+        assertThat(decoded.getPayload().asMap().get("count")).isInstanceOf(Integer.class);
+        assertThat(decoded.getPayload().asMap().get("orderId")).isInstanceOf(Long.class);
+    }
+
+    @Test
+    @DisplayName("The admin retry log id round-trips with the event")
+    void encode_RoundTripsDeliveryLogId() {
+        // given
+        NotificationRequestEvent event = sampleEvent().toBuilder().deliveryLogId(200L).build();
+
+        // when
+        NotificationRequestEvent decoded = NotificationEventCodec.decode(NotificationEventCodec.encode(event));
+
+        // then
+        assertThat(decoded.getDeliveryLogId()).isEqualTo(200L);
+    }
+
+    @Test
+    @DisplayName("Records with an unknown format version are rejected with a SerializationException")
+    void decode_RejectsUnknownVersion() {
+        // given
+        byte[] bytes = NotificationEventCodec.encode(sampleEvent());
+        bytes[0] = (byte) (NotificationEventCodec.VERSION + 1);
+
+        // when & then
+        assertThatThrownBy(() -> NotificationEventCodec.decode(bytes))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    @DisplayName("The deserializer still reads JSON records written by producers without write-format binary")
+    void deserializer_FallsBackToJson() {
+        // given
+        NotificationRequestEvent event = sampleEvent();
+        JsonSerializer<Object> legacySerializer = new JsonSerializer<>();
+        RecordHeaders headers = new RecordHeaders();
+        byte[] json = legacySerializer.serialize(TOPIC, headers, event);
+
+        NotificationEventDeserializer deserializer = new NotificationEventDeserializer();
+        deserializer.configure(Map.of(JsonDeserializer.TRUSTED_PACKAGES, "com.notification.platform.messaging.event"), false);
+
+        // when
+        Object decoded = deserializer.deserialize(TOPIC, headers, json);
+
+        // then
+        assertThat(NotificationEventCodec.isBinary(json)).isFalse();
+        assertThat(decoded).usingRecursiveComparison().ignoringFields("payload").isEqualTo(event);
+        assertThat(((NotificationRequestEvent) decoded).getPayload()).isEqualTo(event.getPayload());
+    }
+
+    @Test
+    @DisplayName("Without a write-format the serializer keeps producing JSON for older consumers")
+    void serializer_DefaultsToJson() {
+        // given
+        NotificationEventSerializer serializer = new NotificationEventSerializer();
+        serializer.configure(Map.of(), false);
+        RecordHeaders headers = new RecordHeaders();
+
+        // when
+        byte[] bytes = serializer.serialize(TOPIC, headers, sampleEvent());
+
+        // then
+        assertThat(bytes[0]).isEqualTo((byte) '{');
+        assertThat(headers.lastHeader("__TypeId__")).isNotNull();
+    }
+
+    @Test
+    @DisplayName("With write-format binary the serializer writes the versioned binary codec")
+    void serializer_HonoursBinaryWriteFormat() {
+        // given
+        NotificationEventSerializer serializer = new NotificationEventSerializer();
+        serializer.configure(Map.of(NotificationEventSerializer.WRITE_FORMAT_CONFIG, "binary"), false);
+        RecordHeaders headers = new RecordHeaders();
+
+        // when
+        byte[] bytes = serializer.serialize(TOPIC, headers, sampleEvent());
+
+        // then
+        assertThat(NotificationEventCodec.isBinary(bytes)).isTrue();
+        assertThat(headers.lastHeader("__TypeId__")).isNull();
+    }
+
+    @Test
+    @DisplayName("Truncated records are rejected with a SerializationException")
+    void decode_RejectsTruncatedRecord() {
+        // given
+        byte[] bytes = NotificationEventCodec.encode(sampleEvent());
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 3);
+
+        // when & then
+        assertThatThrownBy(() -> NotificationEventCodec.decode(truncated))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    private NotificationRequestEvent sampleEvent() {
+        return NotificationRequestEvent.builder()
+                .requestId(1001L)
+                .recipientId("user-1")
+                .channel(NotificationChannel.EMAIL)
+                .targetAddress("user-1@example.com")
+                .priority(NotificationPriority.NORMAL)
+                .payload(EventPayload.of(Map.of("message", "hello")))
+                .build();
+    }
+}
@@ -0,0 +1,113 @@
+package com.notification.platform.messaging.outbox;
+
+import com.notification.platform.domain.entity.NotificationOutbox;
+import com.notification.platform.domain.entity.NotificationRequest;
+import com.notification.platform.domain.enums.NotificationChannel;
+import com.notification.platform.domain.enums.NotificationIngressStatus;
+import com.notification.platform.domain.enums.NotificationPriority;
+import com.notification.platform.domain.repository.NotificationOutboxRepository;
+import com.notification.platform.domain.repository.NotificationRequestRepository;
+import com.notification.platform.messaging.priority.PriorityKafkaTemplates;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationOutboxRelayTest {
+
+    @Mock
+    private NotificationOutboxRepository outboxRepository;
+
+    @Mock
+    private NotificationRequestRepository requestRepository;
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private NotificationOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        relay = new NotificationOutboxRelay(outboxRepository, requestRepository,
+                new PriorityKafkaTemplates(kafkaTemplate, kafkaTemplate), new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(relay, "batchSize", 500);
+        ReflectionTestUtils.setField(relay, "maxBatchesPerRun", 1);
+        ReflectionTestUtils.setField(relay, "sendTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(relay, "claimTtlMs", 60000L);
+        ReflectionTestUtils.setField(relay, "maxAttempts", 10);
+    }
+
+    @Test
+    @DisplayName("Relay claims rows, then marks only broker-acknowledged rows as published and leaves failed ones pending")
+    void relay_MarksAckedRowsPublished() {
+        // given
+        NotificationOutbox acked = NotificationOutbox.builder().id(1L).requestId(10L).build();
+        NotificationOutbox nacked = NotificationOutbox.builder().id(2L).requestId(20L).build();
+        when(outboxRepository.lockNextPending(eq("HIGH"), any(), eq(500))).thenReturn(List.of());
+        when(outboxRepository.lockNextPending(eq("NORMAL"), any(), eq(500))).thenReturn(List.of(acked, nacked));
+        when(requestRepository.findAllById(List.of(10L, 20L)))
+                .thenReturn(List.of(request(10L, "user-1", NotificationIngressStatus.ACCEPTED),
+                        request(20L, "user-2", NotificationIngressStatus.ACCEPTED)));
+
+        when(kafkaTemplate.send(eq("notification.requests"), eq("user-1"), any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(kafkaTemplate.send(eq("notification.requests"), eq("user-2"), any())).thenReturn(CompletableFuture.failedFuture(new RuntimeException("Broker down")));
+
+        // when
+        relay.relay();
+
+        // then
+        verify(outboxRepository).claim(eq(List.of(1L, 2L)), any());
+        verify(outboxRepository).markPublished(eq(Set.of(1L)), any());
+        verify(requestRepository).updateStatusByIdInAndStatus(NotificationIngressStatus.DISPATCHED, List.of(10L),
+                NotificationIngressStatus.ACCEPTED);
+        verify(outboxRepository).incrementAttempts(List.of(2L));
+        verify(outboxRepository).parkExhausted(eq(List.of(2L)), eq(10), any());
+    }
+
+    @Test
+    @DisplayName("Relay does not re-send rows whose request was already re-dispatched, and marks them published")
+    void relay_SkipsRequestsNoLongerAccepted() {
+        // given
+        NotificationOutbox entry = NotificationOutbox.builder().id(1L).requestId(10L).build();
+        when(outboxRepository.lockNextPending(eq("HIGH"), any(), eq(500))).thenReturn(List.of(entry));
+        when(outboxRepository.lockNextPending(eq("NORMAL"), any(), eq(499))).thenReturn(List.of());
+        when(requestRepository.findAllById(List.of(10L)))
+                .thenReturn(List.of(request(10L, "user-1", NotificationIngressStatus.DISPATCHED)));
+
+        // when
+        relay.relay();
+
+        // then
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any());
+        verify(outboxRepository).markPublished(eq(Set.of(1L)), any());
+        verify(requestRepository, never()).updateStatusByIdInAndStatus(any(), any(), any());
+        verify(outboxRepository, never()).incrementAttempts(any());
+    }
+
+    private NotificationRequest request(Long id, String recipientId, NotificationIngressStatus status) {
+        return NotificationRequest.builder()
+                .id(id)
+                .recipientId(recipientId)
+                .channel(NotificationChannel.EMAIL)
+                .priority(NotificationPriority.NORMAL)
+                .status(status)
+                .build();
+    }
+}
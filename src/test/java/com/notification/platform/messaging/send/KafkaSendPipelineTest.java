@@ -0,0 +1,122 @@
+package com.notification.platform.messaging.send;
+
+import com.notification.platform.domain.enums.DeliveryStatus;
+import com.notification.platform.domain.enums.NotificationIngressStatus;
+import com.notification.platform.domain.enums.NotificationPriority;
+import com.notification.platform.domain.repository.NotificationRequestRepository;
+import com.notification.platform.messaging.priority.PriorityKafkaTemplates;
+import com.notification.platform.messaging.status.DeliveryStatusAggregator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KafkaSendPipelineTest {
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Mock
+    private NotificationRequestRepository requestRepository;
+
+    @Mock
+    private DeliveryStatusAggregator statusAggregator;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private KafkaSendPipeline sendPipeline;
+
+    @BeforeEach
+    void setUp() {
+        sendPipeline = new KafkaSendPipeline(new PriorityKafkaTemplates(kafkaTemplate, kafkaTemplate), requestRepository, statusAggregator, new TransactionTemplate(transactionManager));
+        lenient().when(statusAggregator.record(any(), any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    @Test
+    @DisplayName("Acked sends are applied as one guarded bulk UPDATE per status on flush")
+    void flush_AppliesAckedOutcomesInBulk() {
+        // given
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        // when
+        CompletableFuture<Boolean> first = sendPipeline.sendRequest("notification.requests", NotificationPriority.NORMAL, "user-1", "event-1", 10L);
+        CompletableFuture<Boolean> second = sendPipeline.sendRequest("notification.requests", NotificationPriority.NORMAL, "user-2", "event-2", 20L);
+        sendPipeline.sendDelivery("notification.email", NotificationPriority.NORMAL, "user-3", "event-3", 30L);
+        sendPipeline.flush();
+
+        // then
+        assertThat(first).isCompletedWithValue(true);
+        assertThat(second).isCompletedWithValue(true);
+        verify(requestRepository).updateStatusByIdInAndStatus(
+                NotificationIngressStatus.DISPATCHED, List.of(10L, 20L), NotificationIngressStatus.ACCEPTED);
+        verify(statusAggregator).record(30L, DeliveryStatus.QUEUED, null);
+    }
+
+    @Test
+    @DisplayName("Failed and rejected sends never mark anything as sent")
+    void flush_FailedSendsAreRecordedAsFailures() {
+        // given: one send fails asynchronously, the other is rejected by the producer synchronously
+        when(kafkaTemplate.send(eq("notification.email"), eq("user-1"), any()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker down")));
+        when(kafkaTemplate.send(eq("notification.requests"), eq("user-2"), any()))
+                .thenThrow(new IllegalStateException("producer closed"));
+
+        // when
+        CompletableFuture<Boolean> delivery = sendPipeline.sendDelivery("notification.email", NotificationPriority.NORMAL, "user-1", "event-1", 30L);
+        CompletableFuture<Boolean> request = sendPipeline.sendRequest("notification.requests", NotificationPriority.NORMAL, "user-2", "event-2", 20L);
+        sendPipeline.flush();
+
+        // then
+        assertThat(delivery).isCompletedWithValue(false);
+        assertThat(request).isCompletedWithValue(false);
+        verify(statusAggregator).record(eq(30L), eq(DeliveryStatus.FAILED), startsWith("Kafka send failed"));
+        verify(statusAggregator, never()).record(any(), eq(DeliveryStatus.QUEUED), any());
+        verify(requestRepository, never()).updateStatusByIdInAndStatus(any(), anyCollection(), any());
+    }
+
+    @Test
+    @DisplayName("publishRequest reports the ack but leaves the status update to the caller")
+    void publishRequest_DoesNoBookkeeping() {
+        // given
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        // when
+        CompletableFuture<Boolean> published = sendPipeline.publishRequest("notification.requests", NotificationPriority.NORMAL, "user-1", "event-1", 10L);
+        sendPipeline.flush();
+
+        // then
+        assertThat(published).isCompletedWithValue(true);
+        verify(requestRepository, never()).updateStatusByIdInAndStatus(any(), anyCollection(), any());
+    }
+
+    @Test
+    @DisplayName("A delivery send completes only once its QUEUED transition is committed")
+    void sendDelivery_CompletesAfterStatusIsRecorded() {
+        // given
+        CompletableFuture<Void> recorded = new CompletableFuture<>();
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(statusAggregator.record(30L, DeliveryStatus.QUEUED, null)).thenReturn(recorded);
+
+        // when
+        CompletableFuture<Boolean> delivery = sendPipeline.sendDelivery("notification.email", NotificationPriority.NORMAL, "user-3", "event-3", 30L);
+
+        // then
+        assertThat(delivery).isNotDone();
+        recorded.complete(null);
+        assertThat(delivery).isCompletedWithValue(true);
+    }
+}
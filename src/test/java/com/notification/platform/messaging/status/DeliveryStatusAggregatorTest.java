@@ -0,0 +1,105 @@
+package com.notification.platform.messaging.status;
+
+import com.notification.platform.config.SnowflakeIdGenerator;
+import com.notification.platform.domain.entity.DeliveryStatusEvent;
+import com.notification.platform.domain.enums.DeliveryStatus;
+import com.notification.platform.domain.repository.DeliveryStatusEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeliveryStatusAggregatorTest {
+
+    @Mock
+    private DeliveryStatusEventRepository statusEventRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private DeliveryStatusAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        aggregator = new DeliveryStatusAggregator(statusEventRepository, new SnowflakeIdGenerator(1L),
+                new TransactionTemplate(transactionManager), 100);
+    }
+
+    @Test
+    @DisplayName("Buffered transitions are appended in one statement and only then reported as committed")
+    @SuppressWarnings("unchecked")
+    void flush_AppendsBufferedEventsInOneStatement() {
+        // given
+        CompletableFuture<Void> first = aggregator.record(1L, DeliveryStatus.DELIVERED, null);
+        CompletableFuture<Void> second = aggregator.record(2L, DeliveryStatus.FAILED, "SMTP 550");
+        assertThat(first).isNotDone();
+
+        // when
+        aggregator.flush();
+
+        // then
+        ArgumentCaptor<List<DeliveryStatusEvent>> events = ArgumentCaptor.forClass(List.class);
+        verify(statusEventRepository, times(1)).appendAll(events.capture());
+        assertThat(events.getValue())
+                .extracting(DeliveryStatusEvent::getDeliveryLogId, DeliveryStatusEvent::getStatus, DeliveryStatusEvent::getErrorMessage)
+                .containsExactly(
+                        tuple(1L, DeliveryStatus.DELIVERED, null),
+                        tuple(2L, DeliveryStatus.FAILED, "SMTP 550"));
+        assertThat(first).isCompleted();
+        assertThat(second).isCompleted();
+    }
+
+    @Test
+    @DisplayName("Every transition of one delivery is kept, with event ids in the order they were observed")
+    @SuppressWarnings("unchecked")
+    void flush_KeepsFullHistoryInOrder() {
+        // given
+        aggregator.record(1L, DeliveryStatus.QUEUED, null);
+        aggregator.record(1L, DeliveryStatus.DELIVERED, null);
+
+        // when
+        aggregator.flush();
+
+        // then
+        ArgumentCaptor<List<DeliveryStatusEvent>> events = ArgumentCaptor.forClass(List.class);
+        verify(statusEventRepository).appendAll(events.capture());
+        assertThat(events.getValue()).extracting(DeliveryStatusEvent::getStatus)
+                .containsExactly(DeliveryStatus.QUEUED, DeliveryStatus.DELIVERED);
+        assertThat(events.getValue().get(0).getId()).isLessThan(events.getValue().get(1).getId());
+    }
+
+    @Test
+    @DisplayName("A failed flush keeps the events pending and retries them on the next run")
+    void flush_RetriesAfterFailure() {
+        // given
+        CompletableFuture<Void> committed = aggregator.record(1L, DeliveryStatus.DELIVERED, null);
+        doThrow(new QueryTimeoutException("statement timeout"))
+                .doNothing()
+                .when(statusEventRepository).appendAll(anyList());
+
+        // when
+        aggregator.flush();
+
+        // then
+        assertThat(committed).isNotDone();
+
+        aggregator.flush();
+        assertThat(committed).isCompleted();
+        verify(statusEventRepository, times(2)).appendAll(anyList());
+    }
+}
@@ -0,0 +1,151 @@
+package com.notification.platform.retention;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.OffsetDateTime;
+import java.util.HexFormat;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+class PartitionArchiverTest {
+
+    private static final String TABLE = "delivery_logs";
+    private static final String PARTITION = "delivery_logs_p20260719";
+
+    @TempDir
+    private Path directory;
+
+    private ObjectMapper objectMapper;
+    private ArchiveStorage storage;
+    private PartitionArchiver archiver;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        storage = new LocalDirectoryArchiveStorage(directory.toString());
+        archiver = new PartitionArchiver(mock(DataSource.class), storage, objectMapper);
+    }
+
+    @Test
+    @DisplayName("An archive matching its manifest's row count, size and checksum verifies")
+    void verify_AcceptsIntactArchive() throws Exception {
+        // given
+        byte[] data = gzip("{\"id\":1}\n{\"id\":2}\n{\"id\":3}\n");
+        store(data, manifest(3, data));
+
+        // when & then
+        assertThat(archiver.verify(TABLE, PARTITION)).isTrue();
+        assertThat(directory.resolve(PartitionArchiver.dataKey(TABLE, PARTITION))).exists();
+    }
+
+    @Test
+    @DisplayName("Missing manifests, row count mismatches and corrupted data fail verification")
+    void verify_RejectsIncompleteOrCorruptedArchive() throws Exception {
+        byte[] data = gzip("{\"id\":1}\n{\"id\":2}\n");
+
+        // no manifest yet: the export never completed
+        try (ArchiveStorage.WriteStream out = storage.openWrite(PartitionArchiver.dataKey(TABLE, PARTITION))) {
+            out.write(data);
+            out.commit();
+        }
+        assertThat(archiver.verify(TABLE, PARTITION)).isFalse();
+
+        // manifest promises more rows than the data holds
+        store(data, manifest(3, data));
+        assertThat(archiver.verify(TABLE, PARTITION)).isFalse();
+
+        // a flipped byte in the stored object
+        byte[] corrupted = data.clone();
+        corrupted[corrupted.length - 5] ^= 0x01;
+        store(corrupted, manifest(2, data));
+        assertThat(archiver.verify(TABLE, PARTITION)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Only daily partitions of the partitioned tables are accepted, since their names end up in SQL")
+    void archive_RejectsUnknownPartitionNames() {
+        assertThrows(IllegalArgumentException.class, () -> archiver.archive(TABLE, "delivery_logs_p2026; DROP TABLE x"));
+        assertThrows(IllegalArgumentException.class, () -> archiver.archive(TABLE, "notification_requests_p20260719"));
+        assertThrows(IllegalArgumentException.class, () -> archiver.verify("pg_class", "pg_class_p20260719"));
+    }
+
+    @Test
+    @DisplayName("Local storage only exposes an object once its committed stream is closed")
+    void localStorage_PublishesOnClose() throws Exception {
+        // given
+        ArchiveStorage.WriteStream out = storage.openWrite("delivery_logs/partial.ndjson.gz");
+        out.write(new byte[]{1, 2, 3});
+        out.commit();
+
+        // then
+        assertThat(storage.exists("delivery_logs/partial.ndjson.gz")).isFalse();
+        out.close();
+        assertThat(storage.exists("delivery_logs/partial.ndjson.gz")).isTrue();
+        assertThat(Files.readAllBytes(directory.resolve("delivery_logs/partial.ndjson.gz"))).containsExactly(1, 2, 3);
+        assertThrows(IllegalArgumentException.class, () -> storage.openWrite("../outside"));
+    }
+
+    @Test
+    @DisplayName("A stream closed without commit, e.g. after a failed export, leaves the previous object and no temp file")
+    void localStorage_DiscardsUncommittedWrite() throws Exception {
+        // given
+        String key = "delivery_logs/complete.ndjson.gz";
+        try (ArchiveStorage.WriteStream out = storage.openWrite(key)) {
+            out.write(new byte[]{1, 2, 3});
+            out.commit();
+        }
+
+        // when
+        assertThrows(IOException.class, () -> {
+            try (ArchiveStorage.WriteStream out = storage.openWrite(key)) {
+                out.write(new byte[]{9});
+                throw new IOException("COPY failed");
+            }
+        });
+
+        // then
+        assertThat(Files.readAllBytes(directory.resolve(key))).containsExactly(1, 2, 3);
+        try (Stream<Path> files = Files.list(directory.resolve("delivery_logs"))) {
+            assertThat(files).containsExactly(directory.resolve(key));
+        }
+    }
+
+    private void store(byte[] data, ArchiveManifest manifest) throws IOException {
+        try (ArchiveStorage.WriteStream out = storage.openWrite(PartitionArchiver.dataKey(TABLE, PARTITION))) {
+            out.write(data);
+            out.commit();
+        }
+        try (ArchiveStorage.WriteStream out = storage.openWrite(PartitionArchiver.manifestKey(TABLE, PARTITION))) {
+            out.write(objectMapper.writeValueAsBytes(manifest));
+            out.commit();
+        }
+    }
+
+    private ArchiveManifest manifest(long rows, byte[] data) throws Exception {
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        return new ArchiveManifest(TABLE, PARTITION, PartitionArchiver.FORMAT, rows, data.length, sha256, OffsetDateTime.now());
+    }
+
+    private byte[] gzip(String ndjson) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(ndjson.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+}
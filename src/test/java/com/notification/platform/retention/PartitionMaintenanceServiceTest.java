@@ -0,0 +1,179 @@
+package com.notification.platform.retention;
+
+import com.notification.platform.config.SchedulerLock;
+import com.notification.platform.config.SnowflakeIdGenerator;
+import com.notification.platform.domain.repository.NotificationIdempotencyKeyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PartitionMaintenanceServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 18);
+    private static final SchedulerLock.Lease LEASE = new SchedulerLock.Lease(PartitionMaintenanceService.MAINTENANCE_LOCK, 3L);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private NotificationIdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private PartitionArchiver archiver;
+
+    @Mock
+    private SchedulerLock schedulerLock;
+
+    private PartitionMaintenanceService maintenanceService;
+
+    @BeforeEach
+    void setUp() {
+        maintenanceService = new PartitionMaintenanceService(jdbcTemplate, idempotencyKeyRepository,
+                new TransactionTemplate(transactionManager), archiver, schedulerLock);
+        lenient().when(schedulerLock.isCurrent(LEASE.name(), LEASE.fencingToken())).thenReturn(true);
+    }
+
+    @Test
+    @DisplayName("Future partitions are ensured for every partitioned table with its storage clause")
+    void createPartitions_EnsuresEveryTable() {
+        // when
+        maintenanceService.createPartitions(TODAY);
+
+        // then
+        for (String table : List.of("notification_requests", "delivery_logs", "delivery_status_events")) {
+            verify(jdbcTemplate).queryForObject(anyString(), eq(Integer.class), eq(table), eq(Date.valueOf(TODAY)), eq(7), eq(""));
+        }
+        verify(jdbcTemplate).queryForObject(anyString(), eq(Integer.class),
+                eq("delivery_log_status"), eq(Date.valueOf(TODAY)), eq(7), eq("WITH (fillfactor = 70)"));
+    }
+
+    @Test
+    @DisplayName("Only partitions whose day is past the 90-day retention are detached, archived and dropped")
+    void dropExpiredPartitions_DropsWholeExpiredDays() throws Exception {
+        // given: the cutoff is 2026-07-20
+        given(jdbcTemplate.queryForList(anyString(), anyString())).willReturn(List.of());
+        given(jdbcTemplate.queryForList(anyString(), eq("notification_requests_p%"))).willReturn(List.of(
+                partition("notification_requests_p20260719", true)));
+        given(jdbcTemplate.queryForList(anyString(), eq("delivery_logs_p%"))).willReturn(List.of(
+                partition("delivery_logs_p20260719", true),
+                partition("delivery_logs_p20260720", true),
+                partition("delivery_logs_p20261018", true),
+                partition("delivery_logs_parked", false)));
+        given(archiver.verify("notification_requests", "notification_requests_p20260719")).willReturn(true);
+        given(archiver.verify("delivery_logs", "delivery_logs_p20260719")).willReturn(false, true);
+        given(idempotencyKeyRepository.deleteBatchByRequestIdLessThan(anyLong(), anyInt())).willReturn(10000, 3);
+
+        // when
+        maintenanceService.dropExpiredPartitions(TODAY, LEASE);
+
+        // then
+        InOrder inOrder = inOrder(jdbcTemplate, archiver);
+        inOrder.verify(jdbcTemplate).execute("ALTER TABLE delivery_logs DETACH PARTITION delivery_logs_p20260719 CONCURRENTLY");
+        inOrder.verify(archiver).archive("delivery_logs", "delivery_logs_p20260719");
+        inOrder.verify(jdbcTemplate).execute("DROP TABLE delivery_logs_p20260719");
+        verify(jdbcTemplate).execute("DROP TABLE notification_requests_p20260719");
+        verify(jdbcTemplate, times(4)).execute(anyString());
+
+        // keys of the dropped requests are purged in batches until a short one comes back
+        long boundary = SnowflakeIdGenerator.minIdForTimestamp(
+                LocalDate.of(2026, 7, 20).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli());
+        verify(idempotencyKeyRepository, times(2)).deleteBatchByRequestIdLessThan(boundary, 10000);
+    }
+
+    @Test
+    @DisplayName("A detached partition whose archive cannot be verified is kept for the next run")
+    void dropExpiredPartitions_KeepsPartitionWithoutVerifiedArchive() throws Exception {
+        // given: detached by an earlier run that failed before the drop
+        given(jdbcTemplate.queryForList(anyString(), anyString())).willReturn(List.of());
+        given(jdbcTemplate.queryForList(anyString(), eq("notification_requests_p%")))
+                .willReturn(List.of(partition("notification_requests_p20260701", false)));
+        given(archiver.verify("notification_requests", "notification_requests_p20260701")).willReturn(false);
+
+        // when
+        maintenanceService.dropExpiredPartitions(TODAY, LEASE);
+
+        // then: nothing was dropped, so the idempotency keys of its requests are kept too
+        verify(archiver).archive("notification_requests", "notification_requests_p20260701");
+        verify(jdbcTemplate, never()).execute(anyString());
+        verify(idempotencyKeyRepository, never()).deleteBatchByRequestIdLessThan(anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("An interrupted concurrent detach is finalized, and keys are purged only up to the oldest kept request partition")
+    void dropExpiredPartitions_FinalizesPendingDetach() throws Exception {
+        // given: 07-01 was left detach-pending by a crashed run, 07-02 cannot be archived yet
+        given(jdbcTemplate.queryForList(anyString(), anyString())).willReturn(List.of());
+        given(jdbcTemplate.queryForList(anyString(), eq("notification_requests_p%"))).willReturn(List.of(
+                Map.of("relname", "notification_requests_p20260701", "attached", true, "detach_pending", true),
+                partition("notification_requests_p20260702", false)));
+        given(archiver.verify("notification_requests", "notification_requests_p20260701")).willReturn(true);
+        given(archiver.verify("notification_requests", "notification_requests_p20260702")).willReturn(false);
+        given(idempotencyKeyRepository.deleteBatchByRequestIdLessThan(anyLong(), anyInt())).willReturn(0);
+
+        // when
+        maintenanceService.dropExpiredPartitions(TODAY, LEASE);
+
+        // then
+        verify(jdbcTemplate).execute("ALTER TABLE notification_requests DETACH PARTITION notification_requests_p20260701 FINALIZE");
+        verify(jdbcTemplate).execute("DROP TABLE notification_requests_p20260701");
+        verify(jdbcTemplate, never()).execute("DROP TABLE notification_requests_p20260702");
+        long boundary = SnowflakeIdGenerator.minIdForTimestamp(
+                LocalDate.of(2026, 7, 2).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli());
+        verify(idempotencyKeyRepository).deleteBatchByRequestIdLessThan(boundary, 10000);
+    }
+
+    @Test
+    @DisplayName("Partitions are left alone once the maintenance lease has been taken over")
+    void dropExpiredPartitions_StopsWhenLeaseIsSuperseded() {
+        // given
+        given(jdbcTemplate.queryForList(anyString(), eq("notification_requests_p%")))
+                .willReturn(List.of(partition("notification_requests_p20260701", true)));
+        given(schedulerLock.isCurrent(LEASE.name(), LEASE.fencingToken())).willReturn(false);
+
+        // when
+        maintenanceService.dropExpiredPartitions(TODAY, LEASE);
+
+        // then
+        verify(jdbcTemplate, never()).execute(anyString());
+        verifyNoInteractions(archiver, idempotencyKeyRepository);
+    }
+
+    @Test
+    @DisplayName("A run is skipped while another instance holds the maintenance lock")
+    void maintain_SkipsWhileLockIsHeld() {
+        // given
+        given(schedulerLock.tryAcquire(eq(PartitionMaintenanceService.MAINTENANCE_LOCK), any())).willReturn(Optional.empty());
+
+        // when
+        maintenanceService.maintain();
+
+        // then
+        verifyNoInteractions(jdbcTemplate, archiver, idempotencyKeyRepository);
+    }
+
+    private Map<String, Object> partition(String name, boolean attached) {
+        return Map.of("relname", name, "attached", attached, "detach_pending", false);
+    }
+}
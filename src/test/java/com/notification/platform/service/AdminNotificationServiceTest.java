@@ -1,14 +1,21 @@
 package com.notification.platform.service;
 
 import com.notification.platform.api.dto.request.AdminRetryRequest;
+import com.notification.platform.api.dto.response.DeliveryStatusResponse;
 import com.notification.platform.config.SnowflakeIdGenerator;
 import com.notification.platform.domain.entity.DeliveryLog;
+import com.notification.platform.domain.entity.DeliveryLogStatus;
+import com.notification.platform.domain.entity.DeliveryStatusEvent;
 import com.notification.platform.domain.entity.NotificationRequest;
 import com.notification.platform.domain.enums.DeliveryStatus;
 import com.notification.platform.domain.enums.NotificationChannel;
 import com.notification.platform.domain.repository.DeliveryLogRepository;
+import com.notification.platform.domain.repository.DeliveryLogStatusRepository;
+import com.notification.platform.domain.repository.DeliveryStatusEventRepository;
 import com.notification.platform.domain.repository.NotificationRequestRepository;
 import com.notification.platform.messaging.event.NotificationRequestEvent;
+import com.notification.platform.messaging.send.KafkaSendPipeline;
+import com.notification.platform.messaging.status.DeliveryStatusAggregator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -18,10 +25,12 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
-import org.springframework.kafka.core.KafkaTemplate;
 
 import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -35,7 +44,13 @@ class AdminNotificationServiceTest {
     @Mock
     private DeliveryLogRepository logRepository;
     @Mock
-    private KafkaTemplate<String, Object> kafkaTemplate;
+    private DeliveryLogStatusRepository logStatusRepository;
+    @Mock
+    private DeliveryStatusEventRepository statusEventRepository;
+    @Mock
+    private KafkaSendPipeline sendPipeline;
+    @Mock
+    private DeliveryStatusAggregator statusAggregator;
     @Mock
     private StringRedisTemplate redisTemplate;
     @Mock
@@ -47,9 +62,9 @@ class AdminNotificationServiceTest {
 
     @BeforeEach
     void setUp() {
-        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
         adminNotificationService = new AdminNotificationService(
-                requestRepository, logRepository, kafkaTemplate, redisTemplate, snowflakeIdGenerator
+                requestRepository, logRepository, logStatusRepository, statusEventRepository, sendPipeline, statusAggregator, redisTemplate, snowflakeIdGenerator
         );
     }
 
@@ -73,11 +88,14 @@ class AdminNotificationServiceTest {
         when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
         when(requestRepository.findById(requestId)).thenReturn(Optional.of(mockRequest));
         when(snowflakeIdGenerator.nextId()).thenReturn(200L);
+        runSendsImmediately();
+        when(sendPipeline.publishRequest(anyString(), any(), anyString(), any(), anyLong())).thenReturn(CompletableFuture.completedFuture(true));
 
         // when
-        adminNotificationService.triggerRetry(requestId, retryRequest);
+        CompletableFuture<Boolean> published = adminNotificationService.triggerRetry(requestId, retryRequest);
 
         // then
+        assertTrue(published.join());
         // 1. Verify DeliveryLog creation
         ArgumentCaptor<DeliveryLog> logCaptor = ArgumentCaptor.forClass(DeliveryLog.class);
         verify(logRepository).save(logCaptor.capture());
@@ -87,12 +105,50 @@ class AdminNotificationServiceTest {
         assertEquals(DeliveryStatus.RETRY_PENDING, savedLog.getStatus());
         assertEquals(overrideAddress, savedLog.getTargetAddress());
 
-        // 2. Verify Kafka publication
+        // 2. Verify Kafka publication, carrying the retry log for the dispatcher to send under
         ArgumentCaptor<NotificationRequestEvent> eventCaptor = ArgumentCaptor.forClass(NotificationRequestEvent.class);
-        verify(kafkaTemplate).send(eq("notification.requests"), eq("user-1"), eventCaptor.capture());
+        verify(sendPipeline).publishRequest(eq("notification.requests"), any(), eq("user-1"), eventCaptor.capture(), eq(requestId));
         NotificationRequestEvent publishedEvent = eventCaptor.getValue();
         assertEquals(requestId, publishedEvent.getRequestId());
+        assertEquals(200L, publishedEvent.getDeliveryLogId());
         assertEquals(overrideAddress, publishedEvent.getTargetAddress());
+        verify(sendPipeline, never()).sendDelivery(anyString(), any(), anyString(), any(), anyLong());
+        verifyNoInteractions(statusAggregator);
+        verify(redisTemplate, never()).delete(anyString());
+    }
+
+    @Test
+    @DisplayName("Should release the retry lock when the broker rejects the re-published event")
+    void shouldReleaseLockWhenSendFails() {
+        // given
+        Long requestId = 100L;
+        NotificationRequest mockRequest = NotificationRequest.builder()
+                .id(requestId)
+                .recipientId("user-1")
+                .channel(NotificationChannel.EMAIL)
+                .targetAddress("old@example.com")
+                .build();
+
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+        when(requestRepository.findById(requestId)).thenReturn(Optional.of(mockRequest));
+        when(snowflakeIdGenerator.nextId()).thenReturn(200L);
+        runSendsImmediately();
+        when(sendPipeline.publishRequest(anyString(), any(), anyString(), any(), anyLong())).thenReturn(CompletableFuture.completedFuture(false));
+        when(statusAggregator.record(eq(200L), eq(DeliveryStatus.FAILED), anyString())).thenReturn(CompletableFuture.completedFuture(null));
+
+        // when
+        CompletableFuture<Boolean> published = adminNotificationService.triggerRetry(requestId, null);
+
+        // then: the caller learns that the retry was not published
+        assertFalse(published.join());
+        verify(redisTemplate).delete("retry_lock:100");
+        verify(statusAggregator).record(eq(200L), eq(DeliveryStatus.FAILED), anyString());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runSendsImmediately() {
+        when(sendPipeline.afterCommit(any())).thenAnswer(invocation ->
+                ((Supplier<CompletableFuture<?>>) invocation.getArgument(0)).get().thenApply(result -> null));
     }
 
     @Test
@@ -106,4 +162,34 @@ class AdminNotificationServiceTest {
         assertThrows(IllegalStateException.class, () -> adminNotificationService.triggerRetry(requestId, null));
         verify(requestRepository, never()).findById(anyLong());
     }
+
+    @Test
+    @DisplayName("Should report each delivery's current status from the projection, falling back to its initial status")
+    void shouldReportDeliveryStatuses() {
+        // given: the first delivery was delivered, the retry has no transition yet
+        Long requestId = 100L;
+        DeliveryLog delivered = DeliveryLog.builder().id(200L).channel(NotificationChannel.EMAIL).status(DeliveryStatus.PENDING).build();
+        DeliveryLog retry = DeliveryLog.builder().id(201L).channel(NotificationChannel.EMAIL).status(DeliveryStatus.RETRY_PENDING).build();
+        DeliveryLogStatus deliveredStatus = mock(DeliveryLogStatus.class);
+        when(deliveredStatus.getDeliveryLogId()).thenReturn(200L);
+        when(deliveredStatus.getStatus()).thenReturn(DeliveryStatus.DELIVERED);
+
+        when(requestRepository.existsById(requestId)).thenReturn(true);
+        when(logRepository.findByRequestId(requestId)).thenReturn(List.of(delivered, retry));
+        when(logStatusRepository.findAllById(List.of(200L, 201L))).thenReturn(List.of(deliveredStatus));
+        when(statusEventRepository.findHistory(List.of(200L, 201L))).thenReturn(List.of(
+                DeliveryStatusEvent.builder().id(1L).deliveryLogId(200L).status(DeliveryStatus.QUEUED).build(),
+                DeliveryStatusEvent.builder().id(2L).deliveryLogId(200L).status(DeliveryStatus.DELIVERED).build()));
+
+        // when
+        List<DeliveryStatusResponse> deliveries = adminNotificationService.getDeliveries(requestId);
+
+        // then
+        assertEquals(2, deliveries.size());
+        assertEquals(DeliveryStatus.DELIVERED, deliveries.get(0).getStatus());
+        assertEquals(List.of(DeliveryStatus.QUEUED, DeliveryStatus.DELIVERED),
+                deliveries.get(0).getHistory().stream().map(DeliveryStatusResponse.Transition::getStatus).toList());
+        assertEquals(DeliveryStatus.RETRY_PENDING, deliveries.get(1).getStatus());
+        assertTrue(deliveries.get(1).getHistory().isEmpty());
+    }
 }
@@ -1,12 +1,19 @@
 package com.notification.platform.service;
 
 import com.notification.platform.api.dto.request.NotificationSendRequest;
+import com.notification.platform.api.dto.response.NotificationBatchSendResponse;
 import com.notification.platform.api.dto.response.NotificationSendResponse;
+import com.notification.platform.domain.entity.NotificationIdempotencyKey;
+import com.notification.platform.domain.entity.NotificationOutbox;
 import com.notification.platform.domain.entity.NotificationRequest;
 import com.notification.platform.domain.enums.NotificationChannel;
 import com.notification.platform.domain.enums.NotificationIngressStatus;
+import com.notification.platform.domain.enums.NotificationPriority;
+import com.notification.platform.domain.repository.NotificationIdempotencyKeyRepository;
+import com.notification.platform.domain.repository.NotificationOutboxRepository;
 import com.notification.platform.domain.repository.NotificationRequestRepository;
-import com.notification.platform.messaging.event.NotificationRequestCreatedEvent;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -15,12 +22,14 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -40,11 +49,17 @@ class NotificationServiceTest {
     private ValueOperations<String, String> valueOperations;
 
     @Mock
-    private ApplicationEventPublisher eventPublisher;
+    private NotificationOutboxRepository outboxRepository;
+
+    @Mock
+    private NotificationIdempotencyKeyRepository idempotencyKeyRepository;
 
     @Mock
     private com.notification.platform.config.SnowflakeIdGenerator snowflakeIdGenerator;
 
+    @Mock
+    private Validator validator;
+
     @InjectMocks
     private NotificationService notificationService;
 
@@ -64,11 +79,11 @@ class NotificationServiceTest {
                 .channel(NotificationChannel.EMAIL)
                 .targetAddress("test@test.com")
                 .payload(Map.of("message", "hello"))
-                .priority("NORMAL")
+                .priority(NotificationPriority.NORMAL)
                 .build();
 
         given(valueOperations.get(anyString())).willReturn(null);
-        given(repository.findByIdempotencyKey(anyString())).willReturn(Optional.empty());
+        given(idempotencyKeyRepository.findById(anyString())).willReturn(Optional.empty());
 
         // when
         notificationService.triggerNotification(request);
@@ -78,7 +93,13 @@ class NotificationServiceTest {
         verify(repository).save(captor.capture());
         assertThat(captor.getValue().getStatus()).isEqualTo(NotificationIngressStatus.ACCEPTED);
         
-        verify(eventPublisher, times(1)).publishEvent(any(NotificationRequestCreatedEvent.class));
+        verify(outboxRepository, times(1)).save(any(NotificationOutbox.class));
+
+        // FR-11: the key is claimed in the same transaction
+        ArgumentCaptor<NotificationIdempotencyKey> keyCaptor = ArgumentCaptor.forClass(NotificationIdempotencyKey.class);
+        verify(idempotencyKeyRepository).save(keyCaptor.capture());
+        assertThat(keyCaptor.getValue().getIdempotencyKey()).isEqualTo("new-key");
+        assertThat(keyCaptor.getValue().getRequestId()).isEqualTo(captor.getValue().getId());
     }
 
     @Test
@@ -91,14 +112,13 @@ class NotificationServiceTest {
                 .idempotencyKey(key)
                 .build();
 
-        NotificationRequest existingRequest = NotificationRequest.builder()
-                .id(existingId)
+        NotificationIdempotencyKey existingKey = NotificationIdempotencyKey.builder()
                 .idempotencyKey(key)
-                .status(NotificationIngressStatus.ACCEPTED)
+                .requestId(existingId)
                 .build();
 
         given(valueOperations.get("idempotency:" + key)).willReturn(null);
-        given(repository.findByIdempotencyKey(key)).willReturn(Optional.of(existingRequest));
+        given(idempotencyKeyRepository.findById(key)).willReturn(Optional.of(existingKey));
 
         // when
         NotificationSendResponse response = notificationService.triggerNotification(request);
@@ -106,7 +126,7 @@ class NotificationServiceTest {
         // then
         assertThat(response.getRequestId()).isEqualTo(existingId);
         verify(valueOperations).set(eq("idempotency:" + key), eq(existingId.toString()), any());
-        verify(eventPublisher, never()).publishEvent(any());
+        verify(outboxRepository, never()).save(any());
     }
 
     @Test
@@ -125,6 +145,62 @@ class NotificationServiceTest {
 
         // then
         assertThat(response.getRequestId()).isEqualTo(existingId);
-        verify(eventPublisher, never()).publishEvent(any());
+        verify(outboxRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Batch ingress returns per-item ACCEPTED/DUPLICATE/INVALID results and persists new items together")
+    @SuppressWarnings("unchecked")
+    void triggerNotifications_ReturnsPerItemResults() {
+        // given
+        NotificationSendRequest newItem = NotificationSendRequest.builder()
+                .idempotencyKey("batch-new")
+                .producerName("ORDER_SERVICE")
+                .recipientId("user-1")
+                .channel(NotificationChannel.EMAIL)
+                .payload(Map.of("message", "hello"))
+                .build();
+        NotificationSendRequest invalidItem = NotificationSendRequest.builder()
+                .idempotencyKey("batch-invalid")
+                .build();
+        NotificationSendRequest cachedItem = NotificationSendRequest.builder()
+                .idempotencyKey("batch-cached")
+                .producerName("ORDER_SERVICE")
+                .recipientId("user-2")
+                .channel(NotificationChannel.EMAIL)
+                .payload(Map.of("message", "hello"))
+                .build();
+
+        ConstraintViolation<NotificationSendRequest> violation = mock(ConstraintViolation.class);
+        given(violation.getMessage()).willReturn("Recipient ID is required");
+        given(validator.validate(any(NotificationSendRequest.class))).willReturn(Set.of());
+        given(validator.validate(invalidItem)).willReturn(Set.of(violation));
+
+        // keys are resolved in first-appearance order: batch-new, batch-cached
+        given(valueOperations.multiGet(anyList())).willReturn(Arrays.asList(null, "777"));
+        given(idempotencyKeyRepository.findAllById(anyCollection())).willReturn(List.of());
+        given(snowflakeIdGenerator.nextIds(1)).willReturn(new long[]{100L}, new long[]{200L});
+
+        // when: the new item is repeated inside the same batch
+        NotificationBatchSendResponse response = notificationService.triggerNotifications(
+                List.of(newItem, invalidItem, cachedItem, newItem));
+
+        // then
+        assertThat(response.getAcceptedCount()).isEqualTo(1);
+        assertThat(response.getDuplicateCount()).isEqualTo(2);
+        assertThat(response.getInvalidCount()).isEqualTo(1);
+
+        assertThat(response.getResults()).extracting("status").containsExactly(
+                NotificationIngressStatus.ACCEPTED,
+                NotificationIngressStatus.INVALID,
+                NotificationIngressStatus.DUPLICATE,
+                NotificationIngressStatus.DUPLICATE);
+        assertThat(response.getResults()).extracting("requestId").containsExactly(100L, null, 777L, 100L);
+
+        ArgumentCaptor<List<NotificationRequest>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repository).saveAll(captor.capture());
+        assertThat(captor.getValue()).hasSize(1);
+        verify(idempotencyKeyRepository, times(1)).saveAll(anyList());
+        verify(outboxRepository, times(1)).saveAll(anyList());
     }
 }